@@ -0,0 +1,174 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.protocol;
+
+import static java.lang.System.arraycopy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.romraider.io.connection.SerialConnectionProperties;
+import com.romraider.io.protocol.ds2.iso9141.DS2LoggerProtocol;
+import com.romraider.io.protocol.ncs.iso14230.NCSLoggerProtocol;
+import com.romraider.io.virtual.VirtualConnectionManager;
+import com.romraider.logger.ecu.comms.io.protocol.LoggerProtocol;
+import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.QueryFixtures;
+import com.romraider.logger.ecu.definition.Module;
+
+/**
+ * The work of one poll on the tester side: building the read request for
+ * the selected parameters and splitting the response into the query
+ * results.  The responses are recorded once from a virtual ECU of the
+ * protocol, so no line time is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerProtocolBenchmark {
+    private static final Module K_LINE_ECU = new Module(
+            "ECU", new byte[]{0x10}, "Engine", new byte[]{(byte) 0xF0}, true);
+    private static final Module DS2_ECU = new Module(
+            "ECU", new byte[]{0x12}, "Engine", new byte[]{(byte) 0xF1}, false);
+    private static final Module CAN_ECU = new Module(
+            "ECU", new byte[]{0x00, 0x00, 0x07, (byte) 0xE8}, "Engine",
+            new byte[]{0x00, 0x00, 0x07, (byte) 0xE0}, true);
+
+    @Param({"SSM/ISO9141", "SSM/ISO15765", "DS2/ISO9141", "NCS/ISO14230", "OBD/ISO15765"})
+    public String protocol;
+
+    private LoggerProtocol loggerProtocol;
+    private Module module;
+    private List<EcuQuery> queries;
+    private PollingState pollState;
+    private byte[] request;
+    private byte[] response;
+
+    @Setup
+    public void setup() {
+        final String[] names = protocol.split("/");
+        final String transport = names[1];
+        // record the responses without any line time
+        for (String property : new String[]{"baud", "p1", "p2", "p3", "p4"}) {
+            System.setProperty("romraider.virtual." + property, "0");
+        }
+        loggerProtocol = ProtocolFactory.getProtocol(names[0], transport);
+        module = "OBD".equals(names[0]) || "ISO15765".equals(transport)
+                ? CAN_ECU : "DS2".equals(names[0]) ? DS2_ECU : K_LINE_ECU;
+        queries = queries(names[0]);
+        pollState = new PollingStateImpl();
+
+        final VirtualConnectionManager manager = VirtualConnectionManager.create(
+                names[0], transport,
+                new SerialConnectionProperties(4800, 8, 1, 0, 2000, 55));
+        // NCS starts with a fast init when the connection is opened
+        final byte[] init = loggerProtocol.constructEcuInitRequest(module);
+        if (init != null) {
+            manager.send(init);
+        }
+        if (loggerProtocol instanceof DS2LoggerProtocol) {
+            final DS2LoggerProtocol ds2 = (DS2LoggerProtocol) loggerProtocol;
+            final byte[] set = ds2.constructSetAddressRequest(module, queries);
+            manager.send(set, ds2.constructSetAddressResponse(set.length), pollState);
+        }
+        else if (loggerProtocol instanceof NCSLoggerProtocol) {
+            manager.send(((NCSLoggerProtocol) loggerProtocol)
+                    .constructLoadAddressRequest(queries));
+        }
+        request = constructRequest();
+        response = responseBuffer();
+        manager.send(request, response, pollState);
+    }
+
+    @Benchmark
+    public byte[] constructRequest() {
+        return loggerProtocol.constructReadAddressRequest(module, queries);
+    }
+
+    @Benchmark
+    public double processResponse() {
+        final byte[] received = responseBuffer();
+        arraycopy(response, 0, received, 0, received.length);
+        loggerProtocol.processReadAddressResponses(queries,
+                loggerProtocol.preprocessResponse(request, received, pollState),
+                pollState);
+        return queries.get(queries.size() - 1).getResponse();
+    }
+
+    private byte[] responseBuffer() {
+        if (loggerProtocol instanceof DS2LoggerProtocol) {
+            return ((DS2LoggerProtocol) loggerProtocol)
+                    .constructReadAddressResponse(queries, request.length);
+        }
+        return loggerProtocol.constructReadAddressResponse(queries, pollState);
+    }
+
+    // a typical selection of engine parameters, OBD is limited to six PIDs
+    // and like DS2 gives the length of a PID by its storage type
+    private static List<EcuQuery> queries(String protocol) {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        if ("OBD".equals(protocol)) {
+            final String[] pids = {"0x04", "0x05", "0x0B", "0x0C", "0x0D", "0x11"};
+            final int[] lengths = {1, 1, 1, 2, 1, 1};
+            for (int i = 0; i < pids.length; i++) {
+                queries.add(query("P" + i, pids[i], 1, lengths[i]));
+            }
+        }
+        else {
+            // DS2 addresses are four bytes, SSM RAM addresses three
+            final boolean ds2 = "DS2".equals(protocol);
+            final String base = ds2 ? "0x0000E0" : "0xFF6A";
+            final int[] lengths = {2, 1, 1, 2, 1, 2, 1, 1, 2, 1};
+            int offset = 0;
+            for (int i = 0; i < lengths.length; i++) {
+                queries.add(query("P" + i,
+                        base + String.format("%02X", offset),
+                        ds2 ? 1 : lengths[i], lengths[i]));
+                offset += lengths[i];
+            }
+        }
+        return queries;
+    }
+
+    private static EcuQuery query(
+            String id, String address, int addresses, int length) {
+
+        return QueryFixtures.query(id, address, addresses,
+                length == 2 ? "uint16" : "uint8");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+/**
+ * The conversion of a raw logger response to its real value, done for
+ * every parameter of every poll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EcuParameterConvertorBenchmark {
+    private static final GaugeMinMax GAUGE = new GaugeMinMax(0, 100, 10);
+    private final byte[] uint8 = {(byte) 0x8C};
+    private final byte[] uint16 = {0x1A, (byte) 0xF4};
+    private final byte[] float32 = {0x42, (byte) 0xF6, (byte) 0xE9, 0x79};
+    private final byte[] derived = {0x1A, (byte) 0xF4, 0x3C};
+    private EcuParameterConvertorImpl temperature;
+    private EcuParameterConvertorImpl engineSpeed;
+    private EcuParameterConvertorImpl airflow;
+    private EcuParameterConvertorImpl switchBit;
+    private EcuDerivedParameterConvertorImpl load;
+
+    @Setup
+    public void setup() {
+        temperature = convertor("C", "x-40", "0", -1, "uint8");
+        engineSpeed = convertor("rpm", "x/4", "0", -1, "uint16");
+        airflow = convertor("g/s", "x", "0.00", -1, "float");
+        switchBit = convertor("On/Off", "x", "0", 3, "uint8");
+
+        final EcuData rpm = parameter("P8", "0xFF6A24", 2,
+                convertor("rpm", "x/4", "0", -1, "uint16"));
+        final EcuData throttle = parameter("P13", "0xFF6A26", 1,
+                convertor("%", "x*100/255", "0.0", -1, "uint8"));
+        load = new EcuDerivedParameterConvertorImpl("%",
+                "[P8:rpm]*[P13:%]/6000", "0.0",
+                new HashMap<String, String>(), GAUGE);
+        load.setEcuDatas(new EcuData[]{rpm, throttle});
+    }
+
+    @Benchmark
+    public double convertUint8() {
+        return temperature.convert(uint8);
+    }
+
+    @Benchmark
+    public double convertUint16() {
+        return engineSpeed.convert(uint16);
+    }
+
+    @Benchmark
+    public double convertFloat() {
+        return airflow.convert(float32);
+    }
+
+    @Benchmark
+    public double convertBit() {
+        return switchBit.convert(uint8);
+    }
+
+    @Benchmark
+    public double convertDerived() {
+        return load.convert(derived);
+    }
+
+    private static EcuParameterConvertorImpl convertor(
+            String units, String expression, String format, int bit,
+            String dataType) {
+
+        return new EcuParameterConvertorImpl(units, expression, format, bit,
+                dataType, Settings.Endian.BIG, new HashMap<String, String>(),
+                GAUGE);
+    }
+
+    private static EcuData parameter(
+            String id, String address, int length,
+            EcuDataConvertor convertor) {
+
+        return new EcuParameterImpl(id, id, "", new EcuAddressImpl(address, length, -1),
+                null, null, null, new EcuDataConvertor[]{convertor});
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
+import com.romraider.swing.JProgressPane;
+import com.romraider.xml.DOMRomUnmarshaller;
+
+/**
+ * Opening an image and reading and editing its cells.  The ROM is the
+ * last one of the sample definition, given with the system property
+ * <code>romraider.benchmark.definition</code>, populated from a seeded
+ * random image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RomBenchmark {
+    private static final String DEFINITION = "src/test/definitions/scalingbase_test.xml";
+    private static final int INPUTS = 4096;
+    private final JProgressPane progress = new JProgressPane();
+    private final double[] inputs = new double[INPUTS];
+    private byte[] image;
+    private Rom rom;
+    private List<DataCell> cells;
+    private Table table;
+    private Scale scale;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        final File definition = new File(System.getProperty(
+                "romraider.benchmark.definition", DEFINITION));
+        final Document document = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder().parse(definition);
+        final Element root = document.getDocumentElement();
+        final NodeList roms = root.getElementsByTagName("rom");
+        final Node romNode = roms.item(roms.getLength() - 1);
+
+        image = new byte[512 * 1024];
+        new Random(0).nextBytes(image);
+        rom = new DOMRomUnmarshaller().unmarshallXMLDefinition(
+                definition, root, romNode, image, progress);
+        populateTables();
+
+        cells = new ArrayList<DataCell>();
+        for (Table t : rom.getTables()) {
+            addCells(t);
+            if (table == null) {
+                table = t;
+            }
+        }
+        scale = table.getCurrentScale();
+        final double min = scale.toReal(0);
+        final double max = scale.toReal(0xFFFF);
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = min + (max - min) * i / INPUTS;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Rom populateTables() {
+        rom.populateTables(image, progress);
+        // populating registers the tables again, keep the handler bounded
+        for (Table t : rom.getTables()) {
+            TableUpdateHandler.getInstance().deregisterTable(t);
+        }
+        return rom;
+    }
+
+    @Benchmark
+    public double getRealValue() {
+        double sum = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            sum += cells.get(i).getRealValue();
+        }
+        return sum;
+    }
+
+    /**
+     * Only the first inputs are cached by the scale, the rest are searched
+     * on every call.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double approximateToByteFunction() {
+        next = (next + 1) % INPUTS;
+        return scale.approximateToByteFunction(
+                inputs[next], table.getStorageType(), table.isSignedData());
+    }
+
+    private void addCells(Table t) {
+        if (t instanceof Table3D) {
+            final Table3D table3d = (Table3D) t;
+            for (DataCell[] column : table3d.get3dData()) {
+                for (DataCell cell : column) {
+                    cells.add(cell);
+                }
+            }
+            addCells(table3d.getXAxis());
+            addCells(table3d.getYAxis());
+            return;
+        }
+        for (DataCell cell : t.getData()) {
+            cells.add(cell);
+        }
+        if (t instanceof Table2D) {
+            addCells(((Table2D) t).getAxis());
+        }
+    }
+}
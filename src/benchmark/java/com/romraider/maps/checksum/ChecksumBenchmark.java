@@ -0,0 +1,107 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The checksum validation run when an image is opened and the update run
+ * when it is saved, for every checksum type shipped, over a 1 MB range of
+ * a 2 MB image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksumBenchmark {
+    private static final int SIZE = 0x200000;
+    private static final int E38_INDEX = 0x10000;
+    private static final int[] E38_SEGMENTS = {0x24, 0x48, 0x6B, 0x8E, 0xB1, 0xD4};
+
+    @Param({"STD", "ALT", "ALT2", "BYTEXOR", "COPY", "MOTRONICSINGLE",
+            "MOTRONICDOUBLE", "E38PCM"})
+    public String type;
+
+    private ChecksumManager manager;
+    private byte[] image;
+
+    @Setup
+    public void setup() throws Exception {
+        image = new byte[SIZE];
+        new Random(0).nextBytes(image);
+        if ("E38PCM".equals(type)) {
+            // the segment table of the PCM, six segments of 128 kB
+            for (int i = 0; i < E38_SEGMENTS.length; i++) {
+                final int start = 0x20000 * (i + 1);
+                putInt(E38_INDEX + E38_SEGMENTS[i], start);
+                putInt(E38_INDEX + E38_SEGMENTS[i] + 4, start + 0x1FFFF);
+            }
+        }
+
+        // the same configuration keys the definitions use
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("type", type);
+        vars.put("start", "0x0");
+        vars.put("end", "0xFFFFF");
+        vars.put("sumloc", "0x100000");
+        vars.put("xorloc", "0x100004");
+        vars.put("loc", "0x100000");
+        vars.put("startsecond", "0x100010");
+        vars.put("endsecond", "0x1FFFFF");
+        manager = (ChecksumManager) Class.forName(
+                ChecksumManager.class.getPackage().getName() + ".Checksum" + type)
+                .getDeclaredConstructor().newInstance();
+        manager.configure(vars);
+    }
+
+    @Benchmark
+    public int validate() {
+        return manager.validate(image);
+    }
+
+    @Benchmark
+    public int update() {
+        return manager.update(image);
+    }
+
+    private void putInt(int offset, int value) {
+        image[offset] = (byte) (value >>> 24);
+        image[offset + 1] = (byte) (value >>> 16);
+        image[offset + 2] = (byte) (value >>> 8);
+        image[offset + 3] = (byte) value;
+    }
+}
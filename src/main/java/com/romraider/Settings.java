@@ -26,6 +26,7 @@ import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
 import java.awt.Font;
 import java.awt.Point;
 import java.io.File;
@@ -217,6 +218,7 @@ public class Settings implements Serializable {
     private String fileLoggingControllerSwitchId = "S20"; // defogger switch by default
     private boolean fileLoggingControllerSwitchActive = false;
     private boolean fileLoggingAbsoluteTimestamp;
+    private boolean fileLoggingBinary;
     private String logfileNameText;
     private boolean logExternalsOnly;
     private boolean autoConnectOnStartup = true;
@@ -230,12 +232,14 @@ public class Settings implements Serializable {
     private boolean loggerParameterListState = true;
     private Map<String, Integer> tabWarningThresholds = new HashMap<String, Integer>();
     private ConnectionProperties loggerConnectionProperties;
-    private Map<String, EcuDefinition> loggerEcuDefinitionMap;
+    private volatile Map<String, EcuDefinition> loggerEcuDefinitionMap;
     private Map<String, String> loggerPluginPorts;
     private boolean loggerRefreshMode;
     private static String loggerTargetModule = "ecu";
     private static Module loggerDestinationTarget;
     private boolean fastPoll = true;
+    private int loggerPipelineCapacity = 256;
+    private String loggerPipelineOverflow = "DROP_OLDEST";
     private double loggerDividerLocation = 400;
     private String loggerDebuggingLevel = "info";
     private boolean debugToFile;
@@ -286,10 +290,12 @@ public class Settings implements Serializable {
     private boolean searchElm327 = false;
 
     public Settings() {
-        //center window by default
-        Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
-        windowLocation.move(((int) (screenSize.getWidth() - windowSize.getWidth()) / 2),
-                ((int) (screenSize.getHeight() - windowSize.getHeight()) / 2));
+        //center window by default, there is no screen when run headless
+        if (!GraphicsEnvironment.isHeadless()) {
+            Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
+            windowLocation.move(((int) (screenSize.getWidth() - windowSize.getWidth()) / 2),
+                    ((int) (screenSize.getHeight() - windowSize.getHeight()) / 2));
+        }
     }
 
     public Dimension getWindowSize() {
@@ -669,6 +675,14 @@ public class Settings implements Serializable {
         this.fileLoggingAbsoluteTimestamp = fileLoggingAbsoluteTimestamp;
     }
 
+    public boolean isFileLoggingBinary() {
+        return fileLoggingBinary;
+    }
+
+    public void setFileLoggingBinary(boolean fileLoggingBinary) {
+        this.fileLoggingBinary = fileLoggingBinary;
+    }
+
     public ConnectionProperties getLoggerConnectionProperties() {
         return loggerConnectionProperties;
     }
@@ -765,6 +779,22 @@ public class Settings implements Serializable {
         return fastPoll;
     }
 
+    public void setLoggerPipelineCapacity(int capacity) {
+        this.loggerPipelineCapacity = capacity;
+    }
+
+    public int getLoggerPipelineCapacity() {
+        return loggerPipelineCapacity;
+    }
+
+    public void setLoggerPipelineOverflow(String overflow) {
+        this.loggerPipelineOverflow = overflow;
+    }
+
+    public String getLoggerPipelineOverflow() {
+        return loggerPipelineOverflow;
+    }
+
     public void setLogfileNameText(String text) {
         this.logfileNameText = text;
     }
@@ -0,0 +1,384 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.editor.ecu;
+
+import static org.w3c.dom.Node.ELEMENT_NODE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.romraider.maps.RomID;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.DOMRomUnmarshaller;
+
+/**
+ * A persistent index of the <code>romid</code> of every <code>rom</code>
+ * in the ECU definition files.  Identifying a ROM image only compares the
+ * internal ID bytes recorded in the index, and only the one matching
+ * definition file has to be parsed to open it.
+ * <p>
+ * Each definition file is indexed by its path and checked against its
+ * modification time and size.  When either has changed the content hash
+ * decides whether the file must be parsed and indexed again.  The index is
+ * saved as <code>definitions.idx</code> next to the settings file.
+ */
+public final class DefinitionIndex {
+    private static final Logger LOGGER = Logger.getLogger(DefinitionIndex.class);
+    private static final int MAGIC = 0x52524449; // RRDI
+    private static final int VERSION = 1;
+    private static final String INDEX_FILE = "definitions.idx";
+    private static DefinitionIndex instance;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private final File indexFile;
+    private Document indexedDocument;
+    private File indexedFile;
+    private boolean dirty;
+
+    DefinitionIndex(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    public static synchronized DefinitionIndex getInstance() {
+        if (instance == null) {
+            SettingsManager.getSettings();
+            instance = new DefinitionIndex(
+                    new File(SettingsManager.getSettingsDir(), INDEX_FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * Find the first <code>rom</code> of a definition file that matches
+     * the image, indexing the file first if it is new or has changed.
+     * @param   definition - the definition file to check
+     * @param   input - the ROM image
+     * @return  the matching rom, or null if no rom matches
+     * @throws  Exception if the definition has to be indexed and cannot
+     *          be parsed
+     */
+    public synchronized Match findMatch(File definition, byte[] input) throws Exception {
+        for (IndexedRom rom : getEntry(definition).roms) {
+            if (rom.romId.checkMatch(input)) {
+                return new Match(rom.position, rom.romId.getXmlid());
+            }
+        }
+        if (definition.equals(indexedFile)) {
+            indexedDocument = null;
+            indexedFile = null;
+        }
+        return null;
+    }
+
+    /**
+     * Parse a definition file, reusing the document read while indexing
+     * it if there is one.
+     * @param   definition - the definition file
+     * @return  the definition document
+     * @throws  Exception if the definition cannot be parsed
+     */
+    public synchronized Document getDocument(File definition) throws Exception {
+        if (indexedDocument != null && definition.equals(indexedFile)) {
+            final Document doc = indexedDocument;
+            indexedDocument = null;
+            indexedFile = null;
+            return doc;
+        }
+        return OpenImageWorker.createDocument(definition);
+    }
+
+    /**
+     * @param   rootNode - the root element of a definition
+     * @param   position - the position of a {@link Match}
+     * @return  the rom element at the position, or null if there is none
+     */
+    public static Node getRomNode(Node rootNode, int position) {
+        final NodeList nodes = rootNode.getChildNodes();
+        int count = 0;
+        for (int i = 0; i < nodes.getLength(); i++) {
+            final Node n = nodes.item(i);
+            if (n.getNodeType() == ELEMENT_NODE
+                    && n.getNodeName().equalsIgnoreCase("rom")
+                    && count++ == position) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drop the entries of definition files that are no longer configured,
+     * and the document kept from indexing.
+     * @param   definitions - the configured definition files
+     */
+    public synchronized void retain(Collection<File> definitions) {
+        final Set<String> paths = new HashSet<String>();
+        for (File definition : definitions) {
+            paths.add(definition.getAbsolutePath());
+        }
+        for (Iterator<String> i = entries.keySet().iterator(); i.hasNext();) {
+            if (!paths.contains(i.next())) {
+                i.remove();
+                dirty = true;
+            }
+        }
+        indexedDocument = null;
+        indexedFile = null;
+    }
+
+    /**
+     * Write the index to disk if it has changed.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            final DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(indexFile)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    entry.write(out);
+                }
+            } finally {
+                out.close();
+            }
+            dirty = false;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save definition index " + indexFile, e);
+        }
+    }
+
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    LOGGER.info("Rebuilding definition index " + indexFile);
+                    return;
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    final Entry entry = Entry.read(in);
+                    entries.put(entry.path, entry);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load definition index " + indexFile, e);
+            entries.clear();
+        }
+    }
+
+    private Entry getEntry(File definition) throws Exception {
+        final String path = definition.getAbsolutePath();
+        Entry entry = entries.get(path);
+        if (entry != null && entry.lastModified == definition.lastModified()
+                && entry.length == definition.length()) {
+            return entry;
+        }
+        final byte[] hash = hash(definition);
+        if (entry != null && Arrays.equals(entry.hash, hash)) {
+            entry.lastModified = definition.lastModified();
+            entry.length = definition.length();
+            dirty = true;
+            return entry;
+        }
+        entry = index(definition, hash);
+        entries.put(path, entry);
+        dirty = true;
+        return entry;
+    }
+
+    private Entry index(File definition, byte[] hash) throws Exception {
+        LOGGER.info("Indexing definition " + definition.getName());
+        final Document doc = OpenImageWorker.createDocument(definition);
+        if (doc == null) {
+            throw new IOException(definition.getName());
+        }
+        final Entry entry = new Entry(definition.getAbsolutePath());
+        entry.lastModified = definition.lastModified();
+        entry.length = definition.length();
+        entry.hash = hash;
+
+        final NodeList nodes = doc.getDocumentElement().getChildNodes();
+        int position = 0;
+        for (int i = 0; i < nodes.getLength(); i++) {
+            final Node n = nodes.item(i);
+            if (n.getNodeType() != ELEMENT_NODE
+                    || !n.getNodeName().equalsIgnoreCase("rom")) {
+                continue;
+            }
+            final NodeList children = n.getChildNodes();
+            for (int z = 0; z < children.getLength(); z++) {
+                final Node child = children.item(z);
+                if (child.getNodeType() == ELEMENT_NODE
+                        && child.getNodeName().equalsIgnoreCase("romid")) {
+                    final RomID romId = new DOMRomUnmarshaller().unmarshallRomID(
+                            child, new RomID());
+                    entry.roms.add(new IndexedRom(position, romId));
+                    break;
+                }
+            }
+            position++;
+        }
+        indexedDocument = doc;
+        indexedFile = definition;
+        return entry;
+    }
+
+    private static byte[] hash(File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static final class Entry {
+        private final String path;
+        private final List<IndexedRom> roms = new ArrayList<IndexedRom>();
+        private long lastModified;
+        private long length;
+        private byte[] hash;
+
+        private Entry(String path) {
+            this.path = path;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(lastModified);
+            out.writeLong(length);
+            out.writeInt(hash.length);
+            out.write(hash);
+            out.writeInt(roms.size());
+            for (IndexedRom rom : roms) {
+                out.writeInt(rom.position);
+                out.writeUTF(nullToEmpty(rom.romId.getXmlid()));
+                out.writeInt(rom.romId.getInternalIdAddress());
+                out.writeUTF(nullToEmpty(rom.romId.getInternalIdString()));
+                out.writeInt(rom.romId.getFileSize());
+            }
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            final Entry entry = new Entry(in.readUTF());
+            entry.lastModified = in.readLong();
+            entry.length = in.readLong();
+            entry.hash = new byte[in.readInt()];
+            in.readFully(entry.hash);
+            for (int i = in.readInt(); i > 0; i--) {
+                final int position = in.readInt();
+                final RomID romId = new RomID();
+                romId.setXmlid(in.readUTF());
+                romId.setInternalIdAddress(in.readInt());
+                romId.setInternalIdString(in.readUTF());
+                romId.setFileSize(in.readInt());
+                entry.roms.add(new IndexedRom(position, romId));
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * A <code>rom</code> of a definition file that matches an image.
+     */
+    public static final class Match {
+        private final int position;
+        private final String xmlId;
+
+        private Match(int position, String xmlId) {
+            this.position = position;
+            this.xmlId = xmlId;
+        }
+
+        /**
+         * @return  the position of the rom among the rom elements of the
+         *          definition
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return  the xmlid of the rom
+         */
+        public String getXmlId() {
+            return xmlId;
+        }
+    }
+
+    private static final class IndexedRom {
+        private final int position;
+        private final RomID romId;
+
+        private IndexedRom(int position, RomID romId) {
+            this.position = position;
+            this.romId = romId;
+        }
+    }
+}
@@ -70,6 +70,8 @@ import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.tree.TreePath;
 
+import org.w3c.dom.Document;
+
 import com.romraider.ECUExec;
 import com.romraider.Settings;
 import com.romraider.logger.ecu.EcuLogger;
@@ -288,13 +290,18 @@ public class ECUEditor extends AbstractFrame {
                 if(!fileToSave.getName().toLowerCase().endsWith(".xml"))
                         fileToSave = new File(fileToSave.getAbsoluteFile() + ".xml");
 
-                String s = ConversionLayer.convertDocumentToString(r.getDocument());
-
                 try {
+                    // a ROM opened from a cached definition has no document
+                    Document doc = r.getDocument();
+                    if (doc == null) {
+                        doc = OpenImageWorker.createDocument(r.getDefinitionPath());
+                    }
+                    String s = ConversionLayer.convertDocumentToString(doc);
+
                     BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave));
                     writer.write(s);
                     writer.close();
-                } catch (IOException e) {
+                } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
@@ -98,7 +98,7 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
 	      this.rom = rom;     
     }
 
-    private Document createDocument(File f) throws Exception {
+    static Document createDocument(File f) throws Exception {
 	    Document doc = null;
 	    FileInputStream fileStream = null;
 
@@ -169,10 +169,12 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
 	                inputFile.getName());
 
 	        try {
-	            Rom rom = new DOMRomUnmarshaller().unmarshallXMLDefinition(f, doc.getDocumentElement(), romNode,
+	            DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+	            Rom rom = unmarshaller.unmarshallXMLDefinition(f, doc.getDocumentElement(), romNode,
 	            		input, editor.getStatusPanel());
 	    	    rom.setDocument(doc);
 	    	    rom.setDefinitionPath(f);
+	    	    RomTemplateCache.getInstance().put(f, rom, unmarshaller.getChecksumAttributes());
 	    	    loadRom(rom, input);
 
         } catch (StackOverflowError ex) {
@@ -215,8 +217,9 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
         setProgress(10);
 
         boolean found = false;
+        final DefinitionIndex index = DefinitionIndex.getInstance();
 
-        // parse ecu definition files until result found
+        // check the index of each ecu definition file until result found
         for (int i = 0; i < settings.getEcuDefinitionFiles().size(); i++) {
         	File f = settings.getEcuDefinitionFiles().get(i);
 
@@ -236,8 +239,24 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
             Document doc = null;
 
             try {
-            	doc = createDocument(f);
-				romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+            	DefinitionIndex.Match match = index.findMatch(f, input);
+            	if(match != null) {
+            		// a ROM of the same definition was opened before, skip the xml
+            		Rom cached = RomTemplateCache.getInstance().newRom(f, match.getXmlId(), input);
+            		if(cached != null) {
+            			loadRom(cached, input);
+            			found = true;
+            			break;
+            		}
+
+            		doc = index.getDocument(f);
+            		romNode = DefinitionIndex.getRomNode(doc.getDocumentElement(), match.getPosition());
+
+            		// the file changed since it was indexed, search it instead
+            		if(romNode == null) {
+            			romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+            		}
+            	}
             }
             catch(Exception e) {
             	showExceptionPopup(e, f);
@@ -250,6 +269,9 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
             }
          }
 
+        index.retain(settings.getEcuDefinitionFiles());
+        index.save();
+
         if(!found) {
         	showNoDefinitionFoundPopup(input);
         }
@@ -0,0 +1,202 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.editor.ecu;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.Settings;
+import com.romraider.maps.Rom;
+import com.romraider.maps.RomID;
+import com.romraider.maps.Table;
+import com.romraider.maps.checksum.ChecksumFactory;
+import com.romraider.swing.TableTreeNode;
+
+/**
+ * Keeps the fully resolved definition of each ROM opened, before any image
+ * data is read into it, so another image of the same definition opens
+ * without parsing the definition file or resolving its base chain again.
+ * <p>
+ * A template is keyed by definition file and xmlid and is dropped when the
+ * definition file changes.  Templates are held by soft references so they
+ * are released when memory runs low.  A ROM with dataflow simulations is
+ * not cached, simulations are bound to the definition document.
+ */
+public final class RomTemplateCache {
+    private static final Logger LOGGER = Logger.getLogger(RomTemplateCache.class);
+    private static final RomTemplateCache INSTANCE = new RomTemplateCache();
+    private final Map<String, SoftReference<RomTemplate>> templates =
+            new HashMap<String, SoftReference<RomTemplate>>();
+
+    RomTemplateCache() {
+    }
+
+    public static RomTemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Keep the definition of an unpopulated ROM as a template.
+     * @param   definition - the definition file of the ROM
+     * @param   rom - the ROM as unmarshalled, before populateTables
+     * @param   checksumAttributes - the attributes of the ROM's checksum
+     *          elements
+     */
+    public void put(File definition, Rom rom, List<Map<String, String>> checksumAttributes) {
+        if (!rom.getSimulations().isEmpty()) {
+            return;
+        }
+        final List<Table> tables = new ArrayList<Table>();
+        for (TableTreeNode node : rom.getTableNodes().values()) {
+            tables.add(node.getTable());
+        }
+        try {
+            final RomTemplate template = new RomTemplate(definition, rom.getRomID(),
+                    tables, checksumAttributes);
+            synchronized (templates) {
+                templates.put(key(definition, rom.getRomID().getXmlid()),
+                        new SoftReference<RomTemplate>(template));
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Unable to cache definition of " + rom.getRomID().getXmlid(), e);
+        }
+    }
+
+    /**
+     * Create a new, unpopulated ROM from a template.
+     * @param   definition - the definition file of the ROM
+     * @param   xmlId - the xmlid of the ROM
+     * @param   input - the image the ROM will be populated with
+     * @return  the new ROM, or null if there is no current template
+     */
+    public Rom newRom(File definition, String xmlId, byte[] input) {
+        final String key = key(definition, xmlId);
+        final RomTemplate template;
+        synchronized (templates) {
+            final SoftReference<RomTemplate> reference = templates.get(key);
+            if (reference == null) {
+                return null;
+            }
+            final RomTemplate cached = reference.get();
+            if (cached == null || !cached.isCurrent(definition)) {
+                templates.remove(key);
+                return null;
+            }
+            template = cached;
+        }
+        try {
+            return template.newRom(definition, input);
+        } catch (Exception e) {
+            LOGGER.warn("Unable to open " + xmlId + " from its cached definition", e);
+            synchronized (templates) {
+                templates.remove(key);
+            }
+            return null;
+        }
+    }
+
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    private static String key(File definition, String xmlId) {
+        return definition.getAbsolutePath() + '|' + String.valueOf(xmlId).toLowerCase();
+    }
+
+    private static final class RomTemplate {
+        private final long lastModified;
+        private final long length;
+        private final byte[] snapshot;
+        private final List<Map<String, String>> checksumAttributes;
+
+        private RomTemplate(File definition, RomID romId, List<Table> tables,
+                List<Map<String, String>> checksumAttributes) throws Exception {
+            this.lastModified = definition.lastModified();
+            this.length = definition.length();
+            this.checksumAttributes = new ArrayList<Map<String, String>>(checksumAttributes);
+
+            // detach the tables from their ROM so only the definition is stored
+            final Rom rom = tables.isEmpty() ? null : tables.get(0).getRom();
+            for (Table table : tables) {
+                table.setRom(null);
+            }
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final ObjectOutputStream out = new ObjectOutputStream(bytes);
+                out.writeObject(romId);
+                out.writeObject(new ArrayList<Table>(tables));
+                out.writeObject(tables.isEmpty() ? null : tables.get(0).getMemModelEndian());
+                out.close();
+                this.snapshot = bytes.toByteArray();
+            } finally {
+                for (Table table : tables) {
+                    table.setRom(rom);
+                }
+            }
+        }
+
+        private boolean isCurrent(File definition) {
+            return definition.lastModified() == lastModified
+                    && definition.length() == length;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Rom newRom(File definition, byte[] input) throws Exception {
+            final ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(snapshot));
+            final RomID romId;
+            final List<Table> tables;
+            final Object memModelEndian;
+            try {
+                romId = (RomID) in.readObject();
+                tables = (List<Table>) in.readObject();
+                memModelEndian = in.readObject();
+            } finally {
+                in.close();
+            }
+
+            final Rom rom = new Rom(romId);
+            rom.setDefinitionPath(definition);
+            for (Table table : tables) {
+                rom.addTableByName(table);
+            }
+            if (!tables.isEmpty()) {
+                tables.get(0).setMemModelEndian((Settings.Endian) memModelEndian);
+            }
+            for (Map<String, String> attrs : checksumAttributes) {
+                rom.addChecksumManager(ChecksumFactory.getManager(rom, attrs));
+            }
+            romId.setRamOffset(romId.getFileSize() - input.length);
+            return rom;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.romraider.Settings;
 import com.romraider.io.elm327.ElmConnectionManager;
 import com.romraider.io.j2534.api.J2534TransportFactory;
 import com.romraider.io.serial.connection.SerialConnectionManager;
+import com.romraider.io.virtual.VirtualConnectionManager;
 import com.romraider.util.SettingsManager;
 import com.romraider.util.proxy.TimerWrapper;
 
@@ -46,8 +47,16 @@ public final class ConnectionManagerFactory {
         final Settings settings = SettingsManager.getSettings();
         ConnectionManager manager = null;
 
+        // Use a virtual ECU, no hardware needed
+        if (VirtualConnectionManager.isVirtualPort(portName)) {
+            LOGGER.info("Using virtual ECU...");
+            manager = VirtualConnectionManager.create(
+                    settings.getLoggerProtocol(),
+                    settings.getTransportProtocol(),
+                    connectionProperties);
+        }
         // Try a serial connection
-        if (isNullOrEmpty(settings.getJ2534Device())) {
+        else if (isNullOrEmpty(settings.getJ2534Device())) {
 
             if(SettingsManager.getSettings().isElm327Enabled()) {
                 LOGGER.info("Trying to connect to ELM327...");
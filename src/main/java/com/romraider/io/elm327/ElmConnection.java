@@ -113,6 +113,16 @@ public final class ElmConnection {
         return response.toString();
     }
 
+    //Reads the available bytes, up to length, without blocking
+    public int read(byte[] bytes, int offset, int length) {
+        try {
+            final int n = Math.min(is.available(), length);
+            return n > 0 ? is.read(bytes, offset, n) : 0;
+        } catch (IOException e) {
+            throw new SerialCommunicationException(e);
+        }
+    }
+
     //Reads everything that is available
     public String readAvailable() {
         String response = "";
@@ -36,14 +36,27 @@ import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public final class ElmConnectionManager implements ConnectionManager {
     private ElmConnection connection;
 
     private static final Logger LOGGER = getLogger(ElmConnectionManager.class);
     private static int baudrate = 9600;
+    // J1979 allows up to six PIDs in one mode 01 request on CAN
+    private static final boolean MULTI_PID = Boolean.parseBoolean(
+            System.getProperty("romraider.elm.multipid", "true"));
+    private static final int MAX_CAN_PIDS = 6;
+    // the response count at the end of a request needs firmware v1.3
+    private static final int RESPONSE_COUNT_VERSION = 13;
+    private static final Pattern VERSION = Pattern.compile("ELM327\\s*v(\\d+)\\.(\\d)");
+    private static final byte PROMPT = '>';
+    private final byte[] reply = new byte[1024];
+    private int replyLength;
 
     private int elmMode = 0;
+    private int elmVersion = 0;
     private String portName;
     private final Set<Integer> supportedPids = new HashSet<Integer>();
 
@@ -80,6 +93,45 @@ public final class ElmConnectionManager implements ConnectionManager {
     	return elmMode;
     }
 
+    public boolean isCan() {
+        return elmMode >= 6 && elmMode <= 9;
+    }
+
+    /**
+     * @return  true if the adapter accepts the number of responses to wait
+     *          for at the end of a request
+     */
+    public boolean supportsResponseCount() {
+        return elmVersion >= RESPONSE_COUNT_VERSION;
+    }
+
+    /**
+     * @return  the number of PIDs to pack into one mode 01 request
+     */
+    public int getMaxPidsPerRequest() {
+        return maxPidsPerRequest(isCan(), elmVersion);
+    }
+
+    // several PIDs are only packed when the adapter can be told how many
+    // frames to wait for, older firmware answers such a request with ?
+    static int maxPidsPerRequest(boolean can, int version) {
+        return MULTI_PID && can && version >= RESPONSE_COUNT_VERSION
+                ? MAX_CAN_PIDS : 1;
+    }
+
+    /**
+     * @return  the firmware version of the banner times ten, e.g. 15 for
+     *          ELM327 v1.5, or 0 if the banner holds no version
+     */
+    static int parseVersion(String banner) {
+        final Matcher matcher = VERSION.matcher(banner);
+        if (!matcher.find()) {
+            return 0;
+        }
+        return Integer.parseInt(matcher.group(1)) * 10
+                + Integer.parseInt(matcher.group(2));
+    }
+
     private int parseProtocolType(String protocol) {
     	String s = protocol.toLowerCase().trim();
 
@@ -164,6 +216,7 @@ public final class ElmConnectionManager implements ConnectionManager {
 
 	            clearLine();
 	            LOGGER.info("Found "  + result);
+	            elmVersion = parseVersion(result);
 
 	            //Turn off echo
 	            result = sendAndWaitForChar("AT E0", 1000, ">");
@@ -173,6 +226,14 @@ public final class ElmConnectionManager implements ConnectionManager {
                 	return ERROR_TYPE.ELM_REJECTED_REQUEST;
 	            }
 
+	            //Some adapters only report the version when asked
+	            if(elmVersion == 0) {
+	                elmVersion = parseVersion(sendAndWaitForChar("AT I", 1000, ">"));
+	            }
+	            if (LOGGER.isDebugEnabled())
+	                LOGGER.debug("ELM327 response count " +
+	                        (supportsResponseCount() ? "supported" : "not supported"));
+
 	            //Set custom baudrate with :96 or :48 at the end for iso14230 protocols
 	            if(splitTransport.length > 1) {
 		            result = sendAndWaitForChar("ATIB " + splitTransport[1], 2500, ">");
@@ -282,6 +343,12 @@ public final class ElmConnectionManager implements ConnectionManager {
                         return ERROR_TYPE.ECU_NOT_FOUND;
                     }
 
+                    //Optional, older adapters and clones may reject them
+                    //Aggressive adaptive timing shortens the wait for replies
+                    sendOptional("AT AT2");
+                    //Without spaces a reply is a third shorter
+                    sendOptional("AT S0");
+
                     return ERROR_TYPE.NO_ERROR;
 
 	        } catch (Exception e) {
@@ -291,6 +358,13 @@ public final class ElmConnectionManager implements ConnectionManager {
     }
 
 
+    private void sendOptional(String command) {
+        final String result = sendAndWaitForChar(command, 1000, ">");
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("ELM327 " + (result.contains("OK") ? "accepted " : "rejected ")
+                    + command);
+    }
+
 	// Send request
     public void send(String command) {
         checkNotNull(command, "bytes");
@@ -320,6 +394,124 @@ public final class ElmConnectionManager implements ConnectionManager {
     }
 
 
+    /**
+     * Send a request and read the reply into the reply buffer until the
+     * prompt is received, no Strings are built.
+     * @return  the number of bytes of the reply, the prompt excluded
+     */
+    public int sendAndWaitForPrompt(String command, int timeout) {
+        connection.readStaleData();
+        connection.write(command);
+        final long deadline = currentTimeMillis() + timeout;
+        replyLength = 0;
+        while (replyLength < reply.length) {
+            final int n = connection.read(
+                    reply, replyLength, reply.length - replyLength);
+            for (int i = replyLength; i < replyLength + n; i++) {
+                if (reply[i] == PROMPT) {
+                    replyLength = i;
+                    return replyLength;
+                }
+            }
+            replyLength += n;
+            if (currentTimeMillis() > deadline) break;
+            if (n == 0) sleep(1);
+        }
+        return replyLength;
+    }
+
+    /**
+     * Decode the data bytes of the last reply read by
+     * {@link #sendAndWaitForPrompt(String, int)}.
+     * @return  the number of bytes decoded, or -1 if the reply holds no
+     *          data, such as NO DATA or STOPPED
+     */
+    public int getReplyData(byte[] data) {
+        return decodeHex(reply, replyLength, data);
+    }
+
+    /**
+     * @return  the last reply as text, for messages
+     */
+    public String getReplyText() {
+        return new String(reply, 0, replyLength).trim();
+    }
+
+    /**
+     * Decode the hex digits of a reply, with or without spaces.  The
+     * segment numbers of a multi frame CAN reply and its byte count line
+     * are skipped, as are lines of text.
+     * @return  the number of bytes decoded, or -1 if there are none
+     */
+    static int decodeHex(byte[] text, int length, byte[] data) {
+        int count = 0;
+        int limit = -1;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && text[end] != '\r' && text[end] != '\n') {
+                end++;
+            }
+            // skip a segment number such as 0: of a multi frame reply
+            int from = start;
+            for (int i = start; i < end; i++) {
+                if (text[i] == ':') {
+                    from = i + 1;
+                    break;
+                }
+            }
+            int digits = 0;
+            for (int i = from; i < end; i++) {
+                if (hexValue(text[i]) >= 0) {
+                    digits++;
+                }
+                else if (text[i] != ' ') {
+                    digits = -1;
+                    break;
+                }
+            }
+            // an odd number of digits is the byte count of a multi frame
+            // reply, the last frame is padded past it
+            if (digits == 3 && from == start && limit < 0) {
+                limit = count;
+                for (int i = from; i < end; i++) {
+                    final int value = hexValue(text[i]);
+                    if (value >= 0) {
+                        limit = limit + (value << (4 * --digits));
+                    }
+                }
+            }
+            else if (digits > 0 && (digits & 1) == 0) {
+                int high = -1;
+                for (int i = from; i < end && count < data.length; i++) {
+                    final int value = hexValue(text[i]);
+                    if (value < 0) {
+                        continue;
+                    }
+                    if (high < 0) {
+                        high = value;
+                    }
+                    else {
+                        data[count++] = (byte) (high << 4 | value);
+                        high = -1;
+                    }
+                }
+            }
+            start = end + 1;
+        }
+        if (limit >= 0 && limit < count) {
+            count = limit;
+        }
+        return count > 0 ? count : -1;
+    }
+
+    private static int hexValue(byte c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+
     @Override
     public void clearLine() {
     	connection.readStaleData();
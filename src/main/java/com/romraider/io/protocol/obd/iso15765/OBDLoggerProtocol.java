@@ -155,7 +155,8 @@ public final class OBDLoggerProtocol implements LoggerProtocolOBD {
         protocol.checkValidWriteResponse(data, response);
     }
 
-    private Collection<EcuQuery> filterDuplicates(Collection<EcuQuery> queries) {
+    @Override
+    public Collection<EcuQuery> filterDuplicates(Collection<EcuQuery> queries) {
         Collection<EcuQuery> filteredQueries = new ArrayList<EcuQuery>();
         for (EcuQuery query : queries) {
             if (!filteredQueries.contains(query)) {
@@ -0,0 +1,223 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static com.fazecast.jSerialComm.SerialPort.TIMEOUT_NONBLOCKING;
+import static com.romraider.util.HexUtil.asHex;
+import static com.romraider.util.ParamChecker.checkNotNull;
+import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
+import static com.romraider.util.ThreadUtil.sleep;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.log4j.Logger.getLogger;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.log4j.Logger;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+import com.romraider.io.connection.ConnectionProperties;
+import com.romraider.logger.ecu.exception.NotConnectedException;
+import com.romraider.logger.ecu.exception.SerialCommunicationException;
+
+/**
+ * A serial connection without streams.  The bytes are moved from the port
+ * into a {@link SerialReceiveBuffer} by the data available event, reads
+ * wait on the buffer with a deadline and return as soon as the requested
+ * bytes are in.  Reads longer than the buffer are drained from it in
+ * chunks as the bytes arrive.
+ */
+public final class EventSerialConnection implements SerialConnection {
+    private static final Logger LOGGER = getLogger(EventSerialConnection.class);
+    // how long the line must stay quiet for stale data to be cleared
+    private static final long STALE_QUIET = 2L;
+    private static final long STALE_MAX = 100L;
+    private static final long READ_WAIT = 10L;
+    private static final byte LF = '\n';
+    private static final byte[] EMPTY = new byte[0];
+    // drain long reads at half capacity so arriving bytes are not dropped
+    private static final int DRAIN = SerialReceiveBuffer.CAPACITY / 2;
+    private final SerialReceiveBuffer buffer = new SerialReceiveBuffer();
+    // only used by the port's event thread
+    private final byte[] scratch = new byte[SerialReceiveBuffer.CAPACITY];
+    private final SerialPort serialPort;
+    private volatile boolean closed;
+
+    public EventSerialConnection(String portName, ConnectionProperties connectionProperties) {
+        checkNotNullOrEmpty(portName, "portName");
+        checkNotNull(connectionProperties, "connectionProperties");
+        SerialPort port = null;
+        try {
+            port = SerialConnectionImpl.connect(
+                    portName, connectionProperties, TIMEOUT_NONBLOCKING);
+            serialPort = port;
+            serialPort.addDataListener(new DataAvailableListener());
+            LOGGER.info("Serial connection initialised: " + connectionProperties);
+        } catch (Exception e) {
+            if (port != null) {
+                port.closePort();
+            }
+            throw new NotConnectedException(e);
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        final int written = serialPort.writeBytes(bytes, bytes.length);
+        if (written != bytes.length)
+            throw new SerialCommunicationException(
+                    "Write bytes: " + written + " of " + bytes.length + " written");
+    }
+
+    @Override
+    public int available() {
+        return buffer.available();
+    }
+
+    @Override
+    public int read() {
+        waitForBytes(1);
+        return buffer.take();
+    }
+
+    @Override
+    public void read(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            waitForBytes(Math.min(bytes.length - offset, DRAIN));
+            offset += buffer.take(bytes, offset, bytes.length - offset);
+        }
+    }
+
+    @Override
+    public String readLine() {
+        // only used for a line longer than the drain size
+        ByteArrayOutputStream partial = null;
+        int length;
+        while ((length = buffer.indexOf(LF)) < 0) {
+            final int available = buffer.available();
+            if (available >= DRAIN) {
+                if (partial == null) {
+                    partial = new ByteArrayOutputStream(SerialReceiveBuffer.CAPACITY);
+                }
+                final byte[] chunk = new byte[available];
+                buffer.take(chunk, 0, available);
+                partial.write(chunk, 0, available);
+            }
+            else {
+                waitForBytes(available + 1);
+            }
+        }
+        byte[] line = new byte[length];
+        buffer.take(line, 0, length);
+        if (partial != null) {
+            partial.write(line, 0, length);
+            line = partial.toByteArray();
+            length = line.length;
+        }
+        length--;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length);
+    }
+
+    /**
+     * The returned array belongs to the caller, so it cannot be reused.
+     * Nothing is allocated when there is nothing to read.
+     */
+    @Override
+    public byte[] readAvailable() {
+        final int available = buffer.available();
+        if (available == 0) {
+            return EMPTY;
+        }
+        final byte[] response = new byte[available];
+        buffer.take(response, 0, response.length);
+        return response;
+    }
+
+    @Override
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return buffer.await(numBytes, nanoTime() + MILLISECONDS.toNanos(timeout));
+    }
+
+    @Override
+    public void readStaleData() {
+        if (buffer.available() <= 0) return;
+        final long end = nanoTime() + MILLISECONDS.toNanos(STALE_MAX);
+        do {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Stale data read: " + asHex(readAvailable()));
+            }
+            else {
+                buffer.clear();
+            }
+        } while (  waitForBytes(1, STALE_QUIET)
+                && (nanoTime() - end < 0));
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        serialPort.removeDataListener();
+        if (!serialPort.closePort())
+            LOGGER.error("Error closing serial port: " + serialPort.getSystemPortName());
+        LOGGER.info("Connection closed.");
+    }
+
+    @Override
+    public void sendBreak(int duration) {
+        if (!serialPort.setBreak())
+            throw new SerialCommunicationException("Send Break");
+        sleep((long)duration);
+        if (!serialPort.clearBreak())
+            throw new SerialCommunicationException("Clear Break");
+    }
+
+    private void waitForBytes(int numBytes) {
+        while (!waitForBytes(numBytes, READ_WAIT)) {
+            if (closed)
+                throw new SerialCommunicationException("Read: connection closed");
+        }
+    }
+
+    private final class DataAvailableListener implements SerialPortDataListener {
+        @Override
+        public int getListeningEvents() {
+            return SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
+        }
+
+        @Override
+        public void serialEvent(SerialPortEvent event) {
+            int n;
+            while (!closed && (n = serialPort.bytesAvailable()) > 0) {
+                n = serialPort.readBytes(scratch, Math.min(n, scratch.length));
+                if (n <= 0) break;
+                final int dropped = buffer.put(scratch, 0, n);
+                if (dropped > 0)
+                    LOGGER.warn("Serial receive buffer full, dropped " + dropped + " bytes");
+            }
+        }
+    }
+}
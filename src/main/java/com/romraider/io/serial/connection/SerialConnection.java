@@ -32,6 +32,14 @@ public interface SerialConnection {
 
     byte[] readAvailable();
 
+    /**
+     * Wait until a number of bytes can be read.
+     * @param numBytes - the number of bytes to wait for
+     * @param timeout - the maximum wait in milliseconds
+     * @return true if the bytes are available, false if the wait timed out
+     */
+    boolean waitForBytes(int numBytes, long timeout);
+
     void readStaleData();
 
     void close();
@@ -37,6 +37,8 @@ import java.io.InputStreamReader;
 import org.apache.log4j.Logger;
 
 import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
 import com.fazecast.jSerialComm.SerialPortInvalidPortException;
 import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.logger.ecu.exception.ConfigurationException;
@@ -45,19 +47,23 @@ import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 public class SerialConnectionImpl implements SerialConnection {
     private static final Logger LOGGER = getLogger(SerialConnectionImpl.class);
+    // upper bound of a single wait in case a data event is missed
+    private static final long MAX_EVENT_WAIT = 10L;
     private final SerialPort serialPort;
     private final BufferedOutputStream os;
     private final BufferedInputStream is;
     private final BufferedReader reader;
+    private final Object dataLock = new Object();
 
     public SerialConnectionImpl(String portName, ConnectionProperties connectionProperties) {
         checkNotNullOrEmpty(portName, "portName");
         checkNotNull(connectionProperties, "connectionProperties");
         try {
-            serialPort = connect(portName, connectionProperties);
+            serialPort = connect(portName, connectionProperties, TIMEOUT_READ_SEMI_BLOCKING);
             os = new BufferedOutputStream(serialPort.getOutputStream());
             is = new BufferedInputStream(serialPort.getInputStream());
             reader = new BufferedReader(new InputStreamReader(is));
+            serialPort.addDataListener(new DataAvailableListener());
             LOGGER.info("Serial connection initialised: " + connectionProperties);
         } catch (Exception e) {
             close();
@@ -121,6 +127,27 @@ public class SerialConnectionImpl implements SerialConnection {
         return response;
     }
 
+    // Block until the port signals new data instead of polling available()
+    @Override
+    public boolean waitForBytes(int numBytes, long timeout) {
+        final long deadline = currentTimeMillis() + timeout;
+        synchronized (dataLock) {
+            while (available() < numBytes) {
+                final long remaining = deadline - currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    dataLock.wait(Math.min(remaining, MAX_EVENT_WAIT));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public void readStaleData() {
         if (available() <= 0) return;
@@ -160,6 +187,7 @@ public class SerialConnectionImpl implements SerialConnection {
             }
         }
         if (serialPort != null) {
+            serialPort.removeDataListener();
             if (!serialPort.closePort())
                 LOGGER.error("Error closing serial port: " + serialPort.getSystemPortName());
         }
@@ -174,17 +202,18 @@ public class SerialConnectionImpl implements SerialConnection {
             throw new SerialCommunicationException("Clear Break");
     }
 
-    private SerialPort connect(String portName, ConnectionProperties connectionProperties) {
+    static SerialPort connect(String portName, ConnectionProperties connectionProperties, int timeoutMode) {
         final SerialPort serialPort = openPort(portName);
         serialPort.openPort();
         configSerialPort(serialPort,
         		connectionProperties.getBaudRate(), connectionProperties.getDataBits(),
-        		connectionProperties.getStopBits(), connectionProperties.getParity());
+        		connectionProperties.getStopBits(), connectionProperties.getParity(),
+        		timeoutMode);
         LOGGER.info("Connected to: " + portName);
         return serialPort;
     }
 
-    private SerialPort openPort(String portName) {
+    private static SerialPort openPort(String portName) {
     	SerialPort serialPort;
         try {
         	serialPort = SerialPort.getCommPort(portName);
@@ -196,13 +225,13 @@ public class SerialConnectionImpl implements SerialConnection {
 		return serialPort;
     }
 
-    private void configSerialPort(SerialPort serialPort, int baudrate, int dataBits, int stopBits, int parity) {
+    private static void configSerialPort(SerialPort serialPort, int baudrate, int dataBits, int stopBits, int parity, int timeoutMode) {
         try {
             if(!serialPort.setFlowControl(FLOW_CONTROL_DISABLED))
             	throw new ConfigurationException("Flow control");
             if (!serialPort.setComPortParameters(baudrate, dataBits, stopBits, parity))
             	throw new ConfigurationException("Connection properties");
-            if (!serialPort.setComPortTimeouts(TIMEOUT_READ_SEMI_BLOCKING, 0, 0))
+            if (!serialPort.setComPortTimeouts(timeoutMode, 0, 0))
             	throw new ConfigurationException("Timeout values");
             if (!serialPort.clearRTS())
             	throw new ConfigurationException("RTS value");
@@ -212,6 +241,20 @@ public class SerialConnectionImpl implements SerialConnection {
     }
 
     private void waitForBytes(int numBytes) {
-        while (available() < numBytes) sleep(2L);
+        while (!waitForBytes(numBytes, MAX_EVENT_WAIT));
+    }
+
+    private final class DataAvailableListener implements SerialPortDataListener {
+        @Override
+        public int getListeningEvents() {
+            return SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
+        }
+
+        @Override
+        public void serialEvent(SerialPortEvent event) {
+            synchronized (dataLock) {
+                dataLock.notifyAll();
+            }
+        }
     }
 }
@@ -23,9 +23,7 @@ import static com.romraider.io.protocol.ssm.iso9141.SSMChecksumCalculator.calcul
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
-import static com.romraider.util.ThreadUtil.sleep;
 import static java.lang.System.arraycopy;
-import static java.lang.System.currentTimeMillis;
 import static org.apache.log4j.Logger.getLogger;
 
 import org.apache.log4j.Logger;
@@ -36,20 +34,25 @@ import com.romraider.logger.ecu.comms.manager.PollingState;
 
 public final class SerialConnectionManager implements ConnectionManager {
     private static final Logger LOGGER = getLogger(SerialConnectionManager.class);
+    // set to "stream" to use the stream based connection
+    private static final String TRANSPORT = System.getProperty("romraider.serial.transport", "event");
+    // how long the line must stay quiet after a break
+    private static final long CLEAR_QUIET = 12L;
     private final SerialConnection connection;
     private final ConnectionProperties connectionProperties;
     private byte[] lastResponse;
     private final long timeout;
-    private long readTimeout;
 
     public SerialConnectionManager(String portName, ConnectionProperties connectionProperties) {
         checkNotNullOrEmpty(portName, "portName");
         checkNotNull(connectionProperties, "connectionProperties");
         this.connectionProperties = connectionProperties;
         timeout = connectionProperties.getConnectTimeout();
-        readTimeout = timeout;
         // Use TestSerialConnection for testing!!
-        connection = new SerialConnectionImpl(portName, connectionProperties);
+        if ("stream".equalsIgnoreCase(TRANSPORT))
+            connection = new SerialConnectionImpl(portName, connectionProperties);
+        else
+            connection = new EventSerialConnection(portName, connectionProperties);
         //connection = new TestSerialConnection2(portName, connectionProperties);
     }
 
@@ -73,17 +76,13 @@ public final class SerialConnectionManager implements ConnectionManager {
             connection.readStaleData();
             connection.write(request);
         }
-        while (connection.available() < response.length) {
-            sleep(1);
-            readTimeout -= 1;
-            if (readTimeout <= 0) {
-                byte[] badBytes = connection.readAvailable();
-                if (LOGGER.isDebugEnabled())
-                    LOGGER.debug("Serial Bad Read response (read timeout): " + asHex(badBytes));
-                return; // this will reinitialize the connection
-            }
+        // read the response the moment its last byte arrives
+        if (!connection.waitForBytes(response.length, timeout)) {
+            byte[] badBytes = connection.readAvailable();
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Serial Bad Read response (read timeout): " + asHex(badBytes));
+            return; // this will reinitialize the connection
         }
-        readTimeout = timeout;
         connection.read(response);
 
         if (pollState.getCurrentState() == PollingState.State.STATE_1){
@@ -93,7 +92,8 @@ public final class SerialConnectionManager implements ConnectionManager {
                     &&  response[3] == (response.length - 5)
                     &&  response[response.length - 1] == calculateChecksum(response)) {
 
-                lastResponse = new byte[response.length];
+                if (lastResponse == null || lastResponse.length != response.length)
+                    lastResponse = new byte[response.length];
                 arraycopy(response, 0, lastResponse, 0, response.length);
             }
             else{
@@ -114,16 +114,10 @@ public final class SerialConnectionManager implements ConnectionManager {
         if (LOGGER.isTraceEnabled())
             LOGGER.trace("Writing bytes");
         connection.write(bytes);
+        // the response is complete once no byte arrives for the timeout
         int available = 0;
-        boolean keepLooking = true;
-        long lastChange = currentTimeMillis();
-        while (keepLooking) {
-            sleep(2);
-            if (connection.available() != available) {
-                available = connection.available();
-                lastChange = currentTimeMillis();
-            }
-            keepLooking = (currentTimeMillis() - lastChange) < timeout;
+        while (connection.waitForBytes(available + 1, timeout)) {
+            available = connection.available();
         }
         return connection.readAvailable();
     }
@@ -137,13 +131,11 @@ public final class SerialConnectionManager implements ConnectionManager {
         if (LOGGER.isDebugEnabled())
             LOGGER.debug("Serial sending line break of duration: " + duration + " msec");
         connection.sendBreak(duration);
-        do {
-            sleep(2);
+        while (connection.waitForBytes(1, CLEAR_QUIET)) {
             byte[] badBytes = connection.readAvailable();
             if (LOGGER.isDebugEnabled())
                 LOGGER.debug("Serial clearing line (stale data): " + asHex(badBytes));
-            sleep(10);
-        } while (connection.available() > 0 );
+        }
     }
 
     @Override
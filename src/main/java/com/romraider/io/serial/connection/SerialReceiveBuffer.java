@@ -0,0 +1,143 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static java.lang.System.arraycopy;
+import static java.lang.System.nanoTime;
+
+/**
+ * A ring buffer holding the bytes received on a serial port until they are
+ * read.  The port's data event thread puts the bytes in, a reader waits
+ * for them with a deadline and is woken the moment enough bytes are in.
+ * <p>
+ * Each connection owns its buffer.  Buffers are not pooled, the event
+ * thread may still put bytes in after the connection is closed.  If the
+ * buffer fills up the oldest bytes are dropped.
+ */
+final class SerialReceiveBuffer {
+    static final int CAPACITY = 4096;
+    private final byte[] data = new byte[CAPACITY];
+    private int head;
+    private int count;
+
+    synchronized int available() {
+        return count;
+    }
+
+    /**
+     * Add received bytes and wake any waiting reader.
+     * @return  the number of old bytes dropped to make room
+     */
+    synchronized int put(byte[] bytes, int offset, int length) {
+        int dropped = 0;
+        if (length > CAPACITY) {
+            dropped = length - CAPACITY;
+            offset += dropped;
+            length = CAPACITY;
+        }
+        final int overflow = count + length - CAPACITY;
+        if (overflow > 0) {
+            head = (head + overflow) % CAPACITY;
+            count -= overflow;
+            dropped += overflow;
+        }
+        int tail = (head + count) % CAPACITY;
+        final int first = Math.min(length, CAPACITY - tail);
+        arraycopy(bytes, offset, data, tail, first);
+        arraycopy(bytes, offset + first, data, 0, length - first);
+        count += length;
+        notifyAll();
+        return dropped;
+    }
+
+    /**
+     * Wait until a number of bytes are in the buffer.
+     * @param numBytes - the number of bytes to wait for
+     * @param deadline - the {@link System#nanoTime()} to give up at
+     * @return  true if the bytes are in, false if the deadline passed or
+     *          the thread was interrupted
+     */
+    synchronized boolean await(int numBytes, long deadline) {
+        while (count < numBytes) {
+            final long remaining = deadline - nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                wait(remaining / 1000000L, (int) (remaining % 1000000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return  the next byte, or -1 if the buffer is empty
+     */
+    synchronized int take() {
+        if (count == 0) {
+            return -1;
+        }
+        final int b = data[head] & 0xFF;
+        head = (head + 1) % CAPACITY;
+        count--;
+        return b;
+    }
+
+    /**
+     * Move bytes out of the buffer.
+     * @return  the number of bytes moved, less than length if the buffer
+     *          holds fewer
+     */
+    synchronized int take(byte[] bytes, int offset, int length) {
+        final int n = Math.min(length, count);
+        final int first = Math.min(n, CAPACITY - head);
+        arraycopy(data, head, bytes, offset, first);
+        arraycopy(data, 0, bytes, offset + first, n - first);
+        head = (head + n) % CAPACITY;
+        count -= n;
+        return n;
+    }
+
+    /**
+     * @return  the number of bytes up to and including the first one of
+     *          the given value, or -1 if it is not in the buffer
+     */
+    synchronized int indexOf(byte value) {
+        for (int i = 0; i < count; i++) {
+            if (data[(head + i) % CAPACITY] == value) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return  the number of bytes discarded
+     */
+    synchronized int clear() {
+        final int n = count;
+        head = 0;
+        count = 0;
+        return n;
+    }
+}
@@ -158,6 +158,10 @@ final class TestSerialConnection implements SerialConnection {
         return response;
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public void readStaleData() {
     }
 
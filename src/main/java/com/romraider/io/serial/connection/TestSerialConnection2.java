@@ -222,6 +222,10 @@ final class TestSerialConnection2 implements SerialConnection {
         return response;
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public void readStaleData() {
     }
 
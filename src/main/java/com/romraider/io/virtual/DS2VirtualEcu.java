@@ -0,0 +1,120 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static com.romraider.io.protocol.ds2.iso9141.DS2ChecksumCalculator.calculateChecksum;
+import static com.romraider.io.virtual.EcuMemory.address;
+import static com.romraider.util.ByteUtil.asUnsignedInt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.romraider.io.protocol.ds2.iso9141.DS2Protocol;
+
+/**
+ * A DS2 ECU on a K-line.  Every response is an ACK followed by data.
+ * <pre>
+ * request:  addr len cmd... checksum
+ * response: addr len A0 data... checksum
+ * </pre>
+ * Memory reads are served from the ECU memory.  Addresses set with the set
+ * address command are read back by the read address command.  Group and
+ * procedure reads answer with as many bytes as the tester expects, taken
+ * from a RAM region chosen by the request.
+ */
+final class DS2VirtualEcu implements VirtualEcu {
+    private static final byte INIT = 0x00;
+    private static final byte READ_MEMORY = 0x06;
+    private static final byte ADDRESS = 0x0B;
+    private static final byte READ_ADDRESS = 0x00;
+    private static final byte SET_ADDRESS = 0x01;
+    private static final int GROUP_BASE = 0xE00000;
+    private final EcuMemory memory;
+    private final byte[] ecuId;
+    private final List<Integer> addresses = new ArrayList<Integer>();
+
+    DS2VirtualEcu(EcuMemory memory, String ecuId) {
+        this.memory = memory;
+        this.ecuId = ecuId.getBytes();
+    }
+
+    @Override
+    public boolean isEchoed() {
+        return true;
+    }
+
+    @Override
+    public byte[] respond(byte[] request, int length) {
+        if (request.length < 4) {
+            return new byte[0];
+        }
+        final int dataLength = length < 0
+                ? -1 : Math.max(0, length - DS2Protocol.RESPONSE_NON_DATA_BYTES);
+        final byte command = request[2];
+        byte[] data;
+        if (command == INIT && request.length == 4) {
+            data = ecuId;
+        }
+        else if (command == READ_MEMORY) {
+            // 06 00 3_byte_address count
+            data = new byte[asUnsignedInt(request[7])];
+            memory.read(address(request, 4, 3), data, 0, data.length);
+        }
+        else if (command == ADDRESS && request[3] == SET_ADDRESS) {
+            // 0B 01 count address1 ... addressN
+            addresses.clear();
+            final int count = asUnsignedInt(request[4]);
+            final int size = count == 0 ? 0 : (request.length - 6) / count;
+            for (int i = 0; i < count; i++) {
+                // the last 3 bytes of an entry are the address
+                addresses.add(address(request, 5 + i * size + size - 3, 3));
+            }
+            data = new byte[0];
+        }
+        else if (command == ADDRESS && request[3] == READ_ADDRESS) {
+            data = new byte[dataLength < 0 ? addresses.size() : dataLength];
+            memory.read(addresses, data);
+        }
+        else if (dataLength > 0) {
+            // a group or procedure read, the tester knows its length
+            data = new byte[dataLength];
+            memory.read(GROUP_BASE + (hash(request) & 0xFF00), data, 0, data.length);
+        }
+        else {
+            data = new byte[0];
+        }
+        memory.tick();
+        final byte[] response = new byte[DS2Protocol.RESPONSE_NON_DATA_BYTES + data.length];
+        response[0] = request[0];
+        response[1] = (byte) response.length;
+        response[2] = DS2Protocol.VALID_RESPONSE;
+        System.arraycopy(data, 0, response, 3, data.length);
+        response[response.length - 1] = calculateChecksum(response);
+        return response;
+    }
+
+    private static int hash(byte[] request) {
+        int hash = 0;
+        for (int i = 2; i < request.length - 1; i++) {
+            hash = hash * 31 + request[i];
+        }
+        return hash;
+    }
+}
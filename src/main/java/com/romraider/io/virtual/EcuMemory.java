@@ -0,0 +1,137 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static com.romraider.util.ByteUtil.asUnsignedInt;
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The memory of a virtual ECU.  Addresses within the ROM image read the
+ * image, all other addresses are RAM.  RAM holds a value derived from the
+ * address that changes each time the ECU answers a request, so logged
+ * values move.  Written bytes are kept and read back over both.
+ */
+public final class EcuMemory {
+    private final byte[] image;
+    private final Map<Integer, Byte> written = new HashMap<Integer, Byte>();
+    private int tick;
+
+    /**
+     * @param image - the ROM image, may be empty
+     */
+    public EcuMemory(byte[] image) {
+        checkNotNull(image, "image");
+        this.image = image;
+    }
+
+    public static EcuMemory fromFile(File file) throws IOException {
+        checkNotNull(file, "file");
+        final byte[] image = new byte[(int) file.length()];
+        final FileInputStream fis = new FileInputStream(file);
+        try {
+            int read = 0;
+            while (read < image.length) {
+                final int n = fis.read(image, read, image.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+        }
+        finally {
+            fis.close();
+        }
+        return new EcuMemory(image);
+    }
+
+    public synchronized byte read(int address) {
+        final Byte value = written.get(address);
+        if (value != null) {
+            return value;
+        }
+        if (address >= 0 && address < image.length) {
+            return image[address];
+        }
+        return ram(address, tick);
+    }
+
+    public synchronized void read(int address, byte[] dest, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            dest[offset + i] = read(address + i);
+        }
+    }
+
+    /**
+     * Read the bytes of a list of addresses.  The bytes are spread evenly
+     * over the addresses, each address is read onward for its share.
+     * @param addresses - the addresses, if empty the bytes are read from 0
+     * @param dest - the bytes read
+     */
+    public synchronized void read(List<Integer> addresses, byte[] dest) {
+        if (addresses.isEmpty()) {
+            read(0, dest, 0, dest.length);
+            return;
+        }
+        int offset = 0;
+        for (int i = 0; i < addresses.size(); i++) {
+            final int n = (dest.length - offset) / (addresses.size() - i);
+            read(addresses.get(i), dest, offset, n);
+            offset += n;
+        }
+    }
+
+    public synchronized void write(int address, byte value) {
+        written.put(address, value);
+    }
+
+    /**
+     * Move the RAM values on by one step.
+     */
+    public synchronized void tick() {
+        tick++;
+    }
+
+    /**
+     * @return  the big endian address of the given length at the offset
+     */
+    static int address(byte[] bytes, int offset, int length) {
+        int address = 0;
+        for (int i = 0; i < length; i++) {
+            address = (address << 8) | asUnsignedInt(bytes[offset + i]);
+        }
+        return address;
+    }
+
+    /**
+     * @return  the RAM value of an address at the given step, each address
+     *          starts at its own value and counts up by one per step
+     */
+    static byte ram(int address, int tick) {
+        final int start = (address * 0x9E3779B1) >>> 24;
+        return (byte) (start + tick);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static com.romraider.io.protocol.ncs.iso14230.NCSChecksumCalculator.calculateChecksum;
+import static com.romraider.io.virtual.EcuMemory.address;
+import static com.romraider.util.ByteUtil.asUnsignedInt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.romraider.io.protocol.ncs.iso14230.NCSProtocol;
+
+/**
+ * An NCS ECU on a K-line (ISO14230).  A request with a short header is
+ * answered with a short header, one with a long header with a long header.
+ * <pre>
+ * short: len sid data... checksum
+ * long:  80+len dest src sid data... checksum
+ * </pre>
+ * Addresses and PIDs loaded with the load address command are read back by
+ * the read load command.  PIDs are served from RAM.  All SID 21 PID groups
+ * are reported as supported, no SID 22 PID groups are.
+ */
+final class NCSVirtualEcu implements VirtualEcu {
+    private static final byte READ_LOAD_OPTION = NCSProtocol.OPTION_81;
+    private static final int PID_BASE = 0xF00000;
+    private static final int PID_GROUP = 0x20;
+    private static final int SID_22_OFFSET = 0x10000;
+    private final EcuMemory memory;
+    private final byte[] ecuId;
+    private final List<Integer> addresses = new ArrayList<Integer>();
+
+    NCSVirtualEcu(EcuMemory memory, String ecuId) {
+        this.memory = memory;
+        this.ecuId = ecuId.getBytes();
+    }
+
+    @Override
+    public boolean isEchoed() {
+        return false;
+    }
+
+    @Override
+    public byte[] respond(byte[] request, int length) {
+        if (request.length < 3) {
+            return new byte[0];
+        }
+        final boolean longHeader = (request[0] & 0x80) == 0x80;
+        final int sidIndex = longHeader ? 3 : 1;
+        final int end = request.length - 1;
+        if (sidIndex >= end) {
+            return new byte[0];
+        }
+        final byte sid = request[sidIndex];
+        final int p = sidIndex + 1;
+        final byte[] data;
+        if (sid == NCSProtocol.ECU_ID_SID) {
+            data = new byte[1 + ecuId.length];
+            data[0] = request[p];
+            System.arraycopy(ecuId, 0, data, 1, ecuId.length);
+        }
+        else if (sid == NCSProtocol.LOAD_ADDRESS_COMMAND) {
+            load(request, p + 1, end);
+            data = new byte[]{request[p]};
+        }
+        else if (sid == NCSProtocol.READ_LOAD_COMMAND
+                && request[p] == READ_LOAD_OPTION) {
+            // option, then as many bytes as the tester expects
+            final int n = length < 0 ? addresses.size() : length - 4;
+            data = new byte[1 + Math.max(0, n)];
+            data[0] = request[p];
+            final byte[] values = new byte[data.length - 1];
+            memory.read(addresses, values);
+            System.arraycopy(values, 0, data, 1, values.length);
+        }
+        else if (sid == NCSProtocol.SID_21) {
+            data = pid(request, p, 1, 0);
+        }
+        else if (sid == NCSProtocol.SID_22) {
+            data = pid(request, p, 2, SID_22_OFFSET);
+        }
+        else {
+            return frame(request, longHeader, NCSProtocol.NCS_NRC,
+                    new byte[]{sid, 0x11});
+        }
+        memory.tick();
+        return frame(request, longHeader, (byte) (sid + 0x40), data);
+    }
+
+    // field_type address, a RAM address field is 83 00|FF 3_byte_address
+    private void load(byte[] request, int from, int end) {
+        addresses.clear();
+        int i = from;
+        while (i < end) {
+            final byte type = request[i++];
+            if (type == NCSProtocol.FIELD_TYPE_01 && i < end) {
+                addresses.add(PID_BASE + asUnsignedInt(request[i]) * 4);
+                i += 1;
+            }
+            else if (type == NCSProtocol.FIELD_TYPE_02 && i + 1 < end) {
+                addresses.add(PID_BASE + SID_22_OFFSET + address(request, i, 2) * 4);
+                i += 2;
+            }
+            else if (type == NCSProtocol.FIELD_TYPE_83 && i + 3 < end) {
+                addresses.add(address(request, i + 1, 3));
+                i += 4;
+            }
+            else {
+                break;
+            }
+        }
+    }
+
+    // the PID echoed, then a support mask for a group PID or two bytes
+    private byte[] pid(byte[] request, int p, int pidSize, int offset) {
+        final int pid = address(request, p, pidSize);
+        final boolean group = (pid & 0xFF) % PID_GROUP == 0;
+        final byte[] data = new byte[pidSize + (group ? 4 : 2)];
+        System.arraycopy(request, p, data, 0, pidSize);
+        if (group && offset == 0) {
+            for (int i = pidSize; i < data.length; i++) {
+                data[i] = (byte) 0xFF;
+            }
+            // the last group can't have a next group
+            if ((pid & 0xFF) == 0xE0) {
+                data[data.length - 1] = (byte) 0xFE;
+            }
+        }
+        else if (!group) {
+            memory.read(PID_BASE + offset + pid * 4, data, pidSize, 2);
+        }
+        return data;
+    }
+
+    private static byte[] frame(byte[] request, boolean longHeader,
+            byte sid, byte[] data) {
+
+        final int header = longHeader ? 3 : 1;
+        final byte[] response = new byte[header + 1 + data.length + 1];
+        if (longHeader) {
+            response[0] = (byte) (NCSProtocol.PHY_ADDR + 1 + data.length);
+            response[1] = request[2];
+            response[2] = request[1];
+        }
+        else {
+            response[0] = (byte) (1 + data.length);
+        }
+        response[header] = sid;
+        System.arraycopy(data, 0, response, header + 1, data.length);
+        response[response.length - 1] = calculateChecksum(response);
+        return response;
+    }
+}
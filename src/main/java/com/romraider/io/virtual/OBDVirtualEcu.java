@@ -0,0 +1,161 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static com.romraider.util.ByteUtil.asUnsignedInt;
+
+import java.util.Arrays;
+
+import com.romraider.io.protocol.obd.iso15765.OBDProtocol;
+import com.romraider.logger.ecu.definition.Module;
+
+/**
+ * An OBD ECU on CAN (ISO15765).
+ * <pre>
+ * request:  id0 id1 id2 id3 mode pid1 [pid2 ... pid6]
+ * response: id0 id1 id2 id3 mode+40 pid1 data1 [pid2 data2 ... pid6 data6]
+ * </pre>
+ * Mode 01 PIDs answer with their SAE J1979 data length, unless the tester
+ * expects a different length, then the bytes are spread over the PIDs.
+ * Every PID is reported as supported.  Mode 09 PID 04 answers with the
+ * calibration ID and mode 04 clears the codes.
+ */
+final class OBDVirtualEcu implements VirtualEcu {
+    private static final int MODE = 4;
+    private static final int PID_BASE = 0xF00000;
+    private static final byte CURRENT_DATA = 0x01;
+    private static final byte CAL_ID = 0x04;
+    private static final int CAL_ID_LENGTH = 16;
+    private static final int[] LENGTHS = new int[256];
+    private final EcuMemory memory;
+    private final byte[] calId;
+
+    static {
+        Arrays.fill(LENGTHS, 2);
+        // single byte PIDs
+        for (int pid : new int[]{
+                0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0D, 0x0E,
+                0x0F, 0x11, 0x12, 0x13, 0x1C, 0x1D, 0x1E, 0x2C, 0x2D, 0x2E,
+                0x2F, 0x30, 0x33, 0x45, 0x46, 0x47, 0x48, 0x49, 0x4A, 0x4B,
+                0x4C, 0x51, 0x52, 0x5A, 0x5B, 0x5C, 0x5F}) {
+            LENGTHS[pid] = 1;
+        }
+        // four byte PIDs, the support masks included
+        for (int pid : new int[]{
+                0x01, 0x24, 0x25, 0x26, 0x27, 0x28, 0x29, 0x2A, 0x2B, 0x34,
+                0x35, 0x36, 0x37, 0x38, 0x39, 0x3A, 0x3B, 0x41, 0x4F, 0x50}) {
+            LENGTHS[pid] = 4;
+        }
+        for (int pid = 0; pid < 256; pid += 0x20) {
+            LENGTHS[pid] = 4;
+        }
+    }
+
+    OBDVirtualEcu(EcuMemory memory, String calId) {
+        this.memory = memory;
+        this.calId = Arrays.copyOf(calId.getBytes(), CAL_ID_LENGTH);
+    }
+
+    @Override
+    public boolean isEchoed() {
+        return false;
+    }
+
+    @Override
+    public byte[] respond(byte[] request, int length) {
+        if (request.length <= MODE) {
+            return new byte[0];
+        }
+        final byte mode = request[MODE];
+        final byte[] data;
+        if (mode == CURRENT_DATA && request.length > MODE + 1) {
+            data = currentData(request,
+                    length < 0 ? -1 : length - OBDProtocol.RESPONSE_NON_DATA_BYTES);
+        }
+        else if (mode == OBDProtocol.OBD_INFO_COMMAND
+                && request.length > MODE + 1 && request[MODE + 1] == CAL_ID) {
+            // pid, message count, calibration ID
+            data = new byte[2 + calId.length];
+            data[0] = CAL_ID;
+            data[1] = 1;
+            System.arraycopy(calId, 0, data, 2, calId.length);
+        }
+        else if (mode == OBDProtocol.OBD_RESET_COMMAND) {
+            data = new byte[0];
+        }
+        else {
+            return frame(request, OBDProtocol.OBD_NRC, new byte[]{mode, 0x12});
+        }
+        memory.tick();
+        return frame(request, (byte) (mode + 0x40), data);
+    }
+
+    private byte[] currentData(byte[] request, int length) {
+        final int count = request.length - MODE - 1;
+        final int[] sizes = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            sizes[i] = LENGTHS[asUnsignedInt(request[MODE + 1 + i])];
+            total += sizes[i] + 1;
+        }
+        if (length >= count && total != length) {
+            int left = length - count;
+            for (int i = 0; i < count; i++) {
+                sizes[i] = left / (count - i);
+                left -= sizes[i];
+            }
+            total = length;
+        }
+        final byte[] data = new byte[total];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            final int pid = asUnsignedInt(request[MODE + 1 + i]);
+            data[offset++] = (byte) pid;
+            if (pid % 0x20 == 0 && sizes[i] == 4) {
+                // every PID supported, the last group has no next group
+                Arrays.fill(data, offset, offset + 4, (byte) 0xFF);
+                if (pid == 0xE0) {
+                    data[offset + 3] = (byte) 0xFE;
+                }
+            }
+            else {
+                memory.read(PID_BASE + pid * 4, data, offset, sizes[i]);
+            }
+            offset += sizes[i];
+        }
+        return data;
+    }
+
+    private static byte[] frame(byte[] request, byte mode, byte[] data) {
+        final byte[] response = new byte[MODE + 1 + data.length];
+        final Module module = OBDProtocol.module;
+        if (module != null) {
+            System.arraycopy(module.getAddress(), 0, response, 0, MODE);
+        }
+        else {
+            // by convention the ECU answers on the request ID plus 8
+            System.arraycopy(request, 0, response, 0, MODE);
+            response[MODE - 1] += 8;
+        }
+        response[MODE] = mode;
+        System.arraycopy(data, 0, response, MODE + 1, data.length);
+        return response;
+    }
+}
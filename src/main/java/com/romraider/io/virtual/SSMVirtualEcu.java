@@ -0,0 +1,155 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static com.romraider.io.protocol.ssm.iso9141.SSMChecksumCalculator.calculateChecksum;
+import static com.romraider.io.virtual.EcuMemory.address;
+import static com.romraider.util.ByteUtil.asUnsignedInt;
+import static com.romraider.util.HexUtil.asBytes;
+
+import com.romraider.io.protocol.ssm.iso9141.SSMProtocol;
+import com.romraider.logger.ecu.definition.Module;
+
+/**
+ * An SSM ECU on a K-line (ISO9141) or on CAN (ISO15765).  Both use the same
+ * commands, the command byte follows the four byte header of K-line or
+ * the four byte CAN ID.
+ * <pre>
+ * K-line: 80 dest src len cmd [pad] data... checksum
+ * CAN:    id0 id1 id2 id3 cmd [pad] data...
+ * </pre>
+ */
+final class SSMVirtualEcu implements VirtualEcu {
+    private static final int COMMAND = 4;
+    private static final byte NRC = (byte) 0x7F;
+    private static final byte CAN_INIT_COMMAND =
+            com.romraider.io.protocol.ssm.iso15765.SSMProtocol.ECU_INIT_COMMAND;
+    // unknown bytes, ECU ID, then every parameter and switch supported
+    private static final String INIT_HEADER = "A21011";
+    private static final int INIT_CAPABILITY_BYTES = 48;
+    private final EcuMemory memory;
+    private final boolean can;
+    private final byte[] ecuId;
+
+    SSMVirtualEcu(EcuMemory memory, boolean can, String ecuId) {
+        this.memory = memory;
+        this.can = can;
+        this.ecuId = asBytes(ecuId);
+    }
+
+    @Override
+    public boolean isEchoed() {
+        return !can;
+    }
+
+    @Override
+    public byte[] respond(byte[] request, int length) {
+        if (request.length <= COMMAND) {
+            return new byte[0];
+        }
+        final int end = can ? request.length : request.length - 1;
+        final byte command = request[COMMAND];
+        byte[] data;
+        if (command == (can ? CAN_INIT_COMMAND : SSMProtocol.ECU_INIT_COMMAND)) {
+            data = initData();
+        }
+        else if (command == SSMProtocol.READ_ADDRESS_COMMAND) {
+            // command, padding, 3 byte addresses
+            data = new byte[(end - COMMAND - 2) / SSMProtocol.ADDRESS_SIZE];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = memory.read(address(request,
+                        COMMAND + 2 + i * SSMProtocol.ADDRESS_SIZE, 3));
+            }
+        }
+        else if (command == SSMProtocol.READ_MEMORY_COMMAND && !can) {
+            // command, padding, 3 byte address, count - 1
+            data = new byte[asUnsignedInt(request[COMMAND + 5]) + 1];
+            memory.read(address(request, COMMAND + 2, 3), data, 0, data.length);
+        }
+        else if (command == SSMProtocol.WRITE_ADDRESS_COMMAND) {
+            // command, 3 byte address, value
+            final byte value = request[COMMAND + 4];
+            memory.write(address(request, COMMAND + 1, 3), value);
+            data = new byte[]{value};
+        }
+        else if (command == SSMProtocol.WRITE_MEMORY_COMMAND && !can) {
+            // command, 3 byte address, values
+            final int address = address(request, COMMAND + 1, 3);
+            data = new byte[end - COMMAND - 4];
+            System.arraycopy(request, COMMAND + 4, data, 0, data.length);
+            for (int i = 0; i < data.length; i++) {
+                memory.write(address + i, data[i]);
+            }
+        }
+        else if (can) {
+            return frame(request, NRC, new byte[]{command, 0x11});
+        }
+        else {
+            return new byte[0];     // a K-line ECU ignores what it can't read
+        }
+        memory.tick();
+        // every response code is the command plus 0x40
+        return frame(request, (byte) (command + 0x40), data);
+    }
+
+    private byte[] initData() {
+        final byte[] header = asBytes(INIT_HEADER);
+        final byte[] data = new byte[
+                header.length + ecuId.length + INIT_CAPABILITY_BYTES];
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(ecuId, 0, data, header.length, ecuId.length);
+        for (int i = header.length + ecuId.length; i < data.length; i++) {
+            data[i] = (byte) 0xFF;
+        }
+        return data;
+    }
+
+    private byte[] frame(byte[] request, byte responseCode, byte[] data) {
+        final byte[] response;
+        int i = 0;
+        if (can) {
+            response = new byte[COMMAND + 1 + data.length];
+            final Module module =
+                    com.romraider.io.protocol.ssm.iso15765.SSMProtocol.module;
+            if (module != null) {
+                System.arraycopy(module.getAddress(), 0, response, 0, COMMAND);
+            }
+            else {
+                // by convention the ECU answers on the request ID plus 8
+                System.arraycopy(request, 0, response, 0, COMMAND);
+                response[COMMAND - 1] += 8;
+            }
+            i = COMMAND;
+        }
+        else {
+            response = new byte[SSMProtocol.RESPONSE_NON_DATA_BYTES + data.length];
+            response[i++] = SSMProtocol.HEADER;
+            response[i++] = request[2];
+            response[i++] = request[1];
+            response[i++] = (byte) (data.length + 1);
+        }
+        response[i++] = responseCode;
+        System.arraycopy(data, 0, response, i, data.length);
+        if (!can) {
+            response[response.length - 1] = calculateChecksum(response);
+        }
+        return response;
+    }
+}
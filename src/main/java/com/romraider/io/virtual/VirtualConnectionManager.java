@@ -0,0 +1,210 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.lang.System.arraycopy;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.apache.log4j.Logger.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.io.connection.ConnectionManager;
+import com.romraider.io.connection.ConnectionProperties;
+import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.logger.ecu.exception.UnsupportedProtocolException;
+
+/**
+ * A connection to a virtual ECU, so the logger can be run and its
+ * throughput measured without a car or an adapter.  Select it with a port
+ * name starting with {@link #PORT}.  Each exchange takes the time the
+ * {@link VirtualTiming} gives for the request and response on the line,
+ * the bytes are handed over once the last one would have arrived.
+ * <p>
+ * The ROM image served as ECU memory is read from the file given by the
+ * system property <code>romraider.virtual.rom</code>, the ECU ID reported
+ * at init can be set with <code>romraider.virtual.ecuid</code>.
+ */
+public final class VirtualConnectionManager implements ConnectionManager {
+    public static final String PORT = "VIRTUAL";
+    private static final Logger LOGGER = getLogger(VirtualConnectionManager.class);
+    private static final String PROPERTY = "romraider.virtual.";
+    private static final long SPIN_NANOS = 200000L;
+    private final VirtualEcu ecu;
+    private final VirtualTiming timing;
+    private final long timeout;
+    private byte[] lastRequest;
+    private long idleAt;
+
+    /**
+     * @param ecu - the responder
+     * @param timing - the line timing
+     * @param timeoutMillis - the time waited for a response the ECU does
+     *                        not send
+     */
+    public VirtualConnectionManager(
+            VirtualEcu ecu, VirtualTiming timing, long timeoutMillis) {
+
+        checkNotNull(ecu, "ecu");
+        checkNotNull(timing, "timing");
+        this.ecu = ecu;
+        this.timing = timing;
+        this.timeout = timeoutMillis * 1000000L;
+        this.idleAt = nanoTime();
+    }
+
+    public static boolean isVirtualPort(String portName) {
+        return portName != null
+                && portName.toUpperCase().startsWith(PORT);
+    }
+
+    /**
+     * @param protocol - the logger protocol, e.g. SSM
+     * @param transport - the transport protocol, e.g. ISO9141
+     * @param connectionProperties - the properties of the protocol
+     * @return  a connection to a virtual ECU of the protocol with its typical
+     *          timing
+     */
+    public static VirtualConnectionManager create(
+            String protocol, String transport,
+            ConnectionProperties connectionProperties) {
+
+        checkNotNull(protocol, "protocol");
+        checkNotNull(transport, "transport");
+        checkNotNull(connectionProperties, "connectionProperties");
+        final EcuMemory memory = loadMemory();
+        final String ecuId = System.getProperty(PROPERTY + "ecuid");
+        final VirtualEcu ecu;
+        if ("SSM".equalsIgnoreCase(protocol) && "ISO9141".equalsIgnoreCase(transport)) {
+            ecu = new SSMVirtualEcu(memory, false, ecuId == null ? "7442594007" : ecuId);
+        }
+        else if ("SSM".equalsIgnoreCase(protocol) && "ISO15765".equalsIgnoreCase(transport)) {
+            ecu = new SSMVirtualEcu(memory, true, ecuId == null ? "7442594007" : ecuId);
+        }
+        else if ("DS2".equalsIgnoreCase(protocol)) {
+            ecu = new DS2VirtualEcu(memory, ecuId == null ? "1437806" : ecuId);
+        }
+        else if ("NCS".equalsIgnoreCase(protocol) && "ISO14230".equalsIgnoreCase(transport)) {
+            ecu = new NCSVirtualEcu(memory, ecuId == null ? "1234567890" : ecuId);
+        }
+        else if ("OBD".equalsIgnoreCase(protocol) && "ISO15765".equalsIgnoreCase(transport)) {
+            ecu = new OBDVirtualEcu(memory, ecuId == null ? "A2WC522S" : ecuId);
+        }
+        else {
+            throw new UnsupportedProtocolException(
+                    "No virtual ECU for " + protocol + "/" + transport);
+        }
+        LOGGER.info("Virtual ECU: " + protocol + "/" + transport);
+        return new VirtualConnectionManager(
+                ecu,
+                VirtualTiming.forProtocol(protocol, transport),
+                connectionProperties.getConnectTimeout());
+    }
+
+    @Override
+    public void open(byte[] start, byte[] stop) {
+        // the virtual ECU needs no start sequence
+    }
+
+    @Override
+    public void send(byte[] request, byte[] response, PollingState pollState) {
+        checkNotNull(request, "request");
+        checkNotNull(response, "response");
+        checkNotNull(pollState, "pollState");
+
+        if (pollState.getCurrentState() == PollingState.State.STATE_0 &&
+                pollState.getLastState() == PollingState.State.STATE_1) {
+            clearLine();
+        }
+        // in fast poll a K-line ECU keeps answering the last request
+        final boolean continuous = ecu.isEchoed() && lastRequest != null
+                && pollState.getCurrentState() == PollingState.State.STATE_1;
+        if (!continuous) {
+            lastRequest = request.clone();
+        }
+        final int echo = continuous || !ecu.isEchoed() ? 0 : request.length;
+        final byte[] reply = ecu.respond(lastRequest, response.length - echo);
+        transfer(continuous ? 0 : request.length, reply.length);
+
+        arraycopy(request, 0, response, 0, Math.min(echo, response.length));
+        arraycopy(reply, 0, response, echo,
+                Math.max(0, Math.min(reply.length, response.length - echo)));
+    }
+
+    @Override
+    public byte[] send(byte[] bytes) {
+        checkNotNull(bytes, "bytes");
+        lastRequest = bytes.clone();
+        final byte[] reply = ecu.respond(lastRequest, -1);
+        transfer(bytes.length, reply.length);
+
+        final int echo = ecu.isEchoed() ? bytes.length : 0;
+        final byte[] response = new byte[echo + reply.length];
+        arraycopy(bytes, 0, response, 0, echo);
+        arraycopy(reply, 0, response, echo, reply.length);
+        return response;
+    }
+
+    @Override
+    public void clearLine() {
+        lastRequest = null;
+        idleAt = nanoTime();
+    }
+
+    @Override
+    public void close() {
+        lastRequest = null;
+    }
+
+    // wait until the request and response are through, or the read timed out
+    private void transfer(int requestLength, int responseLength) {
+        long end = Math.max(nanoTime(),
+                idleAt + (requestLength > 0 ? timing.getP3Nanos() : 0));
+        end += timing.requestNanos(requestLength);
+        end += responseLength > 0 ? timing.responseNanos(responseLength) : timeout;
+        long remaining;
+        while ((remaining = end - nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                parkNanos(remaining - SPIN_NANOS);
+            }
+            else {
+                Thread.yield();
+            }
+        }
+        idleAt = end;
+    }
+
+    private static EcuMemory loadMemory() {
+        final String romFile = System.getProperty(PROPERTY + "rom");
+        if (romFile != null) {
+            try {
+                return EcuMemory.fromFile(new File(romFile));
+            }
+            catch (IOException e) {
+                LOGGER.error("Virtual ECU ROM image not read: " + romFile, e);
+            }
+        }
+        return new EcuMemory(new byte[0]);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+/**
+ * The responder of a virtual ECU.  It answers a request the way the ECU of
+ * a protocol does, the line timing is applied by the
+ * {@link VirtualConnectionManager}.
+ */
+public interface VirtualEcu {
+    /**
+     * @return  true if the line echoes the request back to the tester, as a
+     *          K-line does
+     */
+    boolean isEchoed();
+
+    /**
+     * @param request - the bytes sent by the tester
+     * @param length - the length of the response expected by the tester,
+     *                 echo not included, or -1 if it is not known
+     * @return  the response, or an empty array if the ECU does not answer
+     */
+    byte[] respond(byte[] request, int length);
+}
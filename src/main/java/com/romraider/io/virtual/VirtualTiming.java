@@ -0,0 +1,191 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import java.util.Random;
+
+/**
+ * The line timing of a virtual ECU.  A byte on a serial line costs its bits
+ * at the baud rate, on CAN a frame of up to seven payload bytes costs
+ * {@link #CAN_FRAME_BITS} bits.  The ISO 14230 timings are used:
+ * <ul>
+ * <li>P1 - the ECU inter-byte time of a response</li>
+ * <li>P2 - the time between the end of a request and the response</li>
+ * <li>P3 - the time between the end of a response and the next request</li>
+ * <li>P4 - the tester inter-byte time of a request</li>
+ * </ul>
+ * A random jitter, up to the given value, is added to P2.  The jitter is
+ * seeded so a run can be repeated.
+ * <p>
+ * The defaults of a protocol can be overridden with the system properties
+ * <code>romraider.virtual.baud</code>, <code>.p1</code>, <code>.p2</code>,
+ * <code>.p3</code>, <code>.p4</code>, <code>.jitter</code> (all times in
+ * milliseconds) and <code>.seed</code>.
+ */
+public final class VirtualTiming {
+    public static final int CAN_FRAME_BITS = 130;
+    private static final String PROPERTY = "romraider.virtual.";
+    private final int baudRate;
+    private final int bitsPerByte;
+    private final boolean can;
+    private final long p1;
+    private final long p2;
+    private final long p3;
+    private final long p4;
+    private final long jitter;
+    private final Random random;
+
+    /**
+     * @param baudRate - the line speed in bits per second, 0 for no
+     *                   transfer time
+     * @param bitsPerByte - the bits of a byte including start, parity and
+     *                      stop bits
+     * @param can - true if bytes are sent in CAN frames
+     * @param p1Micros - the ECU inter-byte time
+     * @param p2Micros - the response delay
+     * @param p3Micros - the idle time before the next request
+     * @param p4Micros - the tester inter-byte time
+     * @param jitterMicros - the largest random time added to P2
+     * @param seed - the seed of the jitter
+     */
+    public VirtualTiming(
+            int baudRate, int bitsPerByte, boolean can,
+            long p1Micros, long p2Micros, long p3Micros, long p4Micros,
+            long jitterMicros, long seed) {
+
+        this.baudRate = baudRate;
+        this.bitsPerByte = bitsPerByte;
+        this.can = can;
+        this.p1 = p1Micros * 1000L;
+        this.p2 = p2Micros * 1000L;
+        this.p3 = p3Micros * 1000L;
+        this.p4 = p4Micros * 1000L;
+        this.jitter = jitterMicros * 1000L;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @return  a timing with no delays at all, the ECU answers at once
+     */
+    public static VirtualTiming none() {
+        return new VirtualTiming(0, 10, false, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param protocol - the logger protocol, e.g. SSM
+     * @param transport - the transport protocol, e.g. ISO9141
+     * @return  the typical timing of the protocol with any system property
+     *          overrides applied
+     */
+    public static VirtualTiming forProtocol(String protocol, String transport) {
+        final boolean can = "ISO15765".equalsIgnoreCase(transport);
+        int baud = 4800;
+        int bits = 10;
+        double p1 = 0;
+        double p2 = 10;
+        double p3 = 0;
+        double p4 = 0;
+        if (can) {
+            baud = 500000;
+            p2 = 2;
+        }
+        else if ("DS2".equalsIgnoreCase(protocol)) {
+            baud = 9600;
+            bits = 11;  // even parity
+            p2 = 20;
+        }
+        else if ("NCS".equalsIgnoreCase(protocol)) {
+            baud = 10400;
+            p2 = 25;
+            p3 = 55;
+            p4 = 5;
+        }
+        return new VirtualTiming(
+                Integer.getInteger(PROPERTY + "baud", baud),
+                bits,
+                can,
+                micros("p1", p1),
+                micros("p2", p2),
+                micros("p3", p3),
+                micros("p4", p4),
+                micros("jitter", 0),
+                Long.getLong(PROPERTY + "seed", 0L));
+    }
+
+    /**
+     * @return  the time to send a request of the given length
+     */
+    public long requestNanos(int length) {
+        return lineNanos(length) + p4 * Math.max(0, length - 1);
+    }
+
+    /**
+     * @return  the time from the end of a request to the end of a response
+     *          of the given length, P2 and jitter included
+     */
+    public long responseNanos(int length) {
+        long nanos = p2 + lineNanos(length) + p1 * Math.max(0, length - 1);
+        if (jitter > 0) {
+            synchronized (random) {
+                nanos += (long) (random.nextDouble() * jitter);
+            }
+        }
+        return nanos;
+    }
+
+    public long getP3Nanos() {
+        return p3;
+    }
+
+    public boolean isCan() {
+        return can;
+    }
+
+    private long lineNanos(int length) {
+        if (baudRate <= 0 || length <= 0) {
+            return 0;
+        }
+        final long bits;
+        if (can) {
+            // a single frame holds 7 bytes, a segmented message has a first
+            // frame of 6, consecutive frames of 7 and a flow control frame
+            final int frames = length <= 7 ? 1 : 2 + (length - 6 + 6) / 7;
+            bits = (long) frames * CAN_FRAME_BITS;
+        }
+        else {
+            bits = (long) length * bitsPerByte;
+        }
+        return bits * 1000000000L / baudRate;
+    }
+
+    private static long micros(String name, double defaultMillis) {
+        final String value = System.getProperty(PROPERTY + name);
+        double millis = defaultMillis;
+        if (value != null) {
+            try {
+                millis = Double.parseDouble(value.trim());
+            }
+            catch (NumberFormatException e) {
+                // keep the default
+            }
+        }
+        return (long) (millis * 1000.0);
+    }
+}
@@ -133,6 +133,7 @@ import com.romraider.logger.ecu.comms.learning.LearningTableValues;
 import com.romraider.logger.ecu.comms.learning.LearningTableValuesFactory;
 import com.romraider.logger.ecu.comms.query.EcuInit;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
+import com.romraider.logger.ecu.comms.query.SSMEcuInit;
 import com.romraider.logger.ecu.comms.readcodes.ReadCodesManager;
 import com.romraider.logger.ecu.comms.readcodes.ReadCodesManagerImpl;
 import com.romraider.logger.ecu.comms.reset.ResetManager;
@@ -140,6 +141,7 @@ import com.romraider.logger.ecu.comms.reset.ResetManagerImpl;
 import com.romraider.logger.ecu.definition.EcuDataLoader;
 import com.romraider.logger.ecu.definition.EcuDataLoaderImpl;
 import com.romraider.logger.ecu.definition.EcuDefinition;
+import com.romraider.logger.ecu.definition.EcuDefinitionIndex;
 import com.romraider.logger.ecu.definition.EcuParameter;
 import com.romraider.logger.ecu.definition.EcuSwitch;
 import com.romraider.logger.ecu.definition.EvaluateEcuDefinition;
@@ -165,6 +167,7 @@ import com.romraider.logger.ecu.ui.SerialPortComboBox;
 import com.romraider.logger.ecu.ui.StatusIndicator;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandlerManager;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandlerManagerImpl;
+import com.romraider.logger.ecu.ui.handler.RenderScheduler;
 import com.romraider.logger.ecu.ui.handler.dash.DashboardUpdateHandler;
 import com.romraider.logger.ecu.ui.handler.dataflow.DataflowSimulationHandler;
 import com.romraider.logger.ecu.ui.handler.dyno.DynoUpdateHandler;
@@ -257,6 +260,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
     private JLabel calIdLabel;
     private JLabel ecuIdLabel;
     private JLabel statsLabel;
+    private JLabel renderStatsLabel;
     private JTabbedPane tabbedPane;
     private SerialPortComboBox portsComboBox;
     private DataUpdateHandlerManager dataHandlerManager;
@@ -301,7 +305,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
     private DataUpdateHandlerManager autoTuneHandlerManager;
     private DataRegistrationBroker autoTuneTabBroker;
     private AutoTuneManager autoTuneManager;
-    private EcuInit ecuInit;
+    private volatile EcuInit ecuInit;
     private JToggleButton logToFileButton;
     private List<ExternalDataSource> externalDataSources;
     private List<EcuParameter> ecuParams;
@@ -464,28 +468,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
                     invokeLater(new Runnable() {
                         @Override
                         public void run() {
-                            String calId = getCalId(ecuId);
-                            String carString = getCarString(ecuId);
-                            LOGGER.info("CAL ID: " + calId + ", Car: " + carString);
-                            calIdLabel.setText(buildEcuInfoLabelText(CAL_ID_LABEL, calId));
-                            ecuIdLabel.setText(buildEcuInfoLabelText(target + " ID", ecuId));
-                            loadResult = String.format("Loading logger config for new %s ID: %s, ", target, ecuId);
-                            loadLoggerParams();
-                            loadUserProfile(getSettings().getLoggerProfileFilePath());
-                        }
-
-                        private String getCalId(String ecuId) {
-                            Map<String, EcuDefinition> ecuDefinitionMap = getSettings().getLoggerEcuDefinitionMap();
-                            if (ecuDefinitionMap == null) return null;
-                            EcuDefinition def = ecuDefinitionMap.get(ecuId);
-                            return def == null ? null : def.getCalId();
-                        }
-
-                        private String getCarString(String ecuId) {
-                            Map<String, EcuDefinition> ecuDefinitionMap = getSettings().getLoggerEcuDefinitionMap();
-                            if (ecuDefinitionMap == null) return null;
-                            EcuDefinition def = ecuDefinitionMap.get(ecuId);
-                            return def == null ? null : def.getCarString();
+                            loadEcu(ecuId);
                         }
                     });
                 }
@@ -534,6 +517,14 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         calIdLabel = new JLabel(buildEcuInfoLabelText(CAL_ID_LABEL, null));
         ecuIdLabel = new JLabel(buildEcuInfoLabelText(target + " ID", null));
         statsLabel = buildStatsLabel();
+        renderStatsLabel = buildStatsLabel();
+        RenderScheduler.getInstance().setStatsListener(new RenderScheduler.StatsListener() {
+            @Override
+            public void renderStats(double framesPerSecond, long droppedSamples) {
+                renderStatsLabel.setText(MessageFormat.format(
+                        rb.getString("RENDERSTATS"), framesPerSecond, droppedSamples));
+            }
+        });
         tabbedPane = new JTabbedPane(BOTTOM);
         portsComboBox = new SerialPortComboBox();
         dataHandlerManager = new DataUpdateHandlerManagerImpl();
@@ -553,6 +544,21 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         dashboardTabExternalListTableModel = new ParameterListTableModel(dashboardTabBroker, HEADING_EXTERNAL);
     }
 
+    // show the ECU's identity and load the logger config for it, must be
+    // called on the event dispatch thread
+    private void loadEcu(String ecuId) {
+        final Map<String, EcuDefinition> ecuDefinitionMap = getSettings().getLoggerEcuDefinitionMap();
+        final EcuDefinition def = ecuDefinitionMap == null ? null : ecuDefinitionMap.get(ecuId);
+        final String calId = def == null ? null : def.getCalId();
+        final String carString = def == null ? null : def.getCarString();
+        LOGGER.info("CAL ID: " + calId + ", Car: " + carString);
+        calIdLabel.setText(buildEcuInfoLabelText(CAL_ID_LABEL, calId));
+        ecuIdLabel.setText(buildEcuInfoLabelText(target + " ID", ecuId));
+        loadResult = String.format("Loading logger config for new %s ID: %s, ", target, ecuId);
+        loadLoggerParams();
+        loadUserProfile(getSettings().getLoggerProfileFilePath());
+    }
+
     public void loadLoggerParams() {
         loadLoggerConfig();
         loadFromExternalDataSources();
@@ -606,33 +612,80 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
     }
 
     private void loadEcuDefs() {
-        try {
-            Map<String, EcuDefinition> ecuDefinitionMap = new HashMap<String, EcuDefinition>();
-            Vector<File> ecuDefFiles = getSettings().getEcuDefinitionFiles();
-            if (!ecuDefFiles.isEmpty()) {
-                EcuDataLoader dataLoader = new EcuDataLoaderImpl();
-                for (File ecuDefFile : ecuDefFiles) {
-                    if (ecuDefFile.exists()) {
-                        dataLoader.loadEcuDefsFromXml(ecuDefFile);
-                    }
-                    else {
-                        LOGGER.error(String.format(
-                                "ECU definition file configured but not found: %s",
-                                ecuDefFile.toString()));
-                    }
-                    ecuDefinitionMap.putAll(dataLoader.getEcuDefinitionMap());
+        // start with the definitions indexed by the last run, the files
+        // are only read again by the refresh if they have changed since
+        final Vector<File> ecuDefFiles = getSettings().getEcuDefinitionFiles();
+        final EcuDefinitionIndex index = EcuDefinitionIndex.getInstance();
+        setEcuDefinitionMap(index.getDefinitions(ecuDefFiles), ecuDefFiles.size());
+        runAsDaemon(new Runnable() {
+            @Override
+            public void run() {
+                boolean changed = true;
+                try {
+                    changed = index.refresh(ecuDefFiles);
+                } catch (Exception e) {
+                    reportError(e);
+                }
+                if (changed) {
+                    setEcuDefinitionMap(index.getDefinitions(ecuDefFiles),
+                            ecuDefFiles.size());
                 }
             }
-            getSettings().setLoggerEcuDefinitionMap(ecuDefinitionMap);
-            LOGGER.info(
-                    String.format(
-                            "%d ECU definitions loaded from %d files",
-                            ecuDefinitionMap.size(), ecuDefFiles.size()
-                            )
-                    );
-        } catch (Exception e) {
-            reportError(e);
+        });
+    }
+
+    private void setEcuDefinitionMap(Map<String, EcuDefinition> ecuDefinitionMap, int files) {
+        final Map<String, EcuDefinition> previous = getSettings().getLoggerEcuDefinitionMap();
+        getSettings().setLoggerEcuDefinitionMap(ecuDefinitionMap);
+        LOGGER.info(
+                String.format(
+                        "%d ECU definitions loaded from %d files",
+                        ecuDefinitionMap.size(), files
+                        )
+                );
+        // an ECU connected before the refresh finished was identified and
+        // configured with the old definitions, do it again with the new ones
+        final EcuInit currentEcuInit = ecuInit;
+        if (currentEcuInit == null) return;
+        final EcuInit resolvedEcuInit = resolveEcuInit(currentEcuInit, ecuDefinitionMap);
+        final String ecuId = resolvedEcuInit.getEcuId();
+        if (resolvedEcuInit == currentEcuInit && previous != null
+                && isSameDefinition(previous.get(ecuId), ecuDefinitionMap.get(ecuId))) {
+            return;
+        }
+        invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (calIdLabel == null || ecuInit != currentEcuInit) return;
+                ecuInit = resolvedEcuInit;
+                loadEcu(ecuId);
+            }
+        });
+    }
+
+    // OBD reports the CAL ID, which is mapped to the ECU ID through the
+    // definitions, as OBDProtocol does when the ECU is first initialised
+    private static EcuInit resolveEcuInit(EcuInit ecuInit,
+            Map<String, EcuDefinition> ecuDefinitionMap) {
+        final String ecuId = ecuInit.getEcuId();
+        if (ecuDefinitionMap.containsKey(ecuId)) return ecuInit;
+        for (EcuDefinition ecuDef : ecuDefinitionMap.values()) {
+            if (ecuId.equals(ecuDef.getCalId())) {
+                return new SSMEcuInit(ecuInit.getEcuInitBytes(), ecuDef.getEcuId());
+            }
         }
+        return ecuInit;
+    }
+
+    private static boolean isSameDefinition(EcuDefinition a, EcuDefinition b) {
+        if (a == null || b == null) return a == b;
+        return equal(a.getCalId(), b.getCalId())
+                && equal(a.getCarString(), b.getCarString())
+                && equal(a.getEcuDefFile(), b.getEcuDefFile());
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
     }
 
     private void loadLoggerConfig() {
@@ -1433,6 +1486,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         JPanel statsPanel = new JPanel(new FlowLayout());
         statsPanel.setBorder(createLoweredBevelBorder());
         statsPanel.add(statsLabel);
+        statsPanel.add(renderStatsLabel);
         constraints.gridx = 3;
         constraints.gridy = 0;
         constraints.gridwidth = 1;
@@ -2021,6 +2075,7 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
     }
 
     public void startLogging() {
+        RenderScheduler.getInstance().resetStats();
         controller.start();
     }
 
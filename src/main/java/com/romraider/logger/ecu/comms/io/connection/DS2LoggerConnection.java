@@ -21,6 +21,7 @@ package com.romraider.logger.ecu.comms.io.connection;
 
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.util.Collections.singletonList;
 import static org.apache.log4j.Logger.getLogger;
 
 import java.util.ArrayList;
@@ -39,7 +40,9 @@ import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
-import com.romraider.logger.ecu.comms.query.EcuQueryRangeTest;
+import com.romraider.logger.ecu.comms.query.ReadCostModel;
+import com.romraider.logger.ecu.comms.query.ReadPlan;
+import com.romraider.logger.ecu.comms.query.ReadPlanner;
 import com.romraider.logger.ecu.definition.EcuData;
 import com.romraider.logger.ecu.definition.Module;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
@@ -54,6 +57,10 @@ public final class DS2LoggerConnection implements LoggerConnection {
     private final ConnectionManager manager;
     private final Settings settings = SettingsManager.getSettings();
     private int queryCount;
+    // read memory: 8 byte request, the request echo and 4 bytes around the
+    // data back, a turnaround of about 20 bytes and 128 bytes at most
+    private final ReadPlanner memoryReadPlanner = new ReadPlanner(
+            new ReadCostModel("DS2 read memory", 8, 12, 20, 128));
 
     public DS2LoggerConnection(ConnectionManager manager) {
         checkNotNull(manager, "manager");
@@ -131,25 +138,25 @@ public final class DS2LoggerConnection implements LoggerConnection {
             }
             // read data starting at address [00 SG HI LO NN] NN - number of bytes<249
             else if (groupTest.startsWith("0x060x00")) {
-                final EcuQueryRangeTest range = new EcuQueryRangeTest(querySet, 128);
-                final Collection<EcuQuery> newQuery = range.validate();
-                int length = range.getLength();
-                if (newQuery != null && length > 0) {
-                    request = protocol.constructReadMemoryRange(
-                            module, newQuery, length);
-                    if (LOGGER.isDebugEnabled())
-                        LOGGER.debug(String.format("Mode:%s %s Range request  ---> %s",
-                            pollState.getCurrentState(), module, asHex(request)));
-                    response = protocol.constructReadMemoryRangeResponse(
-                            request.length, length);
-                    protocol.processReadMemoryRangeResponse(
-                            querySet,
-                            sendRcv(module, request, response, pollState));
-                }
-                else {
-                    for (EcuQuery query : querySet) {
-                        final Collection<EcuQuery> queryList = new ArrayList<EcuQuery>();
-                        queryList.add(query);
+                // read the ranges planned for the lowest number of bytes on
+                // the wire, single queries with the typed memory request
+                final ReadPlan plan = memoryReadPlanner.plan(querySet);
+                for (ReadPlan.Range range : plan.getRanges()) {
+                    if (!range.isSingle()) {
+                        request = protocol.constructReadMemoryRange(
+                                module, singletonList(range.getStartQuery()),
+                                range.getLength());
+                        if (LOGGER.isDebugEnabled())
+                            LOGGER.debug(String.format("Mode:%s %s Range request  ---> %s",
+                                pollState.getCurrentState(), module, asHex(request)));
+                        response = protocol.constructReadMemoryRangeResponse(
+                                request.length, range.getLength());
+                        protocol.processReadMemoryRangeResponse(
+                                range.getQueries(),
+                                sendRcv(module, request, response, pollState));
+                    }
+                    else {
+                        final Collection<EcuQuery> queryList = range.getQueries();
                         request = protocol.constructReadMemoryRequest(
                                 module, queryList);
                         if (LOGGER.isDebugEnabled())
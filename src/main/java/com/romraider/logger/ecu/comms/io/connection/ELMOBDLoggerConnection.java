@@ -20,11 +20,13 @@
 package com.romraider.logger.ecu.comms.io.connection;
 
 import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.lang.System.nanoTime;
 
 import static org.apache.log4j.Logger.getLogger;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
@@ -37,6 +39,7 @@ import com.romraider.logger.ecu.comms.io.protocol.LoggerProtocolOBD;
 import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryData;
 import com.romraider.logger.ecu.definition.Module;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
@@ -44,7 +47,10 @@ public final class ELMOBDLoggerConnection implements LoggerConnection {
     private static final Logger LOGGER = getLogger(OBDLoggerConnection.class);
     private final LoggerProtocolOBD protocol;
     private final ElmConnectionManager manager;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final byte RESPONSE_MODE = 0x41;
     private Collection<EcuQuery> obdQueries = new ArrayList<EcuQuery>();
+    private final byte[] replyData = new byte[512];
     final Settings settings = SettingsManager.getSettings();
 
     public ELMOBDLoggerConnection(ElmConnectionManager manager) {
@@ -107,66 +113,111 @@ public final class ELMOBDLoggerConnection implements LoggerConnection {
 
 
     @Override
-    //TODO: CAN supports requesting multiple PIDs at once
-    //This still has to be implemented
     public final void sendAddressReads(Collection<EcuQuery> queries, Module module,
     		PollingState pollState) {
 
+        // On CAN, with firmware v1.3 or later, up to six PIDs are packed
+        // into one request and the number of frames expected is appended so
+        // the ELM returns as soon as they are in instead of waiting for its
+        // timeout.  Older adapters get one PID per request, as before.
+        final int maxPids = manager.getMaxPidsPerRequest();
+        final boolean countFrames = maxPids > 1 && manager.supportsResponseCount();
         final int obdQueryListLength = queries.size();
-        for (int i = 0; i < obdQueryListLength; i++) {
-
-        	EcuQuery query = ((ArrayList<EcuQuery>) queries).get(i);
-            obdQueries.add(query);
+        for (int i = 0; i < obdQueryListLength; i += maxPids) {
+            for (int j = i; (j < i + maxPids) && (j < obdQueryListLength); j++) {
+                obdQueries.add(((ArrayList<EcuQuery>) queries).get(j));
+            }
 
             final byte[] request = protocol.constructReadAddressRequest(module, obdQueries);
-            String reqStr = String.format("%02X %02X", (int)request[4], (int)request[5]);
+            final Collection<EcuQuery> pids = protocol.filterDuplicates(obdQueries);
+            final String reqStr = buildRequest(request, pids, countFrames);
             if (LOGGER.isTraceEnabled())
                 LOGGER.trace("Request: " + reqStr);
-            String result = manager.sendAndWaitForChar(reqStr, 2500, ">");
+            final long start = nanoTime();
+            manager.sendAndWaitForPrompt(reqStr, 2500);
+            TransportLatency.sendDone(start);
+            final int length = manager.getReplyData(replyData);
             if (LOGGER.isTraceEnabled())
-                LOGGER.trace("ELM: " + result);
-
-           	if(result.contains("BUS INIT"))
-           	{
-           		LOGGER.warn("ELM 327 still initializing bus while querying!");
-           		continue;
-           	}
-           	else if(result.contains("STOPPED")) {
-            	LOGGER.warn("ELM327 stopped trying to connect to the ECU!");
-            	continue;
+                LOGGER.trace("ELM: " + manager.getReplyText());
+
+            if (length < 0) {
+                final String result = manager.getReplyText();
+                if(result.contains("BUS INIT")) {
+                    LOGGER.warn("ELM 327 still initializing bus while querying!");
+                }
+                else if(result.contains("STOPPED")) {
+                    LOGGER.warn("ELM327 stopped trying to connect to the ECU!");
+                }
+                else if(result.contains("NO DATA")) {
+                    LOGGER.warn("ELM327 received no response from ECU!");
+                }
+                else {
+                    LOGGER.warn("ELM327 unexpected response: " + result);
+                }
             }
-           	else if(result.contains("NO DATA")) {
-            	LOGGER.warn("ELM327 received no response from ECU!");
-            	continue;
+            else {
+                processResponse(obdQueries, pids.size(), replyData, length);
             }
+            obdQueries.clear();
+        }
+    }
 
-           	boolean found = false;
-
-           	String[] resultSplit = result.split("\r");
-
-           	for(String s : resultSplit) {
-		        String[] bytesSplit = s.split(" ");
-
-		        for(int j = 0; j < bytesSplit.length; j++) {
-
-		        	if(bytesSplit[j].equals(String.format("%02X",(int)request[5]))) {
-
-			            byte[] response = new byte[bytesSplit.length - j - 1];
-
-			            for(int k = 0; k < response.length; k++) {
-			            		response[k] = (byte) Integer.parseInt(bytesSplit[k + j + 1], 16);
-			            }
-
-			            query.setResponse(response);
-			            found = true;
-			            break;
-		            }
-		        }
-
-		        if(found) break;
-           	}
+    // mode and PIDs of the request as hex digits, the CAN id is not sent,
+    // each distinct PID is in the request and the reply only once
+    static String buildRequest(byte[] request, Collection<EcuQuery> pids,
+            boolean countFrames) {
+        final StringBuilder sb = new StringBuilder(2 * request.length);
+        for (int i = 4; i < request.length; i++) {
+            sb.append(HEX[(request[i] >> 4) & 0x0F]).append(HEX[request[i] & 0x0F]);
+        }
+        if (countFrames) {
+            // a single frame carries 7 bytes, the first of a multi frame
+            // reply 6 and each following one 7
+            int bytes = 1;
+            for (EcuQuery query : pids) {
+                bytes += query.getBytes().length + EcuQueryData.getDataLength(query);
+            }
+            final int frames = bytes <= 7 ? 1 : 1 + (bytes - 6 + 6) / 7;
+            if (frames < 16) {
+                sb.append(HEX[frames]);
+            }
+        }
+        return sb.toString();
+    }
 
-            obdQueries.clear();
+    // the reply is the mode + 0x40 followed by each PID and its data
+    static void processResponse(Collection<EcuQuery> batch, int pids,
+            byte[] replyData, int length) {
+        int i = 0;
+        while (i < length && replyData[i] != RESPONSE_MODE) {
+            i++;
+        }
+        i++;
+        while (i < length) {
+            final byte pid = replyData[i];
+            int dataLength = -1;
+            for (EcuQuery query : batch) {
+                if (query.getBytes()[0] != pid) {
+                    continue;
+                }
+                if (dataLength < 0) {
+                    // a single PID gets all of the data, as it always has
+                    dataLength = pids == 1
+                            ? length - i - 1
+                            : EcuQueryData.getDataLength(query);
+                    if (i + 1 + dataLength > length) {
+                        return;
+                    }
+                }
+                query.setResponse(Arrays.copyOfRange(
+                        replyData, i + 1, i + 1 + dataLength));
+            }
+            if (dataLength < 0) {
+                if (LOGGER.isDebugEnabled())
+                    LOGGER.debug(String.format("ELM: unexpected PID %02X in reply", pid));
+                return;
+            }
+            i += 1 + dataLength;
         }
     }
 
@@ -50,7 +50,8 @@ public final class LoggerConnectionFactory {
 	        	Class<?> cls = Class.forName(LoggerConnectionFactory.
 	        			class.getPackage().getName() +  "." + protocolName + "LoggerConnection");
 	            return (LoggerConnection) cls.getConstructor(
-	            		ConnectionManager.class).newInstance(manager);
+	            		ConnectionManager.class).newInstance(
+	            				new TimedConnectionManager(manager));
 	        } catch (Exception e) {
 	            manager.close();
 	            throw new UnsupportedProtocolException(protocolName, e);
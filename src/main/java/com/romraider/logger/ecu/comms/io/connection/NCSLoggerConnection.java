@@ -22,6 +22,7 @@ package com.romraider.logger.ecu.comms.io.connection;
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ThreadUtil.sleep;
+import static java.util.Collections.singletonList;
 import static org.apache.log4j.Logger.getLogger;
 
 import java.util.ArrayList;
@@ -41,8 +42,9 @@ import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
-import com.romraider.logger.ecu.comms.query.EcuQueryData;
-import com.romraider.logger.ecu.comms.query.EcuQueryRangeTest;
+import com.romraider.logger.ecu.comms.query.ReadCostModel;
+import com.romraider.logger.ecu.comms.query.ReadPlan;
+import com.romraider.logger.ecu.comms.query.ReadPlanner;
 import com.romraider.logger.ecu.definition.Module;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
@@ -56,6 +58,10 @@ public final class NCSLoggerConnection implements LoggerConnection {
     private final Settings settings = SettingsManager.getSettings();
     private final Collection<EcuQuery> scQuery = new ArrayList<EcuQuery>();
     private final Collection<EcuQuery> ramQuery = new ArrayList<EcuQuery>();
+    // CAN $23: 4 byte id, SID and 6 byte address and length out, 4 byte id
+    // and SID back, a turnaround of about 64 bytes and 63 bytes at most
+    private final ReadPlanner canReadPlanner = new ReadPlanner(
+            new ReadCostModel("CAN $23", 11, 5, 64, 63));
     private boolean commsStarted;
     private boolean elevatedDiag;
 
@@ -434,38 +440,21 @@ public final class NCSLoggerConnection implements LoggerConnection {
                         module, asHex(response)));
                 elevatedDiag = true;
             }
-            // Inspect the address of each query to determine if a single query
-            // with a start address and byte length can be substituted as opposed
-            // to querying each address separately.
-            final EcuQueryRangeTest range = new EcuQueryRangeTest(ramQuery, 63);
-            final Collection<EcuQuery> newQuery = range.validate();
-            int length = range.getLength();
-            if (newQuery != null && length > 0) {
-                request = protocol.constructReadMemoryRequest(module, newQuery, length);
+            // Read the queries in the ranges planned for the lowest number
+            // of bytes on the wire, a range may include the gaps between
+            // queries when that is cheaper than another request.
+            final ReadPlan plan = canReadPlanner.plan(ramQuery);
+            for (ReadPlan.Range range : plan.getRanges()) {
+                request = protocol.constructReadMemoryRequest(
+                        module, singletonList(range.getStartQuery()), range.getLength());
                 if (LOGGER.isDebugEnabled())
-                    LOGGER.debug(module + " CAN $23 Request  ---> " + asHex(request));
-                response = protocol.constructReadMemoryResponse(1, length);
+                    LOGGER.debug(String.format("Mode:%s %s CAN $23 Request  ---> %s",
+                        pollState.getCurrentState(), module, asHex(request)));
+                response = protocol.constructReadMemoryResponse(1, range.getLength());
                 protocol.processReadMemoryResponses(
-                        ramQuery,
+                        range.getQueries(),
                         sendRcv(module, request, response, pollState));
             }
-            else {
-                // for each query in the collection create a new collection with one item
-                for (EcuQuery query : ramQuery) {
-                    newQuery.clear();
-                    newQuery.add(query);
-                    request = protocol.constructReadMemoryRequest(
-                            module, newQuery, EcuQueryData.getDataLength(query));
-                    if (LOGGER.isDebugEnabled())
-                        LOGGER.debug(String.format("Mode:%s %s Memory request  ---> %s",
-                            pollState.getCurrentState(), module, asHex(request)));
-                    response = protocol.constructReadMemoryResponse(1,
-                            EcuQueryData.getDataLength(query));
-                    protocol.processReadMemoryResponses(
-                            newQuery,
-                            sendRcv(module, request, response, pollState));
-                }
-            }
         }
     }
 
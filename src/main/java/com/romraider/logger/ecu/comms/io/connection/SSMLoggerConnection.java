@@ -19,12 +19,14 @@
 
 package com.romraider.logger.ecu.comms.io.connection;
 
+import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.ADDRESS_SIZE;
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static org.apache.log4j.Logger.getLogger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,10 +45,15 @@ import com.romraider.util.SettingsManager;
 
 public final class SSMLoggerConnection implements LoggerConnection {
     private static final Logger LOGGER = getLogger(SSMLoggerConnection.class);
+    // most addresses a read request can hold, data_length = 2 + 3 * addresses
+    static final int MAX_ADDRESSES = (0xFF - 2) / ADDRESS_SIZE;
+    private static final PollingState POLL_ONCE = new OncePollingState();
     private final LoggerProtocol protocol;
     private final ConnectionManager manager;
     private List<EcuQuery> tcuQueries = new ArrayList<EcuQuery>();
     private final Collection<EcuQuery> tcuSubQuery = new ArrayList<EcuQuery>();
+    private List<EcuQuery> plannedQueries;
+    private List<Collection<EcuQuery>> batches;
     Settings settings = SettingsManager.getSettings();
 
     public SSMLoggerConnection(ConnectionManager manager) {
@@ -125,6 +132,9 @@ public final class SSMLoggerConnection implements LoggerConnection {
                         tcuSubQuery, processedResponse, pollState);
             }
         }
+        else if (isBatched(queries)) {
+            sendBatches(module, pollState);
+        }
         else {
             final byte[] request = protocol.constructReadAddressRequest(
                     module, queries);
@@ -146,6 +156,91 @@ public final class SSMLoggerConnection implements LoggerConnection {
         }
     }
 
+    /**
+     * Only the K-line frame limits the data length to one byte, on CAN a
+     * large poll stays one request and keeps fast poll mode.
+     */
+    boolean isBatched(Collection<EcuQuery> queries) {
+        return !settings.isCanBus() && planBatches(queries).size() > 1;
+    }
+
+    /**
+     * Split the queries into read requests that each fit the one byte SSM
+     * data length.  The batches are of even size, so every request costs
+     * about the same time on the line.  Queries reading the same addresses
+     * are kept in one batch.  The plan is kept until the queries change.
+     */
+    List<Collection<EcuQuery>> planBatches(Collection<EcuQuery> queries) {
+        if (queries.equals(plannedQueries)) {
+            return batches;
+        }
+        final Map<String, List<EcuQuery>> groups = new LinkedHashMap<String, List<EcuQuery>>();
+        int numAddresses = 0;
+        for (EcuQuery query : queries) {
+            List<EcuQuery> group = groups.get(query.getHex());
+            if (group == null) {
+                group = new ArrayList<EcuQuery>();
+                groups.put(query.getHex(), group);
+                numAddresses += query.getBytes().length / ADDRESS_SIZE;
+            }
+            group.add(query);
+        }
+        final int numBatches = (numAddresses + MAX_ADDRESSES - 1) / MAX_ADDRESSES;
+        final int batchSize = numBatches > 1
+                ? (numAddresses + numBatches - 1) / numBatches : MAX_ADDRESSES;
+
+        batches = new ArrayList<Collection<EcuQuery>>();
+        Collection<EcuQuery> batch = new ArrayList<EcuQuery>();
+        int batchAddresses = 0;
+        for (List<EcuQuery> group : groups.values()) {
+            final int groupAddresses = group.get(0).getBytes().length / ADDRESS_SIZE;
+            if (!batch.isEmpty() && (batchAddresses >= batchSize
+                    || batchAddresses + groupAddresses > MAX_ADDRESSES)) {
+                batches.add(batch);
+                batch = new ArrayList<EcuQuery>();
+                batchAddresses = 0;
+            }
+            batch.addAll(group);
+            batchAddresses += groupAddresses;
+        }
+        batches.add(batch);
+        plannedQueries = new ArrayList<EcuQuery>(queries);
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("SSM read of " + numAddresses + " addresses planned as " +
+                    batches.size() + " requests");
+        return batches;
+    }
+
+    /**
+     * Send the planned batches back to back.  The ECU only repeats a single
+     * request in fast poll mode, so each batch is requested once.
+     */
+    private void sendBatches(Module module, PollingState pollState) {
+        if (pollState.getCurrentState() == PollingState.State.STATE_0 &&
+                pollState.getLastState() == PollingState.State.STATE_1) {
+            manager.clearLine();
+        }
+        final boolean fastPoll = pollState.isFastPoll();
+        pollState.setFastPoll(false);
+        try {
+            for (Collection<EcuQuery> batch : batches) {
+                final byte[] request = protocol.constructReadAddressRequest(
+                        module, batch);
+                final byte[] response = protocol.constructReadAddressResponse(
+                        batch, POLL_ONCE);
+                manager.send(request, response, POLL_ONCE);
+                final byte[] processedResponse = protocol.preprocessResponse(
+                        request, response, POLL_ONCE);
+                if (LOGGER.isDebugEnabled())
+                    LOGGER.debug(module + " Batch Response <--- " + asHex(processedResponse));
+                protocol.processReadAddressResponses(
+                        batch, processedResponse, POLL_ONCE);
+            }
+        } finally {
+            pollState.setFastPoll(fastPoll);
+        }
+    }
+
     @Override
     public void clearLine() {
         manager.clearLine();
@@ -183,4 +278,44 @@ public final class SSMLoggerConnection implements LoggerConnection {
             }
         }
     }
+
+    /**
+     * The state of a request that is sent once and answered once.
+     */
+    private static final class OncePollingState implements PollingState {
+        public State getCurrentState() {
+            return State.STATE_0;
+        }
+
+        public void setCurrentState(State state) {
+        }
+
+        public State getLastState() {
+            return State.STATE_0;
+        }
+
+        public void setLastState(State state) {
+        }
+
+        public boolean isNewQuery() {
+            return false;
+        }
+
+        public void setNewQuery(boolean state) {
+        }
+
+        public boolean isLastQuery() {
+            return false;
+        }
+
+        public void setLastQuery(boolean state) {
+        }
+
+        public boolean isFastPoll() {
+            return false;
+        }
+
+        public void setFastPoll(boolean state) {
+        }
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.lang.System.nanoTime;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.util.LatencyHistogram;
+
+/**
+ * Latency histograms of the ECU transport, kept for each protocol and
+ * module.  A read of a set of queries is timed as a whole, every transport
+ * send within it is timed on its own, and the remainder is the time spent
+ * encoding requests and decoding responses in the protocol.  Timing is
+ * always on, a read costs a few calls to {@link System#nanoTime()}.
+ */
+public final class TransportLatency {
+    private static final TransportLatency INSTANCE = new TransportLatency();
+    private static final ThreadLocal<Recorder> ACTIVE = new ThreadLocal<Recorder>();
+    private final Map<String, Map<String, Recorder>> recorders =
+            new HashMap<String, Map<String, Recorder>>();
+    private final List<Recorder> recorderList = new ArrayList<Recorder>();
+
+    public enum Stage {
+        /** a complete read of the queries of a module */
+        READ,
+        /** a request sent and its response received by the adapter */
+        SEND,
+        /** the time of a read not spent sending, our own encoding and decoding */
+        PROTOCOL
+    }
+
+    /**
+     * The histograms of one protocol and module.
+     */
+    public static final class Recorder {
+        private final String protocol;
+        private final String module;
+        private final LatencyHistogram read = new LatencyHistogram();
+        private final LatencyHistogram send = new LatencyHistogram();
+        private final LatencyHistogram processing = new LatencyHistogram();
+        private long start;
+        private long sendNanos;
+
+        private Recorder(String protocol, String module) {
+            this.protocol = protocol;
+            this.module = module;
+        }
+
+        public String getProtocol() {
+            return protocol;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        public LatencyHistogram getHistogram(Stage stage) {
+            switch (stage) {
+            case READ:
+                return read;
+            case SEND:
+                return send;
+            default:
+                return processing;
+            }
+        }
+
+        /**
+         * Start timing a read on the current thread, sends made by the
+         * thread are counted to this recorder until {@link #end()}.
+         */
+        public void begin() {
+            ACTIVE.set(this);
+            sendNanos = 0;
+            start = nanoTime();
+        }
+
+        public void end() {
+            final long total = nanoTime() - start;
+            ACTIVE.set(null);
+            read.record(total);
+            processing.record(total - sendNanos);
+        }
+
+        private void recordSend(long nanos) {
+            send.record(nanos);
+            sendNanos += nanos;
+        }
+
+        private void reset() {
+            read.reset();
+            send.reset();
+            processing.reset();
+        }
+    }
+
+    private TransportLatency() {
+    }
+
+    public static TransportLatency getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Count a transport send to the read being timed on this thread, if any.
+     * @param startNanos - the {@link System#nanoTime()} the send started
+     */
+    public static void sendDone(long startNanos) {
+        final Recorder recorder = ACTIVE.get();
+        if (recorder != null) {
+            recorder.recordSend(nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * @return  the recorder of a protocol and module, created on first use
+     */
+    public synchronized Recorder getRecorder(String protocol, String module) {
+        checkNotNull(protocol, "protocol");
+        checkNotNull(module, "module");
+        Map<String, Recorder> modules = recorders.get(protocol);
+        if (modules == null) {
+            modules = new HashMap<String, Recorder>();
+            recorders.put(protocol, modules);
+        }
+        Recorder recorder = modules.get(module);
+        if (recorder == null) {
+            recorder = new Recorder(protocol, module);
+            modules.put(module, recorder);
+            recorderList.add(recorder);
+        }
+        return recorder;
+    }
+
+    public synchronized List<Recorder> getRecorders() {
+        return new ArrayList<Recorder>(recorderList);
+    }
+
+    public synchronized void reset() {
+        for (Recorder recorder : recorderList) {
+            recorder.reset();
+        }
+    }
+
+    /**
+     * Write all histograms as comma separated values, durations in
+     * microseconds.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        final String eol = System.getProperty("line.separator");
+        writer.write("Protocol,Module,Stage,Count,Mean,P50,P95,P99,Max" + eol);
+        for (Recorder recorder : getRecorders()) {
+            for (Stage stage : Stage.values()) {
+                final LatencyHistogram histogram = recorder.getHistogram(stage);
+                writer.write(recorder.getProtocol() + "," + recorder.getModule()
+                        + "," + stage + "," + histogram.getCount()
+                        + "," + micros(histogram.getMean())
+                        + "," + micros(histogram.getPercentile(50))
+                        + "," + micros(histogram.getPercentile(95))
+                        + "," + micros(histogram.getPercentile(99))
+                        + "," + micros(histogram.getMax()) + eol);
+            }
+        }
+        writer.flush();
+    }
+
+    private static String micros(long nanos) {
+        return String.valueOf(nanos / 1000.0);
+    }
+}
@@ -19,10 +19,15 @@
 
 package com.romraider.logger.ecu.comms.io.protocol;
 
+import java.util.Collection;
+
+import com.romraider.logger.ecu.comms.query.EcuQuery;
 import com.romraider.logger.ecu.definition.Module;
 
 
 public interface LoggerProtocolOBD extends LoggerProtocol {
 
     byte[] constructReadPidRequest(Module module, byte[] pid);
+
+    Collection<EcuQuery> filterDuplicates(Collection<EcuQuery> queries);
 }
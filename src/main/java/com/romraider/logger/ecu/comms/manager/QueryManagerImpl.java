@@ -30,6 +30,7 @@ import static java.util.Collections.synchronizedMap;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -51,8 +52,10 @@ import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
 import com.romraider.logger.ecu.comms.query.ExternalQuery;
 import com.romraider.logger.ecu.comms.query.ExternalQueryImpl;
 import com.romraider.logger.ecu.comms.query.Query;
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.comms.query.ResponseImpl;
+import com.romraider.logger.ecu.comms.query.ReadPlan;
+import com.romraider.logger.ecu.comms.query.ReadPlanner;
+import com.romraider.logger.ecu.comms.query.ColumnarResponse;
+import com.romraider.logger.ecu.comms.query.ResponseSchema;
 import com.romraider.logger.ecu.definition.EcuData;
 import com.romraider.logger.ecu.definition.ExternalData;
 import com.romraider.logger.ecu.definition.LoggerData;
@@ -61,6 +64,7 @@ import com.romraider.logger.ecu.ui.MessageListener;
 import com.romraider.logger.ecu.ui.StatusChangeListener;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.handler.file.FileLoggerControllerSwitchMonitor;
+import com.romraider.logger.external.core.SampleRing;
 import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
 
@@ -77,6 +81,10 @@ public final class QueryManagerImpl implements QueryManager {
     private static final PollingState pollState = new PollingStateImpl();
     private static final Settings settings = SettingsManager.getSettings();
     private static final String EXT = "Externals";
+    // add a response for every sample of a sampled external data item,
+    // holding the ECU values of the last response
+    private static final boolean EXTERNAL_NATIVE_RATE =
+            Boolean.getBoolean("romraider.external.nativerate");
     private final EcuInitCallback ecuInitCallback;
     private final MessageListener messageListener;
     private FileLoggerControllerSwitchMonitor monitor;
@@ -84,7 +92,12 @@ public final class QueryManagerImpl implements QueryManager {
     private Thread queryManagerThread;
     private static boolean started;
     private static boolean stop;
-    private AsyncDataUpdateHandler dataUpdater;
+    private ResponsePipeline dataUpdater;
+    private ResponseSchema responseSchema;
+    private Query[] schemaQueries;
+    private int[] schemaSlots;
+    private ColumnarResponse lastResponse;
+    private long[] sampleTimes = new long[SampleRing.DEFAULT_CAPACITY];
     private DataUpdateHandler[] updateHandlers;
     private int queryCounter;
     private long queryStart;
@@ -192,7 +205,7 @@ public final class QueryManagerImpl implements QueryManager {
                 LOGGER.debug("QueryManager stopped.");
 
             if (dataUpdater != null) {
-                dataUpdater.stopUpdater();
+                dataUpdater.stop();
             }
         }
     }
@@ -266,6 +279,7 @@ public final class QueryManagerImpl implements QueryManager {
             moduleName = module.getName();
         }
         TransmissionManager txManager = new TransmissionManagerImpl();
+        ReadPlanner.clearCurrentPlan();
         queryStart = currentTimeMillis();
         queryCounter = 1;
         long end = currentTimeMillis();
@@ -274,10 +288,13 @@ public final class QueryManagerImpl implements QueryManager {
             txManager.start();
 
             if(dataUpdater != null && dataUpdater.isRunning()) {
-                dataUpdater.stopUpdater();
+                dataUpdater.stop();
             }
 
-            dataUpdater = new AsyncDataUpdateHandler(updateHandlers);
+            dataUpdater = new ResponsePipeline(updateHandlers,
+                    settings.getLoggerPipelineCapacity(),
+                    ResponsePipeline.Overflow.fromName(
+                            settings.getLoggerPipelineOverflow()));
             dataUpdater.start();
 
             boolean lastPollState = settings.isFastPoll();
@@ -294,7 +311,8 @@ public final class QueryManagerImpl implements QueryManager {
                     messageListener.reportMessage(rb.getString("SELECTPARAMS"));
                     sleep(100L);
                 } else {
-                    end = currentTimeMillis() + 1L; // update once every 1msec
+                    final long ecuStart = currentTimeMillis();
+                    end = ecuStart + 1L; // update once every 1msec
                     final List<EcuQuery> ecuQueries =
                             filterEcuQueries(queryMap.values());
 
@@ -343,13 +361,16 @@ public final class QueryManagerImpl implements QueryManager {
                             }
                         }
                     }
-                    sendExternalQueries();
+                    // the ECU values are taken around the middle of the exchange,
+                    // the external values are aligned to that time
+                    final long timestamp = (ecuStart + currentTimeMillis()) / 2L;
+                    sendExternalQueries(timestamp);
                     // waiting until at least 1msec has passed since last query set
                     while (currentTimeMillis() < end) {
                         sleep(1L);
                     }
 
-                    handleQueryResponse();
+                    handleQueryResponse(timestamp);
                     queryCounter++;
                     messageListener.reportMessage(MessageFormat.format(
                             rb.getString("QUERYING"), moduleName));
@@ -375,13 +396,11 @@ public final class QueryManagerImpl implements QueryManager {
             txManager.sendQueries(ecuQueries, pollState);
     }
 
-    private void sendExternalQueries() {
+    private void sendExternalQueries(long timestamp) {
         final List<ExternalQuery> externalQueries =
                 filterExternalQueries(queryMap.values());
         for (ExternalQuery externalQuery : externalQueries) {
-            //FIXME: This is a hack!!
-            externalQuery.setResponse(
-                    externalQuery.getLoggerData().getSelectedConvertor().convert(null));
+            externalQuery.setResponse(externalQuery.valueAt(timestamp));
         }
     }
 
@@ -390,23 +409,90 @@ public final class QueryManagerImpl implements QueryManager {
         pollState.setLastQuery(false);
     }
 
-    private void handleQueryResponse() {
+    private void handleQueryResponse(long timestamp) {
         if (settings.isFileLoggingControllerSwitchActive())
             monitor.monitorFileLoggerSwitch(fileLoggerQuery.getResponse());
-        final Response response = buildResponse(queryMap.values());
-
-
+        if (EXTERNAL_NATIVE_RATE) {
+            addExternalSamples(timestamp);
+        }
+        final ColumnarResponse response = buildResponse(timestamp);
         dataUpdater.addResponse(response);
+        lastResponse = response;
     }
 
-    private Response buildResponse(Collection<Query> queries) {
-        final Response response = new ResponseImpl();
-        for (final Query query : queries) {
-            response.setDataValue(query.getLoggerData(), query.getResponse());
+    private ColumnarResponse buildResponse(long timestamp) {
+        final ColumnarResponse response = new ColumnarResponse(responseSchema, timestamp);
+        for (int i = 0; i < schemaQueries.length; i++) {
+            response.setDataValue(schemaSlots[i], schemaQueries[i].getResponse());
         }
         return response;
     }
 
+    /**
+     * Add a response at the time of each external sample taken since the
+     * last response, the ECU values are held from the last response.
+     */
+    private void addExternalSamples(long until) {
+        if (lastResponse == null || lastResponse.getSchema() != responseSchema) {
+            return;
+        }
+        final long after = lastResponse.getTimestamp();
+        int count = 0;
+        for (Query query : schemaQueries) {
+            final SampleRing samples = query instanceof ExternalQuery
+                    ? ((ExternalQuery) query).getSamples() : null;
+            if (samples == null) {
+                continue;
+            }
+            if (sampleTimes.length - count < SampleRing.DEFAULT_CAPACITY) {
+                sampleTimes = Arrays.copyOf(sampleTimes, sampleTimes.length * 2);
+            }
+            // a sample at the time of the next response is part of it
+            count += samples.timestamps(after, until - 1L, sampleTimes, count);
+        }
+        if (count == 0) {
+            return;
+        }
+        Arrays.sort(sampleTimes, 0, count);
+        long last = after;
+        for (int t = 0; t < count; t++) {
+            final long timestamp = sampleTimes[t];
+            if (timestamp == last) {
+                continue;
+            }
+            last = timestamp;
+            final ColumnarResponse response = new ColumnarResponse(responseSchema, timestamp);
+            for (int i = 0; i < schemaQueries.length; i++) {
+                final int slot = schemaSlots[i];
+                response.setDataValue(slot, schemaQueries[i] instanceof ExternalQuery
+                        ? ((ExternalQuery) schemaQueries[i]).valueAt(timestamp)
+                        : lastResponse.getDataValue(slot));
+            }
+            dataUpdater.addResponse(response);
+        }
+    }
+
+    /**
+     * Assign every selected logger data a slot in a new response schema.
+     * Only called when the query list changes, so building a response is
+     * a copy of each query result into its slot.
+     */
+    private void buildResponseSchema() {
+        final Query[] queries = queryMap.values().toArray(new Query[0]);
+        final List<LoggerData> loggerDatas = new ArrayList<LoggerData>(queries.length);
+        for (Query query : queries) {
+            loggerDatas.add(query.getLoggerData());
+        }
+        final ResponseSchema schema = new ResponseSchema(loggerDatas);
+        final int[] slots = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            slots[i] = schema.indexOf(queries[i].getLoggerData());
+        }
+        schemaQueries = queries;
+        schemaSlots = slots;
+        responseSchema = schema;
+    }
+
     //FIXME: This is a hack!!
     private List<EcuQuery> filterEcuQueries(Collection<Query> queries) {
         List<EcuQuery> filtered = new ArrayList<EcuQuery>();
@@ -439,8 +525,11 @@ public final class QueryManagerImpl implements QueryManager {
     }
 
     private synchronized void updateQueryList() {
-        addQueries();
-        removeQueries();
+        if (responseSchema == null || !addList.isEmpty() || !removeList.isEmpty()) {
+            addQueries();
+            removeQueries();
+            buildResponseSchema();
+        }
     }
 
     private void addQueries() {
@@ -473,12 +562,21 @@ public final class QueryManagerImpl implements QueryManager {
                     rb.getString("EXTERNALS"), settings.getLoggerProtocol());
         }
         double duration = (currentTimeMillis() - start) / 1000.0;
+        int parameters = schemaQueries == null ? 0 : schemaQueries.length;
         String result = MessageFormat.format(
                 rb.getString("QUERYSTATS"),
                 state,
                 (count / duration),
-                (duration / count)
+                (duration / count),
+                (count * parameters / duration)
                 );
+        final ReadPlan plan = ReadPlanner.getCurrentPlan();
+        if (plan != null && !settings.isLogExternalsOnly()) {
+            result += MessageFormat.format(
+                    rb.getString("PLANSTATS"),
+                    plan.getRanges().size(),
+                    plan.getBytesOnWire());
+        }
         return result;
     }
 
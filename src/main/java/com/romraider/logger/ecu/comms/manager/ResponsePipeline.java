@@ -0,0 +1,314 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+
+/**
+ * A bounded single producer, multiple consumer pipeline which hands each
+ * {@link Response} from the query thread to the {@link DataUpdateHandler}s.
+ * <p>
+ * Responses are published into a lock-free ring buffer.  Every handler is
+ * driven by its own consumer thread with its own read cursor, so a slow
+ * handler only falls behind itself and never stalls the query thread or
+ * the other handlers.  What happens when a consumer falls a full ring
+ * behind is selected by the {@link Overflow} policy.
+ */
+public final class ResponsePipeline {
+    private static final Logger LOGGER = Logger.getLogger(ResponsePipeline.class);
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(16L);
+    private static final long BLOCK_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+
+    /**
+     * The action taken when a response is added while a consumer is a
+     * full ring behind the producer.
+     */
+    public enum Overflow {
+        /** Discard the oldest unread response of each lagging consumer. */
+        DROP_OLDEST,
+        /** Hold back only the newest response until the ring has room. */
+        COALESCE_LATEST,
+        /** Wait on the query thread until the slowest consumer has room. */
+        BLOCK;
+
+        /**
+         * @param   name - the policy name, case insensitive
+         * @return  the named policy, or DROP_OLDEST for an unknown name
+         */
+        public static Overflow fromName(String name) {
+            for (Overflow overflow : values()) {
+                if (overflow.name().equalsIgnoreCase(name)) {
+                    return overflow;
+                }
+            }
+            return DROP_OLDEST;
+        }
+    }
+
+    private final Response[] ring;
+    private final int mask;
+    private final Overflow overflow;
+    private final Consumer[] consumers;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private Response pending;
+    private volatile boolean stop = true;
+
+    /**
+     * @param   handlers - the handlers to feed, each gets its own consumer
+     * @param   capacity - the ring size, rounded up to a power of two
+     * @param   overflow - the policy used when a consumer falls behind
+     */
+    public ResponsePipeline(DataUpdateHandler[] handlers, int capacity, Overflow overflow) {
+        checkNotNull(handlers, "handlers");
+        checkNotNull(overflow, "overflow");
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new Response[size];
+        this.mask = size - 1;
+        this.overflow = overflow;
+        this.consumers = new Consumer[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            consumers[i] = new Consumer(handlers[i]);
+        }
+    }
+
+    public void start() {
+        LOGGER.info("Starting response pipeline: " + consumers.length +
+                " consumers, capacity " + ring.length + ", " + overflow);
+        stop = false;
+        for (Consumer consumer : consumers) {
+            consumer.start();
+        }
+    }
+
+    /**
+     * Stop the consumers once they have handled every published response.
+     * A response held back by COALESCE_LATEST is published first, dropping
+     * the oldest unread response of a lagging consumer if need be, so the
+     * newest response always reaches the handlers.  Only the query thread
+     * may call this method.
+     */
+    public void stop() {
+        if (pending != null) {
+            final long sequence = published.get();
+            for (Consumer consumer : consumers) {
+                consumer.dropTo(sequence - ring.length + 1);
+            }
+            publish(sequence, pending);
+            pending = null;
+        }
+        stop = true;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+        LOGGER.info("Response pipeline stopped. " + getStatistics());
+    }
+
+    public boolean isRunning() {
+        if (stop) {
+            return false;
+        }
+        for (Consumer consumer : consumers) {
+            if (consumer.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publish a response to every consumer.  Only the query thread may
+     * call this method.
+     * @param   response - the response to publish
+     */
+    public void addResponse(Response response) {
+        long sequence = published.get();
+        switch (overflow) {
+            case COALESCE_LATEST:
+                if (pending != null) {
+                    if (!hasRoom(sequence)) {
+                        pending = response;
+                        coalesced.incrementAndGet();
+                        return;
+                    }
+                    publish(sequence++, pending);
+                    pending = null;
+                }
+                if (!hasRoom(sequence)) {
+                    pending = response;
+                    return;
+                }
+                break;
+            case BLOCK:
+                while (!hasRoom(sequence) && !stop) {
+                    LockSupport.parkNanos(this, BLOCK_NANOS);
+                }
+                break;
+            default:
+                for (Consumer consumer : consumers) {
+                    consumer.dropTo(sequence - ring.length + 1);
+                }
+                break;
+        }
+        publish(sequence, response);
+    }
+
+    /**
+     * @return  a one line summary of the lag and drop counters of every
+     *          consumer
+     */
+    public String getStatistics() {
+        final StringBuilder sb = new StringBuilder();
+        final long head = published.get();
+        for (Consumer consumer : consumers) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(consumer.getName())
+              .append(" lag=").append(consumer.getLag(head))
+              .append(" maxLag=").append(consumer.maxLag)
+              .append(" processed=").append(consumer.processed.get())
+              .append(" dropped=").append(consumer.dropped.get());
+        }
+        if (overflow == Overflow.COALESCE_LATEST) {
+            sb.append("; coalesced=").append(coalesced.get());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return  the current lag of each consumer in responses, in handler
+     *          order
+     */
+    public long[] getLag() {
+        final long head = published.get();
+        final long[] lag = new long[consumers.length];
+        for (int i = 0; i < consumers.length; i++) {
+            lag[i] = consumers[i].getLag(head);
+        }
+        return lag;
+    }
+
+    /**
+     * @return  the number of responses each consumer has lost to
+     *          overflow, in handler order
+     */
+    public long[] getDropped() {
+        final long[] dropped = new long[consumers.length];
+        for (int i = 0; i < consumers.length; i++) {
+            dropped[i] = consumers[i].dropped.get();
+        }
+        return dropped;
+    }
+
+    private boolean hasRoom(long sequence) {
+        final long oldest = sequence - ring.length;
+        for (Consumer consumer : consumers) {
+            if (consumer.cursor.get() <= oldest) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void publish(long sequence, Response response) {
+        ring[(int) sequence & mask] = response;
+        published.set(sequence + 1);
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private final class Consumer extends Thread {
+        private final DataUpdateHandler handler;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long maxLag;
+
+        Consumer(DataUpdateHandler handler) {
+            this.handler = handler;
+            setName("AsyncDataUpdater-" + handler.getClass().getSimpleName());
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final long next = cursor.get();
+                final long head = published.get();
+                if (next >= head) {
+                    // re-read the head, stop() publishes before it signals
+                    if (stop && next >= published.get()) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                    continue;
+                }
+                final Response response = ring[(int) next & mask];
+                // the producer may have moved the cursor to drop this slot
+                if (!cursor.compareAndSet(next, next + 1)) {
+                    continue;
+                }
+                final long lag = head - next - 1;
+                if (lag > maxLag) {
+                    maxLag = lag;
+                }
+                try {
+                    handler.handleDataUpdate(response);
+                }
+                catch (Exception e) {
+                    LOGGER.error(getName() + " failed to handle response", e);
+                }
+                processed.incrementAndGet();
+            }
+        }
+
+        /**
+         * Move the cursor forward to at least the given sequence, counting
+         * the skipped responses as dropped.  Called by the producer only.
+         */
+        void dropTo(long sequence) {
+            long current = cursor.get();
+            while (current < sequence) {
+                if (cursor.compareAndSet(current, current + 1)) {
+                    dropped.incrementAndGet();
+                }
+                current = cursor.get();
+            }
+        }
+
+        long getLag(long head) {
+            return Math.max(0L, head - cursor.get());
+        }
+    }
+}
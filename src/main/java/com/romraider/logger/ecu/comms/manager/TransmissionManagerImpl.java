@@ -29,13 +29,18 @@ import org.apache.log4j.Logger;
 
 import com.romraider.Settings;
 import com.romraider.logger.ecu.comms.io.connection.LoggerConnection;
+import com.romraider.logger.ecu.comms.io.connection.TransportLatency;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.definition.Module;
 import com.romraider.logger.ecu.exception.NotConnectedException;
 import com.romraider.util.SettingsManager;
 
 public final class TransmissionManagerImpl implements TransmissionManager {
     private static final Logger LOGGER = getLogger(TransmissionManagerImpl.class);
     private LoggerConnection connection;
+    private String protocol;
+    private Module module;
+    private TransportLatency.Recorder latency;
 
     public TransmissionManagerImpl() {
     }
@@ -44,7 +49,8 @@ public final class TransmissionManagerImpl implements TransmissionManager {
     public void start() {
         try {
             Settings settings = SettingsManager.getSettings();
-            connection = getConnection(settings.getLoggerProtocol(), settings.getLoggerPort(), settings.getLoggerConnectionProperties());
+            protocol = settings.getLoggerProtocol();
+            connection = getConnection(protocol, settings.getLoggerPort(), settings.getLoggerConnectionProperties());
             LOGGER.info("TX Manager Started.");
         } catch (Throwable e) {
             stop();
@@ -56,7 +62,17 @@ public final class TransmissionManagerImpl implements TransmissionManager {
         checkNotNull(queries, "queries");
         checkNotNull(pollState, "pollState");
         if (connection == null) throw new NotConnectedException("TransmissionManager must be started before queries can be sent!");
-        connection.sendAddressReads(queries, SettingsManager.getSettings().getDestinationTarget(), pollState);
+        final Module target = SettingsManager.getSettings().getDestinationTarget();
+        if (target != module) {
+            module = target;
+            latency = TransportLatency.getInstance().getRecorder(protocol, target.getName());
+        }
+        latency.begin();
+        try {
+            connection.sendAddressReads(queries, target, pollState);
+        } finally {
+            latency.end();
+        }
     }
 
     @Override
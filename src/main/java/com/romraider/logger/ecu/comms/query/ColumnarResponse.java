@@ -0,0 +1,82 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.Set;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * A {@link Response} backed by a {@link ResponseSchema} and a primitive
+ * value array.  Storing and reading a value by slot is an array access,
+ * and no value is boxed.
+ */
+public final class ColumnarResponse implements Response {
+    private final ResponseSchema schema;
+    private final double[] values;
+    private final long timestamp;
+
+    public ColumnarResponse(ResponseSchema schema) {
+        this(schema, System.currentTimeMillis());
+    }
+
+    public ColumnarResponse(ResponseSchema schema, long timestamp) {
+        checkNotNull(schema, "schema");
+        this.schema = schema;
+        this.values = new double[schema.size()];
+        this.timestamp = timestamp;
+    }
+
+    public void setDataValue(LoggerData data, double value) {
+        final int slot = schema.indexOf(data);
+        if (slot < 0) {
+            throw new IllegalArgumentException(
+                    "Data item " + data.getId() + " is not in the response schema");
+        }
+        values[slot] = value;
+    }
+
+    public void setDataValue(int slot, double value) {
+        values[slot] = value;
+    }
+
+    public Set<LoggerData> getData() {
+        return schema.getData();
+    }
+
+    public double getDataValue(LoggerData data) {
+        final int slot = schema.indexOf(data);
+        return slot < 0 ? 0.0 : values[slot];
+    }
+
+    public double getDataValue(int slot) {
+        return values[slot];
+    }
+
+    public ResponseSchema getSchema() {
+        return schema;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
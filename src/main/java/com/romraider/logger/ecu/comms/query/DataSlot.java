@@ -0,0 +1,68 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
+
+/**
+ * A handler side reference to the slot of one logger data id.  The slot is
+ * resolved against the schema of a response the first time it is used and
+ * again only when the schema changes, after that every read is an array
+ * access.  An instance is meant to be used by a single handler thread.
+ */
+public final class DataSlot {
+    private final String id;
+    private ResponseSchema schema;
+    private int slot = -1;
+
+    public DataSlot(String id) {
+        checkNotNullOrEmpty(id, "id");
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return  true if the response holds a value for this id
+     */
+    public boolean isPresent(Response response) {
+        return resolve(response) >= 0;
+    }
+
+    /**
+     * @return  the value of this id in the response, or NaN if the response
+     *          does not hold it
+     */
+    public double getValue(Response response) {
+        final int index = resolve(response);
+        return index < 0 ? Double.NaN : response.getDataValue(index);
+    }
+
+    private int resolve(Response response) {
+        final ResponseSchema current = response.getSchema();
+        if (current != schema) {
+            slot = current.indexOf(id);
+            schema = current;
+        }
+        return slot;
+    }
+}
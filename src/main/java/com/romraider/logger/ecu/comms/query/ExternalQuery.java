@@ -19,8 +19,22 @@
 
 package com.romraider.logger.ecu.comms.query;
 
+import com.romraider.logger.external.core.SampleRing;
+
 public interface ExternalQuery extends Query {
 
     void setResponse(double response);
 
+    /**
+     * @return  the converted value of the external data at a time, the
+     *          latest value if the data item is not sampled
+     */
+    double valueAt(long timestamp);
+
+    /**
+     * @return  the timestamped samples of the data item, or null if it
+     *          only holds its latest value
+     */
+    SampleRing getSamples();
+
 }
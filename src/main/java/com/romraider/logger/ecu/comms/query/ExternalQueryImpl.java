@@ -19,8 +19,11 @@
 
 package com.romraider.logger.ecu.comms.query;
 
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.ecu.definition.ExternalData;
+import com.romraider.logger.ecu.definition.ExternalDataConvertorImpl;
 import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.external.core.SampleRing;
 import static com.romraider.util.ParamChecker.checkNotNull;
 
 public final class ExternalQueryImpl implements ExternalQuery {
@@ -43,4 +46,20 @@ public final class ExternalQueryImpl implements ExternalQuery {
     public double getResponse() {
         return response;
     }
+
+    public double valueAt(long timestamp) {
+        final EcuDataConvertor convertor = externalData.getSelectedConvertor();
+        final SampleRing samples = externalData.getSamples();
+        if (samples != null && convertor instanceof ExternalDataConvertorImpl) {
+            final double value = samples.valueAt(timestamp);
+            if (!Double.isNaN(value)) {
+                return ((ExternalDataConvertorImpl) convertor).convert(value);
+            }
+        }
+        return convertor.convert(null);
+    }
+
+    public SampleRing getSamples() {
+        return externalData.getSamples();
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.ParamChecker.checkGreaterThanZero;
+import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
+
+/**
+ * The cost of a memory read request of a protocol, counted in bytes on
+ * the wire.  A request costs its fixed request and response bytes, the
+ * time the ECU takes to answer expressed as bytes that could have been
+ * sent in that time, and one byte for each byte read.
+ */
+public final class ReadCostModel {
+    private final String name;
+    private final int requestBytes;
+    private final int responseBytes;
+    private final int turnaroundBytes;
+    private final int maxLength;
+
+    /**
+     * @param name - the name of the read command
+     * @param requestBytes - the bytes of a request
+     * @param responseBytes - the bytes of a response without the data
+     * @param turnaroundBytes - the response time as a number of bytes
+     * @param maxLength - the most bytes one request can read
+     */
+    public ReadCostModel(String name, int requestBytes, int responseBytes,
+            int turnaroundBytes, int maxLength) {
+        checkNotNullOrEmpty(name, "name");
+        checkGreaterThanZero(maxLength, "maxLength");
+        this.name = name;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.turnaroundBytes = turnaroundBytes;
+        this.maxLength = maxLength;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return  the cost of a request reading a number of bytes
+     */
+    public int cost(int length) {
+        return bytesOnWire(length) + turnaroundBytes;
+    }
+
+    /**
+     * @return  the bytes sent and received for a request reading a
+     *          number of bytes
+     */
+    public int bytesOnWire(int length) {
+        return requestBytes + responseBytes + length;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The memory reads planned for a set of queries.  Each read covers a
+ * range of addresses and returns the data of the queries in it, a read
+ * of a single query is a range of its own data length.
+ */
+public final class ReadPlan {
+    private final ReadCostModel costModel;
+    private final List<Range> ranges;
+    private final int bytesOnWire;
+
+    ReadPlan(ReadCostModel costModel, List<Range> ranges) {
+        this.costModel = costModel;
+        this.ranges = Collections.unmodifiableList(ranges);
+        int bytes = 0;
+        for (Range range : ranges) {
+            bytes += costModel.bytesOnWire(range.getLength());
+        }
+        this.bytesOnWire = bytes;
+    }
+
+    public List<Range> getRanges() {
+        return ranges;
+    }
+
+    public ReadCostModel getCostModel() {
+        return costModel;
+    }
+
+    /**
+     * @return  the expected bytes sent and received for one poll
+     */
+    public int getBytesOnWire() {
+        return bytesOnWire;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d reads, %d bytes",
+                costModel, ranges.size(), bytesOnWire);
+    }
+
+    /**
+     * One read of consecutive addresses.
+     */
+    public static final class Range {
+        private final int start;
+        private final int length;
+        private final Collection<EcuQuery> queries;
+
+        Range(int start, int length, Collection<EcuQuery> queries) {
+            this.start = start;
+            this.length = length;
+            this.queries = queries;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * @return  the query at the start address, the address of the read
+         */
+        public EcuQuery getStartQuery() {
+            return queries.iterator().next();
+        }
+
+        /**
+         * @return  the queries read, sorted by address
+         */
+        public Collection<EcuQuery> getQueries() {
+            return queries;
+        }
+
+        public boolean isSingle() {
+            return queries.size() == 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("0x%X+%d %s", start, length, new ArrayList<EcuQuery>(queries));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.HexUtil.hexToInt;
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+
+/**
+ * Plan the memory reads of a set of queries at the lowest cost.  The
+ * queries are sorted by address and split into ranges so the sum of the
+ * request costs is the lowest.  A gap between two queries is read along
+ * with them when that costs less than a request of its own, a range is
+ * never longer than the protocol allows.
+ * <p>
+ * The plan is kept until the queries or their selected conversions change,
+ * the last plan made is shown in the logger statistics.
+ */
+public final class ReadPlanner {
+    private static final Logger LOGGER = Logger.getLogger(ReadPlanner.class);
+    private static volatile ReadPlan currentPlan;
+    private final ReadCostModel costModel;
+    private EcuQuery[] plannedQueries = new EcuQuery[0];
+    private EcuDataConvertor[] plannedConvertors = new EcuDataConvertor[0];
+    private ReadPlan plan;
+
+    public ReadPlanner(ReadCostModel costModel) {
+        checkNotNull(costModel, "costModel");
+        this.costModel = costModel;
+    }
+
+    /**
+     * @return  the last plan made by any planner, or null
+     */
+    public static ReadPlan getCurrentPlan() {
+        return currentPlan;
+    }
+
+    public static void clearCurrentPlan() {
+        currentPlan = null;
+    }
+
+    /**
+     * @return  the plan of the queries, the previous plan if the queries
+     *          did not change
+     */
+    public ReadPlan plan(Collection<EcuQuery> queries) {
+        checkNotNull(queries, "queries");
+        if (plan == null || isChanged(queries)) {
+            plan = plan(queries, costModel);
+            plannedQueries = queries.toArray(new EcuQuery[queries.size()]);
+            plannedConvertors = new EcuDataConvertor[plannedQueries.length];
+            for (int i = 0; i < plannedQueries.length; i++) {
+                plannedConvertors[i] =
+                        plannedQueries[i].getLoggerData().getSelectedConvertor();
+            }
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Read plan " + plan + " " + plan.getRanges());
+        }
+        currentPlan = plan;
+        return plan;
+    }
+
+    private boolean isChanged(Collection<EcuQuery> queries) {
+        if (queries.size() != plannedQueries.length) {
+            return true;
+        }
+        int i = 0;
+        for (EcuQuery query : queries) {
+            if (query != plannedQueries[i]
+                    || query.getLoggerData().getSelectedConvertor() != plannedConvertors[i]) {
+                return true;
+            }
+            i++;
+        }
+        return false;
+    }
+
+    /**
+     * Split the queries sorted by address into the ranges of lowest total
+     * cost.  The cost of the first n queries is the lowest over all
+     * ranges ending with query n of the cost of the range plus the cost
+     * of the queries before it.
+     */
+    static ReadPlan plan(Collection<EcuQuery> queries, ReadCostModel costModel) {
+        final int n = queries.size();
+        final EcuQuery[] sorted = queries.toArray(new EcuQuery[n]);
+        final int[] starts = new int[n];
+        final int[] ends = new int[n];
+        final Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = hexToInt(sorted[i].getAddresses()[0]);
+            ends[i] = starts[i] + EcuQueryData.getDataLength(sorted[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return starts[a] < starts[b] ? -1 : starts[a] > starts[b] ? 1 : 0;
+            }
+        });
+
+        // cost[i] is the lowest cost of reading the first i queries,
+        // first[i] the first query of the last range of that plan
+        final long[] cost = new long[n + 1];
+        final int[] first = new int[n + 1];
+        for (int i = 1; i <= n; i++) {
+            cost[i] = Long.MAX_VALUE;
+            int end = 0;
+            for (int j = i; j >= 1; j--) {
+                end = Math.max(end, ends[order[j - 1]]);
+                final int length = end - starts[order[j - 1]];
+                if (length > costModel.getMaxLength() && j < i) {
+                    break;
+                }
+                final long c = cost[j - 1] + costModel.cost(length);
+                if (c < cost[i]) {
+                    cost[i] = c;
+                    first[i] = j;
+                }
+            }
+        }
+
+        final List<ReadPlan.Range> ranges = new ArrayList<ReadPlan.Range>();
+        for (int i = n; i > 0; i = first[i] - 1) {
+            final List<EcuQuery> rangeQueries = new ArrayList<EcuQuery>(i - first[i] + 1);
+            int end = 0;
+            for (int j = first[i]; j <= i; j++) {
+                rangeQueries.add(sorted[order[j - 1]]);
+                end = Math.max(end, ends[order[j - 1]]);
+            }
+            final int start = starts[order[first[i] - 1]];
+            ranges.add(0, new ReadPlan.Range(start, end - start, rangeQueries));
+        }
+        return new ReadPlan(costModel, ranges);
+    }
+}
@@ -30,5 +30,16 @@ public interface Response {
 
     double getDataValue(LoggerData data);
 
+    /**
+     * @param   slot - a slot of this response's {@link ResponseSchema}
+     * @return  the value stored in the slot
+     */
+    double getDataValue(int slot);
+
+    /**
+     * @return  the layout of the values in this response
+     */
+    ResponseSchema getSchema();
+
     long getTimestamp();
 }
@@ -28,13 +28,16 @@ public class ResponseImpl implements Response {
     private static final double ZERO = 0.0;
     private final Map<LoggerData, Double> dataValues = new LinkedHashMap<LoggerData, Double>();
     private final long timestamp;
+    private ResponseSchema schema;
 
     public ResponseImpl() {
         timestamp = System.currentTimeMillis();
     }
 
     public void setDataValue(LoggerData data, double value) {
-        dataValues.put(data, value);
+        if (dataValues.put(data, value) == null) {
+            schema = null;
+        }
     }
 
     public Set<LoggerData> getData() {
@@ -46,6 +49,17 @@ public class ResponseImpl implements Response {
         return value == null ? ZERO : value;
     }
 
+    public double getDataValue(int slot) {
+        return getDataValue(getSchema().getData(slot));
+    }
+
+    public ResponseSchema getSchema() {
+        if (schema == null) {
+            schema = new ResponseSchema(dataValues.keySet());
+        }
+        return schema;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
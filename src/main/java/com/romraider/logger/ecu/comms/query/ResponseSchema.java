@@ -0,0 +1,103 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * The immutable layout of the values in a {@link Response}.  Each distinct
+ * {@link LoggerData} of a logging session is given a dense integer slot so
+ * values can be stored in a primitive array and read by index.
+ * <p>
+ * A new schema is built only when the parameter selection changes, so
+ * handlers can resolve the slots they need once and reuse them for as long
+ * as {@link Response#getSchema()} returns the same instance.
+ */
+public final class ResponseSchema {
+    private final LoggerData[] datas;
+    private final Set<LoggerData> dataSet;
+    private final Map<LoggerData, Integer> slots;
+    private final Map<String, Integer> idSlots;
+
+    public ResponseSchema(Collection<? extends LoggerData> loggerDatas) {
+        checkNotNull(loggerDatas, "loggerDatas");
+        final Set<LoggerData> unique = new LinkedHashSet<LoggerData>(loggerDatas);
+        this.datas = unique.toArray(new LoggerData[unique.size()]);
+        this.dataSet = unmodifiableSet(unique);
+        this.slots = new HashMap<LoggerData, Integer>(datas.length * 2);
+        this.idSlots = new HashMap<String, Integer>(datas.length * 2);
+        for (int i = 0; i < datas.length; i++) {
+            slots.put(datas[i], i);
+            if (!idSlots.containsKey(datas[i].getId())) {
+                idSlots.put(datas[i].getId(), i);
+            }
+        }
+    }
+
+    /**
+     * @return  the number of slots in this schema
+     */
+    public int size() {
+        return datas.length;
+    }
+
+    /**
+     * @return  the logger data of each slot in slot order
+     */
+    public Set<LoggerData> getData() {
+        return dataSet;
+    }
+
+    /**
+     * @param   slot - a slot of this schema
+     * @return  the logger data stored in the slot
+     */
+    public LoggerData getData(int slot) {
+        return datas[slot];
+    }
+
+    /**
+     * @param   loggerData - the logger data to look up
+     * @return  the slot of the logger data, or -1 if it is not in the schema
+     */
+    public int indexOf(LoggerData loggerData) {
+        final Integer slot = slots.get(loggerData);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param   id - the id of the logger data to look up, for example P8
+     * @return  the slot of the first logger data with the id, or -1 if
+     *          there is none in the schema
+     */
+    public int indexOf(String id) {
+        final Integer slot = idSlots.get(id);
+        return slot == null ? -1 : slot;
+    }
+}
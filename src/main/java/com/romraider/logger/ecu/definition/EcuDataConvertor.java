@@ -26,6 +26,15 @@ public interface EcuDataConvertor {
 
     double convert(byte[] bytes);
 
+    /**
+     * Convert the data held in part of a larger response.
+     * @param bytes - the response bytes
+     * @param offset - the index of the first byte of the data
+     * @param length - the number of bytes of the data
+     * @return the converted value
+     */
+    double convert(byte[] bytes, int offset, int length);
+
     String format(double value);
 
     String getUnits();
@@ -31,6 +31,7 @@ import com.romraider.Settings;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 import static com.romraider.util.SaxParserFactory.getSaxParser;
+import org.apache.log4j.Logger;
 import org.xml.sax.SAXParseException;
 import java.io.BufferedInputStream;
 import java.io.File;
@@ -46,8 +47,11 @@ import java.util.Map;
 import java.util.ResourceBundle;
 
 public final class EcuDataLoaderImpl implements EcuDataLoader {
+    private static final Logger LOGGER = Logger.getLogger(EcuDataLoaderImpl.class);
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             EcuDataLoaderImpl.class.getName());
+    private static final boolean SNAPSHOTS = Boolean.parseBoolean(
+            System.getProperty("romraider.logger.snapshots", "true"));
     private Map<String, EcuDefinition> ecuDefinitionMap = new HashMap<String, EcuDefinition>();
     private List<EcuParameter> ecuParameters = new ArrayList<EcuParameter>();
     private List<EcuSwitch> ecuSwitches = new ArrayList<EcuSwitch>();
@@ -95,29 +99,23 @@ public final class EcuDataLoaderImpl implements EcuDataLoader {
         boolean valid = true;
         
         try {
-            InputStream inputStream = new BufferedInputStream(new FileInputStream(new File(loggerConfigFilePath)));
-            try {
-                LoggerDefinitionHandler handler = new LoggerDefinitionHandler(
-                        protocol, fileLoggingControllerSwitchId, ecuInit);
-                getSaxParser().parse(inputStream, handler, loggerConfigFilePath);
-                              
-                ecuParameters = handler.getEcuParameters();
-                ecuSwitches = handler.getEcuSwitches();
-                fileLoggingControllerSwitch = handler.getFileLoggingControllerSwitch();
-                connectionProperties = handler.getConnectionProperties();
-                defVersion = handler.getVersion();
-                dtcodes = handler.getEcuCodes();
-                protocolList = handler.getProtocols();
-                
-                valid = isCurrentProtocolValid();
-
-                if(!valid) {                	
-                	s.setLoggerProtocol(protocolList.keySet().iterator().next());
-                	s.setTransportProtocol(protocolList.values().iterator().next().
-                			keySet().iterator().next().getId());               	               	
-                }                              
-            } finally {
-                inputStream.close();
+            final LoggerDefinitionSnapshot snapshot = loadSnapshot(
+                    loggerConfigFilePath, protocol, fileLoggingControllerSwitchId, ecuInit);
+
+            ecuParameters = snapshot.getEcuParameters();
+            ecuSwitches = snapshot.getEcuSwitches();
+            fileLoggingControllerSwitch = snapshot.getFileLoggingControllerSwitch();
+            connectionProperties = snapshot.getConnectionProperties();
+            defVersion = snapshot.getVersion();
+            dtcodes = snapshot.getEcuCodes();
+            protocolList = snapshot.getProtocols();
+
+            valid = isCurrentProtocolValid();
+
+            if(!valid) {
+            	s.setLoggerProtocol(protocolList.keySet().iterator().next());
+            	s.setTransportProtocol(protocolList.values().iterator().next().
+            			keySet().iterator().next().getId());
             }
         }/* catch (FileNotFoundException fnfe) {
             throw new ConfigurationException(MessageFormat.format(
@@ -140,6 +138,45 @@ public final class EcuDataLoaderImpl implements EcuDataLoader {
         }
     }
     
+    /**
+     * Read the snapshot of the definition for the protocol and ECU, or
+     * parse the definition and save its snapshot if there is none or the
+     * definition has changed since.
+     */
+    private LoggerDefinitionSnapshot loadSnapshot(String loggerConfigFilePath,
+            String protocol, String fileLoggingControllerSwitchId, EcuInit ecuInit)
+            throws Exception {
+
+        final File source = new File(loggerConfigFilePath);
+        File snapshotFile = null;
+        if (SNAPSHOTS && source.isFile()) {
+            snapshotFile = LoggerDefinitionSnapshot.getSnapshotFile(
+                    source, protocol, fileLoggingControllerSwitchId, ecuInit);
+            final long start = System.currentTimeMillis();
+            final LoggerDefinitionSnapshot snapshot =
+                    LoggerDefinitionSnapshot.read(snapshotFile, source);
+            if (snapshot != null) {
+                LOGGER.info(String.format("Logger definition snapshot %s loaded in %dms",
+                        snapshotFile.getName(), System.currentTimeMillis() - start));
+                return snapshot;
+            }
+        }
+
+        final InputStream inputStream = new BufferedInputStream(new FileInputStream(source));
+        try {
+            final LoggerDefinitionHandler handler = new LoggerDefinitionHandler(
+                    protocol, fileLoggingControllerSwitchId, ecuInit);
+            getSaxParser().parse(inputStream, handler, loggerConfigFilePath);
+            final LoggerDefinitionSnapshot snapshot = new LoggerDefinitionSnapshot(handler);
+            if (snapshotFile != null) {
+                snapshot.write(snapshotFile, source);
+            }
+            return snapshot;
+        } finally {
+            inputStream.close();
+        }
+    }
+
     private boolean isCurrentProtocolValid() {    	
         Map<Transport, Collection<Module>> transportMap;
         Settings s = SettingsManager.getSettings();
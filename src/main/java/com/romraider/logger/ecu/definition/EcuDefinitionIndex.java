@@ -0,0 +1,297 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.definition.xml.EcuDefinitionScanner;
+import com.romraider.logger.ecu.exception.ConfigurationException;
+import com.romraider.util.SettingsManager;
+import com.romraider.util.ThreadUtil;
+
+/**
+ * A persistent index of the ECU ID, CAL ID and car string of every
+ * <code>romid</code> in the ECU definition files, which is all the logger
+ * needs from them.  The logger starts with the definitions saved by the
+ * last run and refreshes the index afterwards, only the files whose
+ * modification time or size changed are scanned again, in parallel.
+ * <p>
+ * The index is saved as <code>logger_definitions.idx</code> next to the
+ * settings file.
+ */
+public final class EcuDefinitionIndex {
+    private static final Logger LOGGER = Logger.getLogger(EcuDefinitionIndex.class);
+    private static final int MAGIC = 0x5252454C; // RREL
+    private static final int VERSION = 1;
+    private static final String INDEX_FILE = "logger_definitions.idx";
+    private static EcuDefinitionIndex instance;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final File indexFile;
+
+    EcuDefinitionIndex(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    public static synchronized EcuDefinitionIndex getInstance() {
+        if (instance == null) {
+            instance = new EcuDefinitionIndex(
+                    new File(SettingsManager.getSettingsDir(), INDEX_FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * Get the indexed definitions of the definition files without reading
+     * the files, a file not indexed yet has no definitions.  A definition
+     * of a later file replaces one of an earlier file with the same ECU ID.
+     * @param   ecuDefFiles - the configured ECU definition files
+     * @return  the definitions by ECU ID
+     */
+    public synchronized Map<String, EcuDefinition> getDefinitions(
+            Collection<File> ecuDefFiles) {
+
+        final Map<String, EcuDefinition> definitions =
+                new HashMap<String, EcuDefinition>();
+        for (File ecuDefFile : ecuDefFiles) {
+            final Entry entry = entries.get(ecuDefFile.getAbsolutePath());
+            if (entry != null) {
+                for (EcuDefinition definition : entry.definitions) {
+                    definitions.put(definition.getEcuId(), definition);
+                }
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * Scan the definition files that are new or have changed since they
+     * were indexed, drop the files no longer configured and save the index.
+     * A file that cannot be scanned keeps the definitions it had.
+     * @param   ecuDefFiles - the configured ECU definition files
+     * @return  true if the indexed definitions changed
+     * @throws  ConfigurationException for the first file that could not be
+     *          scanned, after the others have been indexed
+     */
+    public boolean refresh(Collection<File> ecuDefFiles) {
+        final List<File> stale = new ArrayList<File>();
+        boolean changed;
+        synchronized (this) {
+            changed = retain(ecuDefFiles);
+            for (File ecuDefFile : ecuDefFiles) {
+                if (!ecuDefFile.exists()) {
+                    LOGGER.error(String.format(
+                            "ECU definition file configured but not found: %s",
+                            ecuDefFile.toString()));
+                    continue;
+                }
+                final Entry entry = entries.get(ecuDefFile.getAbsolutePath());
+                if (entry == null || entry.lastModified != ecuDefFile.lastModified()
+                        || entry.length != ecuDefFile.length()) {
+                    stale.add(ecuDefFile);
+                }
+            }
+        }
+
+        final List<ForkJoinTask<Entry>> tasks =
+                new ArrayList<ForkJoinTask<Entry>>(stale.size());
+        for (File ecuDefFile : stale) {
+            tasks.add(ThreadUtil.getWorkPool().submit(new ScanTask(ecuDefFile)));
+        }
+        RuntimeException failure = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                final Entry entry = tasks.get(i).join();
+                synchronized (this) {
+                    entries.put(entry.path, entry);
+                }
+                changed = true;
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to index ECU definition " + stale.get(i), e);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (changed) {
+            save();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return changed;
+    }
+
+    private boolean retain(Collection<File> ecuDefFiles) {
+        final Set<String> paths = new HashSet<String>();
+        for (File ecuDefFile : ecuDefFiles) {
+            paths.add(ecuDefFile.getAbsolutePath());
+        }
+        boolean removed = false;
+        for (Iterator<String> i = entries.keySet().iterator(); i.hasNext();) {
+            if (!paths.contains(i.next())) {
+                i.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private synchronized void save() {
+        try {
+            final DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(indexFile)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    entry.write(out);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save logger definition index " + indexFile, e);
+        }
+    }
+
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    LOGGER.info("Rebuilding logger definition index " + indexFile);
+                    return;
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    final Entry entry = Entry.read(in);
+                    entries.put(entry.path, entry);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load logger definition index " + indexFile, e);
+            entries.clear();
+        }
+    }
+
+    private static final class ScanTask implements Callable<Entry> {
+        private final File ecuDefFile;
+
+        ScanTask(File ecuDefFile) {
+            this.ecuDefFile = ecuDefFile;
+        }
+
+        @Override
+        public Entry call() {
+            final long start = System.currentTimeMillis();
+            final Entry entry = new Entry(ecuDefFile.getAbsolutePath());
+            // read the size and time first so a change while scanning
+            // is found on the next refresh
+            entry.lastModified = ecuDefFile.lastModified();
+            entry.length = ecuDefFile.length();
+            Map<String, EcuDefinition> definitions;
+            try {
+                definitions = EcuDefinitionScanner.scan(ecuDefFile);
+            } catch (IOException e) {
+                definitions = null;
+            }
+            if (definitions == null) {
+                // the full parse reports why the file cannot be read
+                final EcuDataLoader dataLoader = new EcuDataLoaderImpl();
+                dataLoader.loadEcuDefsFromXml(ecuDefFile);
+                definitions = dataLoader.getEcuDefinitionMap();
+            }
+            entry.definitions.addAll(definitions.values());
+            LOGGER.info(String.format("%d ECU definitions indexed from %s in %d ms",
+                    definitions.size(), ecuDefFile.getName(),
+                    System.currentTimeMillis() - start));
+            return entry;
+        }
+    }
+
+    private static final class Entry {
+        private final String path;
+        private final List<EcuDefinition> definitions = new ArrayList<EcuDefinition>();
+        private long lastModified;
+        private long length;
+
+        private Entry(String path) {
+            this.path = path;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(lastModified);
+            out.writeLong(length);
+            out.writeInt(definitions.size());
+            for (EcuDefinition definition : definitions) {
+                out.writeUTF(definition.getEcuId());
+                out.writeUTF(definition.getCalId());
+                out.writeUTF(definition.getCarString());
+                out.writeBoolean(definition.getInherits() != null);
+                if (definition.getInherits() != null) {
+                    out.writeUTF(definition.getInherits());
+                }
+            }
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            final Entry entry = new Entry(in.readUTF());
+            entry.lastModified = in.readLong();
+            entry.length = in.readLong();
+            final File ecuDefFile = new File(entry.path);
+            for (int i = in.readInt(); i > 0; i--) {
+                final String ecuId = in.readUTF();
+                final String calId = in.readUTF();
+                final String carString = in.readUTF();
+                final String inherits = in.readBoolean() ? in.readUTF() : null;
+                entry.definitions.add(new EcuDefinitionImpl(
+                        ecuId, calId, carString, inherits, ecuDefFile));
+            }
+            return entry;
+        }
+    }
+}
@@ -20,7 +20,7 @@
 package com.romraider.logger.ecu.definition;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
-import static com.romraider.util.JEPUtil.evaluate;
+import com.romraider.util.expression.CompiledExpression;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 import static java.util.Collections.synchronizedMap;
@@ -36,6 +36,11 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
     private final Map<String, String> replaceMap;
     private final Map<String, ExpressionInfo> expressionInfoMap = synchronizedMap(new HashMap<String, ExpressionInfo>());
     private final GaugeMinMax gaugeMinMax;
+    private CompiledExpression compiledExpression;
+    // the convertor and data length of each dependency, in ecuDatas order
+    private EcuDataConvertor[] convertors;
+    private int[] lengths;
+    private final ThreadLocal<double[]> scratch = new ThreadLocal<double[]>();
 
     public EcuDerivedParameterConvertorImpl(String units, String expression, String format, Map<String, String> replaceMap, GaugeMinMax gaugeMinMax) {
         checkNotNullOrEmpty(units, "units");
@@ -51,19 +56,23 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
     }
 
     public double convert(byte[] bytes) {
-        Map<String, Double> valueMap = new HashMap<String, Double>();
-        String exp = expression;
-        int index = 0;
-        for (EcuData ecuData : ecuDatas) {
-            int length = ecuData.getAddress().getLength();
-            byte[] tmp = new byte[length];
-            System.arraycopy(bytes, index, tmp, 0, length);
-            ExpressionInfo expressionInfo = expressionInfoMap.get(ecuData.getId());
-            valueMap.put(expressionInfo.getReplacementKey(), expressionInfo.getConvertor().convert(tmp));
-            exp = exp.replace(buildParameterKey(expressionInfo), expressionInfo.getReplacementKey());
-            index += length;
+        return convert(bytes, 0, bytes.length);
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
+        final EcuDataConvertor[] convertors = this.convertors;
+        final int[] lengths = this.lengths;
+        double[] values = scratch.get();
+        if (values == null || values.length != convertors.length) {
+            values = new double[convertors.length];
+            scratch.set(values);
+        }
+        int index = offset;
+        for (int i = 0; i < convertors.length; i++) {
+            values[i] = convertors[i].convert(bytes, index, lengths[i]);
+            index += lengths[i];
         }
-        double result = evaluate(exp, valueMap);
+        double result = compiledExpression.evaluate(values);
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
 
@@ -94,6 +103,15 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         for (EcuData ecuData : ecuDatas) {
             addExpressionInfo(ecuData);
         }
+        compileExpression();
+        final EcuDataConvertor[] convertors = new EcuDataConvertor[ecuDatas.length];
+        final int[] lengths = new int[ecuDatas.length];
+        for (int i = 0; i < ecuDatas.length; i++) {
+            convertors[i] = expressionInfoMap.get(ecuDatas[i].getId()).getConvertor();
+            lengths[i] = ecuDatas[i].getAddress().getLength();
+        }
+        this.lengths = lengths;
+        this.convertors = convertors;
     }
 
     public String toString() {
@@ -104,6 +122,10 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         return expression;
     }
 
+    public Map<String, String> getReplaceMap() {
+        return replaceMap;
+    }
+
     private void addExpressionInfo(EcuData ecuData) {
         String id = ecuData.getId();
         String lookup = '[' + id + ':';
@@ -125,6 +147,17 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         }
     }
 
+    private void compileExpression() {
+        String exp = expression;
+        final String[] variables = new String[ecuDatas.length];
+        for (int i = 0; i < ecuDatas.length; i++) {
+            ExpressionInfo expressionInfo = expressionInfoMap.get(ecuDatas[i].getId());
+            exp = exp.replace(buildParameterKey(expressionInfo), expressionInfo.getReplacementKey());
+            variables[i] = expressionInfo.getReplacementKey();
+        }
+        compiledExpression = CompiledExpression.compile(exp, variables);
+    }
+
     private String buildParameterKey(ExpressionInfo expressionInfo) {
         return '[' + expressionInfo.getEcuDataId() + ':' + expressionInfo.getConvertor().getUnits() + ']';
     }
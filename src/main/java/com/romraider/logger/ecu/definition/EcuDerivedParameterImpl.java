@@ -31,6 +31,7 @@ public final class EcuDerivedParameterImpl implements EcuParameter {
     private final String description;
     private final EcuDerivedParameterConvertor[] convertors;
     private final EcuAddress address;
+    private final EcuData[] ecuDatas;
     private final Set<ConvertorUpdateListener> listeners = new HashSet<ConvertorUpdateListener>();
     private int selectedConvertorIndex;
     private boolean selected;
@@ -47,6 +48,7 @@ public final class EcuDerivedParameterImpl implements EcuParameter {
         this.description = description;
         this.convertors = convertors;
         this.address = buildCombinedAddress(ecuDatas);
+        this.ecuDatas = ecuDatas;
         setEcuDatas(ecuDatas);
     }
 
@@ -114,6 +116,14 @@ public final class EcuDerivedParameterImpl implements EcuParameter {
         listeners.add(listener);
     }
 
+    /**
+     * @return  the parameters this one is derived from, in the order their
+     *          bytes are read
+     */
+    public EcuData[] getEcuDatas() {
+        return ecuDatas;
+    }
+
     @Override
     public String getGroup() {
         return null;
@@ -20,25 +20,23 @@
 package com.romraider.logger.ecu.definition;
 
 import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
-import static com.romraider.util.ByteUtil.asUnsignedInt;
-import static com.romraider.util.JEPUtil.evaluate;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.romraider.Settings;
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+import com.romraider.util.expression.CompiledExpression;
 
 public final class EcuParameterConvertorImpl implements EcuDataConvertor {
     private static final String FLOAT = "float";
     private static final String UINT = "uint";
     private final String units;
     private final String expression;
+    private final CompiledExpression compiledExpression;
     private final DecimalFormat format;
     private final int bit;
     private final String dataType;
@@ -61,6 +59,7 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
         checkNotNull(replaceMap, "replaceMap");
         this.units = units;
         this.expression = expression;
+        this.compiledExpression = CompiledExpression.compile(expression);
         this.format = new DecimalFormat(format);
         this.bit = bit;
         this.dataType = (dataType == null ? "uint8" : dataType);
@@ -70,33 +69,34 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
     }
 
     public double convert(byte[] bytes) {
-        final ByteBuffer bb = ByteBuffer.wrap(bytes);
-        if (endian == Settings.Endian.LITTLE) {
-            bb.order(ByteOrder.LITTLE_ENDIAN);
-        }
+        return convert(bytes, 0, bytes.length);
+    }
 
+    public double convert(byte[] bytes, int offset, int length) {
+        final boolean little = endian == Settings.Endian.LITTLE;
         double result = 0;
         if (bit >= 0 && bit <= 31) {
-            return (asUnsignedInt(bytes) & (1 << bit)) != 0 ? 1 : 0;
+            return (unsigned(bytes, offset, length, false) & (1L << bit)) != 0 ? 1 : 0;
         }
         else if (dataType.equalsIgnoreCase(FLOAT)) {
-            result = evaluate(expression, bb.getFloat());
+            result = compiledExpression.evaluate(Float.intBitsToFloat(
+                    (int) unsigned(bytes, offset, 4, little)));
         }
         else {
             long value = 0;
-            switch (bb.capacity()) {
+            switch (length) {
                 case 1:
-                    value = bb.get();
+                    value = bytes[offset];
                     break;
                 case 2:
-                    value = bb.getShort();
+                    value = (short) unsigned(bytes, offset, 2, little);
                     break;
                 case 4:
-                    value = bb.getInt();
+                    value = (int) unsigned(bytes, offset, 4, little);
                     break;
             }
             if (dataType.toLowerCase().startsWith(UINT)) {
-                switch (bb.capacity()) {
+                switch (length) {
                     case 1:
                         value = value & 0xff;
                         break;
@@ -108,11 +108,21 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
                         break;
                 }
             }
-            result = evaluate(expression, value);
+            result = compiledExpression.evaluate(value);
         }
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
 
+    // the bytes read as an unsigned value, no buffer is wrapped around them
+    private static long unsigned(byte[] bytes, int offset, int length, boolean little) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (bytes[little
+                    ? offset + length - 1 - i : offset + i] & 0xFF);
+        }
+        return value;
+    }
+
     public String getUnits() {
         return units;
     }
@@ -142,6 +152,18 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
         return expression;
     }
 
+    public int getBit() {
+        return bit;
+    }
+
+    public Settings.Endian getEndian() {
+        return endian;
+    }
+
+    public Map<String, String> getReplaceMap() {
+        return replaceMap;
+    }
+
     @Override
     public String getDataType() {
         return dataType;
@@ -37,7 +37,11 @@ public final class EcuSwitchConvertorImpl implements EcuDataConvertor {
     }
 
     public double convert(byte[] bytes) {
-        return (bytes[0] & (1 << bit)) > 0 ? 1 : 0;
+        return convert(bytes, 0, bytes.length);
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
+        return (bytes[offset] & (1 << bit)) > 0 ? 1 : 0;
     }
 
     public String getUnits() {
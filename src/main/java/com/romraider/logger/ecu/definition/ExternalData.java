@@ -19,8 +19,16 @@
 
 package com.romraider.logger.ecu.definition;
 
+import com.romraider.logger.external.core.SampleRing;
+
 public interface ExternalData extends LoggerData {
 
     void addConvertorUpdateListener(ConvertorUpdateListener listener);
 
+    /**
+     * @return  the timestamped samples of the data item, or null if it
+     *          only holds its latest value
+     */
+    SampleRing getSamples();
+
 }
@@ -19,16 +19,16 @@
 
 package com.romraider.logger.ecu.definition;
 
-import static com.romraider.util.JEPUtil.evaluate;
-
 import java.text.DecimalFormat;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.util.expression.CompiledExpression;
 
 public final class ExternalDataConvertorImpl implements EcuDataConvertor {
     private final String units;
     private final String expression;
+    private final CompiledExpression compiledExpression;
     private final GaugeMinMax gaugeMinMax;
     private final ExternalDataItem dataItem; 
     private DecimalFormat format;
@@ -40,13 +40,24 @@ public final class ExternalDataConvertorImpl implements EcuDataConvertor {
         this.dataItem = dataItem;
         this.units = units;
         this.expression = expression;
+        this.compiledExpression = CompiledExpression.compile(expression);
         this.format = new DecimalFormat(format);
         this.gaugeMinMax = gaugeMinMax;
     }
 
     public double convert(byte[] bytes) {
-        double value = dataItem.getData();
-        double result = evaluate(expression, value);
+        return convert(dataItem.getData());
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
+        return convert(dataItem.getData());
+    }
+
+    /**
+     * Convert a value read from the data item earlier.
+     */
+    public double convert(double value) {
+        double result = compiledExpression.evaluate(value);
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
 
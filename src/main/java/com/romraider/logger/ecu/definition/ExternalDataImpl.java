@@ -26,6 +26,8 @@ import java.util.Set;
 
 import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalDataSource;
+import com.romraider.logger.external.core.SampleRing;
+import com.romraider.logger.external.core.SampledDataItem;
 
 public final class ExternalDataImpl implements ExternalData {
     private final String id;
@@ -33,6 +35,7 @@ public final class ExternalDataImpl implements ExternalData {
     private final String description;
     private final ExternalDataSource dataSource;
     private final EcuDataConvertor[] convertors;
+    private final SampleRing samples;
     private final Set<ConvertorUpdateListener> listeners = new HashSet<ConvertorUpdateListener>();
     private int selectedConvertorIndex;
     private boolean selected;
@@ -41,6 +44,8 @@ public final class ExternalDataImpl implements ExternalData {
         checkNotNull(dataItem, dataSource);
         this.dataSource = dataSource;
         this.convertors = dataItem.getConvertors();            
+        this.samples = dataItem instanceof SampledDataItem
+                ? ((SampledDataItem) dataItem).getSamples() : null;
         id = createId(dataItem);
         name = dataItem.getName();
         description = dataItem.getDescription();
@@ -82,6 +87,10 @@ public final class ExternalDataImpl implements ExternalData {
         }
     }
 
+    public SampleRing getSamples() {
+        return samples;
+    }
+
     public EcuDataType getDataType() {
         return EXTERNAL;
     }
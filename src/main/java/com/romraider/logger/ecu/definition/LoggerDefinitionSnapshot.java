@@ -0,0 +1,603 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.util.HexUtil.asHex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.Settings;
+import com.romraider.io.connection.ConnectionProperties;
+import com.romraider.io.connection.KwpConnectionProperties;
+import com.romraider.io.connection.KwpSerialConnectionProperties;
+import com.romraider.io.connection.SerialConnectionProperties;
+import com.romraider.logger.ecu.comms.query.EcuInit;
+import com.romraider.logger.ecu.definition.xml.LoggerDefinitionHandler;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+import com.romraider.util.SettingsManager;
+
+/**
+ * The parameters, switches and codes of a logger definition resolved for
+ * one protocol and ECU.  Parsing the logger definition takes seconds, so
+ * the result is saved to a compact binary file and read back on the next
+ * connect to the same ECU.
+ * <p>
+ * Each snapshot records the SHA-1 hash of the definition file it was made
+ * from and is ignored once the file has changed.  Snapshots are saved in
+ * the <code>logger-snapshots</code> folder next to the settings file.
+ */
+public final class LoggerDefinitionSnapshot {
+    private static final Logger LOGGER = Logger.getLogger(LoggerDefinitionSnapshot.class);
+    private static final int MAGIC = 0x52524C53; // RRLS
+    private static final int VERSION = 1;
+    private static final String SNAPSHOT_DIR = "logger-snapshots";
+    private static final byte PARAMETER = 0;
+    private static final byte DERIVED = 1;
+    private static final byte NO_PROPERTIES = 0;
+    private static final byte SERIAL_PROPERTIES = 1;
+    private static final byte KWP_PROPERTIES = 2;
+    // source hashes by path, valid while the modification time and size match
+    private static final Map<String, SourceHash> HASHES = new HashMap<String, SourceHash>();
+    private final List<EcuParameter> ecuParameters;
+    private final List<EcuSwitch> ecuSwitches;
+    private final List<EcuSwitch> dtcodes;
+    private final EcuSwitch fileLoggingControllerSwitch;
+    private final ConnectionProperties connectionProperties;
+    private final String version;
+    private final Map<String, Map<Transport, Collection<Module>>> protocols;
+
+    public LoggerDefinitionSnapshot(LoggerDefinitionHandler handler) {
+        this(handler.getEcuParameters(), handler.getEcuSwitches(), handler.getEcuCodes(),
+                handler.getFileLoggingControllerSwitch(), handler.getConnectionProperties(),
+                handler.getVersion(), handler.getProtocols());
+    }
+
+    private LoggerDefinitionSnapshot(List<EcuParameter> ecuParameters,
+            List<EcuSwitch> ecuSwitches, List<EcuSwitch> dtcodes,
+            EcuSwitch fileLoggingControllerSwitch,
+            ConnectionProperties connectionProperties, String version,
+            Map<String, Map<Transport, Collection<Module>>> protocols) {
+        this.ecuParameters = ecuParameters;
+        this.ecuSwitches = ecuSwitches;
+        this.dtcodes = dtcodes;
+        this.fileLoggingControllerSwitch = fileLoggingControllerSwitch;
+        this.connectionProperties = connectionProperties;
+        this.version = version;
+        this.protocols = protocols;
+    }
+
+    public List<EcuParameter> getEcuParameters() {
+        return ecuParameters;
+    }
+
+    public List<EcuSwitch> getEcuSwitches() {
+        return ecuSwitches;
+    }
+
+    public List<EcuSwitch> getEcuCodes() {
+        return dtcodes;
+    }
+
+    public EcuSwitch getFileLoggingControllerSwitch() {
+        return fileLoggingControllerSwitch;
+    }
+
+    public ConnectionProperties getConnectionProperties() {
+        return connectionProperties;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Map<String, Map<Transport, Collection<Module>>> getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * @return  the file of the snapshot of a definition for a protocol and
+     *          ECU, in the settings folder
+     */
+    public static File getSnapshotFile(File source, String protocol,
+            String fileLoggingControllerSwitchId, EcuInit ecuInit) {
+        SettingsManager.getSettings();
+        return getSnapshotFile(new File(SettingsManager.getSettingsDir(), SNAPSHOT_DIR),
+                source, protocol, fileLoggingControllerSwitchId, ecuInit);
+    }
+
+    static File getSnapshotFile(File dir, File source, String protocol,
+            String fileLoggingControllerSwitchId, EcuInit ecuInit) {
+        // the supported parameters also depend on the ECU's init bytes
+        final StringBuilder key = new StringBuilder(source.getAbsolutePath())
+                .append('|').append(protocol.toUpperCase())
+                .append('|').append(fileLoggingControllerSwitchId);
+        if (ecuInit != null) {
+            key.append('|').append(ecuInit.getEcuId())
+               .append('|').append(asHex(ecuInit.getEcuInitBytes()));
+        }
+        final String id = ecuInit == null ? "none" : ecuInit.getEcuId();
+        return new File(dir, String.format("%s_%s_%s.snap",
+                protocol.toUpperCase().replaceAll("\\W", ""), id.replaceAll("\\W", ""),
+                asHex(digest(key.toString().getBytes())).substring(0, 12)));
+    }
+
+    /**
+     * Read a snapshot made from the current content of a definition.
+     * @return  the snapshot, or null if there is none or the definition
+     *          has changed since it was made
+     */
+    public static LoggerDefinitionSnapshot read(File snapshotFile, File source) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(snapshotFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                final byte[] hash = new byte[in.readInt()];
+                in.readFully(hash);
+                if (!Arrays.equals(hash, hash(source))) {
+                    LOGGER.info("Logger definition changed, snapshot ignored: "
+                            + snapshotFile.getName());
+                    return null;
+                }
+                return read(in);
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to read logger definition snapshot " + snapshotFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Save the snapshot for the current content of a definition.
+     */
+    public void write(File snapshotFile, File source) {
+        final File dir = snapshotFile.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            LOGGER.warn("Unable to create logger definition snapshot folder " + dir);
+            return;
+        }
+        try {
+            final byte[] hash = hash(source);
+            final DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(snapshotFile)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(hash.length);
+                out.write(hash);
+                write(out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save logger definition snapshot " + snapshotFile, e);
+            snapshotFile.delete();
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        writeString(out, version);
+        writeConnectionProperties(out, connectionProperties);
+        out.writeInt(protocols.size());
+        for (Map.Entry<String, Map<Transport, Collection<Module>>> protocol : protocols.entrySet()) {
+            writeString(out, protocol.getKey());
+            out.writeInt(protocol.getValue().size());
+            for (Map.Entry<Transport, Collection<Module>> transport : protocol.getValue().entrySet()) {
+                writeString(out, transport.getKey().getId());
+                writeString(out, transport.getKey().getName());
+                writeString(out, transport.getKey().getDescription());
+                out.writeInt(transport.getValue().size());
+                for (Module module : transport.getValue()) {
+                    writeString(out, module.getName());
+                    writeBytes(out, module.getAddress());
+                    writeString(out, module.getDescription());
+                    writeBytes(out, module.getTester());
+                    out.writeBoolean(module.getFastPoll());
+                }
+            }
+        }
+        writeSwitches(out, ecuSwitches);
+        writeSwitches(out, dtcodes);
+        writeString(out, fileLoggingControllerSwitch == null
+                ? null : fileLoggingControllerSwitch.getId());
+        out.writeInt(ecuParameters.size());
+        for (EcuParameter parameter : ecuParameters) {
+            if (parameter instanceof EcuDerivedParameterImpl) {
+                writeDerived(out, (EcuDerivedParameterImpl) parameter);
+            }
+            else {
+                writeParameter(out, parameter);
+            }
+        }
+    }
+
+    private static LoggerDefinitionSnapshot read(DataInputStream in) throws IOException {
+        final String version = readString(in);
+        final ConnectionProperties connectionProperties = readConnectionProperties(in);
+        final Map<String, Map<Transport, Collection<Module>>> protocols =
+                new HashMap<String, Map<Transport, Collection<Module>>>();
+        for (int i = in.readInt(); i > 0; i--) {
+            final String protocol = readString(in);
+            final Map<Transport, Collection<Module>> transports =
+                    new HashMap<Transport, Collection<Module>>();
+            for (int j = in.readInt(); j > 0; j--) {
+                final Transport transport = new Transport(
+                        readString(in), readString(in), readString(in));
+                final Collection<Module> modules = new ArrayList<Module>();
+                for (int k = in.readInt(); k > 0; k--) {
+                    modules.add(new Module(readString(in), readBytes(in),
+                            readString(in), readBytes(in), in.readBoolean()));
+                }
+                transports.put(transport, modules);
+            }
+            protocols.put(protocol, transports);
+        }
+
+        final Map<String, EcuData> ecuDataMap = new LinkedHashMap<String, EcuData>();
+        final List<EcuSwitch> ecuSwitches = readSwitches(in, ecuDataMap, false);
+        final List<EcuSwitch> dtcodes = readSwitches(in, ecuDataMap, true);
+        final String fileLoggingControllerSwitchId = readString(in);
+        EcuSwitch fileLoggingControllerSwitch = null;
+        if (fileLoggingControllerSwitchId != null) {
+            final EcuSwitch ecuSwitch = (EcuSwitch) ecuDataMap.get(fileLoggingControllerSwitchId);
+            fileLoggingControllerSwitch = new EcuSwitchImpl(
+                    ecuSwitch.getId(), ecuSwitch.getName(), ecuSwitch.getDescription(),
+                    ecuSwitch.getAddress(), ecuSwitch.getGroup(), ecuSwitch.getSubgroup(),
+                    String.valueOf(ecuSwitch.getGroupSize()), ecuSwitch.getConvertors());
+        }
+        final List<EcuParameter> ecuParameters = new ArrayList<EcuParameter>();
+        for (int i = in.readInt(); i > 0; i--) {
+            final EcuParameter parameter = in.readByte() == DERIVED
+                    ? readDerived(in, ecuDataMap)
+                    : readParameter(in);
+            ecuParameters.add(parameter);
+            ecuDataMap.put(parameter.getId(), parameter);
+        }
+        return new LoggerDefinitionSnapshot(ecuParameters, ecuSwitches, dtcodes,
+                fileLoggingControllerSwitch, connectionProperties, version, protocols);
+    }
+
+    private static void writeParameter(DataOutputStream out, EcuParameter parameter)
+            throws IOException {
+        out.writeByte(PARAMETER);
+        writeData(out, parameter);
+        final EcuDataConvertor[] convertors = parameter.getConvertors();
+        out.writeInt(convertors.length);
+        for (EcuDataConvertor convertor : convertors) {
+            final EcuParameterConvertorImpl c = (EcuParameterConvertorImpl) convertor;
+            writeString(out, c.getUnits());
+            writeString(out, c.getExpression());
+            writeString(out, c.getFormat());
+            out.writeInt(c.getBit());
+            writeString(out, c.getDataType());
+            writeString(out, c.getEndian() == null ? null : c.getEndian().name());
+            writeMap(out, c.getReplaceMap());
+            writeGauge(out, c.getGaugeMinMax());
+        }
+    }
+
+    private static EcuParameter readParameter(DataInputStream in) throws IOException {
+        final String id = readString(in);
+        final String name = readString(in);
+        final String description = readString(in);
+        final EcuAddress address = readAddress(in);
+        final String group = readString(in);
+        final String subgroup = readString(in);
+        final String groupsize = String.valueOf(in.readInt());
+        final EcuDataConvertor[] convertors = new EcuDataConvertor[in.readInt()];
+        for (int i = 0; i < convertors.length; i++) {
+            final String units = readString(in);
+            final String expression = readString(in);
+            final String format = readString(in);
+            final int bit = in.readInt();
+            final String dataType = readString(in);
+            final String endian = readString(in);
+            convertors[i] = new EcuParameterConvertorImpl(units, expression, format,
+                    bit, dataType, endian == null ? null : Settings.Endian.valueOf(endian),
+                    readMap(in), readGauge(in));
+        }
+        return new EcuParameterImpl(id, name, description, address,
+                group, subgroup, groupsize, convertors);
+    }
+
+    private static void writeDerived(DataOutputStream out, EcuDerivedParameterImpl parameter)
+            throws IOException {
+        out.writeByte(DERIVED);
+        writeString(out, parameter.getId());
+        writeString(out, parameter.getName());
+        writeString(out, parameter.getDescription());
+        final EcuData[] ecuDatas = parameter.getEcuDatas();
+        out.writeInt(ecuDatas.length);
+        for (EcuData ecuData : ecuDatas) {
+            writeString(out, ecuData.getId());
+        }
+        final EcuDataConvertor[] convertors = parameter.getConvertors();
+        out.writeInt(convertors.length);
+        for (EcuDataConvertor convertor : convertors) {
+            final EcuDerivedParameterConvertorImpl c = (EcuDerivedParameterConvertorImpl) convertor;
+            writeString(out, c.getUnits());
+            writeString(out, c.getExpression());
+            writeString(out, c.getFormat());
+            writeMap(out, c.getReplaceMap());
+            writeGauge(out, c.getGaugeMinMax());
+        }
+    }
+
+    private static EcuParameter readDerived(DataInputStream in, Map<String, EcuData> ecuDataMap)
+            throws IOException {
+        final String id = readString(in);
+        final String name = readString(in);
+        final String description = readString(in);
+        final EcuData[] ecuDatas = new EcuData[in.readInt()];
+        for (int i = 0; i < ecuDatas.length; i++) {
+            final String dependency = readString(in);
+            ecuDatas[i] = ecuDataMap.get(dependency);
+            if (ecuDatas[i] == null) {
+                throw new IOException("Unknown parameter " + dependency + " of " + id);
+            }
+        }
+        final EcuDerivedParameterConvertor[] convertors =
+                new EcuDerivedParameterConvertor[in.readInt()];
+        for (int i = 0; i < convertors.length; i++) {
+            convertors[i] = new EcuDerivedParameterConvertorImpl(readString(in),
+                    readString(in), readString(in), readMap(in), readGauge(in));
+        }
+        return new EcuDerivedParameterImpl(id, name, description, ecuDatas, convertors);
+    }
+
+    private static void writeSwitches(DataOutputStream out, List<EcuSwitch> switches)
+            throws IOException {
+        out.writeInt(switches.size());
+        for (EcuSwitch ecuSwitch : switches) {
+            writeData(out, ecuSwitch);
+            final EcuDataConvertor convertor = ecuSwitch.getConvertors()[0];
+            writeString(out, convertor.getDataType());
+            writeString(out, convertor.getUnits());
+        }
+    }
+
+    private static List<EcuSwitch> readSwitches(DataInputStream in,
+            Map<String, EcuData> ecuDataMap, boolean dtc) throws IOException {
+        final List<EcuSwitch> switches = new ArrayList<EcuSwitch>();
+        for (int i = in.readInt(); i > 0; i--) {
+            final String id = readString(in);
+            final String name = readString(in);
+            final String description = readString(in);
+            final EcuAddress address = readAddress(in);
+            final String group = readString(in);
+            final String subgroup = readString(in);
+            final String groupsize = String.valueOf(in.readInt());
+            final String dataType = readString(in);
+            final String units = readString(in);
+            final EcuDataConvertor convertor = dtc
+                    ? new EcuDtcConvertorImpl(address.getBit())
+                    : new EcuSwitchConvertorImpl(address.getBit(), dataType, units);
+            final EcuSwitch ecuSwitch = new EcuSwitchImpl(id, name, description, address,
+                    group, subgroup, groupsize, new EcuDataConvertor[]{convertor});
+            switches.add(ecuSwitch);
+            ecuDataMap.put(id, ecuSwitch);
+        }
+        return switches;
+    }
+
+    private static void writeData(DataOutputStream out, EcuData data) throws IOException {
+        writeString(out, data.getId());
+        writeString(out, data.getName());
+        writeString(out, data.getDescription());
+        final String[] addresses = data.getAddress().getAddresses();
+        out.writeInt(addresses.length);
+        for (String address : addresses) {
+            writeString(out, address);
+        }
+        out.writeInt(data.getAddress().getBit());
+        writeString(out, data.getGroup());
+        writeString(out, data.getSubgroup());
+        out.writeInt(data.getGroupSize());
+    }
+
+    private static EcuAddress readAddress(DataInputStream in) throws IOException {
+        final String[] addresses = new String[in.readInt()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = readString(in);
+        }
+        return new EcuAddressImpl(addresses, 1, in.readInt());
+    }
+
+    private static void writeConnectionProperties(DataOutputStream out,
+            ConnectionProperties properties) throws IOException {
+        if (properties == null) {
+            out.writeByte(NO_PROPERTIES);
+            return;
+        }
+        out.writeByte(properties instanceof KwpConnectionProperties
+                ? KWP_PROPERTIES : SERIAL_PROPERTIES);
+        out.writeInt(properties.getBaudRate());
+        out.writeInt(properties.getDataBits());
+        out.writeInt(properties.getStopBits());
+        out.writeInt(properties.getParity());
+        out.writeInt(properties.getConnectTimeout());
+        out.writeInt(properties.getSendTimeout());
+        if (properties instanceof KwpConnectionProperties) {
+            final KwpConnectionProperties kwp = (KwpConnectionProperties) properties;
+            out.writeInt(kwp.getP1Max());
+            out.writeInt(kwp.getP3Min());
+            out.writeInt(kwp.getP4Min());
+        }
+    }
+
+    private static ConnectionProperties readConnectionProperties(DataInputStream in)
+            throws IOException {
+        final byte type = in.readByte();
+        if (type == NO_PROPERTIES) {
+            return null;
+        }
+        final int baudRate = in.readInt();
+        final int dataBits = in.readInt();
+        final int stopBits = in.readInt();
+        final int parity = in.readInt();
+        final int connectTimeout = in.readInt();
+        final int sendTimeout = in.readInt();
+        if (type == KWP_PROPERTIES) {
+            return new KwpSerialConnectionProperties(baudRate, dataBits, stopBits,
+                    parity, connectTimeout, sendTimeout,
+                    in.readInt(), in.readInt(), in.readInt());
+        }
+        return new SerialConnectionProperties(baudRate, dataBits, stopBits,
+                parity, connectTimeout, sendTimeout);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map)
+            throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        final Map<String, String> map = new HashMap<String, String>();
+        for (int i = in.readInt(); i > 0; i--) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    private static void writeGauge(DataOutputStream out, GaugeMinMax gauge)
+            throws IOException {
+        out.writeDouble(gauge.min);
+        out.writeDouble(gauge.max);
+        out.writeDouble(gauge.step);
+    }
+
+    private static GaugeMinMax readGauge(DataInputStream in) throws IOException {
+        return new GaugeMinMax(in.readDouble(), in.readDouble(), in.readDouble());
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * @return  the SHA-1 hash of a file, read again only when its
+     *          modification time or size has changed
+     */
+    static byte[] hash(File file) throws IOException {
+        final String path = file.getAbsolutePath();
+        synchronized (HASHES) {
+            final SourceHash cached = HASHES.get(path);
+            if (cached != null && cached.lastModified == file.lastModified()
+                    && cached.length == file.length()) {
+                return cached.hash;
+            }
+        }
+        final SourceHash sourceHash = new SourceHash();
+        sourceHash.lastModified = file.lastModified();
+        sourceHash.length = file.length();
+        final MessageDigest digest = newDigest();
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        sourceHash.hash = digest.digest();
+        synchronized (HASHES) {
+            HASHES.put(path, sourceHash);
+        }
+        return sourceHash.hash;
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return newDigest().digest(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static final class SourceHash {
+        private long lastModified;
+        private long length;
+        private byte[] hash;
+    }
+}
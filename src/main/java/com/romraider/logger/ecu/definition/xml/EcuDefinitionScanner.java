@@ -0,0 +1,142 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition.xml;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.romraider.logger.ecu.definition.EcuDefinition;
+
+/**
+ * Reads only the <code>romid</code> blocks of an ECU definition file with
+ * a streaming parser.  The table definitions are passed over without being
+ * handled, the romid elements are handed to an {@link EcuDefinitionHandler}
+ * so the definitions found are the same as a full SAX parse.
+ */
+public final class EcuDefinitionScanner {
+    private static final Logger LOGGER = Logger.getLogger(EcuDefinitionScanner.class);
+    private static final String XINCLUDE_NS = "http://www.w3.org/2001/XInclude";
+    private static final String TAG_ROM   = "rom";
+    private static final String TAG_ROMID = "romid";
+    private static final String ATTR_BASE = "base";
+
+    private EcuDefinitionScanner() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Scan a definition file for the ECU definitions it holds.
+     * @param   ecuDefsFile - the ECU definition file
+     * @return  the definitions by ECU ID, or null if the file can only be
+     *          read by a full parse, such as when it includes other files
+     * @throws  IOException if the file cannot be read
+     */
+    public static Map<String, EcuDefinition> scan(File ecuDefsFile) throws IOException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        final InputStream in = new BufferedInputStream(
+                new FileInputStream(ecuDefsFile));
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(
+                    ecuDefsFile.toURI().toString(), in);
+            try {
+                return scan(reader, new EcuDefinitionHandler(ecuDefsFile));
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            LOGGER.debug("Unable to scan " + ecuDefsFile + ": " + e.getMessage());
+            return null;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Map<String, EcuDefinition> scan(
+            XMLStreamReader reader, EcuDefinitionHandler handler)
+            throws XMLStreamException {
+
+        handler.startDocument();
+        // depth of the current element inside a romid, 0 outside of one
+        int depth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case START_ELEMENT:
+                if (XINCLUDE_NS.equals(reader.getNamespaceURI())) {
+                    return null;
+                }
+                final String start = reader.getLocalName();
+                if (depth > 0 || TAG_ROMID.equals(start)) {
+                    depth++;
+                    handler.startElement("", start, start, new AttributesImpl());
+                }
+                else if (TAG_ROM.equals(start)) {
+                    final AttributesImpl attributes = new AttributesImpl();
+                    final String base = reader.getAttributeValue(null, ATTR_BASE);
+                    if (base != null) {
+                        attributes.addAttribute(
+                                "", ATTR_BASE, ATTR_BASE, "CDATA", base);
+                    }
+                    handler.startElement("", start, start, attributes);
+                }
+                break;
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+                if (depth > 0) {
+                    handler.characters(reader.getTextCharacters(),
+                            reader.getTextStart(), reader.getTextLength());
+                }
+                break;
+            case END_ELEMENT:
+                final String end = reader.getLocalName();
+                if (depth > 0) {
+                    depth--;
+                    handler.endElement("", end, end);
+                }
+                else if (TAG_ROM.equals(end)) {
+                    handler.endElement("", end, end);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        return handler.getEcuDefinitionMap();
+    }
+}
@@ -19,8 +19,8 @@
 
 package com.romraider.logger.ecu.tuning;
 
+import com.romraider.logger.ecu.comms.query.DataSlot;
 import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.editor.ecu.ECUEditor;
 import java.io.File;
 import java.io.FileWriter;
@@ -28,7 +28,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Core analysis engine for the Auto Tune module.  The manager receives live
@@ -40,6 +39,10 @@ public final class AutoTuneManager {
     private static final String AFR = "P58";
     private static final String AF_CORRECTION_1 = "P3";
     private static final String AF_LEARNING_1 = "P4";
+    private final DataSlot maf = new DataSlot(MAF);
+    private final DataSlot afr = new DataSlot(AFR);
+    private final DataSlot afCorrection = new DataSlot(AF_CORRECTION_1);
+    private final DataSlot afLearning = new DataSlot(AF_LEARNING_1);
     private ModificationProfile profile;
     private final List<Recommendation> recommendations = new ArrayList<Recommendation>();
 
@@ -61,9 +64,9 @@ public final class AutoTuneManager {
         if (profile == null) {
             return;
         }
-        double afr = findValue(response, AFR);
-        double trim = findValue(response, AF_CORRECTION_1) + findValue(response, AF_LEARNING_1);
-        double maf = findValue(response, MAF);
+        double afr = this.afr.getValue(response);
+        double trim = afCorrection.getValue(response) + afLearning.getValue(response);
+        double maf = this.maf.getValue(response);
 
         if (!Double.isNaN(afr)) {
             double afrDev = afr - profile.getTargetAfr();
@@ -114,14 +117,4 @@ public final class AutoTuneManager {
             System.out.println(rec.getMessage());
         }
     }
-
-    private double findValue(Response response, String id) {
-        Set<LoggerData> datas = response.getData();
-        for (LoggerData data : datas) {
-            if (id.equals(data.getId())) {
-                return response.getDataValue(data);
-            }
-        }
-        return Double.NaN;
-    }
 }
@@ -0,0 +1,161 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.lang.System.currentTimeMillis;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.Timer;
+
+/**
+ * Coalesces logger display updates into frames.  Update handlers keep only
+ * the latest value of each parameter and request a frame; once per frame
+ * the scheduler asks every {@link Renderer} on the event dispatch thread to
+ * show its pending values in one batch.  Values replaced before they were
+ * shown are counted as dropped.
+ */
+public final class RenderScheduler {
+    private static final int FRAME_MILLIS = 16;
+    private static final int IDLE_FRAMES = 60;
+    private static final long STATS_MILLIS = 1000L;
+    private static final RenderScheduler INSTANCE = new RenderScheduler();
+    private final List<Renderer> renderers = new CopyOnWriteArrayList<Renderer>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final Timer timer;
+    private volatile StatsListener statsListener;
+    private int idleFrames;
+    private int frames;
+    private long statsStart;
+
+    /**
+     * Shows the pending values of an update handler.
+     */
+    public interface Renderer {
+
+        /**
+         * Called on the event dispatch thread once per frame.
+         * @return true if any value was shown
+         */
+        boolean render();
+    }
+
+    /**
+     * Receives the achieved frame rate about once a second.
+     */
+    public interface StatsListener {
+
+        /**
+         * @param framesPerSecond - the frames rendered per second
+         * @param droppedSamples - the values replaced before they were shown
+         *          since logging started
+         */
+        void renderStats(double framesPerSecond, long droppedSamples);
+    }
+
+    private RenderScheduler() {
+        timer = new Timer(FRAME_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                renderFrame();
+            }
+        });
+        timer.setCoalesce(true);
+    }
+
+    public static RenderScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    public void addRenderer(Renderer renderer) {
+        checkNotNull(renderer, "renderer");
+        renderers.add(renderer);
+    }
+
+    public void removeRenderer(Renderer renderer) {
+        renderers.remove(renderer);
+    }
+
+    public void setStatsListener(StatsListener statsListener) {
+        this.statsListener = statsListener;
+    }
+
+    /**
+     * Schedule a frame for new pending values, may be called from any thread.
+     */
+    public void requestFrame() {
+        pending.set(true);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Count values that were replaced before they were shown.
+     * @param count - the number of values dropped
+     */
+    public void addDropped(int count) {
+        dropped.addAndGet(count);
+    }
+
+    public void resetStats() {
+        dropped.set(0);
+    }
+
+    private void renderFrame() {
+        // values published from here on are drawn by this frame or the next
+        pending.set(false);
+        boolean rendered = false;
+        for (Renderer renderer : renderers) {
+            rendered |= renderer.render();
+        }
+        final long now = currentTimeMillis();
+        if (statsStart == 0) {
+            statsStart = now;
+        }
+        if (rendered) {
+            frames++;
+            idleFrames = 0;
+        }
+        else if (++idleFrames > IDLE_FRAMES) {
+            timer.stop();
+            idleFrames = 0;
+            // a frame requested during this one saw the timer still running
+            if (pending.get()) {
+                timer.start();
+            }
+        }
+        if (now - statsStart >= STATS_MILLIS || !timer.isRunning()) {
+            final StatsListener listener = statsListener;
+            if (listener != null && now > statsStart) {
+                listener.renderStats(frames * 1000.0 / (now - statsStart), dropped.get());
+            }
+            frames = 0;
+            statsStart = timer.isRunning() ? now : 0;
+        }
+    }
+}
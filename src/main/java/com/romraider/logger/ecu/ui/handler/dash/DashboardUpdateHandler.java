@@ -23,6 +23,7 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.RenderScheduler;
 import static com.romraider.util.ThreadUtil.run;
 import static java.util.Collections.synchronizedMap;
 import javax.swing.JPanel;
@@ -32,15 +33,18 @@ import java.lang.reflect.Constructor;
 import java.util.HashMap;
 import java.util.Map;
 
-public final class DashboardUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
+public final class DashboardUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener,
+        RenderScheduler.Renderer {
     private static final Class[] STYLES = {PlainGaugeStyle.class, SmallGaugeStyle.class, NoFrillsGaugeStyle.class, DialGaugeStyle.class, SmallDialGaugeStyle.class};
     private final Map<LoggerData, Gauge> gauges = synchronizedMap(new HashMap<LoggerData, Gauge>());
     private final JPanel dashboardPanel;
+    private final RenderScheduler scheduler = RenderScheduler.getInstance();
     public int styleIndex;
 
     public DashboardUpdateHandler(JPanel dashboardPanel, int styleIndex) {
         this.dashboardPanel = dashboardPanel;
         this.styleIndex = styleIndex;
+        scheduler.addRenderer(this);
     }
 
     public synchronized void registerData(final LoggerData loggerData) {
@@ -53,16 +57,30 @@ public final class DashboardUpdateHandler implements DataUpdateHandler, Converto
 
     public synchronized void handleDataUpdate(Response response) {
     	if (dashboardPanel.isShowing()) {
+	        int dropped = 0;
 	        for (LoggerData loggerData : response.getData()) {
 	            Gauge gauge = gauges.get(loggerData);
 	            if (gauge != null) {
 	                double value = response.getDataValue(loggerData);
-	                gauge.updateValue(value);
+	                if (gauge.offerValue(value)) dropped++;
 	            }
 	        }
+	        if (dropped > 0) scheduler.addDropped(dropped);
+	        scheduler.requestFrame();
     	}
     }
 
+    // all gauges are updated in one event, Swing paints them in one pass
+    public boolean render() {
+        boolean rendered = false;
+        synchronized (gauges) {
+            for (Gauge gauge : gauges.values()) {
+                rendered |= gauge.render();
+            }
+        }
+        return rendered;
+    }
+
     public synchronized void deregisterData(LoggerData loggerData) {
         dashboardPanel.remove(gauges.get(loggerData));
         gauges.remove(loggerData);
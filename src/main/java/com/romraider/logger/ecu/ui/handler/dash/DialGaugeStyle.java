@@ -22,6 +22,7 @@ package com.romraider.logger.ecu.ui.handler.dash;
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.ecu.definition.LoggerData;
 import static com.romraider.util.ParamChecker.checkNotNull;
+import static com.romraider.util.ThreadUtil.runOnEventThread;
 import static java.awt.Color.BLUE;
 import static java.awt.Color.GREEN;
 import static java.awt.Color.ORANGE;
@@ -93,7 +94,7 @@ public class DialGaugeStyle implements GaugeStyle {
     }
 
     public void updateValue(final double value) {
-        SwingUtilities.invokeLater(new Runnable() {
+        runOnEventThread(new Runnable() {
             public void run() {
                 current.setValue(value);
             }
@@ -102,7 +103,7 @@ public class DialGaugeStyle implements GaugeStyle {
     }
 
     private void updateMinMax(final double value) {
-        SwingUtilities.invokeLater(new Runnable() {
+        runOnEventThread(new Runnable() {
             public void run() {
                 if (value > maxValue) {
                     maxValue = value;
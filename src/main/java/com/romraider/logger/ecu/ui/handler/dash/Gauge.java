@@ -27,6 +27,10 @@ import java.awt.BorderLayout;
 public final class Gauge extends JPanel {
     private static final long serialVersionUID = 7354117571944547043L;
     private GaugeStyle style;
+    private boolean pending;
+    private double pendingValue;
+    private double pendingMin;
+    private double pendingMax;
 
     public Gauge(GaugeStyle style) {
         setLayout(new BorderLayout(0, 0));
@@ -41,6 +45,42 @@ public final class Gauge extends JPanel {
         style.updateValue(value);
     }
 
+    /**
+     * Keep a value to be shown by the next {@link #render()}.  The lowest
+     * and highest values since the last render are kept as well, so the
+     * gauge min and max do not miss a peak.
+     * @return true if a value not yet shown was replaced
+     */
+    synchronized boolean offerValue(double value) {
+        final boolean replaced = pending;
+        if (!pending || value < pendingMin) pendingMin = value;
+        if (!pending || value > pendingMax) pendingMax = value;
+        pendingValue = value;
+        pending = true;
+        return replaced;
+    }
+
+    /**
+     * Show the pending value, called on the event dispatch thread.
+     * @return true if there was a value to show
+     */
+    boolean render() {
+        final double value;
+        final double min;
+        final double max;
+        synchronized (this) {
+            if (!pending) return false;
+            value = pendingValue;
+            min = pendingMin;
+            max = pendingMax;
+            pending = false;
+        }
+        if (min < value) style.updateValue(min);
+        if (max > value) style.updateValue(max);
+        style.updateValue(value);
+        return true;
+    }
+
     public void resetValue() {
         style.resetValue();
     }
@@ -20,24 +20,23 @@
 package com.romraider.logger.ecu.ui.handler.dyno;
 
 import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.DataSlot;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.tab.dyno.DynoTab;
-import static java.lang.System.currentTimeMillis;
 import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 import javax.swing.SwingUtilities;
-import java.util.Set;
 
 public final class DynoUpdateHandler implements DataUpdateHandler {
     private static final Logger LOGGER = getLogger(DynoUpdateHandler.class);
-    private static final String RPM = "P8";
-    private static final String VS = "P9";
-    private static final String IAT = "P11";
-    private static final String TA = "P13";
-    private static final String TV = "P19";
-    private static final String ATM = "P24";
     private static final Boolean TEST = false;
+    private final DataSlot rpmSlot = new DataSlot("P8");
+    private final DataSlot vsSlot = new DataSlot("P9");
+    private final DataSlot iatSlot = new DataSlot("P11");
+    private final DataSlot taSlot = new DataSlot("P13");
+    private final DataSlot tvSlot = new DataSlot("P19");
+    private final DataSlot atmSlot = new DataSlot("P24");
     private DynoTab dynoTab;
 
     // 05 OBXT Cobb Stg1 May 2009, 3rd gear, 200 ft, 60F
@@ -105,13 +104,13 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
     private double atm;
 
     public synchronized void handleDataUpdate(Response response) {
-        if (dynoTab!=null && dynoTab.isRecordData() && (containsData(response, RPM, TA)
-                || containsData(response, RPM, TV)
-                || containsData(response, VS, TA)
-                || containsData(response, VS))) {
+        if (dynoTab!=null && dynoTab.isRecordData() && (containsData(response, rpmSlot, taSlot)
+                || containsData(response, rpmSlot, tvSlot)
+                || containsData(response, vsSlot, taSlot)
+                || containsData(response, vsSlot))) {
             boolean valid = true;
 
-            if (valid && containsData(response, RPM, TA) &&
+            if (valid && containsData(response, rpmSlot, taSlot) &&
                     dynoTab.isManual()) {
                 if (TEST) {
                     if (i >= logTime.length) {
@@ -122,15 +121,15 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     ta = logThrottle[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
-                    rpm = findValue(response, RPM);
-                    ta = findValue(response, TA);
+                    now = response.getTimestamp();
+                    rpm = findValue(response, rpmSlot);
+                    ta = findValue(response, taSlot);
                 }
                 valid = dynoTab.isValidData(rpm, ta);
                 LOGGER.info("DYNO Sample: [Time]: " + now + " [RPM:P8]: " + rpm + " [TA:P13]: " + ta);
                 if (valid) addRawData(now, rpm);
             }
-            if (valid && containsData(response, RPM, TV) &&
+            if (valid && containsData(response, rpmSlot, tvSlot) &&
                     dynoTab.isManual()) {
                 if (TEST) {
                     if (i >= logTime.length) {
@@ -141,15 +140,15 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     tv = logTv[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
-                    rpm = findValue(response, RPM);
-                    tv = findValue(response, TV);
+                    now = response.getTimestamp();
+                    rpm = findValue(response, rpmSlot);
+                    tv = findValue(response, tvSlot);
                 }
                 valid = dynoTab.isValidData(rpm, tv);
                 LOGGER.info("DYNO Sample: [Time]: " + now + " [RPM:P8]: " + rpm + " [TV:P19]: " + tv);
                 if (valid) addRawData(now, rpm);
             }
-            if (valid && containsData(response, VS, TA) &&
+            if (valid && containsData(response, vsSlot, taSlot) &&
                     !dynoTab.isManual()) {
                 if (TEST) {
                     if (i >= logTime.length) {
@@ -160,16 +159,16 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     now = logTime[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
-                    vs = findValue(response, VS);
-                    ta = findValue(response, TA);
+                    now = response.getTimestamp();
+                    vs = findValue(response, vsSlot);
+                    ta = findValue(response, taSlot);
                 }
                 rpm = dynoTab.calcRpm(vs);
                 valid = dynoTab.isValidData(rpm, ta);
                 LOGGER.info("DYNO Sample: [Time]: " + now + " [RPM:calc]: " + rpm + " [TA:P13]: " + ta + " [VS:P9]: " + vs);
                 if (valid) addRawData(now, vs);
             }
-            if (valid && containsData(response, VS, TV) &&
+            if (valid && containsData(response, vsSlot, tvSlot) &&
                     !dynoTab.isManual()) {
                 if (TEST) {
                     if (i >= logTime.length) {
@@ -180,16 +179,16 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     now = logTime[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
-                    vs = findValue(response, VS);
-                    tv = findValue(response, TV);
+                    now = response.getTimestamp();
+                    vs = findValue(response, vsSlot);
+                    tv = findValue(response, tvSlot);
                 }
                 rpm = dynoTab.calcRpm(vs);
                 valid = dynoTab.isValidData(rpm, tv);
                 LOGGER.info("DYNO Sample: [Time]: " + now + " [RPM:calc]: " + rpm + " [TV:P19]: " + ta + " [VS:P9]: " + vs);
                 if (valid) addRawData(now, vs);
             }
-            if (valid && dynoTab.isRecordET() && containsData(response, VS)) {
+            if (valid && dynoTab.isRecordET() && containsData(response, vsSlot)) {
                 if (TEST) {
                     if (i >= logTime.length) {
                         i = 0;
@@ -198,8 +197,8 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     now = logTime[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
-                    vs = findValue(response, VS);
+                    now = response.getTimestamp();
+                    vs = findValue(response, vsSlot);
                 }
                 valid = dynoTab.isValidET(now, vs);
                 LOGGER.info("DYNO Sample: [Time]: " + now + " [VS:P9]: " + vs + " valid: " + valid);
@@ -209,13 +208,13 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
             startNow = -999999999;
         }
 
-        if (dynoTab!=null && dynoTab.getEnv() && containsData(response, IAT, ATM)) {
+        if (dynoTab!=null && dynoTab.getEnv() && containsData(response, iatSlot, atmSlot)) {
             if (TEST) {
                 iat = 27;
                 atm = 14.54;
             } else {
-                iat = findValue(response, IAT);
-                atm = findValue(response, ATM);
+                iat = findValue(response, iatSlot);
+                atm = findValue(response, atmSlot);
             }
             dynoTab.updateEnv(iat, atm);
             LOGGER.info("DYNO Enviornment: [IAT:P11]: " + iat + " [ATM_Pressure:P24]: " + atm);
@@ -233,30 +232,19 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
         });
     }
 
-    private boolean containsData(Response response, String... ids) {
-        Set<LoggerData> datas = response.getData();
-        for (String id : ids) {
-            boolean found = false;
-            for (LoggerData data : datas) {
-                if (data.getId().equals(id)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                return false;
-            }
-        }
-        return true;
+    private static boolean containsData(Response response, DataSlot slot) {
+        return slot.isPresent(response);
     }
 
-    private double findValue(Response response, String id) {
-        for (LoggerData loggerData : response.getData()) {
-            if (id.equals(loggerData.getId())) {
-                return response.getDataValue(loggerData);
-            }
+    private static boolean containsData(Response response, DataSlot slot1, DataSlot slot2) {
+        return slot1.isPresent(response) && slot2.isPresent(response);
+    }
+
+    private static double findValue(Response response, DataSlot slot) {
+        if (!slot.isPresent(response)) {
+            throw new IllegalStateException("Expected data item " + slot.getId() + " not in response.");
         }
-        throw new IllegalStateException("Expected data item " + id + " not in response.");
+        return slot.getValue(response);
     }
 
     public synchronized void registerData(LoggerData loggerData) {
@@ -0,0 +1,207 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.ResourceBundle;
+
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.exception.FileLoggerException;
+import com.romraider.logger.ecu.ui.MessageListener;
+import com.romraider.util.FormatFilename;
+import com.romraider.util.ResourceUtil;
+import com.romraider.util.SettingsManager;
+
+/**
+ * Records logged values in a compact binary file instead of formatted text.
+ * Each row is stored as its raw timestamp and one double per parameter, so
+ * no number formatting or String building is done while logging.  Use
+ * {@link BinaryLogConverter} to export a recording to the CSV layout
+ * written by {@link FileLoggerImpl}.
+ * <p>
+ * The file starts with a header of the magic number, the format version
+ * and a flags byte.  The header is followed by a stream of blocks, each
+ * starting with a tag byte:
+ * <ul>
+ * <li><b>S</b> - a schema block: the column count and, for each column,
+ * the parameter id, name, units and format pattern as length prefixed
+ * UTF-8 strings.  A schema block is written whenever the parameter
+ * selection or a selected convertor changes.</li>
+ * <li><b>R</b> - a row block: the timestamp in milliseconds followed by
+ * one double per column of the last schema.</li>
+ * </ul>
+ * All numbers are big endian, readable with a <code>DataInputStream</code>.
+ */
+public final class BinaryFileLogger {
+    static final int MAGIC = 0x52524C47; // RRLG
+    static final short VERSION = 1;
+    static final int FLAG_ABSOLUTE_TIMESTAMP = 0x01;
+    static final byte SCHEMA = 'S';
+    static final byte ROW = 'R';
+    static final String EXTENSION = ".rrlog";
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ResourceBundle rb = new ResourceUtil().getBundle(
+            BinaryFileLogger.class.getName());
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final MessageListener messageListener;
+    private FileOutputStream os;
+    private FileChannel channel;
+    private int columns;
+    private boolean started;
+
+    public BinaryFileLogger(MessageListener messageListener) {
+        checkNotNull(messageListener);
+        this.messageListener = messageListener;
+    }
+
+    public void start() {
+        if (!started) {
+            start(FileLoggerImpl.buildFilePath(EXTENSION),
+                    SettingsManager.getSettings().isFileLoggingAbsoluteTimestamp());
+        }
+    }
+
+    /**
+     * Start recording to the given file.
+     * @param   filePath - the file to write, replaced if it exists
+     * @param   absoluteTimestamp - true if the rows are to be exported with
+     *          the time of day rather than the time since the first row
+     */
+    void start(String filePath, boolean absoluteTimestamp) {
+        stop();
+        try {
+            os = new FileOutputStream(filePath);
+            channel = os.getChannel();
+            buffer.clear();
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.put((byte) (absoluteTimestamp ? FLAG_ABSOLUTE_TIMESTAMP : 0));
+            messageListener.reportMessageInTitleBar(MessageFormat.format(
+                    rb.getString("STARTLOG"),
+                    FormatFilename.getShortName(filePath)));
+        } catch (Exception e) {
+            stop();
+            throw new FileLoggerException(e);
+        }
+        columns = -1;
+        started = true;
+    }
+
+    public void stop() {
+        if (channel != null) {
+            try {
+                flush();
+                os.close();
+                messageListener.reportMessageInTitleBar(rb.getString("STOPLOG"));
+            } catch (Exception e) {
+                throw new FileLoggerException(e);
+            } finally {
+                channel = null;
+                os = null;
+            }
+        }
+        started = false;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Start a new schema.  The rows written after this call must contain
+     * one value for each logger data, in iteration order.
+     * @param   loggerDatas - the logged parameters
+     */
+    public void writeSchema(Collection<LoggerData> loggerDatas) {
+        try {
+            ensure(5);
+            buffer.put(SCHEMA);
+            buffer.putInt(loggerDatas.size());
+            for (LoggerData loggerData : loggerDatas) {
+                final EcuDataConvertor convertor = loggerData.getSelectedConvertor();
+                writeString(loggerData.getId());
+                writeString(loggerData.getName());
+                writeString(convertor.getUnits());
+                writeString(convertor.getFormat());
+            }
+            columns = loggerDatas.size();
+        } catch (Exception e) {
+            stop();
+            throw new FileLoggerException(e);
+        }
+    }
+
+    /**
+     * Append a row of values to the log.
+     * @param   timestamp - the time of the values in milliseconds
+     * @param   values - one value per column of the current schema
+     */
+    public void writeRow(long timestamp, double[] values) {
+        if (values.length != columns) {
+            throw new IllegalArgumentException(
+                    "Row has " + values.length + " values, schema has " + columns);
+        }
+        try {
+            ensure(9 + 8 * values.length);
+            buffer.put(ROW);
+            buffer.putLong(timestamp);
+            for (double value : values) {
+                buffer.putDouble(value);
+            }
+        } catch (Exception e) {
+            stop();
+            throw new FileLoggerException(e);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        final byte[] bytes = value == null ? new byte[0] : value.getBytes(UTF8);
+        ensure(4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensure(int length) throws IOException {
+        if (length > BUFFER_SIZE) {
+            throw new IOException("Block of " + length + " bytes exceeds the log buffer");
+        }
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.EXTENSION;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.FLAG_ABSOLUTE_TIMESTAMP;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.MAGIC;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.ROW;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.SCHEMA;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.UTF8;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.VERSION;
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Exports a log recorded by {@link BinaryFileLogger} to the CSV layout
+ * written by {@link FileLoggerImpl}.  The log is streamed one row at a
+ * time so recordings of any length can be converted.
+ * <p>
+ * Values are formatted with the format pattern of the convertor that was
+ * selected when they were logged.  Text replacements a convertor may
+ * apply to specific values are not part of the recording and are not
+ * reproduced.
+ */
+public final class BinaryLogConverter {
+    private static final String NEW_LINE = System.getProperty("line.separator");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinaryLogConverter() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Convert a binary log to a CSV file of the same name next to it.
+     * @param   source - the binary log file
+     * @return  the CSV file written
+     * @throws  IOException if the log cannot be read or the CSV written
+     */
+    public static File convert(File source) throws IOException {
+        checkNotNull(source, "source");
+        String path = source.getPath();
+        if (path.endsWith(EXTENSION)) {
+            path = path.substring(0, path.length() - EXTENSION.length());
+        }
+        final File target = new File(path + ".csv");
+        convert(source, target, FileUpdateHandlerImpl.getDelimiter());
+        return target;
+    }
+
+    /**
+     * Convert a binary log to a CSV file.
+     * @param   source - the binary log file
+     * @param   target - the CSV file to write
+     * @param   delimiter - the field separator
+     * @return  the number of rows written
+     * @throws  IOException if the log cannot be read or the CSV written
+     */
+    public static long convert(File source, File target, String delimiter) throws IOException {
+        checkNotNull(source, target, delimiter);
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE));
+        try {
+            final Writer out = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(target)), BUFFER_SIZE);
+            try {
+                return convert(in, out, delimiter);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static long convert(DataInputStream in, Writer out, String delimiter) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a RomRaider binary log");
+        }
+        final short version = in.readShort();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary log version " + version);
+        }
+        final boolean absolute = (in.readByte() & FLAG_ABSOLUTE_TIMESTAMP) != 0;
+        final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        final StringBuilder line = new StringBuilder(256);
+        DecimalFormat[] formats = null;
+        long startTimestamp = 0;
+        long rows = 0;
+        while (true) {
+            final int tag = in.read();
+            if (tag < 0) {
+                break;
+            }
+            try {
+                if (tag == SCHEMA) {
+                    formats = new DecimalFormat[in.readInt()];
+                    line.setLength(0);
+                    line.append(absolute ? "Time" : "Time (msec)");
+                    for (int i = 0; i < formats.length; i++) {
+                        readString(in);
+                        final String name = readString(in);
+                        final String units = readString(in);
+                        formats[i] = new DecimalFormat(readString(in));
+                        line.append(delimiter).append(name)
+                            .append(" (").append(units).append(')');
+                    }
+                }
+                else if (tag == ROW && formats != null) {
+                    final long timestamp = in.readLong();
+                    line.setLength(0);
+                    if (absolute) {
+                        line.append(timestampFormat.format(new Date(timestamp)));
+                    }
+                    else {
+                        if (startTimestamp == 0) startTimestamp = timestamp;
+                        line.append(timestamp - startTimestamp);
+                    }
+                    for (DecimalFormat format : formats) {
+                        line.append(delimiter).append(format.format(in.readDouble()));
+                    }
+                    rows++;
+                }
+                else {
+                    throw new IOException("Corrupt binary log block: " + tag);
+                }
+            } catch (EOFException e) {
+                // the recording was cut short, keep the rows written so far
+                break;
+            }
+            out.write(line.append(NEW_LINE).toString());
+        }
+        return rows;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: BinaryLogConverter <log" + EXTENSION + ">...");
+            return;
+        }
+        for (String arg : args) {
+            System.out.println(convert(new File(arg)));
+        }
+    }
+}
@@ -41,7 +41,6 @@ public final class FileLoggerImpl implements FileLogger {
     private static final String NEW_LINE = System.getProperty("line.separator");
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             FileLoggerImpl.class.getName());
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss");
     private final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm:ss.SSS");
     private final MessageListener messageListener;
     private boolean started;
@@ -59,7 +58,7 @@ public final class FileLoggerImpl implements FileLogger {
         if (!started) {
             stop();
             try {
-                String filePath = buildFilePath();
+                String filePath = buildFilePath(".csv");
                 os = new BufferedOutputStream(new FileOutputStream(filePath));
                 messageListener.reportMessageInTitleBar(MessageFormat.format(
                         rb.getString("STARTLOG"),
@@ -129,7 +128,7 @@ public final class FileLoggerImpl implements FileLogger {
         return new StringBuilder(formattedTimestamp).append(line).toString();
     }
 
-    private String buildFilePath() {
+    static String buildFilePath(String extension) {
         String logDir = SettingsManager.getSettings().getLoggerOutputDirPath();
         if (!logDir.endsWith(File.separator)) {
             logDir += File.separator;
@@ -140,7 +139,7 @@ public final class FileLoggerImpl implements FileLogger {
                 && !settings.getLogfileNameText().isEmpty()) {
             logDir += settings.getLogfileNameText() + "_";
         }
-        logDir += dateFormat.format(new Date()) + ".csv";
+        logDir += new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + extension;
         return logDir;
     }
 
@@ -35,16 +35,19 @@ import java.util.Map;
 import java.util.Set;
 
 import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.ResponseSchema;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.MessageListener;
 import com.romraider.logger.ecu.ui.StatusChangeListener;
+import com.romraider.util.SettingsManager;
 
 public final class FileUpdateHandlerImpl implements FileUpdateHandler, ConvertorUpdateListener {
     private final Map<LoggerData, Integer> loggerDatas = synchronizedMap(new LinkedHashMap<LoggerData, Integer>());
     private final List<StatusChangeListener> listeners = synchronizedList(new ArrayList<StatusChangeListener>());
     private final FileLogger fileLogger;
-    private final Set<String> locales = new HashSet<String>(
+    private final BinaryFileLogger binaryLogger;
+    private static final Set<String> locales = new HashSet<String>(
             Arrays.asList(new String[] {
                     "be_BY","bg_BG","ca_ES","cs_CZ","da_DK","de_AT","de_CH","de_DE","de_LU",
                     "el_CY","el_GR","es_AR","es_BO","es_CL","es_CO","es_EC","es_ES","es_PE",
@@ -55,17 +58,26 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
                     "sv_SE","tr_TR","uk_UA","vi_VN"
             }
                     ));
-    private final String language = System.getProperty("user.language.format");
-    private final String country = System.getProperty("user.country.format");
+    private static final String language = System.getProperty("user.language.format");
+    private static final String country = System.getProperty("user.country.format");
 
-    private final String delimiter = language == null ?
+    private static final String delimiter = language == null ?
             locales.contains(Locale.getDefault().toString()) ? SEMICOLON : COMMA
                     : locales.contains(language + "_" + country) ? SEMICOLON : COMMA;
 
     private Line currentLine = new Line(loggerDatas.keySet());
+    private Row currentRow = new Row(loggerDatas.keySet());
 
     public FileUpdateHandlerImpl(MessageListener messageListener) {
         fileLogger = new FileLoggerImpl(messageListener);
+        binaryLogger = new BinaryFileLogger(messageListener);
+    }
+
+    /**
+     * @return  the field separator used in log files for the current locale
+     */
+    static String getDelimiter() {
+        return delimiter;
     }
 
     @Override
@@ -87,7 +99,14 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     @Override
     public synchronized void handleDataUpdate(Response response) {
-        if (fileLogger.isStarted()) {
+        if (binaryLogger.isStarted()) {
+            currentRow.update(response);
+            if (currentRow.isFull()) {
+                binaryLogger.writeRow(response.getTimestamp(), currentRow.values);
+                currentRow.clear();
+            }
+        }
+        else if (fileLogger.isStarted()) {
             for (LoggerData loggerData : response.getData()) {
                 currentLine.updateParamValue(loggerData, loggerData.getSelectedConvertor().format(response.getDataValue(loggerData)));
             }
@@ -114,6 +133,9 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
         if (fileLogger.isStarted()) {
             fileLogger.stop();
         }
+        if (binaryLogger.isStarted()) {
+            binaryLogger.stop();
+        }
     }
 
     @Override
@@ -128,8 +150,13 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     @Override
     public synchronized void start() {
-        if (!fileLogger.isStarted()) {
-            fileLogger.start();
+        if (!isStarted()) {
+            if (SettingsManager.getSettings().isFileLoggingBinary()) {
+                binaryLogger.start();
+            }
+            else {
+                fileLogger.start();
+            }
             notifyListeners(true);
             writeHeaders();
         }
@@ -137,18 +164,26 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     @Override
     public synchronized void stop() {
-        if (fileLogger.isStarted()) {
-            fileLogger.stop();
+        if (isStarted()) {
+            cleanUp();
             notifyListeners(false);
         }
     }
 
+    private boolean isStarted() {
+        return fileLogger.isStarted() || binaryLogger.isStarted();
+    }
+
     private void resetLine() {
         currentLine = new Line(loggerDatas.keySet());
+        currentRow = new Row(loggerDatas.keySet());
     }
 
     private void writeHeaders() {
-        if (fileLogger.isStarted()) {
+        if (binaryLogger.isStarted()) {
+            binaryLogger.writeSchema(currentRow.columns.getData());
+        }
+        else if (fileLogger.isStarted()) {
             fileLogger.writeHeaders(currentLine.headers());
         }
     }
@@ -206,4 +241,54 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
             return buffer.toString();
         }
     }
+
+    /**
+     * The binary counterpart of {@link Line}, collecting raw values by
+     * column.  The mapping from the slots of a response to the columns is
+     * resolved once per {@link ResponseSchema}.
+     */
+    private static final class Row {
+        private final ResponseSchema columns;
+        private final double[] values;
+        private final boolean[] present;
+        private int missing;
+        private ResponseSchema schema;
+        private int[] slotColumns;
+
+        public Row(Set<LoggerData> loggerDatas) {
+            this.columns = new ResponseSchema(loggerDatas);
+            this.values = new double[columns.size()];
+            this.present = new boolean[columns.size()];
+            this.missing = columns.size();
+        }
+
+        public void update(Response response) {
+            if (response.getSchema() != schema) {
+                schema = response.getSchema();
+                slotColumns = new int[schema.size()];
+                for (int slot = 0; slot < slotColumns.length; slot++) {
+                    slotColumns[slot] = columns.indexOf(schema.getData(slot));
+                }
+            }
+            for (int slot = 0; slot < slotColumns.length; slot++) {
+                final int column = slotColumns[slot];
+                if (column >= 0) {
+                    if (!present[column]) {
+                        present[column] = true;
+                        missing--;
+                    }
+                    values[column] = response.getDataValue(slot);
+                }
+            }
+        }
+
+        public boolean isFull() {
+            return missing == 0;
+        }
+
+        public void clear() {
+            Arrays.fill(present, false);
+            missing = present.length;
+        }
+    }
 }
@@ -23,6 +23,7 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.RenderScheduler;
 import com.romraider.util.ResourceUtil;
 
 import static com.romraider.logger.ecu.ui.handler.graph.SpringUtilities.makeCompactGrid;
@@ -36,36 +37,47 @@ import static javax.swing.KeyStroke.getKeyStroke;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
 import static org.jfree.chart.plot.PlotOrientation.VERTICAL;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.StandardXYItemRenderer;
 import org.jfree.chart.title.LegendTitle;
+import org.jfree.data.Range;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 import javax.swing.AbstractAction;
 import javax.swing.JCheckBox;
 import javax.swing.JPanel;
 import javax.swing.JToggleButton;
 import javax.swing.SpringLayout;
-import javax.swing.SwingUtilities;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
 
-public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
+public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener,
+        RenderScheduler.Renderer {
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             GraphUpdateHandler.class.getName());
     private static final Color DARK_GREY = new Color(80, 80, 80);
     private static final Color LIGHT_GREY = new Color(110, 110, 110);
     private final Map<LoggerData, ChartPanel> chartMap = synchronizedMap(new HashMap<LoggerData, ChartPanel>());
-    private final Map<LoggerData, XYSeries> seriesMap = synchronizedMap(new HashMap<LoggerData, XYSeries>());
+    private final Map<LoggerData, SampleDataset> seriesMap = synchronizedMap(new HashMap<LoggerData, SampleDataset>());
     private final Map<LoggerData, Integer> datasetIndexes = synchronizedMap(new HashMap<LoggerData, Integer>());
     private final JPanel graphPanel;
+    private final RenderScheduler scheduler = RenderScheduler.getInstance();
+    private final AxisChangeListener domainListener = new AxisChangeListener() {
+        public void axisChanged(AxisChangeEvent event) {
+            // zoomed in or out, decimate for the new span
+            scheduler.requestFrame();
+        }
+    };
     private long startTime = System.currentTimeMillis();
     private boolean combinedChart = false;
     private boolean paused = false;
@@ -103,6 +115,7 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
         controlPanel.add(playPauseButton);
         panel.add(controlPanel, NORTH);
         panel.add(this.graphPanel, CENTER);
+        scheduler.addRenderer(this);
     }
 
     public synchronized void registerData(LoggerData loggerData) {
@@ -119,8 +132,8 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
     }
 
     private synchronized void addToPanel(LoggerData loggerData) {
-        XYSeries series = seriesMap.get(loggerData);
-        ChartPanel chartPanel = new ChartPanel(createXYLineChart(loggerData, new XYSeriesCollection(series), false), false, true, true, true, true);
+        SampleDataset dataset = seriesMap.get(loggerData);
+        ChartPanel chartPanel = new ChartPanel(createXYLineChart(loggerData, dataset, false), false, true, true, true, true);
         chartPanel.setMinimumSize(new Dimension(600, 200));
         chartPanel.setMaximumSize(new Dimension(10000, 200));
         chartPanel.setPreferredSize(new Dimension(600, 200));
@@ -143,7 +156,7 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
             graphPanel.add(combinedChartPanel);
         }
         XYPlot plot = combinedChartPanel.getChart().getXYPlot();
-        plot.setDataset(counter, new XYSeriesCollection(seriesMap.get(loggerData)));
+        plot.setDataset(counter, seriesMap.get(loggerData));
         plot.setRenderer(counter, new StandardXYItemRenderer());
         datasetIndexes.put(loggerData, counter++);
     }
@@ -154,21 +167,63 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
 
     public synchronized void handleDataUpdate(final Response response) {
     	if(!paused) {
-	        SwingUtilities.invokeLater(new Runnable() {
-	            public void run() {
-	                for (final LoggerData loggerData : response.getData()) {
-	                    final XYSeries series = seriesMap.get(loggerData);
-	                    if (series != null) {
-	                    	series.add((response.getTimestamp() - startTime) / 1000.0, response.getDataValue(loggerData));
-	                    }
-	                }
+	        final double time = (response.getTimestamp() - startTime) / 1000.0;
+	        for (final LoggerData loggerData : response.getData()) {
+	            final SampleDataset dataset = seriesMap.get(loggerData);
+	            if (dataset != null) {
+	                dataset.getBuffer().add(time, response.getDataValue(loggerData));
 	            }
-	        });
+	        }
+	        scheduler.requestFrame();
     	}
     }
 
+    public synchronized boolean render() {
+        boolean rendered = false;
+        if (combinedChart) {
+            if (combinedChartPanel != null) {
+                rendered = renderChart(combinedChartPanel, seriesMap.values());
+            }
+        }
+        else {
+            for (Map.Entry<LoggerData, ChartPanel> entry : chartMap.entrySet()) {
+                final SampleDataset dataset = seriesMap.get(entry.getKey());
+                if (dataset != null) {
+                    rendered |= renderChart(entry.getValue(),
+                            Collections.singleton(dataset));
+                }
+            }
+        }
+        return rendered;
+    }
+
+    // decimate to one bucket per pixel over the span of the domain axis, or
+    // over all samples while the axis is auto ranged
+    private boolean renderChart(ChartPanel chartPanel, Collection<SampleDataset> datasets) {
+        final int width = chartPanel.getWidth();
+        if (width <= 0) {
+            return false;
+        }
+        double lower = Double.NaN;
+        double upper = Double.NaN;
+        final ValueAxis domainAxis = chartPanel.getChart().getXYPlot().getDomainAxis();
+        if (!domainAxis.isAutoRange()) {
+            final Range range = domainAxis.getRange();
+            lower = range.getLowerBound();
+            upper = range.getUpperBound();
+        }
+        boolean rendered = false;
+        for (SampleDataset dataset : datasets) {
+            rendered |= dataset.update(lower, upper, width);
+        }
+        return rendered;
+    }
+
     public synchronized void deregisterData(LoggerData loggerData) {
-        seriesMap.remove(loggerData);
+        final SampleDataset dataset = seriesMap.remove(loggerData);
+        if (dataset != null) {
+            dataset.getBuffer().release();
+        }
         if (combinedChart) {
             removeFromCombined(loggerData);
         } else {
@@ -193,6 +248,7 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
 
     private void removeFromPanel(LoggerData loggerData) {
         // remove from charts
+        chartMap.get(loggerData).getChart().getXYPlot().setDataset(null);
         graphPanel.remove(chartMap.get(loggerData));
         datasetIndexes.remove(loggerData);
         chartMap.remove(loggerData);
@@ -202,23 +258,27 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
     }
 
     public synchronized void reset() {
-        for (XYSeries series : seriesMap.values()) {
-            series.clear();
+        for (SampleDataset dataset : seriesMap.values()) {
+            dataset.getBuffer().clear();
         }
+        scheduler.requestFrame();
     }
 
     public synchronized void notifyConvertorUpdate(LoggerData updatedLoggerData) {
         if (chartMap.containsKey(updatedLoggerData)) {
-            seriesMap.get(updatedLoggerData).clear();
+            seriesMap.get(updatedLoggerData).getBuffer().clear();
+            scheduler.requestFrame();
             JFreeChart chart = chartMap.get(updatedLoggerData).getChart();
             chart.getXYPlot().getRangeAxis().setLabel(buildRangeAxisTitle(updatedLoggerData));
         }
     }
 
     private void registerSeries(LoggerData loggerData) {
-        final XYSeries series = new XYSeries(loggerData.getName());
-        series.setMaximumItemCount(200);
-        seriesMap.put(loggerData, series);
+        final SampleDataset previous = seriesMap.put(loggerData,
+                new SampleDataset(loggerData.getName(), new SampleBuffer()));
+        if (previous != null) {
+            previous.getBuffer().release();
+        }
     }
 
     private JFreeChart createXYLineChart(LoggerData loggerData, XYDataset dataset, boolean combined) {
@@ -238,6 +298,7 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
         plot.setDomainGridlinePaint(DARK_GREY);
         plot.setRangeGridlinePaint(DARK_GREY);
         plot.setOutlinePaint(DARK_GREY);
+        plot.getDomainAxis().addChangeListener(domainListener);
         return chart;
     }
 
@@ -0,0 +1,367 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.graph;
+
+import java.util.Arrays;
+
+/**
+ * Time ordered samples of one logged parameter kept in primitive arrays.
+ * The arrays grow up to a capacity, after that the oldest samples are
+ * overwritten.  The minimum and maximum of each block of
+ * {@link #BLOCK_SIZE} samples are kept as well so a long span can be
+ * decimated without visiting every sample.
+ * <p>
+ * The buffers of all graphed parameters share a budget of an eighth of the
+ * maximum heap.  The capacity of each is the budget divided by the number
+ * of buffers, between {@link #MIN_CAPACITY} and {@link #MAX_CAPACITY}
+ * samples, so a buffer gives up its oldest samples when more parameters
+ * are graphed.
+ */
+final class SampleBuffer {
+    static final int BLOCK_SIZE = 64;
+    static final int MIN_CAPACITY = 1 << 12;
+    static final int MAX_CAPACITY = 1 << 20;
+    // a double time and a float value per sample, and the block summaries
+    static final int BYTES_PER_SAMPLE = 12;
+    private static final long BUDGET = Runtime.getRuntime().maxMemory() / 8;
+    private static final int BLOCK_SHIFT = 6;
+    private static final int INITIAL_CAPACITY = 4096;
+    private static int sharedBuffers;
+    private static volatile int sharedCapacity = MAX_CAPACITY;
+    private final boolean shared;
+    private boolean released;
+    private int maxCapacity;
+    private double[] times;
+    private float[] values;
+    private float[] blockMin;
+    private float[] blockMax;
+    private long count;
+    private int modCount;
+
+    /**
+     * A buffer on the shared budget, {@link #release()} it when the
+     * parameter is no longer graphed.
+     */
+    SampleBuffer() {
+        this(MAX_CAPACITY, true);
+    }
+
+    /**
+     * A buffer with a capacity of its own.
+     * @param maxCapacity - the most samples kept, a power of two and a
+     *          multiple of {@link #BLOCK_SIZE}
+     */
+    SampleBuffer(int maxCapacity) {
+        this(maxCapacity, false);
+    }
+
+    private SampleBuffer(int maxCapacity, boolean shared) {
+        checkCapacity(maxCapacity);
+        this.maxCapacity = maxCapacity;
+        this.shared = shared;
+        if (shared) {
+            share(1);
+        }
+        allocate(Math.min(INITIAL_CAPACITY, capacity()));
+    }
+
+    /**
+     * Take the buffer off the shared budget, the other buffers may grow.
+     */
+    synchronized void release() {
+        if (shared && !released) {
+            released = true;
+            share(-1);
+        }
+    }
+
+    /**
+     * Change the most samples kept, the oldest samples are dropped on the
+     * next add if the buffer holds more.
+     */
+    synchronized void setMaxCapacity(int maxCapacity) {
+        checkCapacity(maxCapacity);
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * @return  the capacity of each of a number of buffers sharing a budget
+     */
+    static int capacityFor(long budget, int buffers) {
+        final long samples = budget / BYTES_PER_SAMPLE / Math.max(1, buffers);
+        if (samples >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        if (samples <= MIN_CAPACITY) {
+            return MIN_CAPACITY;
+        }
+        return Integer.highestOneBit((int) samples);
+    }
+
+    private static synchronized void share(int change) {
+        sharedBuffers += change;
+        sharedCapacity = capacityFor(BUDGET, sharedBuffers);
+    }
+
+    private static void checkCapacity(int maxCapacity) {
+        if (Integer.bitCount(maxCapacity) != 1 || maxCapacity < BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid capacity: " + maxCapacity);
+        }
+    }
+
+    private int capacity() {
+        return shared ? Math.min(maxCapacity, sharedCapacity) : maxCapacity;
+    }
+
+    synchronized void add(double time, double value) {
+        final int capacity = capacity();
+        if (times.length > capacity) {
+            shrink(capacity);
+        }
+        else if (count == times.length && times.length < capacity) {
+            grow(capacity);
+        }
+        final int slot = slot(count);
+        final float v = (float) value;
+        times[slot] = time;
+        values[slot] = v;
+        final int block = slot >> BLOCK_SHIFT;
+        if ((count & (BLOCK_SIZE - 1)) == 0) {
+            blockMin[block] = v;
+            blockMax[block] = v;
+        }
+        else {
+            if (v < blockMin[block]) blockMin[block] = v;
+            if (v > blockMax[block]) blockMax[block] = v;
+        }
+        count++;
+        modCount++;
+    }
+
+    synchronized void clear() {
+        count = 0;
+        modCount++;
+    }
+
+    synchronized int size() {
+        return (int) Math.min(count, times.length);
+    }
+
+    /**
+     * @return  a count that changes whenever samples are added or cleared
+     */
+    synchronized int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Reduce the samples between two times to at most two points per
+     * bucket, the lowest and the highest sample of the bucket in the order
+     * the values trend.  The samples just outside the span are included so
+     * lines reach the edges of the chart.
+     * @param lower - the start of the span, or NaN for the first sample
+     * @param upper - the end of the span, or NaN for the last sample
+     * @param buckets - the number of buckets, usually the chart width
+     * @param out - the points found, reused if large enough
+     * @return  the points found
+     */
+    synchronized Points decimate(double lower, double upper, int buckets, Points out) {
+        final long first = first();
+        long from = Double.isNaN(lower) ? first : Math.max(first, floor(lower));
+        long to = Double.isNaN(upper) ? count : Math.min(count, floor(upper) + 2);
+        buckets = Math.max(1, buckets);
+        final Points points = out == null ? new Points() : out;
+        points.size = 0;
+        if (from >= to) {
+            return points;
+        }
+        if (to - from <= 2L * buckets) {
+            points.ensureCapacity((int) (to - from));
+            for (long i = from; i < to; i++) {
+                points.add(times[slot(i)], values[slot(i)]);
+            }
+            return points;
+        }
+        points.ensureCapacity(2 * buckets);
+        final double start = times[slot(from)];
+        final double span = times[slot(to - 1)] - start;
+        long i = from;
+        for (int b = 1; b <= buckets && i < to; b++) {
+            // samples of this bucket end at the first time past its span
+            final double end = start + span * b / buckets;
+            if (b < buckets && times[slot(i)] > end) {
+                continue;
+            }
+            long j = i + 1;
+            if (b == buckets) {
+                j = to;
+            }
+            else {
+                while (j < to && times[slot(j)] <= end) j++;
+            }
+            addBucket(i, j, points);
+            i = j;
+        }
+        return points;
+    }
+
+    // the min and max of samples i to j-1, full blocks are read from the
+    // block summaries
+    private void addBucket(long i, long j, Points points) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        long k = i;
+        while (k < j) {
+            if ((k & (BLOCK_SIZE - 1)) == 0 && k + BLOCK_SIZE <= j) {
+                final int block = slot(k) >> BLOCK_SHIFT;
+                if (blockMin[block] < min) min = blockMin[block];
+                if (blockMax[block] > max) max = blockMax[block];
+                k += BLOCK_SIZE;
+            }
+            else {
+                final float v = values[slot(k)];
+                if (v < min) min = v;
+                if (v > max) max = v;
+                k++;
+            }
+        }
+        final double t0 = times[slot(i)];
+        final double t1 = times[slot(j - 1)];
+        if (j - i == 1) {
+            points.add(t0, min);
+        }
+        else if (values[slot(i)] <= values[slot(j - 1)]) {
+            points.add(t0, min);
+            points.add(t1, max);
+        }
+        else {
+            points.add(t0, max);
+            points.add(t1, min);
+        }
+    }
+
+    // oldest sample still held, always at a block boundary when the oldest
+    // samples have been overwritten so that block summaries stay valid
+    private long first() {
+        if (count <= times.length) {
+            return 0;
+        }
+        final long oldest = count - times.length;
+        return (oldest + BLOCK_SIZE - 1) & ~(long) (BLOCK_SIZE - 1);
+    }
+
+    // last sample at or before a time, or the first sample
+    private long floor(double time) {
+        long low = first();
+        long high = count - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            if (times[slot(mid)] <= time) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return Math.max(high, first());
+    }
+
+    private int slot(long index) {
+        return (int) (index & (times.length - 1));
+    }
+
+    // samples never wrap before the buffer reached its largest size, so
+    // growing keeps every sample at its slot
+    private void grow(int maxCapacity) {
+        final int capacity = Math.min(times.length * 2, maxCapacity);
+        times = Arrays.copyOf(times, capacity);
+        values = Arrays.copyOf(values, capacity);
+        blockMin = Arrays.copyOf(blockMin, capacity >> BLOCK_SHIFT);
+        blockMax = Arrays.copyOf(blockMax, capacity >> BLOCK_SHIFT);
+    }
+
+    // keep the newest whole blocks that fit, each sample moves to its slot
+    // in the smaller arrays so the buffer has wrapped and does not grow again
+    private void shrink(int capacity) {
+        final double[] oldTimes = times;
+        final float[] oldValues = values;
+        final float[] oldMin = blockMin;
+        final float[] oldMax = blockMax;
+        final long oldFirst = first();
+        allocate(capacity);
+        if (count == 0) {
+            return;
+        }
+        long from = count > capacity
+                ? (count - capacity + BLOCK_SIZE - 1) & ~(long) (BLOCK_SIZE - 1) : 0;
+        from = Math.max(from, oldFirst);
+        for (long i = from; i < count; i++) {
+            final int oldSlot = (int) (i & (oldTimes.length - 1));
+            final int slot = slot(i);
+            times[slot] = oldTimes[oldSlot];
+            values[slot] = oldValues[oldSlot];
+            if ((i & (BLOCK_SIZE - 1)) == 0) {
+                blockMin[slot >> BLOCK_SHIFT] = oldMin[oldSlot >> BLOCK_SHIFT];
+                blockMax[slot >> BLOCK_SHIFT] = oldMax[oldSlot >> BLOCK_SHIFT];
+            }
+        }
+        modCount++;
+    }
+
+    private void allocate(int capacity) {
+        times = new double[capacity];
+        values = new float[capacity];
+        blockMin = new float[capacity >> BLOCK_SHIFT];
+        blockMax = new float[capacity >> BLOCK_SHIFT];
+    }
+
+    /**
+     * Decimated points ready to be drawn.
+     */
+    static final class Points {
+        private double[] x = new double[0];
+        private double[] y = new double[0];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        double getX(int item) {
+            return x[item];
+        }
+
+        double getY(int item) {
+            return y[item];
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (x.length < capacity) {
+                x = new double[capacity];
+                y = new double[capacity];
+            }
+        }
+
+        private void add(double time, double value) {
+            x[size] = time;
+            y[size++] = value;
+        }
+    }
+}
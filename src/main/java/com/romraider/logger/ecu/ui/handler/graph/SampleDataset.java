@@ -0,0 +1,115 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.graph;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * Shows the samples of a {@link SampleBuffer} decimated to the width of the
+ * chart.  The points are only rebuilt by {@link #update(double, double, int)}
+ * on the event dispatch thread, so the chart always draws a consistent set.
+ */
+final class SampleDataset extends AbstractXYDataset {
+    private static final long serialVersionUID = -1927351846318014272L;
+    private final String key;
+    private final SampleBuffer buffer;
+    private SampleBuffer.Points points = new SampleBuffer.Points();
+    private int shownModCount = -1;
+    private double shownLower = Double.NaN;
+    private double shownUpper = Double.NaN;
+    private int shownWidth;
+
+    SampleDataset(String key, SampleBuffer buffer) {
+        this.key = key;
+        this.buffer = buffer;
+    }
+
+    SampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Rebuild the points if the samples, the span or the width changed.
+     * @param lower - the start of the span shown, or NaN for all samples
+     * @param upper - the end of the span shown, or NaN for all samples
+     * @param width - the width of the chart in pixels
+     * @return true if the points were rebuilt
+     */
+    boolean update(double lower, double upper, int width) {
+        final int modCount = buffer.getModCount();
+        if (modCount == shownModCount && width == shownWidth
+                && same(lower, shownLower) && same(upper, shownUpper)) {
+            return false;
+        }
+        points = buffer.decimate(lower, upper, width, points);
+        shownModCount = modCount;
+        shownLower = lower;
+        shownUpper = upper;
+        shownWidth = width;
+        fireDatasetChanged();
+        return true;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 1;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Comparable getSeriesKey(int series) {
+        return key;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return points.size();
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return points.getX(item);
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return points.getX(item);
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return points.getY(item);
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return points.getY(item);
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.compare(a, b) == 0;
+    }
+}
@@ -20,21 +20,30 @@
 package com.romraider.logger.ecu.ui.handler.injector;
 
 import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.DataSlot;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.tab.injector.InjectorTab;
 import static java.lang.Math.abs;
-import static java.lang.System.currentTimeMillis;
 import org.apache.log4j.Logger;
 import javax.swing.SwingUtilities;
-import java.util.Set;
 
 public final class InjectorUpdateHandler implements DataUpdateHandler {
     private static final Logger LOGGER = Logger.getLogger(InjectorUpdateHandler.class);
-    private static final String PULSE_WIDTH_16 = "E28";
-    private static final String PULSE_WIDTH_32 = "E60";
-    private static final String ENGINE_LOAD_16 = "E2";
-    private static final String ENGINE_LOAD_32 = "E32";
+    private final DataSlot pulseWidth16Slot = new DataSlot("E28");
+    private final DataSlot engineLoad16Slot = new DataSlot("E2");
+    private final DataSlot pulseWidth32Slot = new DataSlot("E60");
+    private final DataSlot engineLoad32Slot = new DataSlot("E32");
+    private final DataSlot clOlSlot = new DataSlot("E3");
+    private final DataSlot clOl32Slot = new DataSlot("E33");
+    private final DataSlot afrSlot = new DataSlot("P58");
+    private final DataSlot rpmSlot = new DataSlot("P8");
+    private final DataSlot mafSlot = new DataSlot("P12");
+    private final DataSlot iatSlot = new DataSlot("P11");
+    private final DataSlot coolantTempSlot = new DataSlot("P2");
+    private final DataSlot mafvSlot = new DataSlot("P18");
+    private final DataSlot tipInSlot = new DataSlot("E23");
+    private final DataSlot tipIn32Slot = new DataSlot("E54");
     private InjectorTab injectorTab;
     private double lastMafv;
     private long lastUpdate;
@@ -46,20 +55,20 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
     @Override
     public synchronized void handleDataUpdate(Response response) {
         if (injectorTab!= null && injectorTab.isRecordData()
-                && (containsData(response, PULSE_WIDTH_16, ENGINE_LOAD_16)
-                || containsData(response, PULSE_WIDTH_32, ENGINE_LOAD_32))) {
+                && (containsData(response, pulseWidth16Slot, engineLoad16Slot)
+                || containsData(response, pulseWidth32Slot, engineLoad32Slot))) {
             boolean valid = true;
 
             // cl/ol check
-            if ((containsData(response, "E3") || containsData(response, "E33"))) {
+            if ((containsData(response, clOlSlot) || containsData(response, clOl32Slot))) {
                 double clOl = -1;
-                if (containsData(response, "E3")) {
-                    clOl = (int) findValue(response, "E3");
+                if (containsData(response, clOlSlot)) {
+                    clOl = (int) findValue(response, clOlSlot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("INJ:[CL/OL:E3]:  " + clOl);
                 }
-                if (containsData(response, "E33")) {
-                    clOl = (int) findValue(response, "E33");
+                if (containsData(response, clOl32Slot)) {
+                    clOl = (int) findValue(response, clOl32Slot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("INJ:[CL/OL:E33]: " + clOl);
                 }
@@ -69,8 +78,8 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // afr check
-            if (valid && containsData(response, "P58")) {
-                double afr = findValue(response, "P58");
+            if (valid && containsData(response, afrSlot)) {
+                double afr = findValue(response, afrSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[AFR:P58]: " + afr);
                 valid = injectorTab.isValidAfr(afr);
@@ -79,8 +88,8 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // rpm check
-            if (valid && containsData(response, "P8")) {
-                double rpm = findValue(response, "P8");
+            if (valid && containsData(response, rpmSlot)) {
+                double rpm = findValue(response, rpmSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[RPM:P8]: " + rpm);
                 valid = injectorTab.isValidRpm(rpm);
@@ -89,8 +98,8 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // maf check
-            if (valid && containsData(response, "P12")) {
-                double maf = findValue(response, "P12");
+            if (valid && containsData(response, mafSlot)) {
+                double maf = findValue(response, mafSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[MAF:P12]: " + maf);
                 valid = injectorTab.isValidMaf(maf);
@@ -99,8 +108,8 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // intake air temp check
-            if (valid && containsData(response, "P11")) {
-                double temp = findValue(response, "P11");
+            if (valid && containsData(response, iatSlot)) {
+                double temp = findValue(response, iatSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[IAT:P11]: " + temp);
                 valid = injectorTab.isValidIntakeAirTemp(temp);
@@ -109,8 +118,8 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // coolant temp check
-            if (valid && containsData(response, "P2")) {
-                double temp = findValue(response, "P2");
+            if (valid && containsData(response, coolantTempSlot)) {
+                double temp = findValue(response, coolantTempSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[CT:P2]: " + temp);
                 valid = injectorTab.isValidCoolantTemp(temp);
@@ -119,9 +128,9 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // dMAFv/dt check
-            if (valid && containsData(response, "P18")) {
-                double mafv = findValue(response, "P18");
-                long now = currentTimeMillis();
+            if (valid && containsData(response, mafvSlot)) {
+                double mafv = findValue(response, mafvSlot);
+                long now = response.getTimestamp();
                 double mafvChange = abs((mafv - lastMafv) / (now - lastUpdate) * 1000);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[dMAFv/dt]: " + mafvChange);
@@ -133,15 +142,15 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             // tip-in throttle check
-            if (valid && (containsData(response, "E23") || containsData(response, "E54"))) {
+            if (valid && (containsData(response, tipInSlot) || containsData(response, tipIn32Slot))) {
                 double tipIn = -1;
-                if (containsData(response, "E23")) {
-                    tipIn = findValue(response, "E23");
+                if (containsData(response, tipInSlot)) {
+                    tipIn = findValue(response, tipInSlot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("INJ:[TIP:E23]: " + tipIn);
                 }
-                if (containsData(response, "E54")) {
-                    tipIn = findValue(response, "E54");
+                if (containsData(response, tipIn32Slot)) {
+                    tipIn = findValue(response, tipIn32Slot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("INJ:[TIP:E54]: " + tipIn);
                 }
@@ -151,8 +160,8 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             }
 
             if (valid) {
-                final double pulseWidth = containsData(response, PULSE_WIDTH_16) ? findValue(response, PULSE_WIDTH_16) : findValue(response, PULSE_WIDTH_32);
-                double load = containsData(response, ENGINE_LOAD_16) ? findValue(response, ENGINE_LOAD_16) : findValue(response, ENGINE_LOAD_32);
+                final double pulseWidth = containsData(response, pulseWidth16Slot) ? findValue(response, pulseWidth16Slot) : findValue(response, pulseWidth32Slot);
+                double load = containsData(response, engineLoad16Slot) ? findValue(response, engineLoad16Slot) : findValue(response, engineLoad32Slot);
                 double stoichAfr = injectorTab.getFuelStoichAfr();
                 double density = injectorTab.getFuelDensity();
                 final double fuelcc = load / 2 / stoichAfr * 1000 / density;
@@ -168,30 +177,19 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
         }
     }
 
-    private boolean containsData(Response response, String... ids) {
-        Set<LoggerData> datas = response.getData();
-        for (String id : ids) {
-            boolean found = false;
-            for (LoggerData data : datas) {
-                if (data.getId().equals(id)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                return false;
-            }
-        }
-        return true;
+    private static boolean containsData(Response response, DataSlot slot) {
+        return slot.isPresent(response);
     }
 
-    private double findValue(Response response, String id) {
-        for (final LoggerData loggerData : response.getData()) {
-            if (id.equals(loggerData.getId())) {
-                return response.getDataValue(loggerData);
-            }
+    private static boolean containsData(Response response, DataSlot slot1, DataSlot slot2) {
+        return slot1.isPresent(response) && slot2.isPresent(response);
+    }
+
+    private static double findValue(Response response, DataSlot slot) {
+        if (!slot.isPresent(response)) {
+            throw new IllegalStateException("Expected data item " + slot.getId() + " not in response.");
         }
-        throw new IllegalStateException("Expected data item " + id + " not in response.");
+        return slot.getValue(response);
     }
 
     @Override
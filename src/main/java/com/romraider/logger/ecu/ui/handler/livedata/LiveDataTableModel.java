@@ -91,12 +91,20 @@ public final class LiveDataTableModel extends AbstractTableModel {
         fireTableDataChanged();
     }
 
-    public synchronized void updateParam(LoggerData loggerData, double value) {
+    /**
+     * Record a value without notifying the table, call
+     * {@link #fireRowsUpdated()} to show the recorded values.
+     */
+    public synchronized void recordParam(LoggerData loggerData, double value) {
         LiveDataRow dataRow = dataRowMap.get(loggerData);
         if (dataRow != null) {
             dataRow.updateValue(value);
-            int index = registeredLoggerData.indexOf(loggerData);
-            fireTableRowsUpdated(index, index);
+        }
+    }
+
+    public synchronized void fireRowsUpdated() {
+        if (!dataRowMap.isEmpty()) {
+            fireTableRowsUpdated(0, dataRowMap.size() - 1);
         }
     }
 
@@ -23,13 +23,18 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
-import javax.swing.SwingUtilities;
+import com.romraider.logger.ecu.ui.handler.RenderScheduler;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public final class LiveDataUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
+public final class LiveDataUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener,
+        RenderScheduler.Renderer {
     private final LiveDataTableModel dataTableModel;
+    private final RenderScheduler scheduler = RenderScheduler.getInstance();
+    private final AtomicBoolean pending = new AtomicBoolean();
 
     public LiveDataUpdateHandler(LiveDataTableModel dataTableModel) {
         this.dataTableModel = dataTableModel;
+        scheduler.addRenderer(this);
     }
 
     public synchronized void registerData(LoggerData loggerData) {
@@ -37,14 +42,23 @@ public final class LiveDataUpdateHandler implements DataUpdateHandler, Convertor
         dataTableModel.addParam(loggerData);
     }
 
-    public synchronized void handleDataUpdate(final Response response) {
-        for (final LoggerData loggerData : response.getData()) {
-            SwingUtilities.invokeLater(new Runnable() {
-                public void run() {
-                    dataTableModel.updateParam(loggerData, response.getDataValue(loggerData));
-                }
-            });
+    public synchronized void handleDataUpdate(Response response) {
+        // min and max are kept for every sample, the table shows the latest
+        for (LoggerData loggerData : response.getData()) {
+            dataTableModel.recordParam(loggerData, response.getDataValue(loggerData));
         }
+        if (pending.getAndSet(true)) {
+            scheduler.addDropped(response.getData().size());
+        }
+        scheduler.requestFrame();
+    }
+
+    public boolean render() {
+        if (pending.getAndSet(false)) {
+            dataTableModel.fireRowsUpdated();
+            return true;
+        }
+        return false;
     }
 
     public synchronized void deregisterData(LoggerData loggerData) {
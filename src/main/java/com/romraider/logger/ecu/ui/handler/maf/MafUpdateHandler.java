@@ -20,21 +20,29 @@
 package com.romraider.logger.ecu.ui.handler.maf;
 
 import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.DataSlot;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.tab.maf.MafTab;
 import static java.lang.Math.abs;
-import static java.lang.System.currentTimeMillis;
 import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 import javax.swing.SwingUtilities;
-import java.util.Set;
 
 public final class MafUpdateHandler implements DataUpdateHandler {
     private static final Logger LOGGER = getLogger(MafUpdateHandler.class);
-    private static final String MAFV = "P18";
-    private static final String AF_LEARNING_1 = "P4";
-    private static final String AF_CORRECTION_1 = "P3";
+    private final DataSlot mafvSlot = new DataSlot("P18");
+    private final DataSlot afLearningSlot = new DataSlot("P4");
+    private final DataSlot afCorrectionSlot = new DataSlot("P3");
+    private final DataSlot clOlSlot = new DataSlot("E3");
+    private final DataSlot clOl32Slot = new DataSlot("E33");
+    private final DataSlot afrSlot = new DataSlot("P58");
+    private final DataSlot rpmSlot = new DataSlot("P8");
+    private final DataSlot mafSlot = new DataSlot("P12");
+    private final DataSlot iatSlot = new DataSlot("P11");
+    private final DataSlot coolantTempSlot = new DataSlot("P2");
+    private final DataSlot tipInSlot = new DataSlot("E23");
+    private final DataSlot tipIn32Slot = new DataSlot("E54");
     private MafTab mafTab;
     private double lastMafv;
     private long lastUpdate;
@@ -45,19 +53,19 @@ public final class MafUpdateHandler implements DataUpdateHandler {
 
     @Override
     public synchronized void handleDataUpdate(Response response) {
-        if (mafTab!= null && mafTab.isRecordData() && containsData(response, MAFV, AF_LEARNING_1, AF_CORRECTION_1)) {
+        if (mafTab!= null && mafTab.isRecordData() && containsData(response, mafvSlot, afLearningSlot, afCorrectionSlot)) {
             boolean valid = true;
 
             // cl/ol check
-            if ((containsData(response, "E3") || containsData(response, "E33"))) {
+            if ((containsData(response, clOlSlot) || containsData(response, clOl32Slot))) {
                 double clOl = -1;
-                if (containsData(response, "E3")) {
-                    clOl = (int) findValue(response, "E3");
+                if (containsData(response, clOlSlot)) {
+                    clOl = (int) findValue(response, clOlSlot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("MAF:[CL/OL:E3]:  " + clOl);
                 }
-                if (containsData(response, "E33")) {
-                    clOl = (int) findValue(response, "E33");
+                if (containsData(response, clOl32Slot)) {
+                    clOl = (int) findValue(response, clOl32Slot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("MAF:[CL/OL:E33]: " + clOl);
                 }
@@ -67,8 +75,8 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // afr check
-            if (valid && containsData(response, "P58")) {
-                double afr = findValue(response, "P58");
+            if (valid && containsData(response, afrSlot)) {
+                double afr = findValue(response, afrSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[AFR:P58]: " + afr);
                 valid = mafTab.isValidAfr(afr);
@@ -77,8 +85,8 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // rpm check
-            if (valid && containsData(response, "P8")) {
-                double rpm = findValue(response, "P8");
+            if (valid && containsData(response, rpmSlot)) {
+                double rpm = findValue(response, rpmSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[RPM:P8]: " + rpm);
                 valid = mafTab.isValidRpm(rpm);
@@ -87,8 +95,8 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // maf check
-            if (valid && containsData(response, "P12")) {
-                double maf = findValue(response, "P12");
+            if (valid && containsData(response, mafSlot)) {
+                double maf = findValue(response, mafSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[MAF:P12]: " + maf);
                 valid = mafTab.isValidMaf(maf);
@@ -97,8 +105,8 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // intake air temp check
-            if (valid && containsData(response, "P11")) {
-                double temp = findValue(response, "P11");
+            if (valid && containsData(response, iatSlot)) {
+                double temp = findValue(response, iatSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[IAT:P11]: " + temp);
                 valid = mafTab.isValidIntakeAirTemp(temp);
@@ -107,8 +115,8 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // coolant temp check
-            if (valid && containsData(response, "P2")) {
-                double temp = findValue(response, "P2");
+            if (valid && containsData(response, coolantTempSlot)) {
+                double temp = findValue(response, coolantTempSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[CT:P2]: " + temp);
                 valid = mafTab.isValidCoolantTemp(temp);
@@ -117,9 +125,9 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // dMAFv/dt check
-            if (valid && containsData(response, "P18")) {
-                double mafv = findValue(response, "P18");
-                long now = currentTimeMillis();
+            if (valid && containsData(response, mafvSlot)) {
+                double mafv = findValue(response, mafvSlot);
+                long now = response.getTimestamp();
                 double mafvChange = abs((mafv - lastMafv) / (now - lastUpdate) * 1000);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[dMAFv/dt]: " + mafvChange);
@@ -131,15 +139,15 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             // tip-in throttle check
-            if (valid && (containsData(response, "E23") || containsData(response, "E54"))) {
+            if (valid && (containsData(response, tipInSlot) || containsData(response, tipIn32Slot))) {
                 double tipIn = -1;
-                if (containsData(response, "E23")) {
-                    tipIn = findValue(response, "E23");
+                if (containsData(response, tipInSlot)) {
+                    tipIn = findValue(response, tipInSlot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("MAF:[TIP:E23]: " + tipIn);
                 }
-                if (containsData(response, "E54")) {
-                    tipIn = findValue(response, "E54");
+                if (containsData(response, tipIn32Slot)) {
+                    tipIn = findValue(response, tipIn32Slot);
                     if (LOGGER.isTraceEnabled())
                         LOGGER.trace("MAF:[TIP:E54]: " + tipIn);
                 }
@@ -149,9 +157,9 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             }
 
             if (valid) {
-                final double mafv = findValue(response, MAFV);
-                final double learning = findValue(response, AF_LEARNING_1);
-                final double correction = findValue(response, AF_CORRECTION_1);
+                final double mafv = findValue(response, mafvSlot);
+                final double learning = findValue(response, afLearningSlot);
+                final double correction = findValue(response, afCorrectionSlot);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF Data: " + mafv + "v, " + correction + "%");
                 SwingUtilities.invokeLater(new Runnable() {
@@ -164,30 +172,19 @@ public final class MafUpdateHandler implements DataUpdateHandler {
         }
     }
 
-    private boolean containsData(Response response, String... ids) {
-        Set<LoggerData> datas = response.getData();
-        for (String id : ids) {
-            boolean found = false;
-            for (LoggerData data : datas) {
-                if (data.getId().equals(id)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                return false;
-            }
-        }
-        return true;
+    private static boolean containsData(Response response, DataSlot slot) {
+        return slot.isPresent(response);
     }
 
-    private double findValue(Response response, String id) {
-        for (LoggerData loggerData : response.getData()) {
-            if (id.equals(loggerData.getId())) {
-                return response.getDataValue(loggerData);
-            }
+    private static boolean containsData(Response response, DataSlot slot1, DataSlot slot2, DataSlot slot3) {
+        return slot1.isPresent(response) && slot2.isPresent(response) && slot3.isPresent(response);
+    }
+
+    private static double findValue(Response response, DataSlot slot) {
+        if (!slot.isPresent(response)) {
+            throw new IllegalStateException("Expected data item " + slot.getId() + " not in response.");
         }
-        throw new IllegalStateException("Expected data item " + id + " not in response.");
+        return slot.getValue(response);
     }
 
     @Override
@@ -55,10 +55,11 @@ public final class TableUpdateHandler implements DataUpdateHandler {
 	        	synchronized(tableMap) {
 		            List<Table> tables = tableMap.get(loggerData.getId());
 		            if (tables != null && !tables.isEmpty()) {
-		                String formattedValue = loggerData.getSelectedConvertor().format(response.getDataValue(loggerData));
+		                double value = response.getDataValue(loggerData);
+		                String formattedValue = loggerData.getSelectedConvertor().format(value);
 		                for(ListIterator<Table> item = tables.listIterator(); item.hasNext();) {
 		                	TableView v = item.next().getTableView();
-		                	if(v!= null) v.highlightLiveData(formattedValue);
+		                	if(v!= null) v.highlightLiveData(formattedValue, value);
 		                }
 		            }
 		        }
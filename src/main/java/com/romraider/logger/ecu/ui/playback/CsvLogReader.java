@@ -0,0 +1,392 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a CSV log written by the logger one row at a time.  The rows are
+ * parsed straight from a byte buffer into a value array, no string is
+ * created for a field, so reading a large log creates next to no garbage.
+ * <p>
+ * The first column is the time, in milliseconds since the start of the log
+ * or as <code>HH:mm:ss.SSS</code>.  The delimiter is the one following the
+ * time header, with a semicolon the decimal separator of the values may be
+ * a comma.  A log can hold more than one header line, the logger writes a
+ * new one whenever the logged parameters change.
+ */
+public final class CsvLogReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+        1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private String[] headers;
+    private double[] values = new double[0];
+    private byte delimiter;
+    private boolean absoluteTime;
+    private int headerCount;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private long time;
+    private long lastTime = -1;
+    private long days;
+    private long line = 1;
+
+    public CsvLogReader(File file) throws IOException {
+        checkNotNull(file, "file");
+        in = new FileInputStream(file);
+        try {
+            readHeader();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return  the headers of the value columns, without the time column
+     */
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+
+    /**
+     * @return  the number of header lines read so far, it changes when
+     *          {@link #next()} passes a new header line
+     */
+    public int getHeaderCount() {
+        return headerCount;
+    }
+
+    /**
+     * @return  true if the time column is the time of day
+     */
+    public boolean isAbsoluteTime() {
+        return absoluteTime;
+    }
+
+    /**
+     * Read the next row.
+     * @return  false at the end of the log
+     * @throws  IOException if the log cannot be read or a row has no time
+     */
+    public boolean next() throws IOException {
+        // skip empty lines and read the header lines
+        int b;
+        while (true) {
+            b = peek();
+            if (b == '\r' || b == '\n') {
+                endOfLine();
+            }
+            else if (b >= 0 && (b < '0' || b > '9') && b != '-') {
+                line++;
+                readHeader();
+            }
+            else {
+                break;
+            }
+        }
+        if (b < 0) {
+            return false;
+        }
+        line++;
+        readTime();
+        Arrays.fill(values, Double.NaN);
+        int column = 0;
+        while ((b = peek()) == delimiter) {
+            position++;
+            final double value = readValue();
+            if (column < values.length) {
+                values[column++] = value;
+            }
+        }
+        skipLine();
+        return true;
+    }
+
+    /**
+     * @return  the value of each column of the last row read, NaN for an
+     *          empty or non-numeric field.  The array is reused for the
+     *          next row.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * @return  the time of the last row read in milliseconds, a time of day
+     *          keeps counting past midnight
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return  the line number of the last row read
+     */
+    public long getLine() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readHeader() throws IOException {
+        final String header = readText();
+        int index = header.indexOf(',');
+        final int semicolon = header.indexOf(';');
+        if (index < 0 || (semicolon >= 0 && semicolon < index)) {
+            index = semicolon;
+        }
+        if (index < 0 || !header.startsWith("Time")) {
+            throw new IOException("Not a logger CSV header at line " + line);
+        }
+        delimiter = (byte) header.charAt(index);
+        absoluteTime = !header.substring(0, index).contains("msec");
+        headers = header.substring(index + 1).split(
+                delimiter == ';' ? ";" : ",", -1);
+        if (values.length != headers.length) {
+            values = new double[headers.length];
+        }
+        headerCount++;
+    }
+
+    private String readText() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        int start = position;
+        while (true) {
+            if (position == limit) {
+                sb.append(new String(buffer, start, position - start));
+                if (!fill()) {
+                    break;
+                }
+                start = position;
+            }
+            final byte b = buffer[position];
+            if (b == '\r' || b == '\n') {
+                sb.append(new String(buffer, start, position - start));
+                break;
+            }
+            position++;
+        }
+        skipLine();
+        if (sb.length() > 0 && sb.charAt(0) == '\uFEFF') {
+            sb.deleteCharAt(0);
+        }
+        return sb.toString();
+    }
+
+    private void readTime() throws IOException {
+        long value;
+        if (absoluteTime) {
+            final long hours = readDigits();
+            expect(':');
+            final long minutes = readDigits();
+            expect(':');
+            final long seconds = readDigits();
+            long millis = 0;
+            if (peek() == '.') {
+                position++;
+                millis = readDigits();
+            }
+            value = ((hours * 60L + minutes) * 60L + seconds) * 1000L + millis;
+            if (lastTime >= 0 && value < lastTime) {
+                days++;
+            }
+            lastTime = value;
+            value += days * DAY;
+        }
+        else {
+            final boolean negative = peek() == '-';
+            if (negative) {
+                position++;
+            }
+            value = readDigits();
+            if (negative) {
+                value = -value;
+            }
+        }
+        time = value;
+    }
+
+    private long readDigits() throws IOException {
+        long value = 0;
+        int digits = 0;
+        int b;
+        while ((b = peek()) >= '0' && b <= '9') {
+            value = value * 10L + (b - '0');
+            position++;
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IOException("Invalid time at line " + line);
+        }
+        return value;
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) {
+            throw new IOException("Invalid time at line " + line);
+        }
+        position++;
+    }
+
+    /**
+     * Parse one field up to the next delimiter or the end of the line.
+     */
+    private double readValue() throws IOException {
+        int b = peek();
+        while (b == ' ' || b == '"') {
+            position++;
+            b = peek();
+        }
+        final boolean negative = b == '-';
+        if (negative || b == '+') {
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        boolean valid = false;
+        boolean overflow = false;
+        while (true) {
+            b = peek();
+            if (b >= '0' && b <= '9') {
+                valid = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10L + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        scale++;
+                    }
+                }
+                else {
+                    overflow = true;
+                    if (!fraction) {
+                        scale--;
+                    }
+                }
+            }
+            else if (!fraction && (b == '.' || (b == ',' && delimiter != ','))) {
+                fraction = true;
+            }
+            else {
+                break;
+            }
+            position++;
+        }
+        int exponent = 0;
+        if (valid && (b == 'E' || b == 'e')) {
+            position++;
+            final boolean negativeExponent = peek() == '-';
+            if (negativeExponent || peek() == '+') {
+                position++;
+            }
+            valid = false;
+            while ((b = peek()) >= '0' && b <= '9') {
+                exponent = exponent * 10 + (b - '0');
+                valid = true;
+                position++;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        while (b == ' ' || b == '"') {
+            position++;
+            b = peek();
+        }
+        if (!(b < 0 || b == delimiter || b == '\r' || b == '\n')) {
+            // text such as a replaced value, skip the rest of the field
+            valid = false;
+            while (!((b = peek()) < 0 || b == delimiter || b == '\r' || b == '\n')) {
+                position++;
+            }
+        }
+        if (!valid) {
+            return Double.NaN;
+        }
+        double value;
+        final int power = exponent - scale;
+        if (!overflow && power <= 0 && -power < POW10.length) {
+            // exact for the values a log format writes
+            value = mantissa / POW10[-power];
+        }
+        else {
+            value = mantissa * Math.pow(10, power);
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipLine() throws IOException {
+        int b;
+        while ((b = peek()) >= 0 && b != '\r' && b != '\n') {
+            position++;
+        }
+        endOfLine();
+    }
+
+    private void endOfLine() throws IOException {
+        if (peek() == '\r') {
+            position++;
+        }
+        if (peek() == '\n') {
+            position++;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        final int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,65 +19,348 @@
 
 package com.romraider.logger.ecu.ui.playback;
 
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.comms.query.ResponseImpl;
-import com.romraider.logger.ecu.definition.LoggerData;
-import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ThreadUtil.sleep;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.comms.query.ColumnarResponse;
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.ResponseSchema;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.exception.FileLoggerException;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 
-//TODO: Finish me.
+/**
+ * Replays a CSV log written by the logger through a set of
+ * {@link DataUpdateHandler}s, as if the logged values had just been read.
+ * A column is matched to the logger data with the same name and selected
+ * units, a value missing from a row keeps the value of the row before.
+ * <p>
+ * The log can be played in real time, a number of times faster, or as fast
+ * as the handlers take it.  The responses are handed over in batches,
+ * every response due in a frame when playing in time and up to a full
+ * batch otherwise, and each handler gets the whole batch in turn.  The
+ * timestamps of the responses keep the spacing of the log whatever the
+ * speed, so handlers measuring rates see the logged rates.  No user
+ * interface is needed, a log can be replayed headless.
+ */
 public final class PlaybackManagerImpl implements PlaybackManager {
+    private static final Logger LOGGER = Logger.getLogger(PlaybackManagerImpl.class);
+    /** Play as fast as the handlers take the responses. */
+    public static final int FASTEST = 0;
+    private static final int BATCH = 256;
+    private static final long FRAME = 20L;
     private final List<? extends LoggerData> loggerDatas;
     private final DataUpdateHandler[] dataUpdateHandlers;
+    private final Response[] batch = new Response[BATCH];
+    private final List<LoggerData> registered = new ArrayList<LoggerData>();
+    private final Map<String, LoggerData> byHeader = new HashMap<String, LoggerData>();
+    private volatile boolean paused;
+    private volatile boolean rewind;
+    private File file;
+    private CsvLogReader reader;
+    private ResponseSchema schema;
+    private int headerCount;
+    private int[] columnSlots;
+    private double[] values;
+    private boolean pending;
+    private long firstTime;
+    private long origin;
+    private long rows;
 
     public PlaybackManagerImpl(List<? extends LoggerData> loggerDatas, DataUpdateHandler... dataUpdateHandlers) {
+        checkNotNull(loggerDatas, "loggerDatas");
+        checkNotNull(dataUpdateHandlers, "dataUpdateHandlers");
         this.loggerDatas = loggerDatas;
         this.dataUpdateHandlers = dataUpdateHandlers;
     }
 
-    public void load(File file) {
-        // TODO: Finish me!
-        for (DataUpdateHandler handler : dataUpdateHandlers) {
-            handler.registerData(loggerDatas.get(10));
-            handler.registerData(loggerDatas.get(20));
-            handler.registerData(loggerDatas.get(30));
+    /**
+     * Open a log and register the logger data of its columns with the
+     * handlers, the data of a log loaded before is deregistered.
+     * @throws  FileLoggerException if the log cannot be read
+     */
+    @Override
+    public synchronized void load(File file) {
+        checkNotNull(file, "file");
+        close();
+        deregister();
+        this.file = file;
+        byHeader.clear();
+        for (LoggerData loggerData : loggerDatas) {
+            final String header = header(loggerData);
+            if (!byHeader.containsKey(header)) {
+                byHeader.put(header, loggerData);
+            }
         }
+        open();
     }
 
+    /**
+     * Play the log in real time until its end or until paused.
+     */
+    @Override
     public void play() {
-        double d = 0.0;
-        while (true) {
-            for (DataUpdateHandler handler : dataUpdateHandlers) {
-                Response response = new ResponseImpl();
-                response.setDataValue(loggerDatas.get(10), d);
-                response.setDataValue(loggerDatas.get(20), d);
-                response.setDataValue(loggerDatas.get(30), d);
-                handler.handleDataUpdate(response);
-                d += 100.0;
-            }
-            sleep(100L);
-        }
+        play(1);
     }
 
-    public void play(int speed) {
-        throw new UnsupportedOperationException();
+    /**
+     * Play the log until its end or until paused.
+     * @param   speed - how many times faster than real time to play,
+     *          {@link #FASTEST} to play as fast as possible
+     */
+    @Override
+    public synchronized void play(int speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed: " + speed);
+        }
+        checkLoaded();
+        paused = false;
+        if (!readAhead()) {
+            return;
+        }
+        final long start = nanoTime();
+        final long startTime = reader.getTime();
+        while (!paused && !rewind) {
+            long until = Long.MAX_VALUE;
+            if (speed != FASTEST) {
+                final long elapsed = NANOSECONDS.toMillis(nanoTime() - start) * speed;
+                final long wait = (reader.getTime() - startTime - elapsed) / speed;
+                if (wait > 0) {
+                    sleep(Math.min(wait, FRAME));
+                    continue;
+                }
+                until = startTime + elapsed;
+            }
+            final int count = read(BATCH, until);
+            dispatch(count);
+            if (!pending) {
+                break;
+            }
+        }
+        log();
     }
 
-    public void step(int increment) {
-        throw new UnsupportedOperationException();
+    /**
+     * Replay the next rows of the log at once.
+     * @param   increment - the number of rows to replay
+     */
+    @Override
+    public synchronized void step(int increment) {
+        checkLoaded();
+        while (increment > 0 && readAhead()) {
+            final int count = read(Math.min(increment, BATCH), Long.MAX_VALUE);
+            dispatch(count);
+            increment -= count;
+        }
     }
 
+    /**
+     * Stop playing, a later play continues with the next row.
+     */
+    @Override
     public void pause() {
-        throw new UnsupportedOperationException();
+        paused = true;
     }
 
+    /**
+     * Stop playing, a later play starts from the first row again.
+     */
+    @Override
     public void stop() {
-        throw new UnsupportedOperationException();
+        paused = true;
+        rewind = true;
     }
 
+    /**
+     * Stop playing, close the log, deregister its logger data and reset the
+     * handlers.
+     */
+    @Override
     public void reset() {
-        throw new UnsupportedOperationException();
+        stop();
+        synchronized (this) {
+            close();
+            deregister();
+            file = null;
+            rewind = false;
+            for (DataUpdateHandler handler : dataUpdateHandlers) {
+                handler.reset();
+            }
+        }
+    }
+
+    /**
+     * @return  the number of rows replayed since the log was loaded or
+     *          played from the start
+     */
+    public synchronized long getRowCount() {
+        return rows;
+    }
+
+    private boolean readAhead() {
+        if (rewind) {
+            rewind = false;
+            close();
+            open();
+        }
+        if (pending) {
+            return true;
+        }
+        try {
+            pending = reader.next();
+            if (pending && reader.getHeaderCount() != headerCount) {
+                mapColumns();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Playback stopped at line " + reader.getLine() + " of " + file, e);
+            pending = false;
+        }
+        if (pending && rows == 0) {
+            firstTime = reader.getTime();
+        }
+        return pending;
+    }
+
+    /**
+     * Build responses from the row read ahead and the rows after it, up to
+     * a number of rows or the first row logged after a time.
+     */
+    private int read(int max, long until) {
+        int count = 0;
+        while (count < max && pending && reader.getTime() <= until) {
+            final double[] row = reader.getValues();
+            for (int i = 0; i < columnSlots.length; i++) {
+                if (columnSlots[i] >= 0 && !Double.isNaN(row[i])) {
+                    values[columnSlots[i]] = row[i];
+                }
+            }
+            final ColumnarResponse response = new ColumnarResponse(
+                    schema, origin + reader.getTime() - firstTime);
+            for (int slot = 0; slot < values.length; slot++) {
+                response.setDataValue(slot, values[slot]);
+            }
+            batch[count++] = response;
+            rows++;
+            pending = false;
+            readAhead();
+        }
+        return count;
+    }
+
+    private void dispatch(int count) {
+        for (DataUpdateHandler handler : dataUpdateHandlers) {
+            for (int i = 0; i < count; i++) {
+                try {
+                    handler.handleDataUpdate(batch[i]);
+                } catch (Exception e) {
+                    LOGGER.error("Playback handler error", e);
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            batch[i] = null;
+        }
+    }
+
+    private void open() {
+        try {
+            reader = new CsvLogReader(file);
+        } catch (IOException e) {
+            throw new FileLoggerException(e);
+        }
+        pending = false;
+        rows = 0;
+        origin = currentTimeMillis();
+        schema = null;
+        mapColumns();
+    }
+
+    /**
+     * Match the columns of the current header to the logger data and
+     * register the data not registered yet.  The values of the data in the
+     * columns before are kept.
+     */
+    private void mapColumns() {
+        final String[] headers = reader.getHeaders();
+        final List<LoggerData> columns = new ArrayList<LoggerData>();
+        columnSlots = new int[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            final LoggerData loggerData = byHeader.get(headers[i].trim());
+            if (loggerData == null || columns.contains(loggerData)) {
+                LOGGER.warn("Log column not replayed: " + headers[i]);
+                columnSlots[i] = -1;
+                continue;
+            }
+            columnSlots[i] = columns.size();
+            columns.add(loggerData);
+        }
+
+        final double[] mapped = new double[columns.size()];
+        for (int slot = 0; slot < mapped.length; slot++) {
+            final LoggerData loggerData = columns.get(slot);
+            final int before = schema == null ? -1 : schema.indexOf(loggerData);
+            mapped[slot] = before < 0 ? 0.0 : values[before];
+            if (!registered.contains(loggerData)) {
+                for (DataUpdateHandler handler : dataUpdateHandlers) {
+                    handler.registerData(loggerData);
+                }
+                registered.add(loggerData);
+            }
+        }
+        schema = new ResponseSchema(columns);
+        values = mapped;
+        headerCount = reader.getHeaderCount();
+        LOGGER.info(String.format("Replaying %d of %d columns from %s",
+                columns.size(), headers.length, file.getName()));
+    }
+
+    private void close() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOGGER.warn("Error closing log " + file, e);
+            }
+            reader = null;
+        }
+        pending = false;
+    }
+
+    private void deregister() {
+        for (LoggerData loggerData : registered) {
+            for (DataUpdateHandler handler : dataUpdateHandlers) {
+                handler.deregisterData(loggerData);
+            }
+        }
+        registered.clear();
+    }
+
+    private void checkLoaded() {
+        if (file == null) {
+            throw new IllegalStateException("No log loaded");
+        }
+    }
+
+    private void log() {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Replayed %d rows of %s", rows, file.getName()));
+        }
+    }
+
+    private static String header(LoggerData loggerData) {
+        return loggerData.getName() + " (" + loggerData.getSelectedConvertor().getUnits() + ")";
     }
 }
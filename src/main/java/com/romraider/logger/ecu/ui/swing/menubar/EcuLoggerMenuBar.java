@@ -33,6 +33,7 @@ import static java.awt.event.KeyEvent.VK_F5;
 import static java.awt.event.KeyEvent.VK_F6;
 import static java.awt.event.KeyEvent.VK_F7;
 import static java.awt.event.KeyEvent.VK_F8;
+import static java.awt.event.KeyEvent.VK_G;
 import static java.awt.event.KeyEvent.VK_H;
 import static java.awt.event.KeyEvent.VK_I;
 import static java.awt.event.KeyEvent.VK_L;
@@ -61,6 +62,7 @@ import com.romraider.Settings;
 import com.romraider.logger.ecu.EcuLogger;
 import com.romraider.logger.ecu.ui.swing.menubar.action.AutoConnectAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.ComPortAutoRefreshAction;
+import com.romraider.logger.ecu.ui.swing.menubar.action.ConvertBinaryLogAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.DisconnectAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.ElmEnabledAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.ExitAction;
@@ -69,6 +71,7 @@ import com.romraider.logger.ecu.ui.swing.menubar.action.GlobalAdjustmentAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LearningTableValuesAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LoadProfileAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileAbsoluteTimestampAction;
+import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileBinaryAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileControllerSwitchAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileLocationAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileNumberFormatAction;
@@ -83,6 +86,7 @@ import com.romraider.logger.ecu.ui.swing.menubar.action.ResetEcuAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.SaveProfileAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.SaveProfileAsAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.SelectProtocolAction;
+import com.romraider.logger.ecu.ui.swing.menubar.action.TransportLatencyAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.UpdateLoggerDefAction;
 import com.romraider.logger.external.core.ExternalDataSource;
 import com.romraider.swing.menubar.Menu;
@@ -107,6 +111,8 @@ public class EcuLoggerMenuBar extends JMenuBar {
         fileMenu.add(new MenuItem(rb.getString("SAVEPROFILE"), new SaveProfileAction(logger), VK_S, getKeyStroke(VK_S, CTRL_MASK)));
         fileMenu.add(new MenuItem(rb.getString("SAVEPROFILEAS"), new SaveProfileAsAction(logger), VK_A, getKeyStroke(VK_S, CTRL_MASK | SHIFT_MASK)));
         fileMenu.add(new JSeparator());
+        fileMenu.add(new MenuItem(rb.getString("CONVERTLOG"), new ConvertBinaryLogAction(logger), VK_V));
+        fileMenu.add(new JSeparator());
         fileMenu.add(new MenuItem(rb.getString("EXIT"), new ExitAction(logger), VK_X));
         add(fileMenu);
 
@@ -148,6 +154,9 @@ public class EcuLoggerMenuBar extends JMenuBar {
         final RadioButtonMenuItem numFormat = new RadioButtonMenuItem(rb.getString("USNUMBERS"), VK_B, getKeyStroke(VK_B, CTRL_MASK), new LogFileNumberFormatAction(logger), logger.getSettings().isUsNumberFormat());
         numFormat.setToolTipText(rb.getString("USNUMBERSTT"));
         settingsMenu.add(numFormat);
+        final RadioButtonMenuItem binaryLog = new RadioButtonMenuItem(rb.getString("BINARYLOG"), VK_G, getKeyStroke(VK_G, CTRL_MASK), new LogFileBinaryAction(logger), logger.getSettings().isFileLoggingBinary());
+        binaryLog.setToolTipText(rb.getString("BINARYLOGTT"));
+        settingsMenu.add(binaryLog);
         add(settingsMenu);
 
         // connection menu items
@@ -167,6 +176,8 @@ public class EcuLoggerMenuBar extends JMenuBar {
         toolsMenu.add(new MenuItem(rb.getString("GLOBALADJ"), new GlobalAdjustmentAction(logger), VK_T, getKeyStroke(VK_F5, 0)));
         toolsMenu.add(new JSeparator());
         toolsMenu.add(new MenuItem(rb.getString("LTV"), new LearningTableValuesAction(logger), VK_V, getKeyStroke(VK_F6, 0)));
+        toolsMenu.add(new JSeparator());
+        toolsMenu.add(new MenuItem(rb.getString("LATENCY"), new TransportLatencyAction(logger), VK_L));
         add(toolsMenu);
 
         // plugins menu items
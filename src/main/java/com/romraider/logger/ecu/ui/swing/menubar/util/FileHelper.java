@@ -25,6 +25,7 @@ import com.romraider.util.ResourceUtil;
 
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
 import static javax.swing.JFileChooser.DIRECTORIES_ONLY;
+import static javax.swing.JFileChooser.FILES_ONLY;
 import javax.swing.JFileChooser;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -67,6 +68,13 @@ public final class FileHelper {
         return profileFilePath;
     }
 
+    public static JFileChooser getBinaryLogFileChooser(File loggerOutputDir) {
+        JFileChooser fc = getLoggerOutputDirFileChooser(loggerOutputDir);
+        fc.setFileSelectionMode(FILES_ONLY);
+        fc.setFileFilter(new GenericFileFilter(rb.getString("LOGBINARY"), "rrlog"));
+        return fc;
+    }
+
     public static JFileChooser getLoggerOutputDirFileChooser(File lastLoggerOutputDir) {
         JFileChooser fc;
         if (lastLoggerOutputDir.exists() && lastLoggerOutputDir.isDirectory()) {
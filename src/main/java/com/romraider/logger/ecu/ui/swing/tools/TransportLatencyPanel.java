@@ -0,0 +1,204 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.swing.tools;
+
+import static javax.swing.JOptionPane.ERROR_MESSAGE;
+import static javax.swing.JOptionPane.INFORMATION_MESSAGE;
+import static javax.swing.JOptionPane.showMessageDialog;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import com.romraider.logger.ecu.EcuLogger;
+import com.romraider.logger.ecu.comms.io.connection.TransportLatency;
+import com.romraider.util.LatencyHistogram;
+import com.romraider.util.ResourceUtil;
+import com.romraider.util.SettingsManager;
+
+/**
+ * Shows the transport latency histograms of each protocol and module, in
+ * microseconds.
+ */
+public final class TransportLatencyPanel extends JPanel {
+    private static final long serialVersionUID = 6097745913502163628L;
+    private static final ResourceBundle rb = new ResourceUtil().getBundle(
+            TransportLatencyPanel.class.getName());
+    private static final String DT_FORMAT = "%1$tY%1$tm%1$td-%1$tH%1$tM%1$tS";
+    private final LatencyTableModel model = new LatencyTableModel();
+
+    private TransportLatencyPanel() {
+        super(new BorderLayout());
+        final JTable table = new JTable(model);
+        table.getTableHeader().setReorderingAllowed(false);
+        final JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(640, 200));
+        add(scrollPane, BorderLayout.CENTER);
+
+        final JPanel controlPanel = new JPanel();
+        final JButton refresh = new JButton(rb.getString("REFRESH"));
+        refresh.setMnemonic(KeyEvent.VK_R);
+        refresh.addActionListener(new ActionListener() {
+            @Override
+            public final void actionPerformed(ActionEvent actionEvent) {
+                model.refresh();
+            }
+        });
+        final JButton reset = new JButton(rb.getString("RESET"));
+        reset.setMnemonic(KeyEvent.VK_E);
+        reset.addActionListener(new ActionListener() {
+            @Override
+            public final void actionPerformed(ActionEvent actionEvent) {
+                TransportLatency.getInstance().reset();
+                model.refresh();
+            }
+        });
+        final JButton toFile = new JButton(rb.getString("SAVETOFILE"));
+        toFile.setToolTipText(rb.getString("SAVETOFILETT"));
+        toFile.setMnemonic(KeyEvent.VK_F);
+        toFile.addActionListener(new ActionListener() {
+            @Override
+            public final void actionPerformed(ActionEvent actionEvent) {
+                saveToFile();
+            }
+        });
+        controlPanel.add(refresh);
+        controlPanel.add(reset);
+        controlPanel.add(toFile);
+        add(controlPanel, BorderLayout.SOUTH);
+        model.refresh();
+    }
+
+    public final static void displayLatencyPane(EcuLogger logger) {
+        final JDialog frame = new JDialog(logger, rb.getString("TITLE"));
+        frame.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        frame.setContentPane(new TransportLatencyPanel());
+        final Point loggerLocation = logger.getLocation();
+        final Point dialogLocation = new Point();
+        dialogLocation.setLocation(
+                loggerLocation.getX() + 30,
+                loggerLocation.getY() + 90);
+        frame.setLocation(dialogLocation);
+        frame.setIconImage(logger.getIconImage());
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    private static final void saveToFile() {
+        final String nowStr = String.format(DT_FORMAT, System.currentTimeMillis());
+        final String fileName = String.format("%s%sromraiderLatency_%s.csv",
+                SettingsManager.getSettings().getLoggerOutputDirPath(),
+                File.separator,
+                nowStr);
+        try {
+            final BufferedWriter bw = new BufferedWriter(
+                    new FileWriter(new File(fileName)));
+            try {
+                TransportLatency.getInstance().writeCsv(bw);
+            }
+            finally {
+                bw.close();
+            }
+            showMessageDialog(
+                    null,
+                    MessageFormat.format(
+                            rb.getString("TABLESAVED"), fileName),
+                    rb.getString("SUCCESS"),
+                    INFORMATION_MESSAGE);
+        }
+        catch (Exception e) {
+            showMessageDialog(
+                    null,
+                    MessageFormat.format(
+                            rb.getString("TABLEFAILED"), fileName),
+                    rb.getString("FAILED"),
+                    ERROR_MESSAGE);
+        }
+    }
+
+    private static final class LatencyTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = -2516011924750356071L;
+        private static final String[] COLUMNS = {
+            "PROTOCOL", "MODULE", "STAGE", "COUNT", "P50", "P95", "P99", "MAX"};
+        private final List<Object[]> rows = new ArrayList<Object[]>();
+
+        // copy the values so the table does not change while it is drawn
+        private void refresh() {
+            rows.clear();
+            for (TransportLatency.Recorder recorder :
+                    TransportLatency.getInstance().getRecorders()) {
+                for (TransportLatency.Stage stage : TransportLatency.Stage.values()) {
+                    final LatencyHistogram histogram = recorder.getHistogram(stage);
+                    rows.add(new Object[] {
+                        recorder.getProtocol(),
+                        recorder.getModule(),
+                        stage,
+                        histogram.getCount(),
+                        micros(histogram.getPercentile(50)),
+                        micros(histogram.getPercentile(95)),
+                        micros(histogram.getPercentile(99)),
+                        micros(histogram.getMax())});
+                }
+            }
+            fireTableDataChanged();
+        }
+
+        private static String micros(long nanos) {
+            return String.format("%.1f", nanos / 1000.0);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return rb.getString(COLUMNS[column]);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row)[column];
+        }
+    }
+}
@@ -22,13 +22,12 @@ package com.romraider.logger.external.aem2.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.DataListener;
-import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
-public final class AemDataItem implements ExternalDataItem, DataListener {
+public final class AemDataItem extends AbstractSampledDataItem implements DataListener {
     private EcuDataConvertor[] convertors;
-    private double data;
 
     public AemDataItem(ExternalSensorConversions... convertorList) {
         super();
@@ -44,14 +43,6 @@ public final class AemDataItem implements ExternalDataItem, DataListener {
         return "AEM UEGO Wideband data";
     }
 
-    public double getData() {
-        return data;
-    }
-
-    public void setData(double data) {
-        this.data = data;
-    }
-
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
@@ -0,0 +1,49 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+/**
+ * Keeps the latest reading of an external data item and publishes each
+ * reading to the item's {@link SampleRing}.
+ */
+public abstract class AbstractSampledDataItem implements SampledDataItem {
+    private final SampleRing samples = new SampleRing();
+    private double data;
+
+    public double getData() {
+        return data;
+    }
+
+    public void setData(double data) {
+        setData(data, System.currentTimeMillis());
+    }
+
+    /**
+     * @param timestamp - the time the value was received
+     */
+    protected final void setData(double data, long timestamp) {
+        this.data = data;
+        samples.publish(timestamp, data);
+    }
+
+    public final SampleRing getSamples() {
+        return samples;
+    }
+}
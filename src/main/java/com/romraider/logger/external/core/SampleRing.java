@@ -0,0 +1,143 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The latest timestamped samples of an external sensor.  One thread, the
+ * sensor's reader, publishes samples without locking, the logger reads
+ * the value at the time of an ECU response between the two samples
+ * around it.  The oldest samples are overwritten when the ring is full.
+ */
+public final class SampleRing {
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final int READ_RETRIES = 4;
+    private final long[] timestamps;
+    private final double[] values;
+    private final int mask;
+    // samples older than this many are not read, so the publisher can not
+    // overwrite a sample while it is being read
+    private final int window;
+    private final AtomicLong published = new AtomicLong();
+
+    public SampleRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity - the number of samples kept, a power of two
+     */
+    public SampleRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be a power of two: " + capacity);
+        }
+        timestamps = new long[capacity];
+        values = new double[capacity];
+        mask = capacity - 1;
+        window = capacity / 2;
+    }
+
+    public void publish(double value) {
+        publish(System.currentTimeMillis(), value);
+    }
+
+    /**
+     * Add a sample, only the sensor's reader thread may publish.
+     * @param timestamp - the {@link System#currentTimeMillis()} the
+     *          sample was taken at
+     */
+    public void publish(long timestamp, double value) {
+        final long sequence = published.get();
+        final int i = (int) sequence & mask;
+        timestamps[i] = timestamp;
+        values[i] = value;
+        published.lazySet(sequence + 1);
+    }
+
+    /**
+     * @return  the number of samples published so far
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * The value at a time, interpolated between the samples before and
+     * after it.  After the newest sample its value is held, before the
+     * oldest sample kept its value is used.
+     * @return  the value, or NaN if no sample was published yet
+     */
+    public double valueAt(long timestamp) {
+        for (int retry = 0; retry < READ_RETRIES; retry++) {
+            final long newest = published.get() - 1;
+            if (newest < 0) {
+                return Double.NaN;
+            }
+            final long oldest = Math.max(0, newest - window + 1);
+            long s = newest;
+            while (s > oldest && timestamps[(int) (s - 1) & mask] > timestamp) {
+                s--;
+            }
+            final int i = (int) s & mask;
+            final long t1 = timestamps[i];
+            final double v1 = values[i];
+            double value = v1;
+            if (s > oldest && t1 > timestamp) {
+                final int j = (int) (s - 1) & mask;
+                final long t0 = timestamps[j];
+                final double v0 = values[j];
+                value = v0 + (v1 - v0) * (timestamp - t0) / (t1 - t0);
+            }
+            if (published.get() - oldest <= timestamps.length) {
+                return value;
+            }
+        }
+        // the publisher is far ahead, take the newest sample
+        return values[(int) (published.get() - 1) & mask];
+    }
+
+    /**
+     * Copy the timestamps of the samples taken after a time and up to
+     * another, oldest first.
+     * @return  the number of timestamps copied from the offset on, at
+     *          most the rest of the array
+     */
+    public int timestamps(long after, long until, long[] buffer, int offset) {
+        final int length = buffer.length - offset;
+        final long newest = published.get() - 1;
+        final long oldest = Math.max(0, newest - window + 1);
+        long s = newest;
+        while (s >= oldest && timestamps[(int) s & mask] > until) {
+            s--;
+        }
+        long first = s + 1;
+        while (first > oldest && first > s - length + 1
+                && timestamps[(int) (first - 1) & mask] > after) {
+            first--;
+        }
+        int count = 0;
+        for (long i = first; i <= s; i++) {
+            buffer[offset + count++] = timestamps[(int) i & mask];
+        }
+        return count;
+    }
+}
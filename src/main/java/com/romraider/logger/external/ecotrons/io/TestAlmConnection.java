@@ -70,6 +70,10 @@ public final class TestAlmConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
     public void readStaleData() {
         throw new UnsupportedOperationException();
     }
@@ -22,14 +22,13 @@ package com.romraider.logger.external.ecotrons.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.DataListener;
-import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
-public final class AlmDataItem implements ExternalDataItem, DataListener {
+public final class AlmDataItem extends AbstractSampledDataItem implements DataListener {
     private EcuDataConvertor[] convertors;
     private final String name;
-    private double data;
 
     public AlmDataItem(String name, ExternalSensorConversions... convertorList) {
         super();
@@ -46,14 +45,6 @@ public final class AlmDataItem implements ExternalDataItem, DataListener {
         return "ECOTRONS ALM " + name + " data";
     }
 
-    public double getData() {
-        return data;
-    }
-
-    public void setData(double data) {
-        this.data = data;
-    }
-
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
@@ -52,6 +52,10 @@ public final class TestInnovateConnection implements SerialConnection {
         return result;
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
     public void readStaleData() {
         throw new UnsupportedOperationException();
     }
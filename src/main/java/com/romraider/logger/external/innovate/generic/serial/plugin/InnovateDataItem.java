@@ -22,13 +22,12 @@ package com.romraider.logger.external.innovate.generic.serial.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.DataListener;
-import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
-public final class InnovateDataItem implements ExternalDataItem, DataListener {
+public final class InnovateDataItem extends AbstractSampledDataItem implements DataListener {
     private EcuDataConvertor[] convertors;
-    private double data;
 
     public InnovateDataItem(ExternalSensorConversions... convertorList) {
         super();
@@ -44,14 +43,6 @@ public final class InnovateDataItem implements ExternalDataItem, DataListener {
         return "Innovate Wideband AFR data";
     }
 
-    public double getData() {
-        return data;
-    }
-
-    public void setData(double data) {
-        this.data = data;
-    }
-
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
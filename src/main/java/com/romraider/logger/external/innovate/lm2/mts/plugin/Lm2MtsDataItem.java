@@ -22,14 +22,13 @@ package com.romraider.logger.external.innovate.lm2.mts.plugin;
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.ecu.definition.ExternalDataConvertorImpl;
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.DataListener;
-import com.romraider.logger.external.core.ExternalDataItem;
 
-public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
+public final class Lm2MtsDataItem extends AbstractSampledDataItem implements DataListener {
     private final String name;
     private final GaugeMinMax gaugeMinMax;
     private int channel;
-    private double data;
     private String units;
     private float minValue;
     private float maxValue;
@@ -65,10 +64,6 @@ public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
         return channel;
     }
     
-    public double getData() {
-        return data;
-    }
-
     public String getUnits() {
         return units;
     }
@@ -85,10 +80,6 @@ public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
         return multiplier;
     }
 
-    public void setData(double data) {
-        this.data = data;
-    }
-
     public EcuDataConvertor[] getConvertors() {
         EcuDataConvertor[] convertors = {
                 new ExternalDataConvertorImpl(
@@ -22,14 +22,13 @@ package com.romraider.logger.external.mrf.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.DataListener;
-import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
-public final class MrfDataItem implements ExternalDataItem, DataListener {
+public final class MrfDataItem extends AbstractSampledDataItem implements DataListener {
     private EcuDataConvertor[] convertors;
     private final String name;
-    private double data;
 
     public MrfDataItem(String name, ExternalSensorConversions... convertorList) {
         this.name = name;
@@ -45,14 +44,6 @@ public final class MrfDataItem implements ExternalDataItem, DataListener {
         return "MRF Stealth Gauge " + name + " data";
     }
 
-    public double getData() {
-        return data;
-    }
-
-    public void setData(double data) {
-        this.data = data;
-    }
-
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
@@ -22,5 +22,11 @@ package com.romraider.logger.external.plx.io;
 public interface PlxConnection {
     byte readByte();
 
+    /**
+     * Wait a short time for data and read all bytes received.
+     * @return  the bytes, empty if none arrived in time
+     */
+    byte[] readAvailable();
+
     void close();
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import com.romraider.io.serial.connection.SerialConnectionImpl;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 
 public final class PlxConnectionImpl implements PlxConnection {
+    private static final long READ_WAIT = 100L;
     private final SerialConnection connection;
 
     public PlxConnectionImpl(String port) {
@@ -37,6 +38,11 @@ public final class PlxConnectionImpl implements PlxConnection {
         return (byte) connection.read();
     }
 
+    public byte[] readAvailable() {
+        connection.waitForBytes(1, READ_WAIT);
+        return connection.readAvailable();
+    }
+
     public void close() {
         connection.close();
     }
@@ -28,10 +28,14 @@ import com.romraider.logger.external.plx.plugin.PlxSensorType;
 
 import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
+import static java.lang.System.currentTimeMillis;
 import java.util.Map;
 
 public final class PlxRunner implements Stoppable {
     private static final Logger LOGGER = getLogger(PlxRunner.class);
+    // the time to receive a byte with a start and stop bit, in msec
+    private static final double BYTE_TIME =
+            10000.0 / new PlxConnectionProperties().getBaudRate();
     private final Map<PlxSensorType, PlxDataItem> dataItems;
     private final PlxConnection connection;
     private boolean stop;
@@ -45,12 +49,18 @@ public final class PlxRunner implements Stoppable {
         try {
             PlxParser parser = new PlxParserImpl();
             while (!stop) {
-                byte b = connection.readByte();
-                PlxResponse response = parser.pushByte(b);
-                if (!isValid(response)) continue;
-                PlxDataItem item = dataItems.get(response.sensor);
-                if (item != null && (response.instance == item.getInstance())) {
-                    item.setRaw(response.value);
+                final byte[] bytes = connection.readAvailable();
+                final long received = currentTimeMillis();
+                for (int i = 0; i < bytes.length; i++) {
+                    PlxResponse response = parser.pushByte(bytes[i]);
+                    if (!isValid(response)) continue;
+                    PlxDataItem item = dataItems.get(response.sensor);
+                    if (item != null && (response.instance == item.getInstance())) {
+                        // the bytes after this one arrived later
+                        final long timestamp = received
+                                - Math.round((bytes.length - 1 - i) * BYTE_TIME);
+                        item.setRaw(response.value, timestamp);
+                    }
                 }
             }
             connection.close();
@@ -65,7 +65,12 @@ public final class TestPlxConnection implements SerialConnection {
     }
 
     public byte[] readAvailable() {
-        throw new UnsupportedOperationException();
+        read(result);
+        return result.clone();
+    }
+
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return true;
     }
 
     public void readStaleData() {
@@ -19,11 +19,16 @@
 
 package com.romraider.logger.external.plx.plugin;
 
-import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.logger.external.core.SampledDataItem;
 
-public interface PlxDataItem extends ExternalDataItem {
+public interface PlxDataItem extends SampledDataItem {
 
     void setRaw(int raw);
 
+    /**
+     * @param timestamp - the time the value was received
+     */
+    void setRaw(int raw, long timestamp);
+
     int getInstance();
 }
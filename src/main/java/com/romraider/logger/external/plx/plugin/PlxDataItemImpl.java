@@ -22,13 +22,13 @@ package com.romraider.logger.external.plx.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
-public final class PlxDataItemImpl implements PlxDataItem {
+public final class PlxDataItemImpl extends AbstractSampledDataItem implements PlxDataItem {
     private EcuDataConvertor[] convertors;
     private final String name;
     private int instance;
-    private int raw;
 
     public PlxDataItemImpl(String name, int instance, ExternalSensorConversions... convertorList) {
         super();
@@ -50,12 +50,12 @@ public final class PlxDataItemImpl implements PlxDataItem {
         return instance;
     }
     
-    public double getData() {
-        return raw;
+    public void setRaw(int raw) {
+        setData(raw);
     }
 
-    public void setRaw(int raw) {
-        this.raw = raw;
+    public void setRaw(int raw, long timestamp) {
+        setData(raw, timestamp);
     }
 
     public EcuDataConvertor[] getConvertors() {
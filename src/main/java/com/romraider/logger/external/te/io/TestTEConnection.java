@@ -381,6 +381,10 @@ public final class TestTEConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
     public void readStaleData() {
         throw new UnsupportedOperationException();
     }
@@ -22,15 +22,14 @@ package com.romraider.logger.external.txs.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.AbstractSampledDataItem;
 import com.romraider.logger.external.core.DataListener;
-import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
-public final class TxsDataItem implements ExternalDataItem, DataListener {
+public final class TxsDataItem extends AbstractSampledDataItem implements DataListener {
     private EcuDataConvertor[] convertors;
     private final String name;
     private final int itemIndex;
-    private double data;
 
     public TxsDataItem(String name, int itemIndex, ExternalSensorConversions... convertorList) {
         super();
@@ -52,14 +51,6 @@ public final class TxsDataItem implements ExternalDataItem, DataListener {
         return name + " data";
     }
 
-    public double getData() {
-        return data;
-    }
-
-    public void setData(double data) {
-        this.data = data;
-    }
-
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
@@ -62,6 +62,10 @@ public final class TestZt2Connection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        throw new UnsupportedOperationException();
+    }
+
     public void readStaleData() {
         throw new UnsupportedOperationException();
     }
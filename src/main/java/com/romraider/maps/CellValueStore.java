@@ -0,0 +1,128 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.romraider.Settings;
+
+/**
+ * Holds the values of all cells of a table in primitive arrays.  A
+ * {@link DataCell} only keeps its slot in the store, so a table costs a few
+ * arrays instead of a set of boxed values per cell.  Live values are only
+ * allocated once a live trace is set on one of the cells.
+ */
+final class CellValueStore implements Serializable {
+    private static final long serialVersionUID = -3411815326530512087L;
+    private double[] binValues;
+    private double[] originalValues;
+    private double[] compareValues;
+    private final BitSet selected = new BitSet();
+    private String[] liveValues;
+    private int size;
+    private volatile int modCount;
+
+    CellValueStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        binValues = new double[capacity];
+        originalValues = new double[capacity];
+        compareValues = new double[capacity];
+    }
+
+    /**
+     * Reserve the values of a new cell.
+     * @return  the slot of the cell
+     */
+    synchronized int allocate() {
+        if (size == binValues.length) {
+            final int capacity = size + (size >> 1) + 1;
+            binValues = Arrays.copyOf(binValues, capacity);
+            originalValues = Arrays.copyOf(originalValues, capacity);
+            compareValues = Arrays.copyOf(compareValues, capacity);
+            if (liveValues != null) {
+                liveValues = Arrays.copyOf(liveValues, capacity);
+            }
+        }
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double getBinValue(int slot) {
+        return binValues[slot];
+    }
+
+    void setBinValue(int slot, double value) {
+        binValues[slot] = value;
+        modCount++;
+    }
+
+    /**
+     * @return  a count that changes whenever a bin value is set
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    double getOriginalValue(int slot) {
+        return originalValues[slot];
+    }
+
+    void setOriginalValue(int slot, double value) {
+        originalValues[slot] = value;
+    }
+
+    double getCompareValue(int slot) {
+        return compareValues[slot];
+    }
+
+    void setCompareValue(int slot, double value) {
+        compareValues[slot] = value;
+    }
+
+    boolean isSelected(int slot) {
+        return selected.get(slot);
+    }
+
+    void setSelected(int slot, boolean value) {
+        selected.set(slot, value);
+    }
+
+    String getLiveValue(int slot) {
+        if (liveValues == null || liveValues[slot] == null) {
+            return Settings.BLANK;
+        }
+        return liveValues[slot];
+    }
+
+    void setLiveValue(int slot, String value) {
+        if (liveValues == null) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            liveValues = new String[binValues.length];
+        }
+        liveValues[slot] = value;
+    }
+}
@@ -21,7 +21,7 @@ package com.romraider.maps;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.util.LinkedList;
+import java.util.Collection;
 import java.util.StringTokenizer;
 
 import org.apache.log4j.Logger;
@@ -30,7 +30,6 @@ import com.romraider.Settings;
 import com.romraider.Settings.Endian;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.util.ByteUtil;
-import com.romraider.util.JEPUtil;
 import com.romraider.util.NumberUtil;
 import com.romraider.util.SettingsManager;
 import com.romraider.xml.RomAttributeParser;
@@ -43,43 +42,35 @@ public class DataCell implements Serializable  {
     private DataCellView view = null;
     private Table table;
 
-    //This sounds like a View property, but the manipulation
-    //functions depend on this, so its better to put it here
-    private boolean isSelected = false;
+    //Values and selection are kept by the table, see CellValueStore
+    private final int slot;
 
     private int bitMask = 0;
-    private double minAllowedBin = 0.0;
-    private double maxAllowedBin = 0.0;
-    private double binValue = 0.0;
-    private double originalValue = 0.0;
-    private double compareToValue = 0.0;
-    private String liveValue = Settings.BLANK;
     private String staticText = null;
-    private Rom rom;
 
     //Index within table
     private int index;
 
-    public DataCell(Table table, Rom rom) {
+    public DataCell(Table table) {
         this.table = table;
-        this.rom = rom;
+        this.slot = table.getCellValues().allocate();
         setBitMask(table.getBitMask()); //Take the global bitmask first
     }
 
-    public DataCell(Table table, String staticText, Rom rom) {
-        this(table, rom);
+    public DataCell(Table table, String staticText) {
+        this(table);
         final StringTokenizer st = new StringTokenizer(staticText, DataCellView.ST_DELIMITER);
         if (st.hasMoreTokens()) {
             this.staticText = st.nextToken();
         }
     }
 
-    public DataCell(Table table, int index, Rom rom) {
-        this(table, rom);
+    public DataCell(Table table, int index) {
+        this(table);
         this.index = index;
 
         updateBinValueFromMemory();
-        this.originalValue = this.binValue;
+        setOriginalValue(getBinValue());
         registerDataCell(this);
     }
 
@@ -87,12 +78,12 @@ public class DataCell implements Serializable  {
         this.table = t;
     }
 
-    public void setRom(Rom rom) {
-        this.rom = rom;
+    public byte[] getBinary() {
+        return table.getRom().getBinary();
     }
 
-    public byte[] getBinary() {
-        return rom.getBinary();
+    private CellValueStore values() {
+        return table.getCellValues();
     }
 
     public void setBitMask(int mask) {
@@ -102,50 +93,50 @@ public class DataCell implements Serializable  {
         bitMask = (int) Math.min(mask, Math.pow(2,table.getStorageType()*8)-1);
     }
 
-    protected void calcValueRange() {
-        if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT) {
-            if (table.isSignedData()) {
-                switch (table.getStorageType()) {
-                case 1:
-                    minAllowedBin = Byte.MIN_VALUE;
-                    maxAllowedBin = Byte.MAX_VALUE;
-                    break;
-                case 2:
-                    minAllowedBin = Short.MIN_VALUE;
-                    maxAllowedBin = Short.MAX_VALUE;
-                    break;
-                case 4:
-                    minAllowedBin = Integer.MIN_VALUE;
-                    maxAllowedBin = Integer.MAX_VALUE;
-                    break;
-                case Settings.STORAGE_TYPE_MOVI20:
-                    minAllowedBin = Settings.MOVI20_MIN_VALUE;
-                    maxAllowedBin = Settings.MOVI20_MAX_VALUE;
-                    break;
-                case Settings.STORAGE_TYPE_MOVI20S:
-                    minAllowedBin = Settings.MOVI20S_MIN_VALUE;
-                    maxAllowedBin = Settings.MOVI20S_MAX_VALUE;
-                    break;
-                }
-            }
-            else {
-                if (bitMask == 0) {
-                    maxAllowedBin = (Math.pow(256, table.getStorageType()) - 1);
-                }
-                else {
-                    maxAllowedBin =(int)(Math.pow(2,ByteUtil.lengthOfMask(bitMask)) - 1);
-                }
-                minAllowedBin = 0.0;
+    public double getMinAllowedBin() {
+        if (table.getStorageType() == Settings.STORAGE_TYPE_FLOAT) {
+            return table.isSignedData() ? 0.0 : -Float.MAX_VALUE;
+        }
+        if (table.isSignedData()) {
+            switch (table.getStorageType()) {
+            case 1:
+                return Byte.MIN_VALUE;
+            case 2:
+                return Short.MIN_VALUE;
+            case 4:
+                return Integer.MIN_VALUE;
+            case Settings.STORAGE_TYPE_MOVI20:
+                return Settings.MOVI20_MIN_VALUE;
+            case Settings.STORAGE_TYPE_MOVI20S:
+                return Settings.MOVI20S_MIN_VALUE;
             }
-        } else {
-            maxAllowedBin = Float.MAX_VALUE;
+        }
+        return 0.0;
+    }
 
-            if (table.isSignedData()) {
-                minAllowedBin = 0.0;
-            } else {
-                minAllowedBin = -Float.MAX_VALUE;
+    public double getMaxAllowedBin() {
+        if (table.getStorageType() == Settings.STORAGE_TYPE_FLOAT) {
+            return Float.MAX_VALUE;
+        }
+        if (table.isSignedData()) {
+            switch (table.getStorageType()) {
+            case 1:
+                return Byte.MAX_VALUE;
+            case 2:
+                return Short.MAX_VALUE;
+            case 4:
+                return Integer.MAX_VALUE;
+            case Settings.STORAGE_TYPE_MOVI20:
+                return Settings.MOVI20_MAX_VALUE;
+            case Settings.STORAGE_TYPE_MOVI20S:
+                return Settings.MOVI20S_MAX_VALUE;
             }
+            return 0.0;
         }
+        if (bitMask == 0) {
+            return Math.pow(256, table.getStorageType()) - 1;
+        }
+        return (int) (Math.pow(2, ByteUtil.lengthOfMask(bitMask)) - 1);
     }
 
     private double getValueFromMemory(int index) {
@@ -208,7 +199,21 @@ public class DataCell implements Serializable  {
     }
 
     public void saveBinValueInFile() {
-        if (table.getName().contains("Checksum Fix")) return;
+        if (!writeBinValue()) return;
+
+        //On the Bosch substract model, we need to update all previous cells, because they depend on our value
+        if (table.getDataLayout() == Table.DataLayout.BOSCH_SUBTRACT && index > 0) table.data[index-1].saveBinValueInFile();
+
+        checkForDataUpdates();
+    }
+
+    /**
+     * Write the bin value to the image without updating the cells stored at
+     * the same address, or the previous cells of a Bosch subtract table.
+     * @return  false if the table is never written to the image
+     */
+    boolean writeBinValue() {
+        if (table.getName().contains("Checksum Fix")) return false;
 
         byte[] binData = getBinary();
         int userLevel = table.getUserLevel();
@@ -250,13 +255,13 @@ public class DataCell implements Serializable  {
                         } catch (NumberFormatException ex) {
                             LOGGER.error("Error parsing static data table value: " + getStaticText(), ex);
                             LOGGER.error("Validate the table definition storageType and data value.");
-                            return;
+                            return false;
                         }
                     } else if (table.isStaticDataTable() && storageType < 1) {
                         // Do not save the value.
                         //if (LOGGER.isDebugEnabled())
                         //    LOGGER.debug("The static data table value will not be saved.");
-                        return;
+                        return false;
                     }  else {
                         finalValue = (int) (isBoschSubtract ? crossedValue : getBinValue());
                     }
@@ -307,39 +312,74 @@ public class DataCell implements Serializable  {
                         binData[index * 4 + z + storageAddress - ramOffset] = output[z];
                     }
                 }
-        }
-
-        //On the Bosch substract model, we need to update all previous cells, because they depend on our value
-        if (isBoschSubtract && index > 0) table.data[index-1].saveBinValueInFile();
 
-        checkForDataUpdates();
+                final int address = getByteAddress();
+                table.getRom().markDirty(address, address + getByteLength());
+        }
+        return true;
     }
 
     public void registerDataCell(DataCell cell) {
 
         int memoryIndex = getMemoryStartAddress(cell);
+        table.getRom().registerDataCell(memoryIndex, cell);
+    }
+
+    public void checkForDataUpdates() {
+        int memoryIndex = getMemoryStartAddress(this);
+        Collection<DataCell> cells = table.getRom().getDataCells(memoryIndex);
 
-        if (rom.byteCellMapping.containsKey(memoryIndex))
-            {
-            rom.byteCellMapping.get(memoryIndex).add(cell);
+        if (cells != null){
+            for(DataCell c : cells) {
+                c.updateBinValueFromMemory();
             }
-        else {
-            LinkedList<DataCell> l = new LinkedList<DataCell>();
-            l.add(cell);
-            rom.byteCellMapping.put(memoryIndex, l);
         }
     }
 
-    public void checkForDataUpdates() {
-        int memoryIndex = getMemoryStartAddress(this);
+    /**
+     * Read the value of this cell from the image again, the cells of other
+     * tables stored at the same address are drawn, the ones of this table
+     * are left to be drawn by the caller.
+     */
+    void refreshFromMemory() {
+        Collection<DataCell> cells = table.getRom().getDataCells(getMemoryStartAddress(this));
 
-        if (rom.byteCellMapping.containsKey(memoryIndex)){
-            for(DataCell c : rom.byteCellMapping.get(memoryIndex)) {
+        if (cells == null) {
+            readBinValueFromMemory();
+            return;
+        }
+        for (DataCell c : cells) {
+            if (c.table == table) {
+                c.readBinValueFromMemory();
+            }
+            else {
                 c.updateBinValueFromMemory();
             }
         }
     }
 
+    /**
+     * @return  the image address of the bytes written for this cell
+     */
+    int getByteAddress() {
+        return table.getStorageAddress() + index * getByteLength() - table.getRamOffset();
+    }
+
+    /**
+     * @return  the number of bytes written for this cell
+     */
+    int getByteLength() {
+        int storageType = table.getStorageType();
+        if (storageType == Settings.STORAGE_TYPE_FLOAT) {
+            return 4;
+        }
+        if (storageType == Settings.STORAGE_TYPE_MOVI20 ||
+                storageType == Settings.STORAGE_TYPE_MOVI20S) {
+            return 3;
+        }
+        return Math.max(storageType, 0);
+    }
+
     public static int getMemoryStartAddress(DataCell cell) {
         Table t = cell.getTable();
         return t.getStorageAddress() + cell.getIndexInTable() * t.getStorageType() - t.getRamOffset();
@@ -351,8 +391,8 @@ public class DataCell implements Serializable  {
     }
 
     public void setSelected(boolean selected) {
-        if (!table.isStaticDataTable() && this.isSelected != selected) {
-            this.isSelected = selected;
+        if (!table.isStaticDataTable() && isSelected() != selected) {
+            values().setSelected(slot, selected);
 
             if (view!=null) {
                 ECUEditorManager.getECUEditor().getTableToolBar().updateTableToolBar(table);
@@ -362,18 +402,18 @@ public class DataCell implements Serializable  {
     }
 
     public boolean isSelected() {
-        return isSelected;
+        return values().isSelected(slot);
     }
 
     public void updateBinValueFromMemory() {
-        //We do this here because once we start populating all settings should be set
-        if (minAllowedBin == 0 && maxAllowedBin == 0)
-            calcValueRange();
-
-        this.binValue = getValueFromMemory();
+        readBinValueFromMemory();
         updateView();
     }
 
+    void readBinValueFromMemory() {
+        values().setBinValue(slot, getValueFromMemory());
+    }
+
     public void setDataView(DataCellView v) {
         view = v;
     }
@@ -382,7 +422,7 @@ public class DataCell implements Serializable  {
         return index;
     }
 
-    private void updateView() {
+    void updateView() {
         if (view != null) {
             view.drawCell();
         }
@@ -397,77 +437,89 @@ public class DataCell implements Serializable  {
     }
 
     public String getLiveValue() {
-        return this.liveValue;
+        return values().getLiveValue(slot);
     }
 
     public void setLiveDataTraceValue(String liveValue) {
-        if (this.liveValue != liveValue) {
-            this.liveValue = liveValue;
+        if (getLiveValue() != liveValue) {
+            values().setLiveValue(slot, liveValue);
             updateView();
         }
     }
 
     public double getBinValue() {
-        return binValue;
+        return values().getBinValue(slot);
     }
 
     public double getOriginalValue() {
-        return originalValue;
+        return values().getOriginalValue(slot);
     }
 
     public double getCompareToValue() {
-        return compareToValue;
+        return values().getCompareValue(slot);
     }
 
     public double getRealValue() {
-        if (table.getCurrentScale() == null) return binValue;
+        if (table.getCurrentScale() == null) return getBinValue();
 
-        return JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue);
+        return table.getCurrentScale().toReal(getBinValue());
     }
 
     public void setRealValue(String input) throws UserLevelException {
+        double result = parseRealValue(input);
+        if (!Double.isNaN(result) && getBinValue() != result) {
+            this.setBinValue(result);
+        }
+    }
+
+    /**
+     * Convert a real value entered by the user to a bin value.
+     * @return  the bin value, or NaN if the input is x or not a number
+     */
+    double parseRealValue(String input) {
         // create parser
         input = input.replaceAll(DataCellView.REPLACE_TEXT, Settings.BLANK);
+        if ("x".equalsIgnoreCase(input)) {
+            return Double.NaN;
+        }
         try {
-            double result = 0.0;
-            if (!"x".equalsIgnoreCase(input)) {
-            	
-            	// Optimization: If it has no scaling use the value directly
-            	if(table.getCurrentScale().getExpression().trim().equalsIgnoreCase("x"))
-				{
-					result = NumberUtil.doubleValue(input);
-				}       	
-            	else if (table.getCurrentScale().getByteExpression() == null) {
-                    result = table.getCurrentScale().approximateToByteFunction(NumberUtil.doubleValue(input), table.getStorageType(), table.isSignedData());
-                }
-                else {
-                    result = JEPUtil.evaluate(table.getCurrentScale().getByteExpression(), NumberUtil.doubleValue(input));
-                }
+            return toBinValue(NumberUtil.doubleValue(input));
+        } catch (ParseException e) {
+            // input is null or not a valid number.
+            return Double.NaN;
+        }
+    }
 
-                if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT) {
-                    result = (int) Math.round(result);
-                }
+    double toBinValue(double realValue) {
+        double result;
+        // Optimization: If it has no scaling use the value directly
+        if (table.getCurrentScale().isIdentity()) {
+            result = realValue;
+        }
+        else if (table.getCurrentScale().getByteExpression() == null) {
+            result = table.getCurrentScale().approximateToByteFunction(realValue, table.getStorageType(), table.isSignedData());
+        }
+        else {
+            result = table.getCurrentScale().toByte(realValue);
+        }
 
-                if (binValue != result) {
-                    this.setBinValue(result);
-                }
-            }
-        } catch (ParseException e) {
-            // Do nothing.  input is null or not a valid number.
+        if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT) {
+            result = (int) Math.round(result);
         }
+        return result;
     }
 
     public double getCompareValue() {
-        return binValue - compareToValue;
+        return getBinValue() - getCompareToValue();
     }
 
     public double getRealCompareValue() {
-        return JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue) - JEPUtil.evaluate(table.getCurrentScale().getExpression(), compareToValue);
+        return table.getCurrentScale().toReal(getBinValue()) - table.getCurrentScale().toReal(getCompareToValue());
     }
 
     public double getRealCompareChangeValue() {
-        double realBinValue = JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue);
-        double realCompareValue = JEPUtil.evaluate(table.getCurrentScale().getExpression(), compareToValue);
+        double realBinValue = table.getCurrentScale().toReal(getBinValue());
+        double realCompareValue = table.getCurrentScale().toReal(getCompareToValue());
 
         if (realCompareValue != 0.0) {
             // Compare change formula ((V2 - V1) / |V1|).
@@ -479,6 +531,7 @@ public class DataCell implements Serializable  {
     }
 
     public void setBinValue(double newBinValue) throws UserLevelException {
+        double binValue = getBinValue();
         if (binValue == newBinValue || table.locked || table.getName().contains("Checksum Fix")) {
             return;
         }
@@ -486,27 +539,44 @@ public class DataCell implements Serializable  {
         if (table.userLevel > getSettings().getUserLevel())
             throw new UserLevelException(table.userLevel);
 
-        double checkedValue = newBinValue;
-
-        // make sure it's in range
-        if (checkedValue < minAllowedBin) {
-            checkedValue = minAllowedBin;
-        }
-
-        if (checkedValue > maxAllowedBin) {
-            checkedValue = maxAllowedBin;
-        }
+        double checkedValue = clampBinValue(newBinValue);
 
         if (binValue == checkedValue) {
             return;
         }
 
         // set bin.
-        binValue = checkedValue;
+        values().setBinValue(slot, checkedValue);
         saveBinValueInFile();
         updateView();
     }
 
+    // make sure it's in range
+    double clampBinValue(double binValue) {
+        double minAllowedBin = getMinAllowedBin();
+        if (binValue < minAllowedBin) {
+            return minAllowedBin;
+        }
+
+        double maxAllowedBin = getMaxAllowedBin();
+        if (binValue > maxAllowedBin) {
+            return maxAllowedBin;
+        }
+        return binValue;
+    }
+
+    /**
+     * Set the bin value without writing it to the image.
+     * @return  true if the value changed
+     */
+    boolean storeBinValue(double binValue) {
+        if (getBinValue() == binValue) {
+            return false;
+        }
+        values().setBinValue(slot, binValue);
+        return true;
+    }
+
     public void increment(double increment) throws UserLevelException {
         double oldValue = getRealValue();
 
@@ -519,16 +589,16 @@ public class DataCell implements Serializable  {
             incResult = table.getCurrentScale().approximateToByteFunction(oldValue + increment, table.getStorageType(), table.isSignedData());
         }
         else {
-            incResult = JEPUtil.evaluate(table.getCurrentScale().getByteExpression(), (oldValue + increment));
+            incResult = table.getCurrentScale().toByte(oldValue + increment);
         }
 
         if (table.getStorageType() == Settings.STORAGE_TYPE_FLOAT) {
-            if (binValue != incResult) {
+            if (getBinValue() != incResult) {
                 this.setBinValue(incResult);
             }
         } else {
             int roundResult = (int) Math.round(incResult);
-            if (binValue != roundResult) {
+            if (getBinValue() != roundResult) {
                 this.setBinValue(roundResult);
             }
         }
@@ -537,24 +607,24 @@ public class DataCell implements Serializable  {
         //TODO: This should use real values
         if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT &&
                 oldValue == getRealValue() &&
-                ((increment > 0 && binValue < maxAllowedBin) || (increment < 0 && binValue > minAllowedBin))) {
+                ((increment > 0 && getBinValue() < getMaxAllowedBin()) || (increment < 0 && getBinValue() > getMinAllowedBin()))) {
             if (LOGGER.isDebugEnabled())
-                LOGGER.debug(maxAllowedBin + " " + binValue);
+                LOGGER.debug(getMaxAllowedBin() + " " + getBinValue());
             increment(increment * 2);
         }
     }
 
     public void undo() throws UserLevelException {
-        this.setBinValue(originalValue);
+        this.setBinValue(getOriginalValue());
     }
 
     public void setRevertPoint() {
-        this.setOriginalValue(binValue);
+        this.setOriginalValue(getBinValue());
         updateView();
     }
 
     public void setOriginalValue(double originalValue) {
-        this.originalValue = originalValue;
+        values().setOriginalValue(slot, originalValue);
     }
 
     public int getBitMask() {
@@ -564,17 +634,9 @@ public class DataCell implements Serializable  {
     public void setCompareValue(DataCell compareCell) {
         if (Settings.DataType.BIN == table.getCompareValueType())
         {
-            if (this.compareToValue == compareCell.binValue) {
-                return;
-            }
-
-            this.compareToValue = compareCell.binValue;
+            values().setCompareValue(slot, compareCell.getBinValue());
         } else {
-            if (this.compareToValue == compareCell.originalValue) {
-                return;
-            }
-
-            this.compareToValue = compareCell.originalValue;
+            values().setCompareValue(slot, compareCell.getOriginalValue());
         }
     }
 
@@ -608,15 +670,7 @@ public class DataCell implements Serializable  {
             return false;
         }
 
-        return binValue == otherCell.binValue;
-    }
-
-    public double getMaxAllowedBin() {
-        return maxAllowedBin;
-    }
-
-    public double getMinAllowedBin() {
-        return minAllowedBin;
+        return getBinValue() == otherCell.getBinValue();
     }
 
     @Override
@@ -0,0 +1,114 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the cells of all tables stored at a ROM address.  Addresses are
+ * kept in an open addressing table of primitive ints and the cells at the
+ * same address are chained through an int array, so no key or list node is
+ * allocated per cell.
+ */
+final class DataCellIndex implements Serializable {
+    private static final long serialVersionUID = 4022658763617296367L;
+    private static final int EMPTY = -1;
+    private int[] keys;
+    private int[] heads;
+    private int keyCount;
+    private DataCell[] cells = new DataCell[1024];
+    private int[] next = new int[1024];
+    private int cellCount;
+
+    DataCellIndex() {
+        keys = new int[1024];
+        heads = new int[1024];
+        Arrays.fill(heads, EMPTY);
+    }
+
+    synchronized void add(int address, DataCell cell) {
+        if (cellCount == cells.length) {
+            cells = Arrays.copyOf(cells, cellCount * 2);
+            next = Arrays.copyOf(next, cellCount * 2);
+        }
+        if ((keyCount + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        final int slot = find(keys, heads, address);
+        if (heads[slot] == EMPTY) {
+            keys[slot] = address;
+            keyCount++;
+        }
+        cells[cellCount] = cell;
+        next[cellCount] = heads[slot];
+        heads[slot] = cellCount++;
+    }
+
+    /**
+     * @param   address - the file address of a value
+     * @return  the cells stored at the address, or null if there are none
+     */
+    synchronized List<DataCell> get(int address) {
+        int entry = heads[find(keys, heads, address)];
+        if (entry == EMPTY) {
+            return null;
+        }
+        final List<DataCell> found = new ArrayList<DataCell>(2);
+        for (; entry != EMPTY; entry = next[entry]) {
+            found.add(cells[entry]);
+        }
+        return found;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(heads, EMPTY);
+        Arrays.fill(cells, 0, cellCount, null);
+        keyCount = 0;
+        cellCount = 0;
+    }
+
+    private void rehash(int capacity) {
+        final int[] newKeys = new int[capacity];
+        final int[] newHeads = new int[capacity];
+        Arrays.fill(newHeads, EMPTY);
+        for (int i = 0; i < keys.length; i++) {
+            if (heads[i] != EMPTY) {
+                final int slot = find(newKeys, newHeads, keys[i]);
+                newKeys[slot] = keys[i];
+                newHeads[slot] = heads[i];
+            }
+        }
+        keys = newKeys;
+        heads = newHeads;
+    }
+
+    private static int find(int[] keys, int[] heads, int address) {
+        final int mask = keys.length - 1;
+        final int hash = address * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (heads[slot] != EMPTY && keys[slot] != address) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -19,12 +19,14 @@
 
 package com.romraider.maps;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 
 import com.romraider.Settings.Endian;
 import com.romraider.util.ByteUtil;
 
-public class PresetManager {
+public class PresetManager implements Serializable {
+	private static final long serialVersionUID = -2143187392840245734L;
 	private LinkedList<PresetEntry> presets = new LinkedList<PresetEntry>();
 	private Table table;
 
@@ -32,7 +34,8 @@ public class PresetManager {
 		table = t;
 	}
 
-	public class PresetEntry {
+	public class PresetEntry implements Serializable {
+		private static final long serialVersionUID = 4791251830451826617L;
 		int dataCellOffset = 0;
 		String name;
 		boolean isBitMask;
@@ -34,6 +34,7 @@ import java.io.Serializable;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -42,6 +43,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -56,16 +59,22 @@ import com.romraider.dataflowSimulation.DataflowSimulation;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
 import com.romraider.maps.checksum.ChecksumManager;
+import com.romraider.maps.checksum.DirtyRanges;
+import com.romraider.maps.checksum.IncrementalChecksumManager;
 import com.romraider.swing.CategoryTreeNode;
 import com.romraider.swing.JProgressPane;
 import com.romraider.swing.TableFrame;
 import com.romraider.swing.TableTreeNode;
 import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
+import com.romraider.util.ThreadUtil;
 
 public class Rom extends DefaultMutableTreeNode implements Serializable  {
     private static final long serialVersionUID = 7865405179738828128L;
     private static final Logger LOGGER = Logger.getLogger(Rom.class);
+    // set to false to calculate all checksums over the whole image on save
+    private static final boolean INCREMENTAL_CHECKSUMS = Boolean.parseBoolean(
+            System.getProperty("romraider.checksum.incremental", "true"));
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             Rom.class.getName());
 
@@ -83,11 +92,14 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
     //This keeps track of DataCells on a byte level
     //This might also be possible to achieve by using the same Data Tables
-    protected HashMap<Integer, LinkedList<DataCell>> byteCellMapping = new HashMap<Integer, LinkedList<DataCell>>();
+    //Cells register concurrently while the tables are populated
+    protected DataCellIndex byteCellMapping = new DataCellIndex();
     
     private final LinkedHashMap<String, TableTreeNode> tableNodes = new LinkedHashMap<String, TableTreeNode>();
     private final LinkedList<DataflowSimulation> simulations = new LinkedList<DataflowSimulation>();
     private LinkedList<ChecksumManager> checksumManagers = new LinkedList<ChecksumManager>();
+    // the bytes changed since the checksums were last calculated
+    private final DirtyRanges dirty = new DirtyRanges();
 
     private final Settings settings = SettingsManager.getSettings();
 
@@ -254,40 +266,54 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
     
     public void populateTables(byte[] binData, JProgressPane progress) {
         this.binData = binData;
+        dirty.addAll();
         int size = tableNodes.size();
         int i = 0;
         faultyTables.clear();
 
-        for(String name: tableNodes.keySet()) {
+        // Decode the tables in parallel, each table only touches its own cells
+        final List<Table> tables = new ArrayList<Table>(size);
+        final List<ForkJoinTask<RuntimeException>> tasks =
+                new ArrayList<ForkJoinTask<RuntimeException>>(size);
+        for(TableTreeNode tableNode : tableNodes.values()) {
+            Table table = tableNode.getTable();
+            tables.add(table);
+            tasks.add(table.getStorageAddress() >= 0 ?
+                    ThreadUtil.getWorkPool().submit(new PopulateTableTask(table, this)) : null);
+        }
+
+        // Collect the results in definition order so the faulty tables,
+        // popups and registrations are the same as populating one by one,
+        // the popups of the checks are shown here on the calling thread
+        for(int t = 0; t < tables.size(); t++) {
             // update progress
             int currProgress = (int) (i / (double) size * 100);
             progress.update(rb.getString("POPTABLES"), currProgress);
 
-            Table table = tableNodes.get(name.toLowerCase()).getTable();
-            try {
-                if (table.getStorageAddress() >= 0) {
-                    try {
-                        table.populateTable(this);
-                        TableUpdateHandler.getInstance().registerTable(table);
+            Table table = tables.get(t);
+            ForkJoinTask<RuntimeException> task = tasks.get(t);
+            if (task == null) {
+                tableNodes.remove(table.getName().toLowerCase());
+                size--;
+                continue;
+            }
 
-                        if (null != table.getName() && table.getName().equalsIgnoreCase("Checksum Fix")){
-                            setEditStamp(binData, table.getStorageAddress() - table.getRamOffset());
-                        }
-                        i++;
-                    } catch (ArrayIndexOutOfBoundsException ex) {
-                    	handleException(table, ex, true);
-                        size--;
-                    } catch (IndexOutOfBoundsException iex) {
-                    	handleException(table, iex, true);
-                        size--;
+            RuntimeException ex = task.join();
+            if (ex == null) {
+                try {
+                    table.validateTable();
+                    TableUpdateHandler.getInstance().registerTable(table);
+
+                    if (null != table.getName() && table.getName().equalsIgnoreCase("Checksum Fix")){
+                        setEditStamp(binData, table.getStorageAddress() - table.getRamOffset());
                     }
-                } else {
-                    tableNodes.remove(table.getName().toLowerCase());
-                    size--;
+                    i++;
+                } catch (NullPointerException npe) {
+                    ex = npe;
                 }
-
-            } catch (NullPointerException ex) {
-            	handleException(table, ex, false);
+            }
+            if (ex != null) {
+                handleException(table, ex, ex instanceof IndexOutOfBoundsException);
                 size--;
             }
         }
@@ -297,6 +323,42 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         }
     }
 
+    /**
+     * Populates one table, returning the exception that makes the table
+     * faulty instead of throwing it so it can be reported in order.  Only
+     * the cells are decoded, the checks showing popups are left to
+     * {@link Table#validateTable()} in the ordered loop.
+     */
+    private static final class PopulateTableTask implements Callable<RuntimeException> {
+        private final Table table;
+        private final Rom rom;
+
+        PopulateTableTask(Table table, Rom rom) {
+            this.table = table;
+            this.rom = rom;
+        }
+
+        @Override
+        public RuntimeException call() {
+            try {
+                table.populateTable(rom);
+                return null;
+            } catch (IndexOutOfBoundsException ex) {
+                return ex;
+            } catch (NullPointerException ex) {
+                return ex;
+            }
+        }
+    }
+
+    void registerDataCell(int address, DataCell cell) {
+        byteCellMapping.add(address, cell);
+    }
+
+    Collection<DataCell> getDataCells(int address) {
+        return byteCellMapping == null ? null : byteCellMapping.get(address);
+    }
+
     private void setEditStamp(byte[] binData, int address) {
         byte[] stampData = new byte[4];
         System.arraycopy(binData, address+204, stampData, 0, stampData.length);
@@ -331,6 +393,16 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         return binData;
     }
 
+    /**
+     * Record a change of the image so the checksums of the changed bytes
+     * are calculated again on the next update.
+     * @param start - the first changed byte
+     * @param end - the byte after the last changed one
+     */
+    public void markDirty(int start, int end) {
+        dirty.add(start, end);
+    }
+
     public void setDocument(Document d) {
         this.doc = d;
     }
@@ -436,6 +508,10 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
             setEditStamp(binData, binDataPos);
         }
 
+        if (!checksumTables.isEmpty()) {
+            // the edit stamp and the checksum fix tables are written directly
+            dirty.addAll();
+        }
         for (TableTreeNode checksum : checksumTables) {
             if (!checksum.getTable().isLocked()) {
                 //TODO: Move to Subaru checksum
@@ -495,8 +571,6 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
     }
 
     public void clearByteMapping() {
-        for(List<?> l: byteCellMapping.values())l.clear();
-
         byteCellMapping.clear();
         byteCellMapping = null;
     }
@@ -541,6 +615,8 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
                 correctChecksums += localCorrectCs;
             }
         }
+        // validating calculated the checksums of the whole image
+        dirty.clear();
 
         if(!valid) {
             showMessageDialog(null,
@@ -555,9 +631,26 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
     public int updateChecksum() {
         int updatedCs = 0;
 
+        // a checksum covering another one is calculated again when that
+        // one was written, the written bytes are dirty for the next update
+        final DirtyRanges written = new DirtyRanges();
         for(ChecksumManager cm: checksumManagers) {
-            updatedCs += cm.update(binData);
+            int localUpdatedCs;
+            if (INCREMENTAL_CHECKSUMS && cm instanceof IncrementalChecksumManager) {
+                localUpdatedCs = ((IncrementalChecksumManager) cm).update(binData, dirty, written);
+            }
+            else {
+                localUpdatedCs = cm.update(binData);
+                written.addAll();
+            }
+            if (LOGGER.isDebugEnabled() && localUpdatedCs > 0) {
+                LOGGER.debug(cm.getClass().getSimpleName() + ": "
+                        + localUpdatedCs + " checksums changed");
+            }
+            updatedCs += localUpdatedCs;
         }
+        dirty.clear();
+        dirty.add(written);
 
         ECUEditorManager.getECUEditor().getStatusPanel().setStatus(
                 String.format(rb.getString("CHECKSUMFIXED"), updatedCs, getTotalAmountOfChecksums()));
@@ -0,0 +1,392 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.romraider.Settings;
+import com.romraider.swing.TableTreeNode;
+import com.romraider.util.ThreadUtil;
+
+/**
+ * Compares the tables of two populated ROMs.  Tables are joined by name
+ * through the table index of each ROM.  The stored bytes of a table and its
+ * axes are compared straight from the ROM images first; only tables whose
+ * bytes differ have their cells compared.  Tables are compared in parallel.
+ * No user interface is needed, so a comparison can also be run headless.
+ */
+public final class RomComparison {
+    private static final int TASK_TABLES = 32;
+    private final List<TableDiff> diffs;
+    private int equal;
+    private int different;
+    private int missing;
+
+    public enum Status {
+        EQUAL, DIFFERENT, MISSING
+    }
+
+    /**
+     * A contiguous run of changed bytes of a table.
+     */
+    public static final class ByteRange {
+        private final int offset;
+        private final int length;
+
+        ByteRange(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @return  the position of the first changed byte counted from the
+         *          start of the table data
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return "+" + offset + "[" + length + "]";
+        }
+    }
+
+    /**
+     * The result of comparing the tables of the same name in both ROMs.
+     */
+    public static final class TableDiff {
+        private final String name;
+        private final Table left;
+        private final Table right;
+        private Status status = Status.MISSING;
+        private int cellCount;
+        private int changedCells;
+        private List<ByteRange> changedRanges = Collections.emptyList();
+
+        TableDiff(String name, Table left, Table right) {
+            this.name = name;
+            this.left = left;
+            this.right = right;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return  the table of the left ROM, or null if it is missing
+         */
+        public Table getLeft() {
+            return left;
+        }
+
+        /**
+         * @return  the table of the right ROM, or null if it is missing
+         */
+        public Table getRight() {
+            return right;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return  the number of cells compared, including axis cells
+         */
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        public int getChangedCells() {
+            return changedCells;
+        }
+
+        /**
+         * @return  the changed bytes of the table data, axes not included,
+         *          empty if the tables are not stored alike
+         */
+        public List<ByteRange> getChangedRanges() {
+            return changedRanges;
+        }
+    }
+
+    private RomComparison(List<TableDiff> diffs) {
+        this.diffs = diffs;
+    }
+
+    /**
+     * Compare all tables of two ROMs.
+     * @param   left - a populated ROM
+     * @param   right - a populated ROM
+     * @return  the result of each table, tables of the left ROM first
+     */
+    public static RomComparison compare(Rom left, Rom right) {
+        checkNotNull(left, "left");
+        checkNotNull(right, "right");
+        final List<TableDiff> diffs = new ArrayList<TableDiff>(left.getTableNodes().size());
+        for (TableTreeNode leftNode : left.getTableNodes().values()) {
+            final Table leftTable = leftNode.getTable();
+            final TableTreeNode rightNode = right.getTableNodes().get(
+                    leftTable.getName().toLowerCase());
+            diffs.add(new TableDiff(leftTable.getName(), leftTable,
+                    rightNode == null ? null : rightNode.getTable()));
+        }
+        for (TableTreeNode rightNode : right.getTableNodes().values()) {
+            final Table rightTable = rightNode.getTable();
+            if (!left.getTableNodes().containsKey(rightTable.getName().toLowerCase())) {
+                diffs.add(new TableDiff(rightTable.getName(), null, rightTable));
+            }
+        }
+
+        final TableDiff[] work = diffs.toArray(new TableDiff[diffs.size()]);
+        ThreadUtil.getWorkPool().invoke(new CompareTask(work, 0, work.length));
+
+        final RomComparison comparison = new RomComparison(
+                Collections.unmodifiableList(diffs));
+        for (TableDiff diff : work) {
+            switch (diff.status) {
+            case EQUAL:
+                comparison.equal++;
+                break;
+            case DIFFERENT:
+                comparison.different++;
+                break;
+            default:
+                comparison.missing++;
+                break;
+            }
+        }
+        return comparison;
+    }
+
+    public List<TableDiff> getTableDiffs() {
+        return diffs;
+    }
+
+    public int getEqualCount() {
+        return equal;
+    }
+
+    public int getDifferentCount() {
+        return different;
+    }
+
+    public int getMissingCount() {
+        return missing;
+    }
+
+    private static void compare(TableDiff diff) {
+        if (diff.left == null || diff.right == null) {
+            diff.status = Status.MISSING;
+            return;
+        }
+        final List<Table> leftParts = parts(diff.left);
+        final List<Table> rightParts = parts(diff.right);
+        if (diff.left.getClass() != diff.right.getClass()
+                || leftParts.size() != rightParts.size()) {
+            diff.status = Status.DIFFERENT;
+            return;
+        }
+        for (int i = 0; i < leftParts.size(); i++) {
+            final Table l = leftParts.get(i);
+            final Table r = rightParts.get(i);
+            if (l == null || r == null) {
+                if (l != r) diff.changedCells++;
+                continue;
+            }
+            final int size = l.getDataSize();
+            diff.cellCount += size;
+            if (size != r.getDataSize()) {
+                diff.changedCells += Math.max(size, r.getDataSize());
+                continue;
+            }
+            final boolean stored = isStoredAlike(l, r);
+            // equal bytes only mean equal cells when the masks agree
+            if (stored && masksEqual(l, r) && regionEquals(l, r)) {
+                continue;
+            }
+            final int changed = changedCells(l, r);
+            diff.changedCells += changed;
+            if (i == 0 && stored && changed > 0) {
+                diff.changedRanges = changedRanges(l, r);
+            }
+        }
+        diff.status = diff.changedCells == 0 ? Status.EQUAL : Status.DIFFERENT;
+    }
+
+    // the table followed by its axes
+    private static List<Table> parts(Table table) {
+        if (table instanceof Table3D) {
+            final Table3D table3d = (Table3D) table;
+            return Arrays.<Table>asList(table3d, table3d.getXAxis(), table3d.getYAxis());
+        }
+        if (table instanceof Table2D) {
+            return Arrays.<Table>asList(table, ((Table2D) table).getAxis());
+        }
+        return Collections.singletonList(table);
+    }
+
+    private static boolean isStoredAlike(Table l, Table r) {
+        return !l.isStaticDataTable() && !r.isStaticDataTable()
+                && l.getRom() != null && r.getRom() != null
+                && l.getRom().getBinary() != null && r.getRom().getBinary() != null
+                && l.getStorageType() == r.getStorageType()
+                && l.getEndian() == r.getEndian()
+                && l.getDataLayout() == r.getDataLayout();
+    }
+
+    private static boolean masksEqual(Table l, Table r) {
+        if (l.getBitMask() != r.getBitMask()) {
+            return false;
+        }
+        final DataCell[] lc = l.getData();
+        final DataCell[] rc = r.getData();
+        if (lc == null || rc == null) {
+            return lc == rc;
+        }
+        for (int i = 0; i < lc.length; i++) {
+            if (lc[i] != null && rc[i] != null
+                    && lc[i].getBitMask() != rc[i].getBitMask()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(Table l, Table r) {
+        final byte[] lb = l.getRom().getBinary();
+        final byte[] rb = r.getRom().getBinary();
+        final int ls = start(l);
+        final int rs = start(r);
+        final int length = length(l);
+        if (ls < 0 || rs < 0 || ls + length > lb.length || rs + length > rb.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (lb[ls + i] != rb[rs + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // compared as Table.equals does, by the bin value of each cell
+    private static int changedCells(Table l, Table r) {
+        final DataCell[] lc = l.getData();
+        final DataCell[] rc = r.getData();
+        if (lc == null || rc == null) {
+            return l.getDataSize();
+        }
+        int changed = 0;
+        for (int i = 0; i < lc.length; i++) {
+            if (lc[i] == null ? rc[i] != null : !lc[i].equals(rc[i])) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static List<ByteRange> changedRanges(Table l, Table r) {
+        final byte[] lb = l.getRom().getBinary();
+        final byte[] rb = r.getRom().getBinary();
+        final int ls = start(l);
+        final int rs = start(r);
+        final int length = Math.min(length(l),
+                Math.min(lb.length - ls, rb.length - rs));
+        final List<ByteRange> ranges = new ArrayList<ByteRange>();
+        int from = -1;
+        for (int i = 0; i < length; i++) {
+            if (lb[ls + i] != rb[rs + i]) {
+                if (from < 0) from = i;
+            }
+            else if (from >= 0) {
+                ranges.add(new ByteRange(from, i - from));
+                from = -1;
+            }
+        }
+        if (from >= 0) {
+            ranges.add(new ByteRange(from, length - from));
+        }
+        return ranges;
+    }
+
+    private static int start(Table table) {
+        return table.getStorageAddress() - table.getRamOffset();
+    }
+
+    private static int length(Table table) {
+        final int storageType = table.getStorageType();
+        final int cellBytes;
+        if (storageType == Settings.STORAGE_TYPE_FLOAT) {
+            cellBytes = 4;
+        }
+        else if (storageType == Settings.STORAGE_TYPE_MOVI20
+                || storageType == Settings.STORAGE_TYPE_MOVI20S) {
+            cellBytes = 3;
+        }
+        else {
+            cellBytes = storageType;
+        }
+        // every bit of a bitwise switch is read from the same cell
+        if (table instanceof TableBitwiseSwitch) {
+            return cellBytes;
+        }
+        return table.getDataSize() * cellBytes;
+    }
+
+    private static final class CompareTask extends RecursiveAction {
+        private static final long serialVersionUID = 6325487312003549014L;
+        private final TableDiff[] diffs;
+        private final int from;
+        private final int to;
+
+        CompareTask(TableDiff[] diffs, int from, int to) {
+            this.diffs = diffs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_TABLES) {
+                for (int i = from; i < to; i++) {
+                    compare(diffs[i]);
+                }
+            }
+            else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new CompareTask(diffs, from, mid),
+                        new CompareTask(diffs, mid, to));
+            }
+        }
+    }
+}
@@ -22,9 +22,10 @@
 package com.romraider.maps;
 
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.romraider.util.JEPUtil;
+import com.romraider.util.expression.CompiledExpression;
 
 public class Scale implements Serializable {
 
@@ -41,7 +42,10 @@ public class Scale implements Serializable {
     private double min = 0.0;
     private double max = 0.0;
     
-    HashMap<Double, Double> cachedValues = new HashMap<Double,Double>();
+    private transient volatile CompiledExpression compiledExpression;
+    private transient volatile CompiledExpression compiledByteExpression;
+
+    Map<Double, Double> cachedValues = new ConcurrentHashMap<Double,Double>();
     int maxCacheSize = 100;
 
     @Override
@@ -68,8 +72,8 @@ public class Scale implements Serializable {
 
         double startValue = 5;
         // convert real world value of "5"
-        double toReal = JEPUtil.evaluate(getExpression(), startValue);
-        double endValue = JEPUtil.evaluate(getByteExpression(), toReal);
+        double toReal = toReal(startValue);
+        double endValue = toByte(toReal);
 
         // if real to byte doesn't equal 5, report conflict
         if (Math.abs(endValue - startValue) > .001) return false;
@@ -79,9 +83,10 @@ public class Scale implements Serializable {
     public double approximateToByteFunction(double input, int storageType, boolean signed) {
     	
     	// Check if we already calculated this
-    	if(cachedValues.containsKey(input))
+    	final Double cached = cachedValues.get(input);
+    	if(cached != null)
     	{
-    		return cachedValues.get(input);
+    		return cached;
     	}
     	
     	long maxValue = (int) Math.pow(2, 8 * storageType);
@@ -104,8 +109,8 @@ public class Scale implements Serializable {
     	double output = 0;
     	
     	while(stepSize > 0 && error > epsilon) {  		
-    		double minusValue = JEPUtil.evaluate(getExpression(), currentStep-stepSize);
-    		double plusValue = JEPUtil.evaluate(getExpression(), currentStep+stepSize);
+    		double minusValue = toReal(currentStep-stepSize);
+    		double plusValue = toReal(currentStep+stepSize);
     		
     		double plusError = Math.abs(plusValue - input);
     		double minusError = Math.abs(minusValue - input);
@@ -135,9 +140,51 @@ public class Scale implements Serializable {
     		cachedValues.put(input, output);
     	}
     	
-    	//System.out.println("Input: " + input + " from approx: " + JEPUtil.evaluate(getExpression(), output));
+    	//System.out.println("Input: " + input + " from approx: " + toReal(output));
     	return currentStep;
     }
+
+    /**
+     * Convert a raw binary value to its real world value using the
+     * compiled form of <b>expression</b>.
+     * @param  binValue - the raw value
+     * @return the real world value
+     */
+    public double toReal(double binValue) {
+        CompiledExpression compiled = compiledExpression;
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(expression);
+            compiledExpression = compiled;
+        }
+        return compiled.evaluate(binValue);
+    }
+
+    /**
+     * Convert a real world value to its raw binary value using the
+     * compiled form of <b>byteExpression</b>.
+     * @param  realValue - the real world value
+     * @return the raw value
+     */
+    public double toByte(double realValue) {
+        CompiledExpression compiled = compiledByteExpression;
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(byteExpression);
+            compiledByteExpression = compiled;
+        }
+        return compiled.evaluate(realValue);
+    }
+
+    /**
+     * @return true if <b>expression</b> returns the raw value unchanged
+     */
+    public boolean isIdentity() {
+        CompiledExpression compiled = compiledExpression;
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(expression);
+            compiledExpression = compiled;
+        }
+        return compiled.isIdentity();
+    }
     
     public void setCategory(String category) {
         this.category = category;
@@ -165,6 +212,8 @@ public class Scale implements Serializable {
 
     public void setExpression(String expression) {
         this.expression = expression;
+        this.compiledExpression = null;
+        this.cachedValues.clear();
     }
 
     public double getCoarseIncrement() {
@@ -198,6 +247,7 @@ public class Scale implements Serializable {
     		this.byteExpression = null;
     	else
     		this.byteExpression = byteExpression;
+    	this.compiledByteExpression = null;
     }
 
     public double getFineIncrement() {
@@ -20,6 +20,8 @@
 package com.romraider.maps;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Vector;
 
 import javax.naming.NameNotFoundException;
@@ -29,7 +31,6 @@ import org.apache.log4j.Logger;
 import com.romraider.Settings;
 import com.romraider.swing.TableFrame;
 import com.romraider.util.ByteUtil;
-import com.romraider.util.JEPUtil;
 import com.romraider.util.NumberUtil;
 import com.romraider.util.SettingsManager;
 
@@ -37,6 +38,8 @@ public abstract class Table implements Serializable, Comparable<Table> {
     private static final long serialVersionUID = 6559256489995552645L;
     protected static final Logger LOGGER = Logger.getLogger(Table.class);
     protected static final String ST_DELIMITER = "\t\n\r\f";
+    // number of bulk edits kept for undo
+    private static final int MAX_EDITS = 50;
     protected static Settings.Endian memModelEndian;
 
     protected TableView tableView;
@@ -58,6 +61,9 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     protected DataLayout dataLayout = DataLayout.DEFAULT;   //DataCell Ordering
     protected DataCell[] data = new DataCell[1];
+    protected CellValueStore cellValues;
+    private transient volatile RealValues realValues;
+    private transient Deque<TableEdit.Entry> edits;
 
     protected boolean beforeRam = false;
     protected int ramOffset = 0;
@@ -104,7 +110,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     public void addStaticDataCell(String s) {
         setStaticDataTable(true);
-        DataCell c = new DataCell(this, s, null);
+        DataCell c = new DataCell(this, s);
 
         for(int i = 0; i < data.length; i++) {
             if(data[i] == null) {
@@ -120,13 +126,14 @@ public abstract class Table implements Serializable, Comparable<Table> {
             for(int i=0;i<getDataSize();i++) {
                 if(data[i]!=null) {
                     data[i].setTable(null);
-                    data[i].setRom(null);
                     data[i] = null;
                 }
             }
 
             data = null;
         }
+        cellValues = null;
+        edits = null;
         rom = null;
     }
 
@@ -146,9 +153,40 @@ public abstract class Table implements Serializable, Comparable<Table> {
     	this.rom = rom;
     }
 
+    CellValueStore getCellValues() {
+        if (cellValues == null) {
+            cellValues = new CellValueStore(getDataSize());
+        }
+        return cellValues;
+    }
+
+    /**
+     * Get the real values of the cells in the current scale.  The values
+     * are cached until a cell value or the current scale changes.
+     * @return  the real cell values in table order, not to be modified
+     */
+    public double[] getRealValues() {
+        final CellValueStore store = getCellValues();
+        final int modCount = store.getModCount();
+        RealValues cached = realValues;
+        if (cached == null || cached.store != store
+                || cached.modCount != modCount || cached.scale != curScale) {
+            cached = new RealValues(store, modCount, curScale, readRealValues());
+            realValues = cached;
+        }
+        return cached.values;
+    }
+
+    protected double[] readRealValues() {
+        final double[] values = new double[data.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data[i].getRealValue();
+        }
+        return values;
+    }
+
     public void populateTable(Rom rom) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {
     	if(isStaticDataTable()) return;
-        validateScaling();
 
         // temporarily remove lock;
         boolean tempLock = locked;
@@ -158,8 +196,10 @@ public abstract class Table implements Serializable, Comparable<Table> {
             this.ramOffset = rom.getRomID().getRamOffset();
         }
 
+        this.rom = rom;
+        cellValues = new CellValueStore(data.length);
         for (int i = 0; i < data.length; i++) {
-            data[i] = new DataCell(this, i, rom);
+            data[i] = new DataCell(this, i);
         }
 
         // reset locked status
@@ -442,11 +482,11 @@ public abstract class Table implements Serializable, Comparable<Table> {
     }
 
     public double getMaxReal() {
-    	return JEPUtil.evaluate(getCurrentScale().getExpression(), getMaxBin());
+    	return getCurrentScale().toReal(getMaxBin());
     }
 
     public double getMinReal() {
-    	return JEPUtil.evaluate(getCurrentScale().getExpression(), getMinBin());
+    	return getCurrentScale().toReal(getMinBin());
     }
 
     public void setMaxBin(double maxBin) {
@@ -485,6 +525,54 @@ public abstract class Table implements Serializable, Comparable<Table> {
         }
     }
 
+    /**
+     * Start a batch of cell changes, see {@link TableEdit}.
+     */
+    public TableEdit beginEdit() {
+        return new TableEdit(this);
+    }
+
+    void addEdit(TableEdit.Entry edit) {
+        if (edits == null) {
+            edits = new ArrayDeque<TableEdit.Entry>();
+        }
+        if (edits.size() == MAX_EDITS) {
+            edits.removeLast();
+        }
+        edits.push(edit);
+    }
+
+    /**
+     * @return  the sequence of the last bulk edit of this table or 0 if
+     *          there is none, later edits have a higher sequence
+     */
+    public long getLastEditSequence() {
+        if (edits == null || edits.isEmpty()) {
+            return 0;
+        }
+        return edits.peek().getSequence();
+    }
+
+    /**
+     * Restore the bytes changed by the last bulk edit of this table.
+     * Cells changed one at a time since are reverted as well if they share
+     * bytes with that edit.
+     * @return  false if there is no edit to undo
+     */
+    public boolean undoLastEdit() throws UserLevelException {
+        if (edits == null || edits.isEmpty() || locked) {
+            return false;
+        }
+        if (userLevel > getSettings().getUserLevel()) {
+            throw new UserLevelException(userLevel);
+        }
+        edits.pop().restore(rom);
+        if (tableView != null) {
+            tableView.drawTable();
+        }
+        return true;
+    }
+
     //Don't check for duplicate names, just add
     public void setPresetValues(String name, String value) {
     	if(presetManager == null) presetManager = new PresetManager(this);
@@ -551,6 +639,17 @@ public abstract class Table implements Serializable, Comparable<Table> {
     	return tableBitMask;
     }
 
+    /**
+     * Check the table once it is populated and show a popup for each
+     * problem found.  {@link #populateTable(Rom)} only decodes the cells so
+     * tables can be populated off the calling thread, the popups are shown
+     * by this call on the caller's thread in the order tables are checked.
+     */
+    public void validateTable() {
+        if (isStaticDataTable()) return;
+        validateScaling();
+    }
+
     public void validateScaling() {
         if (getType() != TableType.SWITCH) {
             for(Scale scale : scales) {
@@ -630,10 +729,12 @@ public abstract class Table implements Serializable, Comparable<Table> {
             double y1, y2;
             y1 = tableData[coords[0]].getBinValue();
             y2 = tableData[coords[1]].getBinValue();
+            TableEdit edit = beginEdit();
             for (int i = coords[0] + 1; i < coords[1]; ++i) {
                 float p = (float)((i - coords[0]))/(coords[1] - coords[0]);
-                data[i].setBinValue((y2*p)+(y1 *(1-p)));
+                edit.setBinValue(data[i], (y2*p)+(y1 *(1-p)));
             }
+            edit.commit();
         }
     }
     
@@ -652,19 +753,23 @@ public abstract class Table implements Serializable, Comparable<Table> {
     }
 
     public void multiply(double factor) throws UserLevelException{
+        TableEdit edit = beginEdit();
         for (DataCell cell : data) {
             if (cell.isSelected()) {
-                cell.multiply(factor);
+                edit.multiply(cell, factor);
             }
          }
+        edit.commit();
     }
 
     public void setRealValue(String realValue) throws UserLevelException {
+        TableEdit edit = beginEdit();
         for(DataCell cell : data) {
             if (cell.isSelected()) {
-                cell.setRealValue(realValue);
+                edit.setRealValue(cell, realValue);
             }
         }
+        edit.commit();
     }
 
     public abstract boolean isLiveDataSupported();
@@ -802,4 +907,18 @@ public abstract class Table implements Serializable, Comparable<Table> {
     public int compareTo(Table otherTable) {
         return this.getName().compareTo(otherTable.getName());
     }
+
+    private static final class RealValues {
+        private final CellValueStore store;
+        private final int modCount;
+        private final Scale scale;
+        private final double[] values;
+
+        private RealValues(CellValueStore store, int modCount, Scale scale, double[] values) {
+            this.store = store;
+            this.modCount = modCount;
+            this.scale = scale;
+            this.values = values;
+        }
+    }
 }
@@ -269,35 +269,45 @@ public class Table1DView extends TableView {
 
     @Override
     public void highlightLiveData(String liveVal) {
+        double liveValue = 0.0;
         if (getOverlayLog()) {
-            double liveValue = 0.0;
             try {
                 liveValue = NumberUtil.doubleValue(liveVal);
             } catch (Exception ex) {
             	LOGGER.error("Table1D - live data highlight parsing error for value: " + liveVal);
                 return;
             }
+        }
+        highlightLiveData(liveVal, liveValue);
+    }
 
+    @Override
+    public void highlightLiveData(String liveVal, double liveValue) {
+        if (getOverlayLog()) {
             int startIdx = data.length;
-            for (int i = 0; i < data.length; i++) {
-                double currentValue = 0.0;
-                if(table.isStaticDataTable() && null != data[i].getStaticText()) {
-                    try {
-                        currentValue = Double.parseDouble(data[i].getStaticText());
-                    } catch(NumberFormatException nex) {
-                        return;
+            if (table.isStaticDataTable()) {
+                for (int i = 0; i < data.length; i++) {
+                    double currentValue = 0.0;
+                    if (null != data[i].getStaticText()) {
+                        try {
+                            currentValue = Double.parseDouble(data[i].getStaticText());
+                        } catch(NumberFormatException nex) {
+                            return;
+                        }
+                    } else {
+                        currentValue = data[i].getDataCell().getRealValue();
                     }
-                } else {
-                    currentValue = data[i].getDataCell().getRealValue();
-                }
 
-                if (liveValue == currentValue) {
-                    startIdx = i;
-                    break;
-                } else if (liveValue < currentValue){
-                    startIdx = i-1;
-                    break;
+                    if (liveValue == currentValue) {
+                        startIdx = i;
+                        break;
+                    } else if (liveValue < currentValue){
+                        startIdx = i-1;
+                        break;
+                    }
                 }
+            } else {
+                startIdx = TableInterpolator.floorIndex(table.getRealValues(), liveValue);
             }
 
             setLiveDataIndex(startIdx);
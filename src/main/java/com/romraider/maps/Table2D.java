@@ -76,6 +76,12 @@ public class Table2D extends Table {
         axis.refreshCompare();
     }
 
+    @Override
+    public void validateTable() {
+        axis.validateTable();
+        super.validateTable();
+    }
+
     @Override
     public void populateTable(Rom rom) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {
             axis.populateTable(rom);
@@ -94,6 +100,14 @@ public class Table2D extends Table {
         axis.undoAll();
     }
 
+    @Override
+    public boolean undoLastEdit() throws UserLevelException {
+        if (axis.getLastEditSequence() > getLastEditSequence()) {
+            return axis.undoLastEdit();
+        }
+        return super.undoLastEdit();
+    }
+
     @Override
     public String getLogParamString() {
         StringBuilder sb = new StringBuilder();
@@ -198,10 +212,12 @@ public class Table2D extends Table {
             y1 = tableData[coords[0]].getBinValue();
             x2 = axisData[coords[1]].getBinValue();
             y2 = tableData[coords[1]].getBinValue();
+            TableEdit edit = beginEdit();
             for (int i = coords[0] + 1; i < coords[1]; ++i) {
                 x = axisData[i].getBinValue();
-                data[i].setBinValue(linearInterpolation(x, x1, x2, y1, y2));
+                edit.setBinValue(data[i], linearInterpolation(x, x1, x2, y1, y2));
             }
+            edit.commit();
         }
         // Interpolate x axis in case the x axis in selected.
         this.getAxis().horizontalInterpolate();
@@ -210,26 +226,7 @@ public class Table2D extends Table {
     @Override
 	public double queryTable(Double input_x, Double input_y) {
 		double input = input_x == null ? input_y : input_x;
-		DataCell[] tableData = getData();
-		DataCell[] axisData = getAxis().getData();
-
-		int start = 0;
-		int end = tableData.length - 1;
-		boolean foundEnd = false;
-
-		for (int i = 0; i < tableData.length && i < axisData.length; i++) {
-			DataCell c = axisData[i];
-			if (c.getRealValue() <= input) {
-				start = i;
-			}
-			if (c.getRealValue() >= input && !foundEnd) {
-				end = i;
-				foundEnd = true;
-			}
-		}
-		
-		return linearInterpolation(input, axisData[start].getRealValue(), axisData[end].getRealValue(),
-				tableData[start].getRealValue(), tableData[end].getRealValue());
+		return TableInterpolator.interpolate(getAxis().getRealValues(), getRealValues(), input);
 	}
 
     @Override
@@ -122,7 +122,6 @@ public class Table3D extends Table {
         for(DataCell[] column : data) {
             for(DataCell cell : column) {
                 cell.setTable(null);
-                cell.setRom(null);
             }
         }
 
@@ -130,6 +129,7 @@ public class Table3D extends Table {
         yAxis.clearData();
 
         data = null;
+        cellValues = null;
         xAxis=null;
         yAxis=null;
     }
@@ -163,9 +163,14 @@ public class Table3D extends Table {
     }
 
     @Override
-    public void populateTable(Rom rom) throws NullPointerException, ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {
-        validateScaling();
+    public void validateTable() {
+        super.validateTable();
+        xAxis.validateTable();
+        yAxis.validateTable();
+    }
 
+    @Override
+    public void populateTable(Rom rom) throws NullPointerException, ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {
         // fill first empty cell
         if (!beforeRam) {
             this.ramOffset = rom.getRomID().getRamOffset();
@@ -183,6 +188,8 @@ public class Table3D extends Table {
             throw new ArrayIndexOutOfBoundsException();
         }
 
+        this.rom = rom;
+        cellValues = new CellValueStore(xAxis.getDataSize() * yAxis.getDataSize());
         int offset = 0;
         int iMax = swapXY ? xAxis.getDataSize() : yAxis.getDataSize();
         int jMax = swapXY ? yAxis.getDataSize() : xAxis.getDataSize();
@@ -197,7 +204,7 @@ public class Table3D extends Table {
                     x = y;
                     y = z;
                 }
-                DataCell c = new DataCell(this, offset, rom);
+                DataCell c = new DataCell(this, offset);
                 data[x][y] = c;
                 
                 // If on last cell on row/column
@@ -320,6 +327,20 @@ public class Table3D extends Table {
         xAxis.undoAll();
     }
 
+    @Override
+    public boolean undoLastEdit() throws UserLevelException {
+        final long sequence = getLastEditSequence();
+        final long xSequence = xAxis.getLastEditSequence();
+        final long ySequence = yAxis.getLastEditSequence();
+        if (xSequence > sequence && xSequence > ySequence) {
+            return xAxis.undoLastEdit();
+        }
+        if (ySequence > sequence) {
+            return yAxis.undoLastEdit();
+        }
+        return super.undoLastEdit();
+    }
+
     @Override
     public boolean isLiveDataSupported() {
         return !isNullOrEmpty(xAxis.getLogParam()) && !isNullOrEmpty(yAxis.getLogParam());
@@ -434,24 +455,28 @@ public class Table3D extends Table {
 
     @Override
     public void multiply(double factor) throws UserLevelException {
+            TableEdit edit = beginEdit();
             for (int x = 0; x < getSizeX(); x++) {
                 for (int y = 0; y < getSizeY(); y++) {
                     if (data[x][y].isSelected()) {
-                            data[x][y].multiply(factor);
+                            edit.multiply(data[x][y], factor);
                     }
                 }
             }
+            edit.commit();
     }
 
     @Override
     public void setRealValue(String realValue) throws UserLevelException {
+        TableEdit edit = beginEdit();
         for(DataCell[] column : data) {
             for(DataCell cell : column) {
                 if(cell.isSelected()) {
-                    cell.setRealValue(realValue);
+                    edit.setRealValue(cell, realValue);
                 }
             }
         }
+        edit.commit();
         xAxis.setRealValue(realValue);
         yAxis.setRealValue(realValue);
     }
@@ -480,14 +505,16 @@ public class Table3D extends Table {
             double x, startX, endX, startY, endY;
             startX = axisData[coords[1]].getBinValue();
             endX = axisData[coords[3]].getBinValue();
+            TableEdit edit = beginEdit();
             for (i = coords[0]; i <= coords[2]; ++i) {
                 startY = tableData[i][coords[1]].getBinValue();
                 endY = tableData[i][coords[3]].getBinValue();
                 for (j = coords[1] + 1; j < coords[3]; ++j) {
                     x = axisData[j].getBinValue();
-                    tableData[i][j].setBinValue(linearInterpolation(x, startX, endX, startY, endY));
+                    edit.setBinValue(tableData[i][j], linearInterpolation(x, startX, endX, startY, endY));
                 }
             }
+            edit.commit();
         }
         // Interpolate y axis in case the y axis in selected.
         getYAxis().verticalInterpolate();
@@ -517,14 +544,16 @@ public class Table3D extends Table {
             double x, startX, endX, startY, endY;
             startX = axisData[coords[0]].getBinValue();
             endX = axisData[coords[2]].getBinValue();
+            TableEdit edit = beginEdit();
             for (i = coords[1]; i <= coords[3]; ++i) {
                 startY = tableData[coords[0]][i].getBinValue();
                 endY = tableData[coords[2]][i].getBinValue();
                 for (j = coords[0] + 1; j < coords[2]; ++j) {
                     x = axisData[j].getBinValue();
-                    tableData[j][i].setBinValue(linearInterpolation(x, startX, endX, startY, endY));
+                    edit.setBinValue(tableData[j][i], linearInterpolation(x, startX, endX, startY, endY));
                 }
             }
+            edit.commit();
         }
         // Interpolate x axis in case the x axis in selected.
         getXAxis().horizontalInterpolate();
@@ -538,52 +567,22 @@ public class Table3D extends Table {
 
 	@Override
 	public double queryTable(Double input_x, Double input_y) {
-		DataCell[][] tableData = get3dData();
-		DataCell[] axisXData = getXAxis().getData();
-		DataCell[] axisYData = getYAxis().getData();
-
-		int startX = 0;
-		int endX = axisXData.length - 1;
-		boolean foundEnd = false;
-
-		for (int i = 0; i < axisXData.length; i++) {
-			DataCell c = axisXData[i];
-			if (c.getRealValue() <= input_x) {
-				startX = i;
-			}
-			if (c.getRealValue() >= input_x && !foundEnd) {
-				foundEnd = true;
-				endX = i;
-			}
-		}
-
-		int startY = 0;
-		int endY = axisYData.length - 1;
-		foundEnd = false;
-
-		for (int i = 0; i < axisYData.length; i++) {
-			DataCell c = axisYData[i];
-			if (c.getRealValue() <= input_y) {
-				startY = i;
-			}
-			if (c.getRealValue() >= input_y && !foundEnd) {
-				endY = i;
-				foundEnd = true;
-			}
-		}
-
-		double valueX1 = linearInterpolation(input_x, axisXData[startX].getRealValue(),
-				axisXData[endX].getRealValue(), tableData[startX][startY].getRealValue(),
-				tableData[endX][startY].getRealValue());
-
-		double valueX2 = linearInterpolation(input_x, axisXData[startX].getRealValue(),
-				axisXData[endX].getRealValue(), tableData[endX][startY].getRealValue(),
-				tableData[endX][startY].getRealValue());
-
-		return linearInterpolation(input_y, axisYData[startY].getRealValue(), axisYData[endY].getRealValue(),
-				valueX1, valueX2);
+		return TableInterpolator.interpolate(getXAxis().getRealValues(),
+				getYAxis().getRealValues(), getRealValues(), input_x, input_y);
 	}
 
+    @Override
+    protected double[] readRealValues() {
+        final int sizeY = getSizeY();
+        final double[] values = new double[getSizeX() * sizeY];
+        for (int x = 0; x < getSizeX(); x++) {
+            for (int y = 0; y < sizeY; y++) {
+                values[x * sizeY + y] = data[x][y].getRealValue();
+            }
+        }
+        return values;
+    }
+
     @Override
     public String getLogParamString() {
         StringBuilder sb = new StringBuilder();
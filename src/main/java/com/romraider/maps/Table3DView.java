@@ -521,6 +521,7 @@ public class Table3DView extends TableView {
         }
         
         // set values
+        TableEdit edit = table.beginEdit();
         for (int y = startY; st.hasMoreTokens() && y < table.getSizeY(); y++) {
             String checkToken = st.nextToken(Settings.NEW_LINE);
             if (y==startY && checkToken.endsWith("\t")) {
@@ -532,11 +533,12 @@ public class Table3DView extends TableView {
 
                 try {
                     if (!data[x][y].getText().equalsIgnoreCase(currentToken)) {
-                        data[x][y].getDataCell().setRealValue(currentToken);
+                        edit.setRealValue(data[x][y].getDataCell(), currentToken);
                     }
                 } catch (ArrayIndexOutOfBoundsException ex) { /* copied table is larger than current table*/ }
             }
         }
+        edit.commit();
     }
 
     @Override
@@ -551,6 +553,11 @@ public class Table3DView extends TableView {
         }
     }
 
+    @Override
+    public void highlightLiveData(String liveVal, double liveValue) {
+        highlightLiveData(liveVal);
+    }
+
     @Override
     public void updateLiveDataHighlight() {
         if (getOverlayLog()) {
@@ -33,7 +33,6 @@ public class TableBitwiseSwitch extends TableSwitch {
 	@Override
     public void populateTable(Rom rom) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {      
     	if(isStaticDataTable()) return;       
-        validateScaling();
 
         // temporarily remove lock;
         boolean tempLock = locked;
@@ -44,9 +43,11 @@ public class TableBitwiseSwitch extends TableSwitch {
         }
 
         setDataSize(bits.size());
+        this.rom = rom;
+        cellValues = new CellValueStore(bits.size());
         int i = 0;
         for (int bit : bits) {
-            data[i] = new DataCell(this, 0, rom); //Offset is always 0
+            data[i] = new DataCell(this, 0); //Offset is always 0
             data[i].setBitMask(ByteUtil.bitToMask(bit));
             data[i].updateBinValueFromMemory();
             i++;
@@ -0,0 +1,283 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static java.lang.System.arraycopy;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A batch of cell changes to one table.  The new values are collected
+ * first and checked and written to the image together on {@link #commit()},
+ * so the cells stored at the same address are updated and the table is
+ * drawn once for the whole batch instead of once per cell.  The bytes
+ * changed by a batch are kept by the table so it can be undone in one step.
+ */
+public final class TableEdit {
+    private final Table table;
+    private DataCell[] cells = new DataCell[16];
+    private double[] values = new double[16];
+    private int size;
+
+    TableEdit(Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Queue a real value entered by the user, x and values that are not a
+     * number are ignored.
+     */
+    public void setRealValue(DataCell cell, String input) {
+        final double value = cell.parseRealValue(input);
+        if (!Double.isNaN(value)) {
+            setBinValue(cell, value);
+        }
+    }
+
+    public void multiply(DataCell cell, double factor) {
+        setBinValue(cell, cell.toBinValue(cell.getRealValue() * factor));
+    }
+
+    public void setBinValue(DataCell cell, double binValue) {
+        if (cell.getTable() != table) {
+            throw new IllegalArgumentException("Cell is not part of table " + table);
+        }
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        cells[size] = cell;
+        values[size++] = binValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Write the queued values to the image and draw the table.
+     * @return  true if any byte of the image changed
+     * @throws UserLevelException if the user level is too low to modify
+     *          the table, nothing is changed then
+     */
+    public boolean commit() throws UserLevelException {
+        if (size == 0 || table.isLocked() || table.getName().contains("Checksum Fix")) {
+            return false;
+        }
+        if (table.getUserLevel() > table.getSettings().getUserLevel()) {
+            throw new UserLevelException(table.getUserLevel());
+        }
+
+        // check all values before anything is written
+        for (int i = 0; i < size; i++) {
+            values[i] = cells[i].clampBinValue(values[i]);
+        }
+
+        final boolean boschSubtract = table.getDataLayout() == Table.DataLayout.BOSCH_SUBTRACT;
+        final DataCell[] written = boschSubtract ? table.getData() : changedCells();
+        if (written.length == 0) {
+            return false;
+        }
+
+        final byte[] binData = table.getRom().getBinary();
+        final int[] ranges = byteRanges(written);
+        final byte[] before = copy(binData, ranges);
+
+        if (boschSubtract) {
+            // a cell is stored relative to the cells after it, write back to front
+            int last = -1;
+            for (int i = 0; i < size; i++) {
+                if (cells[i].storeBinValue(values[i])) {
+                    last = Math.max(last, cells[i].getIndexInTable());
+                }
+            }
+            for (int i = last; i >= 0; i--) {
+                written[i].writeBinValue();
+            }
+        }
+        else {
+            for (DataCell cell : written) {
+                cell.writeBinValue();
+            }
+        }
+
+        final Entry entry = Entry.diff(written, binData, ranges, before);
+        for (DataCell cell : written) {
+            cell.refreshFromMemory();
+        }
+        size = 0;
+        if (entry == null) {
+            return false;
+        }
+        table.addEdit(entry);
+        if (table.getTableView() != null) {
+            table.getTableView().drawTable();
+        }
+        return true;
+    }
+
+    // store the new values, in order so the last value queued for a cell wins
+    private DataCell[] changedCells() {
+        final DataCell[] changed = new DataCell[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (cells[i].storeBinValue(values[i])) {
+                changed[count++] = cells[i];
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * @return  the merged byte ranges of the cells as start and end pairs
+     */
+    private static int[] byteRanges(DataCell[] cells) {
+        final long[] spans = new long[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            spans[i] = ((long) cells[i].getByteAddress() << 32) | cells[i].getByteLength();
+        }
+        Arrays.sort(spans);
+
+        final int[] ranges = new int[spans.length * 2];
+        int count = 0;
+        for (long span : spans) {
+            final int start = (int) (span >>> 32);
+            final int end = start + (int) span;
+            if (count > 0 && start <= ranges[count - 1]) {
+                ranges[count - 1] = Math.max(ranges[count - 1], end);
+            }
+            else {
+                ranges[count++] = start;
+                ranges[count++] = end;
+            }
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    private static byte[] copy(byte[] binData, int[] ranges) {
+        final byte[] bytes = new byte[Entry.byteCount(ranges)];
+        int offset = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            arraycopy(binData, ranges[i], bytes, offset, ranges[i + 1] - ranges[i]);
+            offset += ranges[i + 1] - ranges[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * The bytes a batch changed, only the runs of bytes that differ are
+     * kept with their value before the batch.
+     */
+    static final class Entry {
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+        private final long sequence;
+        private final DataCell[] cells;
+        private final int[] ranges;
+        private final byte[] bytes;
+
+        private Entry(DataCell[] cells, int[] ranges, byte[] bytes) {
+            sequence = SEQUENCE.incrementAndGet();
+            this.cells = cells;
+            this.ranges = ranges;
+            this.bytes = bytes;
+        }
+
+        private static Entry diff(DataCell[] cells, byte[] binData, int[] ranges, byte[] before) {
+            int[] runs = new int[16];
+            int count = 0;
+            int offset = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                for (int address = ranges[i]; address < ranges[i + 1]; address++, offset++) {
+                    if (binData[address] == before[offset]) {
+                        continue;
+                    }
+                    if (count > 0 && runs[count - 1] == address) {
+                        runs[count - 1]++;
+                        continue;
+                    }
+                    if (count + 2 > runs.length) {
+                        runs = Arrays.copyOf(runs, runs.length * 2);
+                    }
+                    runs[count++] = address;
+                    runs[count++] = address + 1;
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+
+            // keep the old values of the changed runs only
+            runs = Arrays.copyOf(runs, count);
+            final byte[] changed = new byte[byteCount(runs)];
+            int from = 0;
+            int to = 0;
+            for (int i = 0, r = 0; r < count; i += 2) {
+                if (runs[r] >= ranges[i + 1]) {
+                    from += ranges[i + 1] - ranges[i];
+                    continue;
+                }
+                for (; r < count && runs[r] < ranges[i + 1]; r += 2) {
+                    final int length = runs[r + 1] - runs[r];
+                    arraycopy(before, from + runs[r] - ranges[i], changed, to, length);
+                    to += length;
+                }
+                from += ranges[i + 1] - ranges[i];
+            }
+            return new Entry(cells, runs, changed);
+        }
+
+        private static int byteCount(int[] ranges) {
+            int count = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                count += ranges[i + 1] - ranges[i];
+            }
+            return count;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return  the number of bytes the batch changed
+         */
+        int size() {
+            return bytes.length;
+        }
+
+        /**
+         * Write the bytes back as they were before the batch.
+         */
+        void restore(Rom rom) {
+            final byte[] binData = rom.getBinary();
+            int offset = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                final int length = ranges[i + 1] - ranges[i];
+                arraycopy(bytes, offset, binData, ranges[i], length);
+                rom.markDirty(ranges[i], ranges[i + 1]);
+                offset += length;
+            }
+            for (DataCell cell : cells) {
+                cell.refreshFromMemory();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+/**
+ * Lookup and interpolation over the real values of table axes and cells,
+ * see {@link Table#getRealValues()}.  Axes may be ascending or descending,
+ * inputs outside an axis are clamped to its first or last value.
+ */
+public final class TableInterpolator {
+
+    private TableInterpolator() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Find the axis position at or below a value.
+     * @param   axis - the ascending or descending axis values
+     * @param   value - the value to find
+     * @return  the position of the last axis value not past the value,
+     *          or -1 if the value is before the first axis value
+     */
+    public static int floorIndex(double[] axis, double value) {
+        final int last = axis.length - 1;
+        if (last < 0) {
+            return -1;
+        }
+        final boolean descending = axis[0] > axis[last];
+        int low = 0;
+        int high = last;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (descending ? axis[mid] >= value : axis[mid] <= value) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Interpolate the value of a 2D table.
+     * @param   axis - the real axis values
+     * @param   values - the real cell values, one per axis value
+     * @param   x - the axis input
+     * @return  the interpolated value
+     */
+    public static double interpolate(double[] axis, double[] values, double x) {
+        final int n = Math.min(axis.length, values.length);
+        final int i = clamp(floorIndex(axis, x), n - 2);
+        if (n == 1) {
+            return values[0];
+        }
+        final double t = fraction(axis[i], axis[i + 1], x);
+        return values[i] + t * (values[i + 1] - values[i]);
+    }
+
+    /**
+     * Interpolate the value of a 3D table.
+     * @param   xAxis - the real X axis values
+     * @param   yAxis - the real Y axis values
+     * @param   values - the real cell values with the value of cell x,y at
+     *          <code>x * yAxis.length + y</code>
+     * @param   x - the X axis input
+     * @param   y - the Y axis input
+     * @return  the bilinear interpolated value
+     */
+    public static double interpolate(double[] xAxis, double[] yAxis, double[] values,
+            double x, double y) {
+        final int sizeY = yAxis.length;
+        final int i = clamp(floorIndex(xAxis, x), xAxis.length - 2);
+        final int j = clamp(floorIndex(yAxis, y), sizeY - 2);
+        final int i1 = Math.min(i + 1, xAxis.length - 1);
+        final int j1 = Math.min(j + 1, sizeY - 1);
+        final double tx = fraction(xAxis[i], xAxis[i1], x);
+        final double ty = fraction(yAxis[j], yAxis[j1], y);
+
+        final double v00 = values[i * sizeY + j];
+        final double v10 = values[i1 * sizeY + j];
+        final double v01 = values[i * sizeY + j1];
+        final double v11 = values[i1 * sizeY + j1];
+        final double v0 = v00 + tx * (v10 - v00);
+        final double v1 = v01 + tx * (v11 - v01);
+        return v0 + ty * (v1 - v0);
+    }
+
+    private static int clamp(int index, int max) {
+        return Math.max(0, Math.min(index, max));
+    }
+
+    // position of x between two axis values, limited to the segment
+    private static double fraction(double x1, double x2, double x) {
+        if (x1 == x2) {
+            return 0.0;
+        }
+        final double t = (x - x1) / (x2 - x1);
+        return t < 0.0 ? 0.0 : t > 1.0 ? 1.0 : t;
+    }
+}
@@ -46,9 +46,9 @@ public class TableSwitch extends Table1D {
     
     //TODO: Clean this up!
     @Override
-    public void populateTable(Rom rom) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {
-        super.populateTable(rom);
-        
+    public void validateTable() {
+        super.validateTable();
+
 	    // Validate the ROM image checksums.
 	    // if the result is >0: position of failed checksum
 	    // if the result is  0: all the checksums matched
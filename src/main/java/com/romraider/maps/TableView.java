@@ -752,12 +752,14 @@ public abstract class TableView extends JPanel implements Serializable {
 
     public void pasteValues(String[] input) throws UserLevelException {
         //set real values
+        TableEdit edit = table.beginEdit();
         for (int i = 0; i < input.length; i++) {
             try {
                 Double.parseDouble(input[i]);
-                data[i].getDataCell().setRealValue(input[i]);
+                edit.setRealValue(data[i].getDataCell(), input[i]);
             } catch (NumberFormatException ex) { /* not a number, do nothing */ }
         }
+        edit.commit();
     }
 
     public void paste() throws UserLevelException {
@@ -794,18 +796,20 @@ public abstract class TableView extends JPanel implements Serializable {
             	}
             	
                 if ((selectedOnly && data[startSelection].isSelected()) || !selectedOnly) {
+                    TableEdit edit = table.beginEdit();
                     int i = 0;
                     while (st.hasMoreTokens()) {
                         String currentToken = st.nextToken();
                         try {
                             if (!data[startSelection + i].getText().equalsIgnoreCase(currentToken)) {
-                                data[startSelection + i].getDataCell().setRealValue(currentToken);
+                                edit.setRealValue(data[startSelection + i].getDataCell(), currentToken);
                             }
                         } catch (ArrayIndexOutOfBoundsException ex) {
                         	break;
                         }
                         i++;
                     }
+                    edit.commit();
                 }
             }
         }
@@ -881,20 +885,18 @@ public abstract class TableView extends JPanel implements Serializable {
             	LOGGER.error("Table - live data highlight parsing error for value: " + liveVal);
             	return;
             }
+            highlightLiveData(liveVal, liveValue);
+        }
+    }
 
-            int startIdx = data.length;
-            for (int i = 0; i < data.length; i++) {
-                double currentValue = data[i].getDataCell().getRealValue();
-                if (liveValue == currentValue) {
-                    startIdx = i;
-                    break;
-                } else if (liveValue < currentValue){
-                    startIdx = i-1;
-                    break;
-                }
-            }
-
-            setLiveDataIndex(startIdx);
+    /**
+     * Highlight the cell of a live value that is already parsed.
+     * @param   liveVal - the formatted live value to display
+     * @param   liveValue - the live value
+     */
+    public void highlightLiveData(String liveVal, double liveValue) {
+        if (getOverlayLog()) {
+            setLiveDataIndex(TableInterpolator.floorIndex(table.getRealValues(), liveValue));
             DataCellView cell = data[getLiveDataIndex()];
             cell.setPreviousLiveDataTrace(false);
             cell.setLiveDataTrace(true);
@@ -0,0 +1,115 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import java.util.Arrays;
+
+/**
+ * Partial totals of a checksum over a range of the image, cached per
+ * block.  After the image changed only the blocks in a dirty range are
+ * read again and combined with the cached totals of the other blocks.
+ * A total is either a sum or an xor, both can be combined in any order.
+ */
+abstract class BlockSums {
+    static final int BLOCK_SIZE = 0x1000;
+    // a word read at the end of a block reaches into the next block
+    private static final int WORD_OVERLAP = 3;
+    private final int start;
+    private final int end;
+    private final int lanes;
+    private final int xorLanes;
+    private final int[] blocks;
+    private final int[] totals;
+    private boolean cached;
+
+    /**
+     * @param start - the first address of the range
+     * @param end - the address after the range
+     * @param lanes - the number of totals
+     * @param xorLanes - a bit set for each total combined by xor instead of sum
+     */
+    BlockSums(int start, int end, int lanes, int xorLanes) {
+        this.start = start;
+        this.end = Math.max(start, end);
+        this.lanes = lanes;
+        this.xorLanes = xorLanes;
+        final int count = Math.max(1, (this.end - start + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        blocks = new int[count * lanes];
+        totals = new int[lanes];
+    }
+
+    /**
+     * Add the totals of the addresses from the first up to the last.
+     * @param totals - the totals of the block, starting at offset
+     */
+    protected abstract void calculate(byte[] data, int from, int to, int[] totals, int offset);
+
+    /**
+     * Calculate the totals over the whole range.
+     * @return  the totals, valid until the next calculation
+     */
+    final int[] calculate(byte[] data) {
+        return calculate(data, null, null);
+    }
+
+    /**
+     * Calculate the totals reading only the blocks changed since the last
+     * calculation, or all blocks if there was none.
+     * @return  the totals, valid until the next calculation
+     */
+    final int[] calculate(byte[] data, DirtyRanges dirty, DirtyRanges written) {
+        final boolean all = !cached || dirty == null || written == null
+                || dirty.isAll() || written.isAll();
+        for (int b = 0, offset = 0; offset < blocks.length; b++, offset += lanes) {
+            final int from = start + b * BLOCK_SIZE;
+            final int to = Math.min(from + BLOCK_SIZE, end);
+            if (all || dirty.intersects(from, to + WORD_OVERLAP)
+                    || written.intersects(from, to + WORD_OVERLAP)) {
+                Arrays.fill(blocks, offset, offset + lanes, 0);
+                calculate(data, from, to, blocks, offset);
+            }
+        }
+        cached = true;
+
+        Arrays.fill(totals, 0);
+        for (int offset = 0; offset < blocks.length; offset += lanes) {
+            for (int lane = 0; lane < lanes; lane++) {
+                if ((xorLanes & (1 << lane)) != 0) {
+                    totals[lane] ^= blocks[offset + lane];
+                }
+                else {
+                    totals[lane] += blocks[offset + lane];
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * @return  the first address from an address on, stepping from
+     *          a loop start
+     */
+    static int first(int loopStart, int step, int from) {
+        if (from <= loopStart) {
+            return loopStart;
+        }
+        return from + (step - (from - loopStart) % step) % step;
+    }
+}
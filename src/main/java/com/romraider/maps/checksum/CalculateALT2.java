@@ -42,46 +42,108 @@ public final class CalculateALT2 implements Calculator {
             byte[] binData,
             Map<String, Integer> results) {
 
+        final int[] totals = new int[getNumberOfTotals()];
+        calculate(range, binData, range.get(START), range.get(END), totals, 0);
+        results(range, totals, results);
+    }
+
+    /**
+     * The 32bit sum and xor, the 16bit calibration sum without the 32bit
+     * sumt and xort and the 16bit code sum.
+     */
+    public final int getNumberOfTotals() {
+        return 4;
+    }
+
+    public final void calculate(
+            Map<String, Integer> range,
+            byte[] binData,
+            int from,
+            int to,
+            int[] totals,
+            int offset) {
+
+        final int start = range.get(START);
+        final int end = Math.min(to, range.get(END));
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        final int skiploc = range.get(SKIPLOC);
+
         // 32bit checksum calculation 
         int sumt = 0;
         int xort = 0;
         int dw = 0;
-        for (int i = range.get(START) + 4; i < range.get(END); i += 4) {
-            if ((i == range.get(SUMLOC))
-                    || (i == range.get(XORLOC)
-                    || (i == range.get(SKIPLOC)))) continue;
+        for (int i = BlockSums.first(start + 4, 4, from); i < end; i += 4) {
+            if ((i == sumloc)
+                    || (i == xorloc
+                    || (i == skiploc))) continue;
             dw = (int)parseByteValue(binData, Settings.Endian.BIG, i, 4, true);
             sumt += dw;
             xort ^= dw;
         }
-        results.put(SUMT, sumt);
-        results.put(XORT, xort);
+        totals[offset] += sumt;
+        totals[offset + 1] ^= xort;
 
-        // 16bit calibration checksum calculation
+        // 16bit calibration checksum calculation, the words of the 32bit
+        // sumt and xort are skipped and added by results
+        final boolean hasSum = includesSum(range);
+        final boolean hasXor = includesXor(range);
         short sum = 0;
-        for (int i = range.get(START) + 2; i < range.get(SKIPLOC); i += 2) {
-            if (i == range.get(SUMLOC)) {    // include 32bit sumt
-                dw = results.get(SUMT);
-                sum += (short)((dw >> 16) & 0xffff);
-                sum += (short)(dw & 0xffff);
-                i += 2; // advance 2 bytes as sumt is 32bits
-                continue;
-            }
-            if (i == range.get(XORLOC)) {    // include 32bit xort
-                dw = results.get(XORT);
-                sum += (short)((dw >> 16) & 0xffff);
-                sum += (short)(dw & 0xffff);
-                i += 2; // advance 2 bytes as xort is 32bits
-                continue;
-            }        
+        final int calEnd = Math.min(to, skiploc);
+        for (int i = BlockSums.first(start + 2, 2, from); i < calEnd; i += 2) {
+            if ((hasSum && (i == sumloc || i == sumloc + 2))
+                    || (hasXor && (i == xorloc || i == xorloc + 2))) continue;
             sum += (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false); 
         }
-        results.put(START, (int)sum);
+        totals[offset + 2] += sum;
+
         // 16bit code checksum calculation
         sum = 0;
-        for (int i = range.get(SKIPLOC) + 2; i < range.get(END); i += 2) {
+        for (int i = BlockSums.first(skiploc + 2, 2, from); i < end; i += 2) {
             sum += (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false);
         }
-        results.put(SKIPLOC, (int)sum);
+        totals[offset + 3] += sum;
+    }
+
+    public final void results(
+            Map<String, Integer> range,
+            int[] totals,
+            Map<String, Integer> results) {
+
+        results.put(SUMT, totals[0]);
+        results.put(XORT, totals[1]);
+        short sum = (short)totals[2];
+        if (includesSum(range)) {    // include 32bit sumt
+            sum += (short)((totals[0] >> 16) & 0xffff);
+            sum += (short)(totals[0] & 0xffff);
+        }
+        if (includesXor(range)) {    // include 32bit xort
+            sum += (short)((totals[1] >> 16) & 0xffff);
+            sum += (short)(totals[1] & 0xffff);
+        }
+        results.put(START, (int)sum);
+        results.put(SKIPLOC, (int)(short)totals[3]);
+    }
+
+    // the calibration sum includes sumt if its word is reached, it is not
+    // when it is the second word of xort
+    private static boolean includesSum(Map<String, Integer> range) {
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        return isCalibrationWord(range, sumloc)
+                && !(isCalibrationWord(range, xorloc) && sumloc == xorloc + 2);
+    }
+
+    private static boolean includesXor(Map<String, Integer> range) {
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        return isCalibrationWord(range, xorloc)
+                && !(isCalibrationWord(range, sumloc) && xorloc == sumloc + 2);
+    }
+
+    private static boolean isCalibrationWord(Map<String, Integer> range, int address) {
+        final int start = range.get(START) + 2;
+        return address >= start && address < range.get(SKIPLOC)
+                && ((address - start) & 1) == 0;
     }
 }
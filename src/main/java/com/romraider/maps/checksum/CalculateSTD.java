@@ -41,16 +41,45 @@ public final class CalculateSTD implements Calculator {
             byte[] binData,
             Map<String, Integer> results) {
 
+        final int[] totals = new int[getNumberOfTotals()];
+        calculate(range, binData, range.get(START), range.get(END), totals, 0);
+        results(range, totals, results);
+    }
+
+    public final int getNumberOfTotals() {
+        return 2;
+    }
+
+    public final void calculate(
+            Map<String, Integer> range,
+            byte[] binData,
+            int from,
+            int to,
+            int[] totals,
+            int offset) {
+
+        final int end = Math.min(to, range.get(END));
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
         int sumt = 0;
         int xort = 0;
         int dw = 0;
-        for (int i = range.get(START); i < range.get(END); i += 4) {
-            if ((i == range.get(SUMLOC)) || (i == range.get(XORLOC))) continue;
+        for (int i = BlockSums.first(range.get(START), 4, from); i < end; i += 4) {
+            if ((i == sumloc) || (i == xorloc)) continue;
             dw = (int)parseByteValue(binData, Settings.Endian.BIG, i, 4, true);
             sumt += dw;
             xort ^= dw;
         }
-        results.put(SUMT, sumt);
-        results.put(XORT, xort);
+        totals[offset] += sumt;
+        totals[offset + 1] ^= xort;
+    }
+
+    public final void results(
+            Map<String, Integer> range,
+            int[] totals,
+            Map<String, Integer> results) {
+
+        results.put(SUMT, totals[0]);
+        results.put(XORT, totals[1]);
     }
 }
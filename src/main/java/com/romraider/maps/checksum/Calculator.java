@@ -35,4 +35,32 @@ public interface Calculator {
      */
     void calculate(
             Map<String, Integer> range, byte[] binData, Map<String, Integer> results);
+
+    /**
+     * @return  the number of partial totals, the first is a sum and the
+     *          second an xor total of 32bit words, further totals are sums
+     */
+    int getNumberOfTotals();
+
+    /**
+     * Add the partial totals of the addresses from the first up to the last
+     * within the address range.
+     * @param	range	- a map of with the address ranges use.
+     * @param   binData - the binary data t calculate over.
+     * @param   from	- the first address
+     * @param   to		- the address after the last
+     * @param   totals	- the totals to add to, starting at offset
+     */
+    void calculate(
+            Map<String, Integer> range, byte[] binData, int from, int to,
+            int[] totals, int offset);
+
+    /**
+     * Put the results from the partial totals over the whole address range.
+     * @param	range	- a map of with the address ranges use.
+     * @param   totals	- the totals of the whole range
+     * @param   results - a map containing the keys for sumt and xort
+     */
+    void results(
+            Map<String, Integer> range, int[] totals, Map<String, Integer> results);
 }
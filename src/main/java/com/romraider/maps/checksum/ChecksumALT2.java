@@ -56,7 +56,7 @@ public final class ChecksumALT2 extends NissanChecksum {
 
     @Override
     public int validate(byte[] binData) {
-        calculator.calculate(range, binData, results);
+        calculate(binData);
         int valid = 0;
 
         if(results.get(SUMT) == (int)parseByteValue(binData, Settings.Endian.BIG, range.get(SUMLOC), 4, true)) {
@@ -86,4 +86,12 @@ public final class ChecksumALT2 extends NissanChecksum {
         System.arraycopy(parseIntegerValue(results.get(SKIPLOC), Settings.Endian.BIG, 2), 0, binData, range.get(SKIPLOC), 2);
         return getNumberOfChecksums();
     }
+
+    @Override
+    public int update(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
+        // SUMT & XORT are updated in super before START and SKIPLOC
+        return super.update(binData, dirty, written)
+                + write(binData, results.get(START), range.get(START), 2, written)
+                + write(binData, results.get(SKIPLOC), range.get(SKIPLOC), 2, written);
+    }
 }
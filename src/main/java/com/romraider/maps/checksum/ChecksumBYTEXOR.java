@@ -30,7 +30,7 @@ import com.romraider.util.HexUtil;
  * This class implements the XOR single byte checksum validation and calculations
  * for some BMW non-engine ECU ROMs.
  */
-    public final class ChecksumBYTEXOR implements ChecksumManager {
+    public final class ChecksumBYTEXOR implements IncrementalChecksumManager {
     private static final String START = "start";
     private static final String END = "end";
     private static final String XORLOC = "xorloc";
@@ -38,12 +38,19 @@ import com.romraider.util.HexUtil;
     private int end;
     private int xorloc;
     private byte xort;  
+    private BlockSums sums;
 
     @Override
     public void configure(Map<String, String> vars) {
         this.start = HexUtil.hexToInt(vars.get(START));
         this.end = HexUtil.hexToInt(vars.get(END));
         this.xorloc = HexUtil.hexToInt(vars.get(XORLOC));
+        this.sums = new BlockSums(start, end, 1, 0x1) {
+            @Override
+            protected void calculate(byte[] data, int from, int to, int[] totals, int offset) {
+                totals[offset] ^= ChecksumBYTEXOR.this.calculate(data, from, to);
+            }
+        };
     }
     
 	@Override
@@ -53,7 +60,7 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        calculate(binData);
+        xort = (byte) sums.calculate(binData)[0];
         int valid = 0;
         
         if(xort == (byte)parseByteValue(binData, Settings.Endian.BIG, xorloc, 1, false))
@@ -64,23 +71,32 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int update(byte[] binData) {
+    	return update(binData, null, new DirtyRanges());
+    }
+
+    @Override
+    public int update(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
     	int updateNeeded = 0;
-		calculate(binData);
+		xort = (byte) sums.calculate(binData, dirty, written)[0];
 		
-		if(binData[xorloc] != xort) updateNeeded++;
+		if(binData[xorloc] != xort) {
+			updateNeeded++;
+			written.add(xorloc, xorloc + 1);
+		}
 		
     	binData[xorloc] = xort;	
     	
     	return updateNeeded;
     }
 
-    private void calculate(byte[] binData) {
-        xort = 0;
+    private byte calculate(byte[] binData, int from, int to) {
+        byte xort = 0;
         int dw = 0;
-        for (int i = start; i < end; i += 1) {
+        for (int i = from; i < to; i += 1) {
             if ((i == xorloc)) continue;
             dw = (byte)parseByteValue(binData, Settings.Endian.BIG, i, 1, false);
             xort ^= dw;
         }
+        return xort;
     }
 }
\ No newline at end of file
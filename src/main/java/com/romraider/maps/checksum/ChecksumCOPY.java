@@ -27,7 +27,7 @@ import com.romraider.util.HexUtil;
  * ECUs. It simply checks if an array of data is identical to a specified
  * location and copies it over if necessary
  */
-public final class ChecksumCOPY implements ChecksumManager {
+public final class ChecksumCOPY implements IncrementalChecksumManager {
 	private static final String START = "start";
 	private static final String END = "end";
 	private static final String LOC = "loc";
@@ -68,4 +68,14 @@ public final class ChecksumCOPY implements ChecksumManager {
 		}
 		return updateNeeded;
 	}
+
+	@Override
+	public int update(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
+		// comparing is as fast as summing, nothing is cached
+		final int updateNeeded = update(binData);
+		if (updateNeeded > 0) {
+			written.add(loc, loc + end - start + 1);
+		}
+		return updateNeeded;
+	}
 }
\ No newline at end of file
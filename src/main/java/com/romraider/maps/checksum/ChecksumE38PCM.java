@@ -28,7 +28,9 @@ import com.romraider.xml.RomAttributeParser;
  * This class implements the E38 (GM) PCM checksum algorithm Implementation
  * ported from: https://github.com/antuspcm/E38-Sum-Tool
  */
-public final class ChecksumE38PCM implements ChecksumManager {
+public final class ChecksumE38PCM implements IncrementalChecksumManager {
+	private static final int INDEX = 0x10000;
+	private static final int INDEX_END = INDEX + 0xdc;
 	segment[] seg = new segment[7];
 
 	class segment {
@@ -70,12 +72,37 @@ public final class ChecksumE38PCM implements ChecksumManager {
 
 	@Override
 	public int update(byte[] binData) {
+		return update(binData, null, new DirtyRanges());
+	}
+
+	/**
+	 * The CRC of a segment can not be split, only the segments with a
+	 * changed byte are calculated again.  All are if the index changed.
+	 */
+	@Override
+	public int update(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
 		int correctedChecksums = 0;
-		
+		final DirtyRanges changed = new DirtyRanges();
+		final boolean all = dirty == null || !isCalculated()
+				|| dirty.intersects(INDEX, INDEX_END)
+				|| written.intersects(INDEX, INDEX_END);
+
 		// Seems like some checksums depend on each other?
 		// Need to do it twice
 		for (int k = 0; k < 2; k++) {
-			calculate(binData);
+			if (k == 0 && all) {
+				calculate(binData);
+			}
+			else {
+				for (int i = 1; i <= 6; i++) {
+					final int start = seg[i].start;
+					final int end = seg[i].end + 1;
+					if (changed.intersects(start, end) || (k == 0
+							&& (dirty.intersects(start, end) || written.intersects(start, end)))) {
+						calculate(binData, seg[i]);
+					}
+				}
+			}
 
 			for (int i = 1; i <= 6; i++) {
 				if (seg[i].ccvn != seg[i].lcvn) {
@@ -83,22 +110,35 @@ public final class ChecksumE38PCM implements ChecksumManager {
 
 					binData[seg[i].start + 0x1E] = (byte) ((seg[i].ccvn >>> 8) & 0xFF);
 					binData[seg[i].start + 0x1E + 1] = (byte) ((seg[i].ccvn) & 0xFF);
-
+					seg[i].lcvn = seg[i].ccvn;
+					changed.add(seg[i].start + 0x1E, seg[i].start + 0x20);
 				}
 				if (seg[i].lsum != seg[i].csum) {
 					correctedChecksums++;
 
 					binData[seg[i].start] = (byte) ((seg[i].csum >>> 8) & 0xFF);
 					binData[seg[i].start + 1] = (byte) ((seg[i].csum) & 0xFF);
+					seg[i].lsum = seg[i].csum;
+					changed.add(seg[i].start, seg[i].start + 2);
 				}
 			}
 		}
+		written.add(changed);
 		return correctedChecksums;
 	}
 
+	private boolean isCalculated() {
+		for (int i = 1; i <= 6; i++) {
+			if (seg[i] == null || !seg[i].calculated) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private void calculate(byte[] bin) {
 		// load index
-		int index = 0x10000;
+		int index = INDEX;
 		for (int i = 1; i <= 6; i++) {
 			seg[i] = new segment();
 		}
@@ -143,14 +183,18 @@ public final class ChecksumE38PCM implements ChecksumManager {
 
 		// load data, log
 		for (int i = 1; i <= 6; i++) {
-			seg[i].lsum = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, seg[i].start, 2, false);
-			seg[i].lcvn = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, seg[i].start + 0x1E, 2, false);
-			seg[i].csum = segmentsum(bin, seg[i].start, seg[i].end);
-			seg[i].ccvn = segmentcvn(bin, seg[i].start, seg[i].end);
-			seg[i].calculated = true;
+			calculate(bin, seg[i]);
 		}
 	}
 
+	private void calculate(byte[] bin, segment s) {
+		s.lsum = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, s.start, 2, false);
+		s.lcvn = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, s.start + 0x1E, 2, false);
+		s.csum = segmentsum(bin, s.start, s.end);
+		s.ccvn = segmentcvn(bin, s.start, s.end);
+		s.calculated = true;
+	}
+
 	private int gmcrc16(byte[] bin, long init, int s, int e) {
 		int num;
 		byte num2;
@@ -19,11 +19,8 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-
 import java.util.Map;
 
-import com.romraider.Settings;
 import com.romraider.util.HexUtil;
 
 /**
@@ -35,12 +32,14 @@ import com.romraider.util.HexUtil;
     
     private int start2;
     private int end2;
+    private BlockSums sums2;
 
     @Override
     public void configure(Map<String, String> vars) {
     	super.configure(vars);
         this.start2 = HexUtil.hexToInt(vars.get(START2));
         this.end2 = HexUtil.hexToInt(vars.get(END2));
+        sums2 = sums(start2, end2);
     }
     
 	@Override
@@ -49,34 +48,8 @@ import com.romraider.util.HexUtil;
 	}
 
     @Override
-    public int validate(byte[] binData) {
-		short checksum = calculate(initial, binData, start, end);
-		checksum = calculate(checksum, binData, start2, end2);
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
-        int valid = 0;
-        
-        if(checksum == checksumInBin)
-        	valid++;
-        	
-        return valid;  	
-    }
-    
-    @Override
-    public int update(byte[] binData) {
-    	int updateNeeded = 0;
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
-		
-		short checksum = calculate(initial, binData, start, end);
-		checksum = calculate(checksum, binData, start2, end2);
-		
-		if(checksumInBin != checksum)
-		{
-			updateNeeded++;
-		
-	    	binData[loc] = (byte)((checksum >> 8) & 0xFF);
-	    	binData[loc+1] = (byte)((checksum) & 0xFF);
-		}
-    	
-    	return updateNeeded;
+    protected short calculate(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
+        return (short)(super.calculate(binData, dirty, written)
+                + sums2.calculate(binData, dirty, written)[0]);
     }
-}
\ No newline at end of file
+}
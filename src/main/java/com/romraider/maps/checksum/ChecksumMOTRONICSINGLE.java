@@ -29,7 +29,7 @@ import com.romraider.util.HexUtil;
 /**
  * This class implements the Single Checksum for some older Motronic Ecus
  */
-    public class ChecksumMOTRONICSINGLE implements ChecksumManager {
+    public class ChecksumMOTRONICSINGLE implements IncrementalChecksumManager {
     protected static final String START = "start";
     protected static final String END = "end";
     protected static final String LOC = "loc";
@@ -39,6 +39,7 @@ import com.romraider.util.HexUtil;
     protected int end;
     protected int loc;
     protected short initial = 0;
+    private BlockSums sums;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -48,6 +49,7 @@ import com.romraider.util.HexUtil;
         
         if(vars.get(INITIAL) != null)
         	this.initial = (short) HexUtil.hexToInt(vars.get(INITIAL));
+        sums = sums(start, end);
     }
     
 	@Override
@@ -57,7 +59,7 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        short checksum = calculate(initial, binData, start, end);
+        short checksum = calculate(binData, null, null);
         short checksumInBin = (short) parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
         int valid = 0;
         
@@ -69,8 +71,13 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int update(byte[] binData) {
+    	return update(binData, null, new DirtyRanges());
+    }
+
+    @Override
+    public int update(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
     	int updateNeeded = 0;
-		short checksum = calculate(initial, binData, start, end);
+		short checksum = calculate(binData, dirty, written);
 		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
 		
 		if(checksumInBin != checksum) {
@@ -78,11 +85,30 @@ import com.romraider.util.HexUtil;
 			
 	    	binData[loc] = (byte)((checksum >> 8) & 0xFF);
 	    	binData[loc+1] = (byte)((checksum) & 0xFF);
+	    	written.add(loc, loc + 2);
 		}
 		 	
     	return updateNeeded;
     }
     
+    /**
+     * Calculate the checksum from the cached block sums, reading only the
+     * blocks changed since the last calculation.
+     */
+    protected short calculate(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
+        return (short)(initial + sums.calculate(binData, dirty, written)[0]);
+    }
+
+    // block sums of the bytes from the start up to and including the end
+    protected static BlockSums sums(int startAddress, int endAddress) {
+        return new BlockSums(startAddress, endAddress + 1, 1, 0) {
+            @Override
+            protected void calculate(byte[] data, int from, int to, int[] totals, int offset) {
+                totals[offset] += ChecksumMOTRONICSINGLE.calculate((short) 0, data, from, to - 1);
+            }
+        };
+    }
+
     public static short calculate(short initalValue, byte[] binData, int startAddress, int endAddress) {
         short value = initalValue;
         for (int i = startAddress; i <= endAddress; i++) {
@@ -0,0 +1,134 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import java.util.Arrays;
+
+/**
+ * The byte ranges of an image changed since its checksums were last
+ * calculated.  Ranges are kept sorted and merged as start and end pairs,
+ * the end is exclusive.
+ */
+public final class DirtyRanges {
+    private int[] ranges = new int[16];
+    private int count;
+    private boolean all;
+
+    public synchronized void add(int start, int end) {
+        if (all || start >= end) {
+            return;
+        }
+        // first range ending at or after start, and first starting after end
+        int first = 0;
+        while (first < count && ranges[first + 1] < start) {
+            first += 2;
+        }
+        int last = first;
+        while (last < count && ranges[last] <= end) {
+            last += 2;
+        }
+        if (first < last) {
+            start = Math.min(start, ranges[first]);
+            end = Math.max(end, ranges[last - 1]);
+        }
+        final int removed = last - first;
+        if (removed == 0 && count + 2 > ranges.length) {
+            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+        }
+        System.arraycopy(ranges, last, ranges, first + 2, count - last);
+        ranges[first] = start;
+        ranges[first + 1] = end;
+        count += 2 - removed;
+    }
+
+    public synchronized void add(DirtyRanges other) {
+        if (other == this) {
+            return;
+        }
+        final int[] otherRanges;
+        synchronized (other) {
+            if (other.all) {
+                addAll();
+                return;
+            }
+            otherRanges = Arrays.copyOf(other.ranges, other.count);
+        }
+        for (int i = 0; i < otherRanges.length; i += 2) {
+            add(otherRanges[i], otherRanges[i + 1]);
+        }
+    }
+
+    /**
+     * Mark the whole image as changed.
+     */
+    public synchronized void addAll() {
+        all = true;
+        count = 0;
+    }
+
+    public synchronized boolean intersects(int start, int end) {
+        if (all) {
+            return true;
+        }
+        int low = 0;
+        int high = count / 2 - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (ranges[mid * 2 + 1] <= start) {
+                low = mid + 1;
+            }
+            else if (ranges[mid * 2] >= end) {
+                high = mid - 1;
+            }
+            else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean isAll() {
+        return all;
+    }
+
+    public synchronized boolean isEmpty() {
+        return !all && count == 0;
+    }
+
+    public synchronized void clear() {
+        all = false;
+        count = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (all) {
+            return "[all]";
+        }
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i += 2) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format("0x%X-0x%X", ranges[i], ranges[i + 1]));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+/**
+ * A Checksum Manager which can update its checksums from partial sums
+ * cached by the last validation or update, reading only the parts of
+ * the ROM that changed since.
+ */
+public interface IncrementalChecksumManager extends ChecksumManager {
+
+    /**
+     * Update the checksums upon saving the ROM file.  Without cached sums
+     * the whole ROM is read.
+     * @param	data - the ROM file to update
+     * @param	dirty - the byte ranges changed since the last validation
+     * 					or update
+     * @param	written - the byte ranges written by the checksums updated
+     * 					so far, the ranges written by this update are added
+     * @return	Number of checksums which changed
+     */
+	int update(byte[] data, DirtyRanges dirty, DirtyRanges written);
+}
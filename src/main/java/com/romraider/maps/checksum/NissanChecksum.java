@@ -32,7 +32,7 @@ import com.romraider.util.HexUtil;
  * This class provides common methods implemented by different
  * checksum calculation type classes.
  */
-    abstract class NissanChecksum implements ChecksumManager {
+    abstract class NissanChecksum implements IncrementalChecksumManager {
         public static final String START = "start";
         public static final String END = "end";
         public static final String SUMLOC = "sumloc";
@@ -42,6 +42,7 @@ import com.romraider.util.HexUtil;
         protected final Map<String, Integer> range = new HashMap<String, Integer>();
         protected final Map<String, Integer> results = new HashMap<String, Integer>();
         protected Calculator calculator;
+        private BlockSums sums;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -49,6 +50,13 @@ import com.romraider.util.HexUtil;
         range.put(END, HexUtil.hexToInt(vars.get(END)));
         range.put(SUMLOC, HexUtil.hexToInt(vars.get(SUMLOC)));
         range.put(XORLOC, HexUtil.hexToInt(vars.get(XORLOC)));
+        sums = new BlockSums(range.get(START), range.get(END),
+                calculator.getNumberOfTotals(), 0x2) {
+            @Override
+            protected void calculate(byte[] data, int from, int to, int[] totals, int offset) {
+                calculator.calculate(range, data, from, to, totals, offset);
+            }
+        };
     }
 
     @Override
@@ -58,7 +66,7 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        calculator.calculate(range, binData, results);
+        calculate(binData);
         int valid = 0;
 
         if(results.get(SUMT) == (int)parseByteValue(binData, Settings.Endian.BIG, range.get(SUMLOC), 4, true)) {
@@ -74,9 +82,42 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int update(byte[] binData) {
-        calculator.calculate(range, binData, results);
+        calculate(binData);
         System.arraycopy(parseIntegerValue(results.get(SUMT), Settings.Endian.BIG, 4), 0, binData, range.get(SUMLOC), 4);
         System.arraycopy(parseIntegerValue(results.get(XORT), Settings.Endian.BIG, 4), 0, binData, range.get(XORLOC), 4);
         return getNumberOfChecksums();
     }
+
+    @Override
+    public int update(byte[] binData, DirtyRanges dirty, DirtyRanges written) {
+        calculator.results(range, sums.calculate(binData, dirty, written), results);
+        return write(binData, results.get(SUMT), range.get(SUMLOC), 4, written)
+                + write(binData, results.get(XORT), range.get(XORLOC), 4, written);
+    }
+
+    /**
+     * Calculate the results over the whole range, the partial sums are
+     * kept for the next incremental update.
+     */
+    protected final void calculate(byte[] binData) {
+        calculator.results(range, sums.calculate(binData), results);
+    }
+
+    /**
+     * Write a checksum value only if it differs from the one in the ROM.
+     * @return	1 if the checksum changed, 0 otherwise
+     */
+    protected static int write(
+            byte[] binData, int value, int loc, int length, DirtyRanges written) {
+
+        final byte[] bytes = parseIntegerValue(value, Settings.Endian.BIG, length);
+        for (int i = 0; i < length; i++) {
+            if (binData[loc + i] != bytes[i]) {
+                System.arraycopy(bytes, 0, binData, loc, length);
+                written.add(loc, loc + length);
+                return 1;
+            }
+        }
+        return 0;
+    }
 }
@@ -48,7 +48,7 @@ import javax.swing.event.ListSelectionListener;
 import com.romraider.Settings;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.maps.Rom;
-import com.romraider.maps.Table;
+import com.romraider.maps.RomComparison;
 import com.romraider.util.ResourceUtil;
 
 public class CompareImagesForm extends JFrame implements ActionListener {
@@ -173,56 +173,24 @@ public class CompareImagesForm extends JFrame implements ActionListener {
     {
         listModelChanges.clear();
 
-        int equal = 0;
-        int different = 0;
-        int missing = 0;
-
-        //TODO: Utilize map correctly!
-        for(TableTreeNode leftNode : left.getTableNodes().values())
-        {
-            Boolean found = false;
-            Table leftTable = leftNode.getTable();
-            for(TableTreeNode rightNode : right.getTableNodes().values())
-            {
-                Table rightTable = rightNode.getTable();
-
-                if(leftTable.getName().equalsIgnoreCase(rightTable.getName()))
-                {
-                    if(leftTable.equals(rightTable)) {
-                        equal++;
-                        listModelChanges.addElement(new ListItem(1, leftTable.getName()));
-                    }
-                    else {
-                        different++;
-                        listModelChanges.add(0, new ListItem(2, leftTable.getName()));
-                    }
-                    found = true;
-                    break;
-                }
-            }
-
-            if(!found) {
-                missing++;
-                listModelChanges.add(0, new ListItem(3, leftTable.getName()));
-            }
-        }
-
-        // Check if rightTables has tables that do not exist in left table.
-        for(TableTreeNode rightFrame : right.getTableNodes().values()) {
-            Boolean found = false;
-            for(TableTreeNode leftFrame : left.getTableNodes().values()) {
-                if(leftFrame.getTable().getName().equalsIgnoreCase(rightFrame.getTable().getName()))
-                {
-                    found = true;
-                    break;
-                }
-            }
-
-            if(!found) {
-                missing++;
-                listModelChanges.add(0, new ListItem(3, rightFrame.getTable().getName()));
+        final RomComparison comparison = RomComparison.compare(left, right);
+        for (RomComparison.TableDiff diff : comparison.getTableDiffs()) {
+            switch (diff.getStatus()) {
+            case EQUAL:
+                listModelChanges.addElement(new ListItem(1, diff.getName()));
+                break;
+            case DIFFERENT:
+                listModelChanges.add(0, new ListItem(2, diff.getName(),
+                        diff.getChangedCells(), diff.getCellCount()));
+                break;
+            default:
+                listModelChanges.add(0, new ListItem(3, diff.getName()));
+                break;
             }
         }
+        final int equal = comparison.getEqualCount();
+        final int different = comparison.getDifferentCount();
+        final int missing = comparison.getMissingCount();
 
         // Fill out the result string.
         if(equal > 0 && different == 0 && missing == 0) {
@@ -350,8 +318,14 @@ public class CompareImagesForm extends JFrame implements ActionListener {
             case 2:
                 // different - default red
                 setForeground(Settings.TABLE_DIFFERENT_COLOR);
-                setText(MessageFormat.format(
-                        rb.getString("MODIFIED"), item.getValue()));
+                if (item.getCellCount() > 0) {
+                    setText(MessageFormat.format(rb.getString("MODIFIEDCELLS"),
+                            item.getValue(), item.getChangedCells(), item.getCellCount()));
+                }
+                else {
+                    setText(MessageFormat.format(
+                            rb.getString("MODIFIED"), item.getValue()));
+                }
                 break;
             case 3:
                 // missing - default yellow
@@ -372,12 +346,20 @@ public class CompareImagesForm extends JFrame implements ActionListener {
 
         private int type;
         private String value;
+        private int changedCells;
+        private int cellCount;
 
         public ListItem(int type, String value) {
             this.type = type;
             this.value = value;
         }
 
+        public ListItem(int type, String value, int changedCells, int cellCount) {
+            this(type, value);
+            this.changedCells = changedCells;
+            this.cellCount = cellCount;
+        }
+
         public int getType() {
             return type;
         }
@@ -394,5 +376,13 @@ public class CompareImagesForm extends JFrame implements ActionListener {
             this.value = value;
         }
 
+        public int getChangedCells() {
+            return changedCells;
+        }
+
+        public int getCellCount() {
+            return cellCount;
+        }
+
     }
 }
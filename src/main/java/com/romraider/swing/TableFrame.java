@@ -142,6 +142,9 @@ public class TableFrame extends JInternalFrame implements InternalFrameListener,
         if (e.getSource() == menu.getUndoAll()) {
             t.undoAll();
 
+        } else if (e.getSource() == menu.getUndoEdit()) {
+            t.undoLastEdit();
+
         } else if (e.getSource() == menu.getRevert()) {
             t.setRevertPoint();
 
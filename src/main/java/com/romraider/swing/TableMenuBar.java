@@ -28,6 +28,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JSeparator;
+import javax.swing.KeyStroke;
 
 import com.romraider.maps.Table;
 import com.romraider.maps.Table3D;
@@ -57,6 +58,7 @@ public class TableMenuBar extends JMenuBar {
     private JMenu editMenu = new JMenu(rb.getString("EDIT"));
     private JMenuItem undoSel = new JMenuItem(rb.getString("UNDOCHNGS"));
     private JMenuItem undoAll = new JMenuItem(rb.getString("UNDOALL"));
+    private JMenuItem undoEdit = new JMenuItem(rb.getString("UNDOEDIT"));
     private JMenuItem revert = new JMenuItem(rb.getString("SETREVERT"));
     private JMenuItem copySel = new JMenuItem(rb.getString("COPYSEL"));
     private JMenuItem copyTable = new JMenuItem(rb.getString("COPYTBL"));
@@ -101,6 +103,7 @@ public class TableMenuBar extends JMenuBar {
     }
 
     private void initEditMenu(TableFrame frame) {
+        editMenu.add(getUndoEdit());
         editMenu.add(getUndoSel());
         editMenu.add(getUndoAll());
         editMenu.add(getRevert());
@@ -117,6 +120,8 @@ public class TableMenuBar extends JMenuBar {
         editMenu.add(getInterp());
 
         editMenu.setMnemonic('E');
+        getUndoEdit().setMnemonic('L');
+        getUndoEdit().setAccelerator(KeyStroke.getKeyStroke("control Z"));
         getUndoSel().setMnemonic('U');
         getUndoAll().setMnemonic('A');
         getRevert().setMnemonic('R');
@@ -127,6 +132,7 @@ public class TableMenuBar extends JMenuBar {
         getVertInterp().setMnemonic('V');
         getHorizInterp().setMnemonic('H');
 
+        getUndoEdit().addActionListener(frame);
         getUndoSel().addActionListener(frame);
         getUndoAll().addActionListener(frame);
         getRevert().addActionListener(frame);
@@ -240,6 +246,10 @@ public class TableMenuBar extends JMenuBar {
         return revert;
     }
 
+    public JMenuItem getUndoEdit() {
+        return undoEdit;
+    }
+
     public JMenuItem getUndoSel() {
         return undoSel;
     }
@@ -61,12 +61,34 @@ import org.nfunk.jep.function.PostfixMathCommand;
  * 
  * @exception ParseException is thrown when parse errors are encountered
  */
-class BitWise extends PostfixMathCommand {
+public class BitWise extends PostfixMathCommand {
 
     public BitWise() {
         numberOfParameters = 3;
     }
     
+    /**
+     * Performs the selected bitwise operation on primitive values.
+     * @param   mask        - a value such as the mask or count of bits for Shift
+     * @param   variable    - the variable 'x'
+     * @param   operation   - the index number of the operation to perform
+     * @return  the result of the operation, or 0 for an unknown operation
+     */
+    public static double apply(double mask, double variable, double operation) {
+        final int m = (int) mask;
+        final int v = (int) variable;
+        switch ((int) operation) {
+            case 1:  return v & m;
+            case 2:  return v | m;
+            case 3:  return v ^ m;
+            case 4:  return v << m;
+            case 5:  return v >> m;
+            case 6:  return v >>> m;
+            case 7:  return ~v;
+            default: return 0;
+        }
+    }
+
     /**
      * Runs a bitwise operation on the inStack variables. The parameters are popped
      * off the <code>inStack</code>, processed and the resulting value is 
@@ -83,26 +105,10 @@ class BitWise extends PostfixMathCommand {
         Object mask = inStack.pop();
 
         if (mask instanceof Double) {
-            double r = 0;
-            switch (((Double) operation).intValue()) {
-                case 1:  r = ((Double) variable).intValue() & ((Double) mask).intValue();
-                    break;
-                case 2:  r = ((Double) variable).intValue() | ((Double) mask).intValue();
-                    break;
-                case 3:  r = ((Double) variable).intValue() ^ ((Double) mask).intValue();
-                    break;
-                case 4:  r = ((Double) variable).intValue() << ((Double) mask).intValue();
-                    break;
-                case 5:  r = ((Double) variable).intValue() >> ((Double) mask).intValue();
-                    break;
-                case 6:  r = ((Double) variable).intValue() >>> ((Double) mask).intValue();
-                    break;
-                case 7:  r = ~((Double) variable).intValue();
-                    break;
-                default:
-                    break;
-            }
-            inStack.push(new Double(r));
+            inStack.push(new Double(apply(
+                    ((Double) mask).doubleValue(),
+                    ((Double) variable).doubleValue(),
+                    ((Double) operation).doubleValue())));
         }
         else {
             throw new ParseException("Invalid parameter type");
@@ -19,65 +19,64 @@
 
 package com.romraider.util;
 
-import org.nfunk.jep.JEP;
-
-import java.util.Collections;
 import java.util.Map;
-import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.romraider.util.expression.CompiledExpression;
 
+/**
+ * Evaluates expression strings through a shared cache of
+ * {@link CompiledExpression}s.  Hot paths should compile their expression
+ * once and keep the {@link CompiledExpression} instead of calling here.
+ */
 public final class JEPUtil {
-	@SuppressWarnings("serial")
-	static class LRUCache<K, V> extends LinkedHashMap<K, V> {
-		private int cacheSize;
+	private static final int MAX_CACHE_SIZE = 1024;
+	private static final ConcurrentMap<String, CompiledExpression> expressionCache =
+			new ConcurrentHashMap<String, CompiledExpression>();
+	private static final ConcurrentMap<String, CompiledExpression> variableExpressionCache =
+			new ConcurrentHashMap<String, CompiledExpression>();
 
-		public LRUCache(int cacheSize) {
-			super(32, 0.75f, true);
-			this.cacheSize = cacheSize;
-		}
+	private JEPUtil() {
+	}
 
-		@Override
-		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-			return size() >= cacheSize;
-		}
-	};
+	public static CompiledExpression compile(String expression) {
+		return lookup(expressionCache, expression, false);
+	}
 
-	private static final Map<String, JEP> parserCache = Collections.synchronizedMap(new LRUCache<String, JEP>(32));
+	public static double evaluate(String expression, double value) {
+		return compile(expression).evaluate(value);
+	}
 
-	public static synchronized double evaluate(String expression, double value) {
-		JEP parser = parserCache.get(expression);
-		if (parser == null) {
-			parser = new JEP();
-			parser.addStandardFunctions();
-			parser.addFunction("BitWise", new BitWise());
-			parser.initSymTab(); // clear the contents of the symbol table
-			parser.addVariable("x", value);
-			parser.parseExpression(expression);
-			parserCache.put(expression, parser);
-		} else {
-			parser.setVarValue("x", value);
+	public static double evaluate(String expression, Map<String, Double> valueMap) {
+		final CompiledExpression compiled = lookup(variableExpressionCache, expression, true);
+		final String[] names = compiled.getVariables();
+		final double[] values = new double[names.length];
+		for (int i = 0; i < names.length; i++) {
+			final Double value = valueMap.get(names[i]);
+			values[i] = value == null ? Double.NaN : value;
 		}
-		return parser.getValue();
+		return compiled.evaluate(values);
 	}
 
-	public static synchronized double evaluate(String expression, Map<String, Double> valueMap) {
-		JEP parser = parserCache.get(expression);
-		if (parser == null) {
-			parser = new JEP();
-			parser.initSymTab(); // clear the contents of the symbol table
-			for (String id : valueMap.keySet()) {
-				parser.addVariable(id, valueMap.get(id));
-			}
-			parser.parseExpression(expression);
-			parserCache.put(expression, parser);
-		} else {
+	private static CompiledExpression lookup(
+			ConcurrentMap<String, CompiledExpression> cache,
+			String expression,
+			boolean namedVariables) {
 
-			for (String id : valueMap.keySet()) {
-				if (parser.getSymbolTable().containsKey(id)) {
-					parser.setVarValue(id, valueMap.get(id));
-				}
+		CompiledExpression compiled = cache.get(expression);
+		if (compiled == null) {
+			compiled = namedVariables
+					? CompiledExpression.compile(expression, (String[]) null)
+					: CompiledExpression.compile(expression);
+			if (cache.size() >= MAX_CACHE_SIZE) {
+				cache.clear();
+			}
+			final CompiledExpression existing = cache.putIfAbsent(expression, compiled);
+			if (existing != null) {
+				compiled = existing;
 			}
-
 		}
-		return parser.getValue();
+		return compiled;
 	}
 }
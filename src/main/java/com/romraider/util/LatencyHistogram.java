@@ -0,0 +1,109 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size histogram of durations in nanoseconds.  Each power of two
+ * is split into {@link #SUB_BUCKETS} linear buckets, so a reported
+ * percentile is within about 3% of the recorded value.  Recording only
+ * increments a counter, nothing is allocated per call.
+ */
+public final class LatencyHistogram {
+    public static final int SUB_BUCKETS = 32;
+    private static final int SUB_BITS = 5;
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * @param nanos - a duration, negative values are counted as zero
+     */
+    public synchronized void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[index(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @param percentile - the percentile, 0 to 100
+     * @return  the highest value of the bucket holding the percentile, not
+     *          more than the largest value recorded, or 0 if empty
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        final int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -61,6 +61,13 @@ public class SettingsManager {
         return settings;
     }
 
+    /**
+     * @return  the directory the settings were loaded from
+     */
+    public static String getSettingsDir() {
+        return settingsDir;
+    }
+
     public static void setTesting(boolean b) {
     	testing = b;
     }
@@ -99,9 +106,12 @@ public class SettingsManager {
                 throw new FileNotFoundException("file length is 0");
             }
         } catch (FileNotFoundException e) {
-            showMessageDialog(null,
-                    rb.getString("FNF"),
-                    rb.getString("ERROR"), INFORMATION_MESSAGE);
+            // tests run with the default settings without asking
+            if (!testing) {
+                showMessageDialog(null,
+                        rb.getString("FNF"),
+                        rb.getString("ERROR"), INFORMATION_MESSAGE);
+            }
             loadedSettings = new Settings();
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -20,10 +20,13 @@
 package com.romraider.util;
 
 import org.apache.log4j.Logger;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
 
 public final class ThreadUtil {
     private static final Logger LOGGER = Logger.getLogger(ThreadUtil.class);
+    private static final ForkJoinPool WORK_POOL = new ForkJoinPool();
 
     private ThreadUtil() {
         throw new UnsupportedOperationException();
@@ -48,4 +51,19 @@ public final class ThreadUtil {
         thread.start();
     }
 
+    // one pool of daemon workers, sized to the processors, for all
+    // parallel loading and comparing work
+    public static ForkJoinPool getWorkPool() {
+        return WORK_POOL;
+    }
+
+    // runs directly when already on the event dispatch thread
+    public static void runOnEventThread(Runnable runnable) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            runnable.run();
+        } else {
+            SwingUtilities.invokeLater(runnable);
+        }
+    }
+
 }
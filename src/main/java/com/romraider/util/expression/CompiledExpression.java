@@ -0,0 +1,147 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util.expression;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import org.apache.log4j.Logger;
+
+/**
+ * An immutable, thread safe evaluator for a conversion or scaling
+ * expression.  An expression is parsed once by {@link #compile(String)}
+ * into a tree of primitive double nodes.  Evaluating it afterwards takes
+ * no locks and allocates no objects, so a single instance can be shared
+ * by any number of threads.
+ * <p>
+ * The supported syntax is the subset of JEP used by the definition files:
+ * arithmetic, power, comparison and logical operators, the JEP standard
+ * functions and the <code>BitWise</code> function.  An expression outside
+ * that subset falls back to a private JEP parser guarded by its own lock.
+ */
+public abstract class CompiledExpression {
+    private static final Logger LOGGER = Logger.getLogger(CompiledExpression.class);
+    private static final String[] X = new String[]{"x"};
+    private final String expression;
+    private final String[] variables;
+
+    CompiledExpression(String expression, String[] variables) {
+        this.expression = expression;
+        this.variables = variables;
+    }
+
+    /**
+     * Compile an expression of the single variable <code>x</code>.
+     * @param   expression - the expression to compile
+     * @return  the compiled expression
+     */
+    public static CompiledExpression compile(String expression) {
+        return compile(expression, X);
+    }
+
+    /**
+     * Compile an expression of the named variables.  The values passed to
+     * {@link #evaluate(double[])} must be in the same order as the names.
+     * @param   expression - the expression to compile
+     * @param   variables - the variable names, or null to take the variables
+     *          in the order they first appear in the expression
+     * @return  the compiled expression
+     */
+    public static CompiledExpression compile(String expression, String... variables) {
+        checkNotNull(expression, "expression");
+        try {
+            final ExpressionParser parser = new ExpressionParser(expression, variables);
+            final ExpressionNode root = parser.parse();
+            return new TreeExpression(expression, parser.getVariables(), root);
+        }
+        catch (ExpressionException e) {
+            LOGGER.debug("Using JEP to evaluate expression " + expression + ": " + e.getMessage());
+            return new JepExpression(expression, variables);
+        }
+    }
+
+    /**
+     * Evaluate the expression of the single variable <code>x</code>.
+     * @param   x - the value of variable x
+     * @return  the result of the expression
+     */
+    public abstract double evaluate(double x);
+
+    /**
+     * Evaluate the expression of several variables.
+     * @param   values - the variable values in the order of
+     *          {@link #getVariables()}
+     * @return  the result of the expression
+     */
+    public abstract double evaluate(double[] values);
+
+    /**
+     * @return  the source text of the expression
+     */
+    public final String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return  the variable names of the expression in evaluation order
+     */
+    public final String[] getVariables() {
+        return variables.clone();
+    }
+
+    final String[] variables() {
+        return variables;
+    }
+
+    /**
+     * @return  true if the expression evaluates to x itself
+     */
+    public boolean isIdentity() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static final class TreeExpression extends CompiledExpression {
+        private final ExpressionNode root;
+
+        TreeExpression(String expression, String[] variables, ExpressionNode root) {
+            super(expression, variables);
+            this.root = root;
+        }
+
+        @Override
+        public double evaluate(double x) {
+            return root.eval(x, null);
+        }
+
+        @Override
+        public double evaluate(double[] values) {
+            return root.eval(values.length > 0 ? values[0] : Double.NaN, values);
+        }
+
+        @Override
+        public boolean isIdentity() {
+            return root instanceof ExpressionNode.X;
+        }
+    }
+}
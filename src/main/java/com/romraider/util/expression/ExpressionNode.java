@@ -0,0 +1,246 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util.expression;
+
+import com.romraider.util.BitWise;
+
+/**
+ * A node of a compiled expression tree.  Nodes are immutable and evaluate
+ * on primitive doubles only.  The semantics of each operator follow those
+ * of the JEP function of the same name.
+ */
+abstract class ExpressionNode {
+    private static final double TOLERANCE = 1.0E-6;
+    private static final double LOG10 = Math.log(10.0);
+
+    abstract double eval(double x, double[] values);
+
+    boolean isConstant() {
+        return false;
+    }
+
+    static final class Constant extends ExpressionNode {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    static final class X extends ExpressionNode {
+        @Override
+        double eval(double x, double[] values) {
+            return x;
+        }
+    }
+
+    static final class Slot extends ExpressionNode {
+        private final int index;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            return values[index];
+        }
+    }
+
+    static final class Unary extends ExpressionNode {
+        static final int NEGATE = 0;
+        static final int NOT = 1;
+        static final int SIN = 2;
+        static final int COS = 3;
+        static final int TAN = 4;
+        static final int ASIN = 5;
+        static final int ACOS = 6;
+        static final int ATAN = 7;
+        static final int SINH = 8;
+        static final int COSH = 9;
+        static final int TANH = 10;
+        static final int ASINH = 11;
+        static final int ACOSH = 12;
+        static final int ATANH = 13;
+        static final int LOG = 14;
+        static final int LN = 15;
+        static final int EXP = 16;
+        static final int SQRT = 17;
+        static final int ABS = 18;
+        private final int op;
+        private final ExpressionNode arg;
+
+        Unary(int op, ExpressionNode arg) {
+            this.op = op;
+            this.arg = arg;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            final double a = arg.eval(x, values);
+            switch (op) {
+                case NEGATE: return -a;
+                case NOT:    return a == 0.0 ? 1.0 : 0.0;
+                case SIN:    return Math.sin(a);
+                case COS:    return Math.cos(a);
+                case TAN:    return Math.tan(a);
+                case ASIN:   return Math.asin(a);
+                case ACOS:   return Math.acos(a);
+                case ATAN:   return Math.atan(a);
+                case SINH:   return Math.sinh(a);
+                case COSH:   return Math.cosh(a);
+                case TANH:   return Math.tanh(a);
+                case ASINH:  return Math.log(a + Math.sqrt(a * a + 1.0));
+                case ACOSH:  return Math.log(a + Math.sqrt(a * a - 1.0));
+                case ATANH:  return 0.5 * Math.log((1.0 + a) / (1.0 - a));
+                case LOG:    return Math.log(a) / LOG10;
+                case LN:     return Math.log(a);
+                case EXP:    return Math.exp(a);
+                case SQRT:   return Math.sqrt(a);
+                case ABS:    return Math.abs(a);
+                default:     return Double.NaN;
+            }
+        }
+    }
+
+    static final class Binary extends ExpressionNode {
+        static final int ADD = 0;
+        static final int SUBTRACT = 1;
+        static final int MULTIPLY = 2;
+        static final int DIVIDE = 3;
+        static final int MODULUS = 4;
+        static final int POWER = 5;
+        static final int LT = 6;
+        static final int GT = 7;
+        static final int LE = 8;
+        static final int GE = 9;
+        static final int EQ = 10;
+        static final int NE = 11;
+        static final int AND = 12;
+        static final int OR = 13;
+        static final int ATAN2 = 14;
+        private final int op;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Binary(int op, ExpressionNode left, ExpressionNode right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            final double l = left.eval(x, values);
+            final double r = right.eval(x, values);
+            switch (op) {
+                case ADD:      return l + r;
+                case SUBTRACT: return l - r;
+                case MULTIPLY: return l * r;
+                case DIVIDE:   return l / r;
+                case MODULUS:  return l % r;
+                case POWER:    return Math.pow(l, r);
+                case LT:       return l < r ? 1.0 : 0.0;
+                case GT:       return l > r ? 1.0 : 0.0;
+                case LE:       return l <= r ? 1.0 : 0.0;
+                case GE:       return l >= r ? 1.0 : 0.0;
+                case EQ:       return Math.abs(l - r) <= TOLERANCE ? 1.0 : 0.0;
+                case NE:       return Math.abs(l - r) > TOLERANCE ? 1.0 : 0.0;
+                case AND:      return l != 0.0 && r != 0.0 ? 1.0 : 0.0;
+                case OR:       return l != 0.0 || r != 0.0 ? 1.0 : 0.0;
+                case ATAN2:    return Math.atan2(l, r);
+                default:       return Double.NaN;
+            }
+        }
+    }
+
+    static final class If extends ExpressionNode {
+        private final ExpressionNode condition;
+        private final ExpressionNode whenTrue;
+        private final ExpressionNode whenFalse;
+
+        If(ExpressionNode condition, ExpressionNode whenTrue, ExpressionNode whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            return condition.eval(x, values) > 0.0
+                    ? whenTrue.eval(x, values)
+                    : whenFalse.eval(x, values);
+        }
+    }
+
+    static final class BitWiseOp extends ExpressionNode {
+        private final ExpressionNode mask;
+        private final ExpressionNode variable;
+        private final ExpressionNode operation;
+
+        BitWiseOp(ExpressionNode mask, ExpressionNode variable, ExpressionNode operation) {
+            this.mask = mask;
+            this.variable = variable;
+            this.operation = operation;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            return BitWise.apply(
+                    mask.eval(x, values),
+                    variable.eval(x, values),
+                    operation.eval(x, values));
+        }
+    }
+
+    static final class Sum extends ExpressionNode {
+        private final ExpressionNode[] args;
+
+        Sum(ExpressionNode[] args) {
+            this.args = args;
+        }
+
+        @Override
+        double eval(double x, double[] values) {
+            double sum = 0.0;
+            for (int i = 0; i < args.length; i++) {
+                sum += args[i].eval(x, values);
+            }
+            return sum;
+        }
+    }
+
+    static final class Random extends ExpressionNode {
+        @Override
+        double eval(double x, double[] values) {
+            return Math.random();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util.expression;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.util.expression.ExpressionNode.Binary;
+import com.romraider.util.expression.ExpressionNode.Unary;
+
+/**
+ * A recursive descent parser which turns an expression string into a tree
+ * of {@link ExpressionNode}s.  The grammar and operator precedence are
+ * those of JEP, from lowest to highest:
+ * <pre>
+ *  ||   &amp;&amp;   == !=   &lt; &gt; &lt;= &gt;=   + -   * / %   unary + - !   ^
+ * </pre>
+ * Power is right associative and binds tighter than unary minus, so
+ * <code>-2^2</code> is -4.  Sub-trees without variables are folded into
+ * constants while parsing.
+ */
+final class ExpressionParser {
+    private static final int VARIADIC = -1;
+    private static final Map<String, int[]> FUNCTIONS = new HashMap<String, int[]>();
+    private static final int UNARY = 0;
+    private static final int BINARY = 1;
+    private static final int IF = 2;
+    private static final int BITWISE = 3;
+    private static final int SUM = 4;
+    private static final int RANDOM = 5;
+    static {
+        FUNCTIONS.put("sin",     new int[]{UNARY, 1, Unary.SIN});
+        FUNCTIONS.put("cos",     new int[]{UNARY, 1, Unary.COS});
+        FUNCTIONS.put("tan",     new int[]{UNARY, 1, Unary.TAN});
+        FUNCTIONS.put("asin",    new int[]{UNARY, 1, Unary.ASIN});
+        FUNCTIONS.put("acos",    new int[]{UNARY, 1, Unary.ACOS});
+        FUNCTIONS.put("atan",    new int[]{UNARY, 1, Unary.ATAN});
+        FUNCTIONS.put("sinh",    new int[]{UNARY, 1, Unary.SINH});
+        FUNCTIONS.put("cosh",    new int[]{UNARY, 1, Unary.COSH});
+        FUNCTIONS.put("tanh",    new int[]{UNARY, 1, Unary.TANH});
+        FUNCTIONS.put("asinh",   new int[]{UNARY, 1, Unary.ASINH});
+        FUNCTIONS.put("acosh",   new int[]{UNARY, 1, Unary.ACOSH});
+        FUNCTIONS.put("atanh",   new int[]{UNARY, 1, Unary.ATANH});
+        FUNCTIONS.put("log",     new int[]{UNARY, 1, Unary.LOG});
+        FUNCTIONS.put("ln",      new int[]{UNARY, 1, Unary.LN});
+        FUNCTIONS.put("exp",     new int[]{UNARY, 1, Unary.EXP});
+        FUNCTIONS.put("sqrt",    new int[]{UNARY, 1, Unary.SQRT});
+        FUNCTIONS.put("abs",     new int[]{UNARY, 1, Unary.ABS});
+        FUNCTIONS.put("mod",     new int[]{BINARY, 2, Binary.MODULUS});
+        FUNCTIONS.put("atan2",   new int[]{BINARY, 2, Binary.ATAN2});
+        FUNCTIONS.put("if",      new int[]{IF, 3, 0});
+        FUNCTIONS.put("BitWise", new int[]{BITWISE, 3, 0});
+        FUNCTIONS.put("sum",     new int[]{SUM, VARIADIC, 0});
+        FUNCTIONS.put("rand",    new int[]{RANDOM, 0, 0});
+    }
+
+    private final String text;
+    private final boolean singleX;
+    private final boolean discover;
+    private final List<String> variables = new ArrayList<String>();
+    private int pos;
+
+    /**
+     * @param   text - the expression to parse
+     * @param   variables - the variable names, the single name "x" for an
+     *          expression of x, or null to collect the names while parsing
+     */
+    ExpressionParser(String text, String[] variables) {
+        this.text = text;
+        this.discover = variables == null;
+        this.singleX = !discover && variables.length == 1 && "x".equals(variables[0]);
+        if (!discover) {
+            for (String variable : variables) {
+                this.variables.add(variable);
+            }
+        }
+    }
+
+    String[] getVariables() {
+        return variables.toArray(new String[variables.size()]);
+    }
+
+    ExpressionNode parse() throws ExpressionException {
+        final ExpressionNode node = parseOr();
+        skipWhitespace();
+        if (pos < text.length()) {
+            throw error("Unexpected character '" + text.charAt(pos) + "'");
+        }
+        return node;
+    }
+
+    private ExpressionNode parseOr() throws ExpressionException {
+        ExpressionNode node = parseAnd();
+        while (accept("||")) {
+            node = binary(Binary.OR, node, parseAnd());
+        }
+        return node;
+    }
+
+    private ExpressionNode parseAnd() throws ExpressionException {
+        ExpressionNode node = parseEquality();
+        while (accept("&&")) {
+            node = binary(Binary.AND, node, parseEquality());
+        }
+        return node;
+    }
+
+    private ExpressionNode parseEquality() throws ExpressionException {
+        ExpressionNode node = parseRelational();
+        while (true) {
+            if (accept("==")) {
+                node = binary(Binary.EQ, node, parseRelational());
+            }
+            else if (accept("!=")) {
+                node = binary(Binary.NE, node, parseRelational());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseRelational() throws ExpressionException {
+        ExpressionNode node = parseAdditive();
+        while (true) {
+            if (accept("<=")) {
+                node = binary(Binary.LE, node, parseAdditive());
+            }
+            else if (accept(">=")) {
+                node = binary(Binary.GE, node, parseAdditive());
+            }
+            else if (accept("<")) {
+                node = binary(Binary.LT, node, parseAdditive());
+            }
+            else if (accept(">")) {
+                node = binary(Binary.GT, node, parseAdditive());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseAdditive() throws ExpressionException {
+        ExpressionNode node = parseMultiplicative();
+        while (true) {
+            if (accept("+")) {
+                node = binary(Binary.ADD, node, parseMultiplicative());
+            }
+            else if (accept("-")) {
+                node = binary(Binary.SUBTRACT, node, parseMultiplicative());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseMultiplicative() throws ExpressionException {
+        ExpressionNode node = parseUnary();
+        while (true) {
+            if (accept("*")) {
+                node = binary(Binary.MULTIPLY, node, parseUnary());
+            }
+            else if (accept("/")) {
+                node = binary(Binary.DIVIDE, node, parseUnary());
+            }
+            else if (accept("%")) {
+                node = binary(Binary.MODULUS, node, parseUnary());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseUnary() throws ExpressionException {
+        if (accept("+")) {
+            return parseUnary();
+        }
+        if (accept("-")) {
+            return unary(Unary.NEGATE, parseUnary());
+        }
+        if (peek('!') && !peek("!=")) {
+            pos++;
+            return unary(Unary.NOT, parseUnary());
+        }
+        return parsePower();
+    }
+
+    private ExpressionNode parsePower() throws ExpressionException {
+        final ExpressionNode node = parsePrimary();
+        if (peek('^') && !peek("^^")) {
+            pos++;
+            return binary(Binary.POWER, node, parseUnary());
+        }
+        return node;
+    }
+
+    private ExpressionNode parsePrimary() throws ExpressionException {
+        skipWhitespace();
+        if (pos >= text.length()) {
+            throw error("Unexpected end of expression");
+        }
+        final char c = text.charAt(pos);
+        if (c == '(') {
+            pos++;
+            final ExpressionNode node = parseOr();
+            expect(')');
+            return node;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        }
+        if (Character.isLetter(c) || c == '_') {
+            final String name = parseIdentifier();
+            if (accept("(")) {
+                return parseFunction(name);
+            }
+            return variable(name);
+        }
+        throw error("Unexpected character '" + c + "'");
+    }
+
+    private ExpressionNode parseNumber() throws ExpressionException {
+        final int start = pos;
+        while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+        if (pos < text.length() && text.charAt(pos) == '.') {
+            pos++;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+        }
+        if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+            int exp = pos + 1;
+            if (exp < text.length() && (text.charAt(exp) == '+' || text.charAt(exp) == '-')) exp++;
+            if (exp < text.length() && Character.isDigit(text.charAt(exp))) {
+                pos = exp;
+                while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+            }
+        }
+        try {
+            return new ExpressionNode.Constant(Double.parseDouble(text.substring(start, pos)));
+        }
+        catch (NumberFormatException e) {
+            throw error("Invalid number " + text.substring(start, pos));
+        }
+    }
+
+    private String parseIdentifier() {
+        final int start = pos;
+        while (pos < text.length()
+                && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+            pos++;
+        }
+        return text.substring(start, pos);
+    }
+
+    private ExpressionNode parseFunction(String name) throws ExpressionException {
+        final int[] function = FUNCTIONS.get(name);
+        if (function == null) {
+            throw error("Unrecognized function " + name);
+        }
+        final List<ExpressionNode> args = new ArrayList<ExpressionNode>();
+        if (!accept(")")) {
+            do {
+                args.add(parseOr());
+            } while (accept(","));
+            expect(')');
+        }
+        final int arity = function[1];
+        if ((arity == VARIADIC && args.isEmpty())
+                || (arity != VARIADIC && arity != args.size())) {
+            throw error("Wrong number of arguments to " + name);
+        }
+        final ExpressionNode node;
+        switch (function[0]) {
+            case UNARY:
+                return unary(function[2], args.get(0));
+            case BINARY:
+                return binary(function[2], args.get(0), args.get(1));
+            case IF:
+                node = new ExpressionNode.If(args.get(0), args.get(1), args.get(2));
+                break;
+            case BITWISE:
+                node = new ExpressionNode.BitWiseOp(args.get(0), args.get(1), args.get(2));
+                break;
+            case SUM:
+                node = new ExpressionNode.Sum(args.toArray(new ExpressionNode[args.size()]));
+                break;
+            default:
+                return new ExpressionNode.Random();
+        }
+        for (ExpressionNode arg : args) {
+            if (!arg.isConstant()) {
+                return node;
+            }
+        }
+        return fold(node);
+    }
+
+    private ExpressionNode variable(String name) throws ExpressionException {
+        if (singleX) {
+            if ("x".equals(name)) {
+                return new ExpressionNode.X();
+            }
+            throw error("Unrecognized symbol " + name);
+        }
+        int index = variables.indexOf(name);
+        if (index < 0) {
+            if (!discover) {
+                throw error("Unrecognized symbol " + name);
+            }
+            variables.add(name);
+            index = variables.size() - 1;
+        }
+        return new ExpressionNode.Slot(index);
+    }
+
+    private static ExpressionNode unary(int op, ExpressionNode arg) {
+        final ExpressionNode node = new Unary(op, arg);
+        return arg.isConstant() ? fold(node) : node;
+    }
+
+    private static ExpressionNode binary(int op, ExpressionNode left, ExpressionNode right) {
+        final ExpressionNode node = new Binary(op, left, right);
+        return left.isConstant() && right.isConstant() ? fold(node) : node;
+    }
+
+    private static ExpressionNode fold(ExpressionNode node) {
+        return new ExpressionNode.Constant(node.eval(Double.NaN, null));
+    }
+
+    private boolean peek(char c) {
+        skipWhitespace();
+        return pos < text.length() && text.charAt(pos) == c;
+    }
+
+    private boolean peek(String token) {
+        skipWhitespace();
+        return text.startsWith(token, pos);
+    }
+
+    private boolean accept(String token) {
+        if (peek(token)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws ExpressionException {
+        if (!peek(c)) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private ExpressionException error(String message) {
+        return new ExpressionException(message + " at position " + pos + " in " + text);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util.expression;
+
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.SymbolTable;
+
+import com.romraider.util.BitWise;
+
+/**
+ * Evaluates an expression the expression tree compiler does not support
+ * with a private JEP parser.  JEP parsers are mutable, so evaluation is
+ * serialized on this instance only.
+ */
+final class JepExpression extends CompiledExpression {
+    private final JEP parser;
+    private final String[] names;
+
+    JepExpression(String expression, String[] variables) {
+        this(expression, variables, createParser(expression, variables));
+    }
+
+    private JepExpression(String expression, String[] variables, JEP parser) {
+        super(expression, variables == null ? symbols(parser) : variables);
+        this.parser = parser;
+        this.names = variables();
+    }
+
+    @Override
+    public synchronized double evaluate(double x) {
+        if (names.length > 0) {
+            parser.setVarValue(names[0], x);
+        }
+        return parser.getValue();
+    }
+
+    @Override
+    public synchronized double evaluate(double[] values) {
+        for (int i = 0; i < names.length; i++) {
+            parser.setVarValue(names[i], values[i]);
+        }
+        return parser.getValue();
+    }
+
+    private static JEP createParser(String expression, String[] variables) {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        parser.addFunction("BitWise", new BitWise());
+        parser.initSymTab(); // clear the contents of the symbol table
+        if (variables == null) {
+            parser.setAllowUndeclared(true);
+        }
+        else {
+            for (String variable : variables) {
+                parser.addVariable(variable, 0.0);
+            }
+        }
+        parser.parseExpression(expression);
+        return parser;
+    }
+
+    private static String[] symbols(JEP parser) {
+        final SymbolTable symbols = parser.getSymbolTable();
+        final String[] names = new String[symbols.size()];
+        int i = 0;
+        for (Object name : symbols.keySet()) {
+            names[i++] = (String) name;
+        }
+        return names;
+    }
+}
@@ -25,7 +25,9 @@ import static org.w3c.dom.Node.ELEMENT_NODE;
 
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
@@ -52,6 +54,7 @@ public final class DOMRomUnmarshaller {
     private JProgressPane progress = null;
     private ChecksumManager checksumManager = null;
     private TableScaleUnmarshaller tableScaleHandler = new TableScaleUnmarshaller();
+    private final List<Map<String, String>> checksumAttributes = new ArrayList<Map<String, String>>();
 
     public Node checkDefinitionMatch(Node rootNode, byte[] input){
         Node n = findRomNodeMatch(rootNode, null, input);
@@ -63,6 +66,7 @@ public final class DOMRomUnmarshaller {
             XMLParseException, StackOverflowError, Exception {
 
         this.progress = progress;
+        checksumAttributes.clear();
 
         // Unmarshall scales first
         tableScaleHandler.unmarshallBaseScales(rootNode);
@@ -78,6 +82,14 @@ public final class DOMRomUnmarshaller {
         return output;
     }
 
+    /**
+     * @return  the attributes of each checksum element unmarshalled for the
+     *          last ROM, in the order the checksum managers were added
+     */
+    public List<Map<String, String>> getChecksumAttributes() {
+        return checksumAttributes;
+    }
+
     public static Node findFirstRomNode(Node rootNode) {
         Node n;
         NodeList nodes = rootNode.getChildNodes();
@@ -304,6 +316,7 @@ public final class DOMRomUnmarshaller {
             attrs.put(node.getAttributes().item(i).getNodeName().toLowerCase(),
                     node.getAttributes().item(i).getNodeValue());
         }
+        checksumAttributes.add(attrs);
            return ChecksumFactory.getManager(rom, attrs);
     }
 
@@ -347,6 +347,12 @@ public final class DOMSettingsBuilder {
         protocol.setAttribute("library", validateAttr(settings.getJ2534Device()));
         loggerSettings.appendChild(protocol);
 
+        // response pipeline between the query thread and the update handlers
+        IIOMetadataNode pipeline = new IIOMetadataNode("pipeline");
+        pipeline.setAttribute("capacity", String.valueOf(settings.getLoggerPipelineCapacity()));
+        pipeline.setAttribute("overflow", settings.getLoggerPipelineOverflow());
+        loggerSettings.appendChild(pipeline);
+
         // window maximized
         IIOMetadataNode maximized = new IIOMetadataNode("maximized");
         maximized.setAttribute("value", String.valueOf((settings.isLoggerWindowMaximized())));
@@ -399,6 +405,7 @@ public final class DOMSettingsBuilder {
         filelogging.setAttribute("switchid", settings.getFileLoggingControllerSwitchId());
         filelogging.setAttribute("active", String.valueOf(settings.isFileLoggingControllerSwitchActive()));
         filelogging.setAttribute("absolutetimestamp", String.valueOf(settings.isFileLoggingAbsoluteTimestamp()));
+        filelogging.setAttribute("binary", String.valueOf(settings.isFileLoggingBinary()));
         loggerSettings.appendChild(filelogging);
 
         // debug level
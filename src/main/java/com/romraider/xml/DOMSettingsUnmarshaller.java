@@ -272,6 +272,10 @@ public final class DOMSettingsUnmarshaller {
                 settings.setFastPoll(unmarshallAttribute(n, "fastpoll", true));
                 settings.setJ2534Device(unmarshallAttribute(n, "library", null));
 
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("pipeline")) {
+                settings.setLoggerPipelineCapacity(unmarshallAttribute(n, "capacity", 256));
+                settings.setLoggerPipelineOverflow(unmarshallAttribute(n, "overflow", "DROP_OLDEST"));
+
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("maximized")) {
                 settings.setLoggerWindowMaximized(unmarshallAttribute(n, "value", false));
 
@@ -314,6 +318,7 @@ public final class DOMSettingsUnmarshaller {
                 settings.setFileLoggingControllerSwitchId(unmarshallAttribute(n, "switchid", settings.getFileLoggingControllerSwitchId()));
                 settings.setFileLoggingControllerSwitchActive(unmarshallAttribute(n, "active", true));
                 settings.setFileLoggingAbsoluteTimestamp(unmarshallAttribute(n, "absolutetimestamp", false));
+                settings.setFileLoggingBinary(unmarshallAttribute(n, "binary", false));
 
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("debug")) {
                 settings.setLoggerDebuggingLevel(unmarshallAttribute(n, "level", "info"));
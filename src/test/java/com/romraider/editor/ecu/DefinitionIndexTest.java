@@ -0,0 +1,119 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.editor.ecu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import com.romraider.xml.DOMHelper;
+
+public class DefinitionIndexTest {
+    private File definition;
+    private File indexFile;
+    private final byte[] image = new byte[0x100];
+
+    @Before
+    public void setUp() throws IOException {
+        definition = File.createTempFile("definition", ".xml");
+        indexFile = File.createTempFile("definitions", ".idx");
+        indexFile.delete();
+        System.arraycopy("B2ID".getBytes("US-ASCII"), 0, image, 0x20, 4);
+        writeDefinition("A1ID", "B2ID");
+    }
+
+    @After
+    public void tearDown() {
+        definition.delete();
+        indexFile.delete();
+    }
+
+    @Test
+    public void findsMatchingRom() throws Exception {
+        final DefinitionIndex index = new DefinitionIndex(indexFile);
+        final DefinitionIndex.Match match = index.findMatch(definition, image);
+        assertEquals(1, match.getPosition());
+        assertEquals("B2ID", match.getXmlId());
+        final Document doc = index.getDocument(definition);
+        final Node rom = DefinitionIndex.getRomNode(doc.getDocumentElement(), 1);
+        assertEquals("B2", DOMHelper.unmarshallAttribute(rom, "id", null));
+        assertNull(index.findMatch(definition, new byte[0x100]));
+    }
+
+    @Test
+    public void persistsAndRevalidates() throws Exception {
+        final DefinitionIndex index = new DefinitionIndex(indexFile);
+        assertEquals(1, index.findMatch(definition, image).getPosition());
+        index.save();
+        assertTrue(indexFile.length() > 0);
+
+        DefinitionIndex reloaded = new DefinitionIndex(indexFile);
+        assertEquals(1, reloaded.findMatch(definition, image).getPosition());
+
+        writeDefinition("B2ID", "A1ID");
+        definition.setLastModified(definition.lastModified() + 2000);
+        reloaded = new DefinitionIndex(indexFile);
+        assertEquals(0, reloaded.findMatch(definition, image).getPosition());
+    }
+
+    @Test
+    public void dropsUnconfiguredDefinitions() throws Exception {
+        final DefinitionIndex index = new DefinitionIndex(indexFile);
+        index.findMatch(definition, image);
+        index.retain(Collections.<File>emptyList());
+        index.save();
+
+        final DefinitionIndex reloaded = new DefinitionIndex(indexFile);
+        reloaded.retain(Collections.singletonList(definition));
+        reloaded.save();
+        assertEquals(1, reloaded.findMatch(definition, image).getPosition());
+    }
+
+    private void writeDefinition(String first, String second) throws IOException {
+        final String xml = "<roms>"
+                + rom("A1", first) + rom("B2", second)
+                + "</roms>";
+        final FileOutputStream out = new FileOutputStream(definition);
+        try {
+            out.write(xml.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String rom(String id, String internalId) {
+        return "<rom id=\"" + id + "\"><romid>"
+                + "<xmlid>" + internalId + "</xmlid>"
+                + "<internalidaddress>20</internalidaddress>"
+                + "<internalidstring>" + internalId + "</internalidstring>"
+                + "</romid></rom>";
+    }
+}
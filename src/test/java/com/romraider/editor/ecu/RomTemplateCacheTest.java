@@ -0,0 +1,152 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.editor.ecu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.maps.Rom;
+import com.romraider.maps.RomID;
+import com.romraider.maps.Table;
+import com.romraider.maps.Table1D;
+import com.romraider.maps.UserLevelException;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class RomTemplateCacheTest {
+    private static final int SIZE = 0x40;
+    private File definition;
+    private RomTemplateCache cache;
+
+    @BeforeClass
+    public static void useDefaultSettings() {
+        SettingsManager.setTesting(true);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        definition = File.createTempFile("definition", ".xml");
+        write(definition, "<roms/>");
+        cache = new RomTemplateCache();
+        cache.put(definition, definedRom(), Collections.<Map<String, String>>emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        definition.delete();
+    }
+
+    private static void write(File file, String text) throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+    }
+
+    // a ROM as unmarshalled from its definition, not yet populated
+    private static Rom definedRom() {
+        final RomID romId = new RomID();
+        romId.setXmlid("A1ID");
+        romId.setFileSize(SIZE);
+        final Rom rom = new Rom(romId);
+        final Table1D table = new Table1D();
+        table.setName("Fuel");
+        table.setStorageType(1);
+        table.setStorageAddress(0x10);
+        table.setDataSize(4);
+        rom.addTableByName(table);
+        return rom;
+    }
+
+    private static byte[] image(int fill) {
+        final byte[] image = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            image[i] = (byte) (fill + i);
+        }
+        return image;
+    }
+
+    private static Table table(Rom rom) {
+        return rom.getTableNodes().get("fuel").getTable();
+    }
+
+    @Test
+    public void templateIsFoundByDefinitionAndXmlId() {
+        final Rom rom = cache.newRom(definition, "a1id", image(0));
+        assertNotNull(rom);
+        assertEquals("A1ID", rom.getRomID().getXmlid());
+        assertEquals(definition, rom.getDefinitionPath());
+        assertEquals(1, rom.getTableNodes().size());
+        assertEquals(4, table(rom).getDataSize());
+
+        assertNull(cache.newRom(definition, "B2ID", image(0)));
+        assertNull(cache.newRom(new File(definition.getPath() + ".other"), "A1ID", image(0)));
+    }
+
+    @Test
+    public void changedDefinitionDropsTemplate() throws IOException {
+        final long modified = definition.lastModified();
+        write(definition, "<roms><rom/></roms>");
+        assertNull(cache.newRom(definition, "A1ID", image(0)));
+        // dropped, not only skipped, so it is gone once the file is back
+        write(definition, "<roms/>");
+        definition.setLastModified(modified);
+        assertNull(cache.newRom(definition, "A1ID", image(0)));
+    }
+
+    @Test
+    public void romsFromOneTemplateAreIndependent() throws UserLevelException {
+        final Rom first = cache.newRom(definition, "A1ID", image(0));
+        first.populateTables(image(0), new JProgressPane());
+        final Rom second = cache.newRom(definition, "A1ID", image(0x80));
+        second.populateTables(image(0x80), new JProgressPane());
+
+        final Table firstTable = table(first);
+        final Table secondTable = table(second);
+        assertNotSame(firstTable, secondTable);
+        assertNotSame(firstTable.getData()[0], secondTable.getData()[0]);
+        assertEquals(0x10, firstTable.getData()[0].getBinValue(), 0.0);
+        assertEquals(0x90, secondTable.getData()[0].getBinValue(), 0.0);
+
+        firstTable.getData()[0].setBinValue(0x55);
+        assertEquals(0x90, secondTable.getData()[0].getBinValue(), 0.0);
+        assertEquals((byte) 0x90, second.getBinary()[0x10]);
+
+        // a later ROM starts from the definition, not from the edits
+        final Rom third = cache.newRom(definition, "A1ID", image(0x40));
+        third.populateTables(image(0x40), new JProgressPane());
+        assertEquals(0x50, table(third).getData()[0].getBinValue(), 0.0);
+    }
+}
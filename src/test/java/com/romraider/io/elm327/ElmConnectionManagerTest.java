@@ -0,0 +1,80 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.elm327;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ElmConnectionManagerTest {
+
+    private static byte[] decode(String reply) {
+        final byte[] text = reply.getBytes();
+        final byte[] data = new byte[64];
+        final int length = ElmConnectionManager.decodeHex(text, text.length, data);
+        return length < 0 ? null : Arrays.copyOf(data, length);
+    }
+
+    @Test
+    public void testDecodeSingleFrameReply() {
+        final byte[] expected = {0x41, 0x0C, 0x1A, (byte) 0xF8, 0x0D, 0x32};
+        assertArrayEquals(expected, decode("41 0C 1A F8 0D 32\r\r"));
+        assertArrayEquals(expected, decode("410C1AF80D32\r\r"));
+    }
+
+    @Test
+    public void testDecodeMultiFrameReply() {
+        final byte[] expected = {0x41, 0x0C, 0x1A, (byte) 0xF8, 0x0D, 0x32,
+                0x05, 0x5A, 0x11, 0x20};
+        assertArrayEquals(expected,
+                decode("00A\r0: 41 0C 1A F8 0D 32\r1: 05 5A 11 20 AA AA AA\r\r"));
+        assertArrayEquals(expected,
+                decode("00A\r0:410C1AF80D32\r1:055A1120AAAAAA\r\r"));
+    }
+
+    @Test
+    public void testDecodeMessages() {
+        assertNull(decode("NO DATA\r\r"));
+        assertNull(decode("STOPPED\r\r"));
+        assertArrayEquals(new byte[]{0x41, 0x05, 0x5A},
+                decode("SEARCHING...\r41 05 5A\r\r"));
+    }
+
+    @Test
+    public void testParseVersion() {
+        assertEquals(15, ElmConnectionManager.parseVersion("ELM327 v1.5"));
+        assertEquals(21, ElmConnectionManager.parseVersion("AT Z\r\rELM327 v2.1\r"));
+        assertEquals(14, ElmConnectionManager.parseVersion("ELM327 v1.4b"));
+        assertEquals(0, ElmConnectionManager.parseVersion("OK"));
+    }
+
+    @Test
+    public void testPackingNeedsResponseCount() {
+        assertEquals(6, ElmConnectionManager.maxPidsPerRequest(true, 15));
+        assertEquals(6, ElmConnectionManager.maxPidsPerRequest(true, 13));
+        assertEquals(1, ElmConnectionManager.maxPidsPerRequest(true, 12));
+        assertEquals(1, ElmConnectionManager.maxPidsPerRequest(true, 0));
+        assertEquals(1, ElmConnectionManager.maxPidsPerRequest(false, 21));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static java.lang.System.nanoTime;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SerialReceiveBufferTest {
+    private static final long MS = 1000000L;
+
+    @Test
+    public final void testTakeAcrossTheEnd() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer();
+        final byte[] fill = new byte[SerialReceiveBuffer.CAPACITY - 2];
+        buffer.put(fill, 0, fill.length);
+        buffer.take(fill, 0, fill.length);
+        buffer.put(new byte[]{1, 2, 3, 4}, 0, 4);
+        assertEquals(4, buffer.available());
+        final byte[] bytes = new byte[4];
+        assertEquals(4, buffer.take(bytes, 0, bytes.length));
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, bytes);
+        assertEquals(-1, buffer.take());
+    }
+
+    @Test
+    public final void testOverflowDropsOldest() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer();
+        final byte[] fill = new byte[SerialReceiveBuffer.CAPACITY];
+        fill[0] = 1;
+        fill[1] = 2;
+        assertEquals(0, buffer.put(fill, 0, fill.length));
+        assertEquals(1, buffer.put(new byte[]{3}, 0, 1));
+        assertEquals(2, buffer.take());
+        assertEquals(SerialReceiveBuffer.CAPACITY - 1, buffer.available());
+    }
+
+    @Test
+    public final void testIndexOf() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer();
+        buffer.put(new byte[]{'O', 'K', '\r', '\n', '>'}, 0, 5);
+        assertEquals(4, buffer.indexOf((byte) '\n'));
+        assertEquals(-1, buffer.indexOf((byte) 'X'));
+        assertEquals(5, buffer.clear());
+    }
+
+    @Test
+    public final void testAwaitDeadline() {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer();
+        final long start = nanoTime();
+        assertFalse(buffer.await(1, start + 20 * MS));
+        assertTrue(nanoTime() - start >= 20 * MS);
+    }
+
+    @Test
+    public final void testAwaitWokenByPut() throws InterruptedException {
+        final SerialReceiveBuffer buffer = new SerialReceiveBuffer();
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                buffer.put(new byte[]{1}, 0, 1);
+                buffer.put(new byte[]{2, 3}, 0, 2);
+            }
+        };
+        final long start = nanoTime();
+        writer.start();
+        assertTrue(buffer.await(3, start + 5000 * MS));
+        assertTrue(nanoTime() - start < 5000 * MS);
+        writer.join();
+    }
+}
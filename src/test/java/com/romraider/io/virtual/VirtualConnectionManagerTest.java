@@ -0,0 +1,148 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.virtual;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.romraider.io.protocol.obd.iso15765.OBDProtocol;
+import com.romraider.io.protocol.ssm.iso9141.SSMProtocol;
+import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+import com.romraider.logger.ecu.definition.Module;
+
+public class VirtualConnectionManagerTest {
+    private static final Module ECU = new Module(
+            "ECU", new byte[]{0x10}, "Engine", new byte[]{(byte) 0xF0}, true);
+    private static final Module CAN_ECU = new Module(
+            "ECU", new byte[]{0x00, 0x00, 0x07, (byte) 0xE8}, "Engine",
+            new byte[]{0x00, 0x00, 0x07, (byte) 0xE0}, true);
+
+    @Test
+    public final void testSsmReadAddressFromRomAndRam() {
+        final byte[] image = new byte[]{0x00, 0x11, 0x22, 0x33};
+        final VirtualConnectionManager manager = new VirtualConnectionManager(
+                new SSMVirtualEcu(new EcuMemory(image), false, "7442594007"),
+                VirtualTiming.none(), 0);
+        final SSMProtocol protocol = new SSMProtocol();
+        final byte[][] addresses = {{0x00, 0x00, 0x02}, {(byte) 0xFF, 0x12, 0x34}};
+        final byte[] request = protocol.constructReadAddressRequest(ECU, addresses);
+        final byte[] response = new byte[request.length
+                + SSMProtocol.RESPONSE_NON_DATA_BYTES + addresses.length];
+        final PollingState pollState = new PollingStateImpl();
+        manager.send(request, response, pollState);
+
+        final byte[] data = protocol.parseResponseData(
+                protocol.preprocessResponse(request, response, pollState));
+        assertArrayEquals(
+                new byte[]{0x22, EcuMemory.ram(0xFF1234, 0)}, data);
+    }
+
+    @Test
+    public final void testSsmFastPollAnswersLastRequest() {
+        final VirtualConnectionManager manager = new VirtualConnectionManager(
+                new SSMVirtualEcu(new EcuMemory(new byte[0]), false, "7442594007"),
+                VirtualTiming.none(), 0);
+        final SSMProtocol protocol = new SSMProtocol();
+        final byte[] request = protocol.constructReadAddressRequest(
+                ECU, new byte[][]{{(byte) 0xFF, 0x00, 0x01}});
+        final PollingState pollState = new PollingStateImpl();
+        manager.send(request, new byte[request.length + 7], pollState);
+
+        pollState.setCurrentState(PollingState.State.STATE_1);
+        pollState.setLastState(PollingState.State.STATE_0);
+        final byte[] response = new byte[7];
+        manager.send(new byte[0], response, pollState);
+        final byte[] data = protocol.parseResponseData(
+                protocol.preprocessResponse(request, response, pollState));
+        assertArrayEquals(new byte[]{EcuMemory.ram(0xFF0001, 1)}, data);
+    }
+
+    @Test
+    public final void testSsmWriteAddressIsReadBack() {
+        final VirtualConnectionManager manager = new VirtualConnectionManager(
+                new SSMVirtualEcu(new EcuMemory(new byte[0]), false, "7442594007"),
+                VirtualTiming.none(), 0);
+        final SSMProtocol protocol = new SSMProtocol();
+        final byte[] address = {(byte) 0xFF, 0x00, 0x10};
+        final byte[] write = protocol.constructWriteAddressRequest(ECU, address, (byte) 0x5A);
+        manager.send(write);
+
+        final byte[] request = protocol.constructReadAddressRequest(
+                ECU, new byte[][]{address});
+        final byte[] response = new byte[request.length + 7];
+        final PollingState pollState = new PollingStateImpl();
+        manager.send(request, response, pollState);
+        assertEquals(0x5A, protocol.parseResponseData(
+                protocol.preprocessResponse(request, response, pollState))[0]);
+    }
+
+    @Test
+    public final void testObdInitAndPidRead() {
+        final VirtualConnectionManager manager = new VirtualConnectionManager(
+                new OBDVirtualEcu(new EcuMemory(new byte[0]), "A2WC522S"),
+                VirtualTiming.none(), 0);
+        final OBDProtocol protocol = new OBDProtocol();
+        final byte[] init = manager.send(protocol.constructEcuInitRequest(CAN_ECU));
+        assertEquals("A2WC522S", new String(init, 7, 8));
+
+        // engine speed has 2 bytes, coolant temperature 1
+        final byte[] request = protocol.constructReadAddressRequest(
+                CAN_ECU, new byte[][]{{0x0C, 0x05}});
+        final byte[] response = manager.send(request);
+        final byte[] data = protocol.parseResponseData(response);
+        assertEquals(5, data.length);
+        assertEquals(0x0C, data[0]);
+        assertEquals(0x05, data[3]);
+    }
+
+    @Test
+    public final void testLineTiming() {
+        // 4800 baud, 10 bits a byte, 5 ms response delay
+        final VirtualTiming timing = new VirtualTiming(
+                4800, 10, false, 0, 5000, 0, 0, 0, 0);
+        assertEquals(12 * 10 * 1000000000L / 4800, timing.requestNanos(12));
+        assertEquals(5000000L + 7 * 10 * 1000000000L / 4800, timing.responseNanos(7));
+
+        final VirtualConnectionManager manager = new VirtualConnectionManager(
+                new SSMVirtualEcu(new EcuMemory(new byte[0]), false, "7442594007"),
+                timing, 0);
+        final SSMProtocol protocol = new SSMProtocol();
+        final byte[] request = protocol.constructReadAddressRequest(
+                ECU, new byte[][]{{(byte) 0xFF, 0x00, 0x01}});
+        final byte[] response = new byte[request.length + 7];
+        final long start = System.nanoTime();
+        manager.send(request, response, new PollingStateImpl());
+        final long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= timing.requestNanos(request.length)
+                + timing.responseNanos(7));
+
+        final VirtualTiming can = new VirtualTiming(
+                500000, 10, true, 0, 0, 0, 0, 0, 0);
+        // a single frame, then a first frame, one consecutive and flow control
+        assertEquals(VirtualTiming.CAN_FRAME_BITS * 1000000000L / 500000,
+                can.requestNanos(7));
+        assertEquals(3 * VirtualTiming.CAN_FRAME_BITS * 1000000000L / 500000,
+                can.requestNanos(13));
+    }
+}
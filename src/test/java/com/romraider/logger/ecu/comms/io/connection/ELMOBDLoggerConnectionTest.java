@@ -0,0 +1,108 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.romraider.io.protocol.obd.iso15765.OBDLoggerProtocol;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.QueryFixtures;
+
+public class ELMOBDLoggerConnectionTest {
+    private static final OBDLoggerProtocol PROTOCOL = new OBDLoggerProtocol();
+
+    private static EcuQuery query(String id, int pid, String dataType) {
+        return QueryFixtures.query(id, String.format("0x%02X", pid), 1, dataType);
+    }
+
+    private static byte[] request(int... pids) {
+        final byte[] request = new byte[5 + pids.length];
+        request[2] = 0x07;
+        request[3] = (byte) 0xDF;
+        request[4] = 0x01;
+        for (int i = 0; i < pids.length; i++) {
+            request[5 + i] = (byte) pids[i];
+        }
+        return request;
+    }
+
+    @Test
+    public void singlePidIsOneFrame() {
+        final List<EcuQuery> batch = Arrays.asList(query("P8", 0x0C, "uint16"));
+        assertEquals("010C1", ELMOBDLoggerConnection.buildRequest(
+                request(0x0C), PROTOCOL.filterDuplicates(batch), true));
+        assertEquals("010C", ELMOBDLoggerConnection.buildRequest(
+                request(0x0C), PROTOCOL.filterDuplicates(batch), false));
+    }
+
+    @Test
+    public void framesAreCountedOncePerPid() {
+        // 41 + 0C xx xx + 0D xx + 05 xx + 0F xx = 10 bytes, two frames
+        final List<EcuQuery> batch = Arrays.asList(
+                query("P8", 0x0C, "uint16"), query("P9", 0x0D, "uint8"),
+                query("P2", 0x05, "uint8"), query("P11", 0x0F, "uint8"));
+        assertEquals("010C0D050F2", ELMOBDLoggerConnection.buildRequest(
+                request(0x0C, 0x0D, 0x05, 0x0F),
+                PROTOCOL.filterDuplicates(batch), true));
+
+        // the same PIDs logged twice are requested and answered only once
+        final List<EcuQuery> duplicated = Arrays.asList(
+                query("P8", 0x0C, "uint16"), query("P9", 0x0D, "uint8"),
+                query("P2", 0x05, "uint8"), query("P11", 0x0F, "uint8"),
+                query("E1", 0x0C, "uint16"), query("E2", 0x0D, "uint8"));
+        assertEquals("010C0D050F2", ELMOBDLoggerConnection.buildRequest(
+                request(0x0C, 0x0D, 0x05, 0x0F),
+                PROTOCOL.filterDuplicates(duplicated), true));
+    }
+
+    @Test
+    public void replyIsSplitByPid() {
+        final EcuQuery rpm = query("P8", 0x0C, "uint16");
+        final EcuQuery speed = query("P9", 0x0D, "uint8");
+        final EcuQuery rpmAgain = query("E1", 0x0C, "uint16");
+        final EcuQuery coolant = query("P2", 0x05, "uint8");
+        final Collection<EcuQuery> batch = Arrays.asList(rpm, speed, rpmAgain, coolant);
+        // the PIDs may come back in any order
+        final byte[] reply = {0x41, 0x0D, 0x32, 0x0C, 0x1A, (byte) 0xF8, 0x05, 0x7B};
+        ELMOBDLoggerConnection.processResponse(batch,
+                PROTOCOL.filterDuplicates(batch).size(), reply, reply.length);
+        assertEquals(0x1AF8, rpm.getResponse(), 0.0);
+        assertEquals(0x1AF8, rpmAgain.getResponse(), 0.0);
+        assertEquals(0x32, speed.getResponse(), 0.0);
+        assertEquals(0x7B, coolant.getResponse(), 0.0);
+    }
+
+    @Test
+    public void shortReplyStopsAtMissingData() {
+        final EcuQuery rpm = query("P8", 0x0C, "uint16");
+        final EcuQuery speed = query("P9", 0x0D, "uint8");
+        final Collection<EcuQuery> batch = Arrays.asList(rpm, speed);
+        final byte[] reply = {0x41, 0x0D, 0x32, 0x0C, 0x1A};
+        ELMOBDLoggerConnection.processResponse(batch, 2, reply, reply.length);
+        assertEquals(0x32, speed.getResponse(), 0.0);
+        assertEquals(0.0, rpm.getResponse(), 0.0);
+    }
+}
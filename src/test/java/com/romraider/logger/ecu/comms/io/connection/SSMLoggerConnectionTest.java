@@ -0,0 +1,179 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import static com.romraider.logger.ecu.comms.io.connection.SSMLoggerConnection.MAX_ADDRESSES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.io.connection.ConnectionManager;
+import com.romraider.logger.ecu.comms.manager.PollingState;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.QueryFixtures;
+import com.romraider.util.SettingsManager;
+
+public class SSMLoggerConnectionTest {
+    private SSMLoggerConnection connection;
+
+    @BeforeClass
+    public static void useDefaultSettings() {
+        SettingsManager.setTesting(true);
+    }
+
+    @Before
+    public void setUp() {
+        connection = new SSMLoggerConnection(new ConnectionManager() {
+            public void open(byte[] start, byte[] stop) {
+            }
+
+            public void send(byte[] request, byte[] response, PollingState pollState) {
+            }
+
+            public byte[] send(byte[] bytes) {
+                return new byte[0];
+            }
+
+            public void clearLine() {
+            }
+
+            public void close() {
+            }
+        });
+    }
+
+    private static EcuQuery query(int address, int length) {
+        return QueryFixtures.query(String.format("P%X", address),
+                String.format("0x%06X", address), length,
+                length == 2 ? "uint16" : "uint8");
+    }
+
+    // single address queries at consecutive addresses
+    private static List<EcuQuery> queries(int count) {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < count; i++) {
+            queries.add(query(0xFF6000 + i, 1));
+        }
+        return queries;
+    }
+
+    private static int addresses(Collection<EcuQuery> batch) {
+        int addresses = 0;
+        for (EcuQuery query : batch) {
+            addresses += query.getAddresses().length;
+        }
+        return addresses;
+    }
+
+    @Test
+    public void maxAddressesIsOneRequest() {
+        final List<Collection<EcuQuery>> batches =
+                connection.planBatches(queries(MAX_ADDRESSES));
+        assertEquals(1, batches.size());
+        assertEquals(MAX_ADDRESSES, batches.get(0).size());
+        assertFalse(connection.isBatched(queries(MAX_ADDRESSES)));
+    }
+
+    @Test
+    public void oneAddressOverMaxIsTwoRequests() {
+        final List<Collection<EcuQuery>> batches =
+                connection.planBatches(queries(MAX_ADDRESSES + 1));
+        assertEquals(2, batches.size());
+        assertEquals(43, batches.get(0).size());
+        assertEquals(42, batches.get(1).size());
+        assertTrue(connection.isBatched(queries(MAX_ADDRESSES + 1)));
+    }
+
+    @Test
+    public void batchesAreOfEvenSize() {
+        final List<Collection<EcuQuery>> batches = connection.planBatches(queries(200));
+        assertEquals(3, batches.size());
+        for (Collection<EcuQuery> batch : batches) {
+            assertTrue(addresses(batch) <= MAX_ADDRESSES);
+            assertTrue(addresses(batch) >= 66);
+        }
+    }
+
+    @Test
+    public void multiAddressQueriesAreNotSplit() {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < 60; i++) {
+            queries.add(query(0xFF6000 + 2 * i, 2));
+        }
+        final List<Collection<EcuQuery>> batches = connection.planBatches(queries);
+        assertEquals(2, batches.size());
+        assertEquals(60, addresses(batches.get(0)));
+        assertEquals(60, addresses(batches.get(1)));
+    }
+
+    @Test
+    public void queriesOfTheSameAddressShareABatch() {
+        final List<EcuQuery> queries = queries(MAX_ADDRESSES);
+        // the same address again, last in the selection
+        final EcuQuery again = query(0xFF6000, 1);
+        queries.add(again);
+        final List<Collection<EcuQuery>> batches = connection.planBatches(queries);
+        // the repeat needs no address of its own
+        assertEquals(1, batches.size());
+        assertTrue(batches.get(0).contains(again));
+
+        queries.add(query(0xFF7000, 1));
+        final List<Collection<EcuQuery>> split = connection.planBatches(queries);
+        assertEquals(2, split.size());
+        int found = 0;
+        for (EcuQuery query : split.get(0)) {
+            if (query == queries.get(0) || query == again) found++;
+        }
+        assertEquals(2, found);
+    }
+
+    @Test
+    public void planIsKeptUntilSelectionChanges() {
+        final List<EcuQuery> queries = queries(100);
+        final List<Collection<EcuQuery>> batches = connection.planBatches(queries);
+        assertSame(batches, connection.planBatches(new ArrayList<EcuQuery>(queries)));
+
+        queries.remove(99);
+        final List<Collection<EcuQuery>> changed = connection.planBatches(queries);
+        assertNotSame(batches, changed);
+        assertEquals(99, addresses(changed.get(0)) + addresses(changed.get(1)));
+    }
+
+    @Test
+    public void canPollIsNeverBatched() {
+        final String transport = connection.settings.getTransportProtocol();
+        connection.settings.setTransportProtocol("ISO15765");
+        try {
+            assertFalse(connection.isBatched(queries(200)));
+        } finally {
+            connection.settings.setTransportProtocol(transport);
+        }
+    }
+}
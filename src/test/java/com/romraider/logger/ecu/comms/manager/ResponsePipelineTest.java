@@ -0,0 +1,145 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.comms.query.ResponseImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+
+public class ResponsePipelineTest {
+
+    private static class RecordingHandler implements DataUpdateHandler {
+        final List<Response> responses = Collections.synchronizedList(new ArrayList<Response>());
+        final CountDownLatch gate;
+
+        RecordingHandler(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void handleDataUpdate(Response response) {
+            try {
+                gate.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responses.add(response);
+        }
+
+        @Override
+        public void registerData(LoggerData loggerData) {
+        }
+
+        @Override
+        public void deregisterData(LoggerData loggerData) {
+        }
+
+        @Override
+        public void cleanUp() {
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    private static void waitFor(RecordingHandler handler, int count) throws InterruptedException {
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handler.responses.size() < count && System.nanoTime() < end) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public final void testDeliversInOrderToEveryHandler() throws InterruptedException {
+        final CountDownLatch open = new CountDownLatch(0);
+        final RecordingHandler a = new RecordingHandler(open);
+        final RecordingHandler b = new RecordingHandler(open);
+        final ResponsePipeline pipeline = new ResponsePipeline(
+                new DataUpdateHandler[]{a, b}, 16, ResponsePipeline.Overflow.BLOCK);
+        pipeline.start();
+        final List<Response> sent = new ArrayList<Response>();
+        for (int i = 0; i < 1000; i++) {
+            final Response response = new ResponseImpl();
+            sent.add(response);
+            pipeline.addResponse(response);
+        }
+        waitFor(a, sent.size());
+        waitFor(b, sent.size());
+        pipeline.stop();
+        assertEquals(sent, a.responses);
+        assertEquals(sent, b.responses);
+    }
+
+    @Test
+    public final void testSlowHandlerDropsOldestWithoutStallingOthers() throws InterruptedException {
+        final CountDownLatch closed = new CountDownLatch(1);
+        final RecordingHandler fast = new RecordingHandler(new CountDownLatch(0));
+        final RecordingHandler slow = new RecordingHandler(closed);
+        final ResponsePipeline pipeline = new ResponsePipeline(
+                new DataUpdateHandler[]{fast, slow}, 8, ResponsePipeline.Overflow.DROP_OLDEST);
+        pipeline.start();
+        for (int i = 0; i < 100; i++) {
+            pipeline.addResponse(new ResponseImpl());
+            Thread.sleep(1);
+        }
+        waitFor(fast, 100);
+        assertEquals(100, fast.responses.size());
+        closed.countDown();
+        Thread.sleep(100);
+        pipeline.stop();
+        final long[] dropped = pipeline.getDropped();
+        assertEquals(0L, dropped[0]);
+        assertTrue(dropped[1] > 0);
+        assertEquals(100L, slow.responses.size() + dropped[1]);
+    }
+
+    @Test
+    public final void testStopPublishesCoalescedResponse() throws InterruptedException {
+        final CountDownLatch closed = new CountDownLatch(1);
+        final RecordingHandler slow = new RecordingHandler(closed);
+        final ResponsePipeline pipeline = new ResponsePipeline(
+                new DataUpdateHandler[]{slow}, 2, ResponsePipeline.Overflow.COALESCE_LATEST);
+        pipeline.start();
+        Response last = null;
+        for (int i = 0; i < 10; i++) {
+            last = new ResponseImpl();
+            pipeline.addResponse(last);
+        }
+        pipeline.stop();
+        closed.countDown();
+        waitFor(slow, 3);
+        assertTrue(slow.responses.size() <= 3);
+        assertEquals(last, slow.responses.get(slow.responses.size() - 1));
+    }
+}
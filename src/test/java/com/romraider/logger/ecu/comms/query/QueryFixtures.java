@@ -0,0 +1,68 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+
+import java.util.HashMap;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameter;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+
+/**
+ * Builds the logger parameters and queries used by the tests and the
+ * benchmarks.  The parameters convert their raw big endian value unscaled.
+ */
+public final class QueryFixtures {
+
+    private QueryFixtures() {
+    }
+
+    /**
+     * @param id - the parameter id, also used as its name
+     * @param address - the hex address, e.g. 0x00FF6A
+     * @param length - the number of addresses read from
+     * @param dataType - the storage type, e.g. uint16
+     */
+    public static EcuParameter parameter(
+            String id, String address, int length, String dataType) {
+
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(
+                "raw", "x", "0", -1, dataType, Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault());
+        return new EcuParameterImpl(id, id, id,
+                new EcuAddressImpl(address, length, -1),
+                null, null, null, new EcuDataConvertor[]{convertor});
+    }
+
+    /**
+     * @return  a query of the parameter built by
+     *          {@link #parameter(String, String, int, String)}
+     */
+    public static EcuQuery query(
+            String id, String address, int length, String dataType) {
+
+        return new EcuQueryImpl(parameter(id, address, length, dataType));
+    }
+}
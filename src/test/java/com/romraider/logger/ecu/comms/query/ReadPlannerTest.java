@@ -0,0 +1,104 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReadPlannerTest {
+    private static final ReadCostModel MODEL = new ReadCostModel("test", 10, 5, 20, 32);
+
+    private static EcuQuery query(int address, String dataType) {
+        return QueryFixtures.query(String.format("P%X", address),
+                String.format("0x%06X", address), 1, dataType);
+    }
+
+    @Test
+    public void adjacentQueriesAreOneRead() {
+        final EcuQuery first = query(0x1000, "uint16");
+        final ReadPlan plan = ReadPlanner.plan(Arrays.asList(
+                query(0x1004, "uint8"), first, query(0x1002, "uint16")), MODEL);
+        assertEquals(1, plan.getRanges().size());
+        final ReadPlan.Range range = plan.getRanges().get(0);
+        assertEquals(0x1000, range.getStart());
+        assertEquals(5, range.getLength());
+        assertSame(first, range.getStartQuery());
+        assertEquals(MODEL.bytesOnWire(5), plan.getBytesOnWire());
+    }
+
+    @Test
+    public void smallGapIsBridged() {
+        final ReadPlan plan = ReadPlanner.plan(Arrays.asList(
+                query(0x1000, "uint8"), query(0x1010, "uint8")), MODEL);
+        assertEquals(1, plan.getRanges().size());
+        assertEquals(0x11, plan.getRanges().get(0).getLength());
+    }
+
+    @Test
+    public void distantClustersAreSeparateReads() {
+        final ReadPlan plan = ReadPlanner.plan(Arrays.asList(
+                query(0x1000, "uint8"), query(0x1001, "uint8"),
+                query(0x2000, "uint16"), query(0x2002, "uint8")), MODEL);
+        assertEquals(2, plan.getRanges().size());
+        assertEquals(0x1000, plan.getRanges().get(0).getStart());
+        assertEquals(2, plan.getRanges().get(0).getLength());
+        assertEquals(0x2000, plan.getRanges().get(1).getStart());
+        assertEquals(3, plan.getRanges().get(1).getLength());
+        assertEquals(MODEL.bytesOnWire(2) + MODEL.bytesOnWire(3), plan.getBytesOnWire());
+    }
+
+    @Test
+    public void rangeIsNeverLongerThanMax() {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < 20; i++) {
+            queries.add(query(0x1000 + i * 4, "float"));
+        }
+        final ReadPlan plan = ReadPlanner.plan(queries, MODEL);
+        int count = 0;
+        for (ReadPlan.Range range : plan.getRanges()) {
+            assertTrue(range.getLength() <= MODEL.getMaxLength());
+            count += range.getQueries().size();
+        }
+        assertEquals(20, count);
+        assertEquals(3, plan.getRanges().size());
+    }
+
+    @Test
+    public void planIsKeptUntilSelectionChanges() {
+        final ReadPlanner planner = new ReadPlanner(MODEL);
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>(Arrays.asList(
+                query(0x1000, "uint8"), query(0x1001, "uint8")));
+        final ReadPlan plan = planner.plan(queries);
+        assertSame(plan, planner.plan(new ArrayList<EcuQuery>(queries)));
+        assertSame(plan, ReadPlanner.getCurrentPlan());
+
+        queries.add(query(0x1002, "uint8"));
+        final ReadPlan changed = planner.plan(queries);
+        assertEquals(3, changed.getRanges().get(0).getLength());
+        assertSame(changed, ReadPlanner.getCurrentPlan());
+    }
+}
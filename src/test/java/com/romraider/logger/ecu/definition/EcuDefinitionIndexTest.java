@@ -0,0 +1,141 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.util.SaxParserFactory.getSaxParser;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.logger.ecu.definition.xml.EcuDefinitionHandler;
+import com.romraider.logger.ecu.definition.xml.EcuDefinitionScanner;
+
+public class EcuDefinitionIndexTest {
+    private File definition;
+    private File indexFile;
+    private List<File> files;
+
+    @Before
+    public void setUp() throws IOException {
+        definition = File.createTempFile("ecu_defs", ".xml");
+        indexFile = File.createTempFile("logger_definitions", ".idx");
+        indexFile.delete();
+        files = Collections.singletonList(definition);
+        writeDefinition("A4TC300K");
+    }
+
+    @After
+    public void tearDown() {
+        definition.delete();
+        indexFile.delete();
+    }
+
+    @Test
+    public void scanMatchesFullParse() throws Exception {
+        final EcuDefinitionHandler handler = new EcuDefinitionHandler(definition);
+        getSaxParser().parse(definition, handler);
+        final Map<String, EcuDefinition> parsed = handler.getEcuDefinitionMap();
+        final Map<String, EcuDefinition> scanned = EcuDefinitionScanner.scan(definition);
+
+        assertEquals(2, parsed.size());
+        assertEquals(parsed.keySet(), scanned.keySet());
+        for (EcuDefinition expected : parsed.values()) {
+            final EcuDefinition actual = scanned.get(expected.getEcuId());
+            assertEquals(expected.getCalId(), actual.getCalId());
+            assertEquals(expected.getCarString(), actual.getCarString());
+            assertEquals(expected.getInherits(), actual.getInherits());
+        }
+        assertEquals("2003 USDM Subaru Forester X & XS AT",
+                scanned.get("3614446205").getCarString());
+        assertEquals("16BITBASE", scanned.get("3614446205").getInherits());
+        assertNull(scanned.get("2F12345678").getInherits());
+    }
+
+    @Test
+    public void persistsAndRefreshesChangedFiles() throws Exception {
+        final EcuDefinitionIndex index = new EcuDefinitionIndex(indexFile);
+        assertTrue(index.getDefinitions(files).isEmpty());
+        assertTrue(index.refresh(files));
+        assertFalse(index.refresh(files));
+        assertTrue(indexFile.length() > 0);
+
+        EcuDefinitionIndex reloaded = new EcuDefinitionIndex(indexFile);
+        Map<String, EcuDefinition> definitions = reloaded.getDefinitions(files);
+        assertEquals("A4TC300K", definitions.get("3614446205").getCalId());
+        assertEquals(definition, definitions.get("3614446205").getEcuDefFile());
+        assertFalse(reloaded.refresh(files));
+
+        writeDefinition("A4TC301K");
+        definition.setLastModified(definition.lastModified() + 2000);
+        reloaded = new EcuDefinitionIndex(indexFile);
+        assertEquals("A4TC300K", reloaded.getDefinitions(files).get("3614446205").getCalId());
+        assertTrue(reloaded.refresh(files));
+        assertEquals("A4TC301K", reloaded.getDefinitions(files).get("3614446205").getCalId());
+    }
+
+    @Test
+    public void dropsUnconfiguredFiles() throws Exception {
+        final EcuDefinitionIndex index = new EcuDefinitionIndex(indexFile);
+        index.refresh(files);
+        assertTrue(index.refresh(Collections.<File>emptyList()));
+
+        final EcuDefinitionIndex reloaded = new EcuDefinitionIndex(indexFile);
+        assertTrue(reloaded.getDefinitions(files).isEmpty());
+    }
+
+    private void writeDefinition(String calId) throws IOException {
+        final String xml = "<roms>"
+                + "<rom base=\"16BITBASE\"><romid>"
+                + "<xmlid>CAL ID:" + calId + "</xmlid>"
+                + "<internalidaddress>200</internalidaddress>"
+                + "<internalidstring>" + calId + "</internalidstring>"
+                + "<ecuid>3614446205</ecuid><year>03</year><market>USDM</market>"
+                + "<make>Subaru</make><model>Forester</model>"
+                + "<submodel><![CDATA[X & XS]]></submodel>"
+                + "<transmission>AT</transmission>"
+                + "</romid><table name=\"Base Timing\" storageaddress=\"0x1000\">"
+                + "<table type=\"X Axis\"><data>1</data></table></table></rom>"
+                + "<rom><romid><internalidstring>B2ID</internalidstring>"
+                + "<ecuid>2F12345678</ecuid><year>2010</year><market>JDM</market>"
+                + "<make>Subaru</make><model>Legacy</model><submodel>GT</submodel>"
+                + "<transmission>MT</transmission></romid></rom>"
+                + "<rom><romid><internalidstring>C3ID</internalidstring>"
+                + "<ecuid>1234</ecuid></romid></rom>"
+                + "</roms>";
+        final FileOutputStream out = new FileOutputStream(definition);
+        try {
+            out.write(xml.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
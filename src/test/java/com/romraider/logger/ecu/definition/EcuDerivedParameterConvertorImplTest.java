@@ -0,0 +1,76 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+
+public class EcuDerivedParameterConvertorImplTest {
+
+    private static EcuData parameter(String id, String address, int length,
+            String units, String expression, String dataType, Settings.Endian endian) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(
+                units, expression, "0.00", -1, dataType, endian,
+                new HashMap<String, String>(), getDefault());
+        return new EcuParameterImpl(id, id, id, new EcuAddressImpl(address, length, -1),
+                null, null, null, new EcuDataConvertor[]{convertor});
+    }
+
+    private static EcuDerivedParameterConvertorImpl derived(String expression) {
+        final EcuDerivedParameterConvertorImpl convertor =
+                new EcuDerivedParameterConvertorImpl("units", expression, "0.00",
+                        new HashMap<String, String>(), getDefault());
+        convertor.setEcuDatas(new EcuData[]{
+                parameter("P8", "0x00000E", 2, "rpm", "x/4", "uint16", Settings.Endian.BIG),
+                parameter("P2", "0x000008", 1, "C", "x-40", "uint8", Settings.Endian.BIG),
+                parameter("P90", "0x001000", 4, "ms", "x", "float", Settings.Endian.LITTLE)});
+        return convertor;
+    }
+
+    @Test
+    public void dependenciesAreDecodedInPlace() {
+        final EcuDerivedParameterConvertorImpl convertor = derived("[P8:rpm]+[P2:C]*[P90:ms]");
+        final int bits = Float.floatToIntBits(1.5f);
+        final byte[] bytes = {0x1F, 0x40, 0x64,
+                (byte) bits, (byte) (bits >> 8), (byte) (bits >> 16), (byte) (bits >> 24)};
+        assertEquals(2000.0 + 60.0 * 1.5, convertor.convert(bytes), 0.0);
+
+        // the same data inside a larger response
+        final byte[] response = new byte[bytes.length + 5];
+        System.arraycopy(bytes, 0, response, 3, bytes.length);
+        assertEquals(2000.0 + 60.0 * 1.5,
+                convertor.convert(response, 3, bytes.length), 0.0);
+    }
+
+    @Test
+    public void repeatedConversionsDoNotShareValues() {
+        final EcuDerivedParameterConvertorImpl convertor = derived("[P8:rpm]-[P2:C]+[P90:ms]");
+        final byte[] first = {0x00, 0x28, 0x32, 0, 0, 0, 0};
+        final byte[] second = {0x00, 0x50, 0x28, 0, 0, 0, 0};
+        assertEquals(10.0 - 10.0, convertor.convert(first), 0.0);
+        assertEquals(20.0 - 0.0, convertor.convert(second), 0.0);
+    }
+}
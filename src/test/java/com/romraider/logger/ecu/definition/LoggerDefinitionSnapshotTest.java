@@ -0,0 +1,215 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static com.romraider.util.SaxParserFactory.getSaxParser;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.io.connection.KwpConnectionProperties;
+import com.romraider.logger.ecu.comms.query.EcuInit;
+import com.romraider.logger.ecu.definition.xml.LoggerDefinitionHandler;
+
+public class LoggerDefinitionSnapshotTest {
+    private static final String DEFINITION =
+        "<logger version=\"1.0\">" +
+        "<protocols>" +
+        "<protocol id=\"NCS\" baud=\"10400\" databits=\"8\" stopbits=\"1\" parity=\"0\"" +
+        " connect_timeout=\"2000\" send_timeout=\"55\" p1_max=\"20\" p3_min=\"55\" p4_min=\"5\">" +
+        "<transports><transport id=\"iso14230\" name=\"K-Line\" desc=\"KWP2000\">" +
+        "<module id=\"ECU\" address=\"0x10\" desc=\"Engine\" tester=\"0xFC\" fastpoll=\"true\"/>" +
+        "</transport></transports>" +
+        "<parameters>" +
+        "<parameter id=\"P1\" name=\"Engine Load\" desc=\"P1\" ecubyteindex=\"0\" ecubit=\"0\">" +
+        "<address length=\"2\">0x001000</address>" +
+        "<conversions>" +
+        "<conversion units=\"%\" expr=\"x/2\" format=\"0.0\" storagetype=\"uint16\" endian=\"little\"" +
+        " gauge_min=\"0\" gauge_max=\"100\" gauge_step=\"10\">" +
+        "<replace value=\"0.0\" with=\"idle\"/></conversion>" +
+        "<conversion units=\"raw\" expr=\"x\" format=\"0\" storagetype=\"uint16\"/>" +
+        "</conversions></parameter>" +
+        "<parameter id=\"P2\" name=\"Unsupported\" desc=\"P2\" ecubyteindex=\"0\" ecubit=\"1\">" +
+        "<address>0x001002</address></parameter>" +
+        "<parameter id=\"P3\" name=\"Speed\" desc=\"P3\">" +
+        "<address>0x001004</address>" +
+        "<conversions><conversion units=\"Raw data\" expr=\"x\" format=\"0\"/></conversions>" +
+        "</parameter>" +
+        "<parameter id=\"P200\" name=\"Derived\" desc=\"P200\">" +
+        "<depends><ref parameter=\"P1\"/><ref parameter=\"P3\"/></depends>" +
+        "<conversions><conversion units=\"x\" expr=\"[P1:%]*[P3:Raw data]\" format=\"0.00\"/>" +
+        "</conversions></parameter>" +
+        "</parameters>" +
+        "<switches>" +
+        "<switch id=\"S1\" name=\"Defogger\" desc=\"S1\" byte=\"0x002000\" bit=\"3\"/>" +
+        "</switches>" +
+        "<ecuparams>" +
+        "<ecuparam id=\"E1\" name=\"Knock\" desc=\"E1\">" +
+        "<ecu id=\"1234567890\"><address>0x003000</address></ecu>" +
+        "<ecu id=\"0987654321\"><address>0x004000</address></ecu>" +
+        "<conversions><conversion units=\"deg\" expr=\"x\" format=\"0\"/></conversions>" +
+        "</ecuparam>" +
+        "</ecuparams>" +
+        "<dtcodes>" +
+        "<dtcode id=\"D1\" name=\"P0100\" desc=\"MAF\" tmpaddr=\"0x005000\" memaddr=\"0x005100\" bit=\"2\"/>" +
+        "</dtcodes>" +
+        "</protocol>" +
+        "</protocols>" +
+        "</logger>";
+
+    private static final EcuInit ECU_INIT = new EcuInit() {
+        @Override
+        public String getEcuId() {
+            return "1234567890";
+        }
+
+        @Override
+        public byte[] getEcuInitBytes() {
+            return new byte[]{0x01};
+        }
+    };
+
+    private File definition;
+    private File snapshotFile;
+
+    @Before
+    public void setUp() throws IOException {
+        definition = File.createTempFile("logger", ".xml");
+        snapshotFile = File.createTempFile("logger", ".snap");
+        snapshotFile.delete();
+        write(DEFINITION);
+    }
+
+    @After
+    public void tearDown() {
+        definition.delete();
+        snapshotFile.delete();
+    }
+
+    private void write(String content) throws IOException {
+        final OutputStream out = new FileOutputStream(definition);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private LoggerDefinitionSnapshot parse() throws Exception {
+        final LoggerDefinitionHandler handler = new LoggerDefinitionHandler("NCS", "S1", ECU_INIT);
+        getSaxParser().parse(definition, handler);
+        return new LoggerDefinitionSnapshot(handler);
+    }
+
+    @Test
+    public void snapshotReadsBackAsParsed() throws Exception {
+        final LoggerDefinitionSnapshot parsed = parse();
+        parsed.write(snapshotFile, definition);
+        final LoggerDefinitionSnapshot read = LoggerDefinitionSnapshot.read(snapshotFile, definition);
+        assertNotNull(read);
+
+        assertEquals("1.0", read.getVersion());
+        final KwpConnectionProperties properties = (KwpConnectionProperties) read.getConnectionProperties();
+        assertEquals(10400, properties.getBaudRate());
+        assertEquals(55, properties.getP3Min());
+
+        final Map<Transport, Collection<Module>> transports = read.getProtocols().get("NCS");
+        final Transport transport = transports.keySet().iterator().next();
+        assertEquals(parsed.getProtocols().get("NCS").keySet().iterator().next().getId(),
+                transport.getId());
+        final Module module = transports.get(transport).iterator().next();
+        assertEquals("ECU", module.getName());
+        assertArrayEquals(new byte[]{0x10}, module.getAddress());
+        assertArrayEquals(new byte[]{(byte) 0xFC}, module.getTester());
+        assertTrue(module.getFastPoll());
+
+        assertData(parsed.getEcuParameters(), read.getEcuParameters());
+        assertData(parsed.getEcuSwitches(), read.getEcuSwitches());
+        assertData(parsed.getEcuCodes(), read.getEcuCodes());
+        assertEquals("S1", read.getFileLoggingControllerSwitch().getId());
+
+        final List<EcuParameter> parameters = read.getEcuParameters();
+        assertEquals(4, parameters.size());
+        final EcuDataConvertor load = parameters.get(0).getConvertors()[0];
+        assertEquals("idle", load.format(0.0));
+        assertEquals(100.0, load.convert(new byte[]{(byte) 0xC8, 0x00}), 0.0);
+        final EcuDataConvertor derived = parameters.get(2).getSelectedConvertor();
+        final EcuDataConvertor parsedDerived = parsed.getEcuParameters().get(2).getSelectedConvertor();
+        final byte[] bytes = {(byte) 0xC8, 0x00, 0x03};
+        assertEquals(parsedDerived.convert(bytes), derived.convert(bytes), 0.0);
+    }
+
+    @Test
+    public void changedDefinitionIsIgnored() throws Exception {
+        parse().write(snapshotFile, definition);
+        write(DEFINITION.replace("Engine Load", "Load"));
+        definition.setLastModified(definition.lastModified() + 2000);
+        assertNull(LoggerDefinitionSnapshot.read(snapshotFile, definition));
+    }
+
+    @Test
+    public void snapshotFileDependsOnEcu() {
+        final File dir = snapshotFile.getParentFile();
+        final File ecu = LoggerDefinitionSnapshot.getSnapshotFile(dir, definition, "NCS", "S1", ECU_INIT);
+        assertEquals(ecu, LoggerDefinitionSnapshot.getSnapshotFile(dir, definition, "ncs", "S1", ECU_INIT));
+        assertTrue(!ecu.equals(LoggerDefinitionSnapshot.getSnapshotFile(dir, definition, "NCS", "S1", null)));
+    }
+
+    private static void assertData(List<? extends EcuData> expected, List<? extends EcuData> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final EcuData e = expected.get(i);
+            final EcuData a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getDescription(), a.getDescription());
+            assertArrayEquals(e.getAddress().getAddresses(), a.getAddress().getAddresses());
+            assertArrayEquals(e.getAddress().getBytes(), a.getAddress().getBytes());
+            assertEquals(e.getAddress().getBit(), a.getAddress().getBit());
+            assertEquals(e.getGroup(), a.getGroup());
+            assertEquals(e.getGroupSize(), a.getGroupSize());
+            assertEquals(e.getConvertors().length, a.getConvertors().length);
+            for (int j = 0; j < e.getConvertors().length; j++) {
+                final EcuDataConvertor ec = e.getConvertors()[j];
+                final EcuDataConvertor ac = a.getConvertors()[j];
+                assertEquals(ec.getClass(), ac.getClass());
+                assertEquals(ec.getUnits(), ac.getUnits());
+                assertEquals(ec.getExpression(), ac.getExpression());
+                assertEquals(ec.getFormat(), ac.getFormat());
+                assertEquals(ec.getDataType(), ac.getDataType());
+                assertEquals(ec.getGaugeMinMax().max, ac.getGaugeMinMax().max, 0.0);
+            }
+        }
+    }
+}
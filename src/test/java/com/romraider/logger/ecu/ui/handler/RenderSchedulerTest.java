@@ -0,0 +1,68 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.romraider.logger.ecu.ui.handler.RenderScheduler.Renderer;
+
+public class RenderSchedulerTest {
+
+    @Test
+    public void frameRequestedWhileStoppingIsDrawn() throws InterruptedException {
+        final RenderScheduler scheduler = RenderScheduler.getInstance();
+        final CountDownLatch drawn = new CountDownLatch(1);
+        final Renderer renderer = new Renderer() {
+            // the first frame shows a value, so the idle count starts at 0
+            private boolean value = true;
+            private int idle;
+
+            @Override
+            public boolean render() {
+                if (value) {
+                    value = false;
+                    if (idle > 0) {
+                        drawn.countDown();
+                    }
+                    return true;
+                }
+                // the last idle frame before the timer stops, a value is
+                // published while the timer still runs
+                if (++idle == 61) {
+                    value = true;
+                    scheduler.requestFrame();
+                }
+                return false;
+            }
+        };
+        scheduler.addRenderer(renderer);
+        try {
+            scheduler.requestFrame();
+            assertTrue(drawn.await(5, SECONDS));
+        } finally {
+            scheduler.removeRenderer(renderer);
+        }
+    }
+}
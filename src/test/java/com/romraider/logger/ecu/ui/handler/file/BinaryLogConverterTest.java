@@ -0,0 +1,155 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.MessageListener;
+
+public class BinaryLogConverterTest {
+    private static final MessageListener SILENT = new MessageListener() {
+        public void reportStats(String message) {}
+        public void reportMessage(String message) {}
+        public void reportMessageInTitleBar(String message) {}
+        public void reportError(String error) {}
+        public void reportError(Exception e) {}
+        public void reportError(String error, Exception e) {}
+    };
+    private static final LoggerData RPM = parameter("P8", "Engine Speed", "0x00000E", "rpm", "0");
+    private static final LoggerData ECT = parameter("P2", "Coolant Temperature", "0x000008", "C", "0.0");
+    private Locale locale;
+    private File source;
+    private File target;
+
+    private static LoggerData parameter(String id, String name, String address,
+            String units, String format) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(
+                units, "x", format, -1, "uint16", Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault());
+        return new EcuParameterImpl(id, name, name, new EcuAddressImpl(address, 2, -1),
+                null, null, null, new EcuDataConvertor[]{convertor});
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        // the converter formats numbers in the default locale
+        locale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        source = File.createTempFile("romraiderlog_", BinaryFileLogger.EXTENSION);
+        target = File.createTempFile("romraiderlog_", ".csv");
+    }
+
+    @After
+    public void tearDown() {
+        source.delete();
+        target.delete();
+        Locale.setDefault(locale);
+    }
+
+    @Test
+    public void convertsRowsAndSchemaChanges() throws IOException {
+        final BinaryFileLogger logger = new BinaryFileLogger(SILENT);
+        logger.start(source.getPath(), false);
+        logger.writeSchema(Arrays.asList(RPM, ECT));
+        logger.writeRow(1000L, new double[]{2500.4, 85.25});
+        logger.writeRow(1050L, new double[]{2510.6, 85.0});
+        logger.writeSchema(Arrays.asList(RPM));
+        logger.writeRow(1100L, new double[]{2520.0});
+        logger.stop();
+
+        assertEquals(3, BinaryLogConverter.convert(source, target, ","));
+        final List<String> lines = read();
+        assertEquals(5, lines.size());
+        assertEquals("Time (msec),Engine Speed (rpm),Coolant Temperature (C)", lines.get(0));
+        assertEquals("0,2500,85.2", lines.get(1));
+        assertEquals("50,2511,85.0", lines.get(2));
+        assertEquals("Time (msec),Engine Speed (rpm)", lines.get(3));
+        assertEquals("100,2520", lines.get(4));
+    }
+
+    @Test
+    public void keepsRowsOfTruncatedLog() throws IOException {
+        final BinaryFileLogger logger = new BinaryFileLogger(SILENT);
+        logger.start(source.getPath(), false);
+        logger.writeSchema(Arrays.asList(RPM));
+        logger.writeRow(1000L, new double[]{800.0});
+        logger.writeRow(1020L, new double[]{810.0});
+        logger.stop();
+        // cut the last row short, as a crash while logging would
+        final RandomAccessFile file = new RandomAccessFile(source, "rw");
+        try {
+            file.setLength(file.length() - 5);
+        } finally {
+            file.close();
+        }
+
+        assertEquals(1, BinaryLogConverter.convert(source, target, ";"));
+        final List<String> lines = read();
+        assertEquals(2, lines.size());
+        assertEquals("Time (msec);Engine Speed (rpm)", lines.get(0));
+        assertEquals("0;800", lines.get(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        final DataOutputStream out = new DataOutputStream(new FileOutputStream(source));
+        out.writeBytes("Time (msec),Engine Speed (rpm)");
+        out.close();
+        BinaryLogConverter.convert(source, target, ",");
+    }
+
+    private List<String> read() throws IOException {
+        final List<String> lines = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(new FileReader(target));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+}
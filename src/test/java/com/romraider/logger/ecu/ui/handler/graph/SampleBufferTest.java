@@ -0,0 +1,114 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SampleBufferTest {
+
+    @Test
+    public final void testFewSamplesAreNotDecimated() {
+        final SampleBuffer buffer = new SampleBuffer();
+        for (int i = 0; i < 10; i++) {
+            buffer.add(i, i * 2);
+        }
+        final SampleBuffer.Points points = buffer.decimate(Double.NaN, Double.NaN, 100, null);
+        assertEquals(10, points.size());
+        assertEquals(9.0, points.getX(9), 0.0);
+        assertEquals(18.0, points.getY(9), 0.0);
+    }
+
+    @Test
+    public final void testDecimateKeepsPeaks() {
+        final SampleBuffer buffer = new SampleBuffer();
+        for (int i = 0; i < 100000; i++) {
+            buffer.add(i / 10.0, i == 54321 ? 1000 : i % 7);
+        }
+        final SampleBuffer.Points points = buffer.decimate(Double.NaN, Double.NaN, 500, null);
+        assertTrue(points.size() <= 1000);
+        double max = 0;
+        for (int i = 0; i < points.size(); i++) {
+            max = Math.max(max, points.getY(i));
+        }
+        assertEquals(1000.0, max, 0.0);
+        assertEquals(0.0, points.getX(0), 0.0);
+        assertEquals(9999.9, points.getX(points.size() - 1), 1e-9);
+    }
+
+    @Test
+    public final void testDecimateSpan() {
+        final SampleBuffer buffer = new SampleBuffer();
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(i, i);
+        }
+        final SampleBuffer.Points points = buffer.decimate(100.5, 200.5, 1000, null);
+        assertEquals(102, points.size());
+        assertEquals(100.0, points.getX(0), 0.0);
+        assertEquals(201.0, points.getX(101), 0.0);
+    }
+
+    @Test
+    public final void testOldestSamplesOverwritten() {
+        final SampleBuffer buffer = new SampleBuffer(128);
+        for (int i = 0; i < 300; i++) {
+            buffer.add(i, i);
+        }
+        final SampleBuffer.Points points = buffer.decimate(Double.NaN, Double.NaN, 1000, null);
+        assertEquals(108, points.size());
+        assertEquals(192.0, points.getX(0), 0.0);
+        assertEquals(299.0, points.getY(points.size() - 1), 0.0);
+        buffer.clear();
+        assertEquals(0, buffer.decimate(Double.NaN, Double.NaN, 10, null).size());
+    }
+
+    @Test
+    public final void testCapacityShared() {
+        final long budget = 64L << 20;
+        assertEquals(SampleBuffer.MAX_CAPACITY, SampleBuffer.capacityFor(budget, 1));
+        assertEquals(1 << 19, SampleBuffer.capacityFor(budget, 8));
+        assertEquals(1 << 17, SampleBuffer.capacityFor(budget, 40));
+        assertEquals(SampleBuffer.MIN_CAPACITY, SampleBuffer.capacityFor(budget, 100000));
+    }
+
+    @Test
+    public final void testShrinkKeepsNewestSamples() {
+        final SampleBuffer buffer = new SampleBuffer(1024);
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(i, i % 10 == 0 ? -i : i);
+        }
+        buffer.setMaxCapacity(256);
+        buffer.add(1000, 1000);
+        assertEquals(256, buffer.size());
+        final SampleBuffer.Points all = buffer.decimate(Double.NaN, Double.NaN, 1000, null);
+        assertEquals(768.0, all.getX(0), 0.0);
+        assertEquals(1000.0, all.getY(all.size() - 1), 0.0);
+
+        // the block summaries moved with the samples
+        final SampleBuffer.Points few = buffer.decimate(Double.NaN, Double.NaN, 2, null);
+        double min = 0;
+        for (int i = 0; i < few.size(); i++) {
+            min = Math.min(min, few.getY(i));
+        }
+        assertEquals(-990.0, min, 0.0);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameter;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+
+public class PlaybackManagerImplTest {
+    private static final EcuParameter RPM = parameter("P8", "Engine Speed", "rpm");
+    private static final EcuParameter ECT = parameter("P2", "Coolant Temperature", "C");
+    private static final EcuParameter MAFV = parameter("P18", "Mass Airflow Sensor Voltage", "V");
+    private File log;
+    private RecordingHandler handler;
+    private PlaybackManagerImpl playback;
+
+    @Before
+    public void setUp() throws IOException {
+        log = File.createTempFile("romraiderlog_", ".csv");
+        handler = new RecordingHandler();
+        playback = new PlaybackManagerImpl(Arrays.asList(RPM, ECT, MAFV), handler);
+    }
+
+    @After
+    public void tearDown() {
+        log.delete();
+    }
+
+    @Test
+    public void readsRowsWithoutStrings() throws IOException {
+        write("Time;Engine Speed (rpm);Coolant Temperature (C)\r\n" +
+              "23:59:59.900;2500;85,25\r\n" +
+              "\r\n" +
+              "00:00:00.050;-1,5E2;idle\r\n");
+        final CsvLogReader reader = new CsvLogReader(log);
+        try {
+            assertTrue(reader.isAbsoluteTime());
+            assertArrayEquals(new String[]{"Engine Speed (rpm)", "Coolant Temperature (C)"},
+                    reader.getHeaders());
+            assertTrue(reader.next());
+            assertEquals(86399900L, reader.getTime());
+            assertArrayEquals(new double[]{2500.0, 85.25}, reader.getValues(), 0.0);
+            assertTrue(reader.next());
+            assertEquals(86400050L, reader.getTime());
+            assertEquals(-150.0, reader.getValues()[0], 0.0);
+            assertTrue(Double.isNaN(reader.getValues()[1]));
+            assertFalse(reader.next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void replaysAllRowsAsFastAsPossible() throws IOException {
+        final StringBuilder sb = new StringBuilder(
+                "Time (msec),Engine Speed (rpm),Unknown (x),Coolant Temperature (C)\n");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i * 50).append(',').append(800 + i).append(",1,")
+              .append(i == 1 ? "" : "80.5").append('\n');
+        }
+        write(sb.toString());
+
+        playback.load(log);
+        assertEquals(Arrays.<LoggerData>asList(RPM, ECT), handler.registered);
+        playback.play(PlaybackManagerImpl.FASTEST);
+        assertEquals(1000, handler.responses.size());
+        assertEquals(1000, playback.getRowCount());
+
+        final Response first = handler.responses.get(0);
+        final Response last = handler.responses.get(999);
+        assertEquals(2, first.getSchema().size());
+        assertEquals(800.0, first.getDataValue(RPM), 0.0);
+        assertEquals(80.5, handler.responses.get(1).getDataValue(ECT), 0.0);
+        assertEquals(1799.0, last.getDataValue(RPM), 0.0);
+        assertEquals(999 * 50L, last.getTimestamp() - first.getTimestamp());
+
+        playback.stop();
+        playback.step(10);
+        assertEquals(1010, handler.responses.size());
+        assertEquals(800.0, handler.responses.get(1000).getDataValue(RPM), 0.0);
+    }
+
+    @Test
+    public void followsHeaderChanges() throws IOException {
+        write("Time (msec),Engine Speed (rpm)\n" +
+              "0,800\n" +
+              "Time (msec),Engine Speed (rpm),Mass Airflow Sensor Voltage (V)\n" +
+              "50,900,1.25\n" +
+              "100,,1.5\n");
+        playback.load(log);
+        playback.play(100);
+        assertEquals(Arrays.<LoggerData>asList(RPM, MAFV), handler.registered);
+        assertEquals(3, handler.responses.size());
+        assertEquals(1, handler.responses.get(0).getSchema().size());
+        assertEquals(1.25, handler.responses.get(1).getDataValue(MAFV), 0.0);
+        assertEquals(900.0, handler.responses.get(2).getDataValue(RPM), 0.0);
+        assertEquals(1.5, handler.responses.get(2).getDataValue(MAFV), 0.0);
+
+        playback.reset();
+        assertTrue(handler.registered.isEmpty());
+        assertEquals(1, handler.resets);
+    }
+
+    private void write(String text) throws IOException {
+        final FileOutputStream out = new FileOutputStream(log);
+        try {
+            out.write(text.getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static EcuParameter parameter(String id, String name, String units) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(
+                units, "x", "0.00", -1, "uint16", Settings.Endian.BIG,
+                new HashMap<String, String>(), getDefault());
+        return new EcuParameterImpl(id, name, id,
+                new EcuAddressImpl("0x000000", 2, -1),
+                null, null, null, new EcuDataConvertor[]{convertor});
+    }
+
+    private static final class RecordingHandler implements DataUpdateHandler {
+        private final List<LoggerData> registered = new ArrayList<LoggerData>();
+        private final List<Response> responses = new ArrayList<Response>();
+        private int resets;
+
+        @Override
+        public void registerData(LoggerData loggerData) {
+            registered.add(loggerData);
+        }
+
+        @Override
+        public void handleDataUpdate(Response response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void deregisterData(LoggerData loggerData) {
+            registered.remove(loggerData);
+        }
+
+        @Override
+        public void cleanUp() {
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SampleRingTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public final void testEmpty() {
+        assertTrue(Double.isNaN(new SampleRing().valueAt(1000L)));
+    }
+
+    @Test
+    public final void testInterpolate() {
+        final SampleRing ring = new SampleRing(8);
+        ring.publish(100L, 10.0);
+        ring.publish(110L, 20.0);
+        ring.publish(120L, 40.0);
+        assertEquals(15.0, ring.valueAt(105L), DELTA);
+        assertEquals(30.0, ring.valueAt(115L), DELTA);
+        assertEquals(20.0, ring.valueAt(110L), DELTA);
+        // held after the newest and before the oldest sample
+        assertEquals(40.0, ring.valueAt(200L), DELTA);
+        assertEquals(10.0, ring.valueAt(50L), DELTA);
+    }
+
+    @Test
+    public final void testOverwrite() {
+        final SampleRing ring = new SampleRing(8);
+        for (int i = 0; i < 20; i++) {
+            ring.publish(i * 10L, i);
+        }
+        assertEquals(20L, ring.getPublished());
+        assertEquals(18.5, ring.valueAt(185L), DELTA);
+        // only the newest half of the ring is read
+        assertEquals(16.0, ring.valueAt(0L), DELTA);
+    }
+
+    @Test
+    public final void testTimestamps() {
+        final SampleRing ring = new SampleRing(16);
+        for (int i = 0; i < 6; i++) {
+            ring.publish(i * 10L, i);
+        }
+        final long[] buffer = new long[5];
+        assertEquals(3, ring.timestamps(10L, 40L, buffer, 1));
+        assertArrayEquals(new long[]{0L, 20L, 30L, 40L, 0L}, buffer);
+        // the newest timestamps are kept if the array is short
+        assertEquals(2, ring.timestamps(-1L, 100L, buffer, 3));
+        assertEquals(40L, buffer[3]);
+        assertEquals(50L, buffer[4]);
+    }
+}
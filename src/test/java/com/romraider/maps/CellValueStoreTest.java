@@ -0,0 +1,164 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class CellValueStoreTest {
+
+    @BeforeClass
+    public static void useDefaultSettings() {
+        SettingsManager.setTesting(true);
+    }
+
+    private static Table1D table(int storageType, int size) {
+        final byte[] binary = new byte[0x100];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) i;
+        }
+        final Rom rom = new Rom(new RomID());
+        rom.populateTables(binary, new JProgressPane());
+        final Table1D table = new Table1D();
+        table.setName("Values");
+        table.setStorageType(storageType);
+        table.setStorageAddress(0x10);
+        table.setDataSize(size);
+        table.populateTable(rom);
+        return table;
+    }
+
+    @Test
+    public void valuesRoundTripThroughTheCells() throws UserLevelException {
+        final Table1D table = table(1, 4);
+        final DataCell[] cells = table.getData();
+        final CellValueStore store = table.getCellValues();
+        assertEquals(4, store.size());
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals(0x10 + i, cells[i].getBinValue(), 0.0);
+            assertEquals(0x10 + i, cells[i].getOriginalValue(), 0.0);
+        }
+
+        cells[2].setBinValue(99);
+        assertEquals(99, cells[2].getBinValue(), 0.0);
+        assertEquals(99, table.getRom().getBinary()[0x12]);
+        // the revert point and the other cells are left alone
+        assertEquals(0x12, cells[2].getOriginalValue(), 0.0);
+        assertEquals(0x11, cells[1].getBinValue(), 0.0);
+        assertEquals(0x13, cells[3].getBinValue(), 0.0);
+
+        cells[2].undo();
+        assertEquals(0x12, cells[2].getBinValue(), 0.0);
+        cells[2].setBinValue(42);
+        cells[2].setRevertPoint();
+        assertEquals(42, cells[2].getOriginalValue(), 0.0);
+    }
+
+    @Test
+    public void storeGrowsPastItsCapacity() {
+        final CellValueStore store = new CellValueStore(2);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, store.allocate());
+            store.setBinValue(i, i * 10);
+        }
+        store.setLiveValue(9, "1.5");
+        assertEquals(10, store.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i * 10, store.getBinValue(i), 0.0);
+        }
+        assertEquals("1.5", store.getLiveValue(9));
+        assertEquals(Settings.BLANK, store.getLiveValue(0));
+    }
+
+    @Test
+    public void selectionIsKeptPerCell() {
+        final Table1D table = table(1, 70);
+        final DataCell[] cells = table.getData();
+        // past the first word of the bit set
+        cells[3].setSelected(true);
+        cells[65].setSelected(true);
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals(i == 3 || i == 65, cells[i].isSelected());
+        }
+        cells[3].setSelected(false);
+        assertFalse(cells[3].isSelected());
+        assertTrue(cells[65].isSelected());
+    }
+
+    @Test
+    public void editsInvalidateCachedRealValues() throws UserLevelException {
+        final Table1D table = table(1, 4);
+        final CellValueStore store = table.getCellValues();
+        final double[] before = table.getRealValues();
+        assertSame(before, table.getRealValues());
+
+        final int modCount = store.getModCount();
+        table.getData()[1].setBinValue(77);
+        assertTrue(store.getModCount() != modCount);
+        final double[] after = table.getRealValues();
+        assertNotSame(before, after);
+        assertEquals(77, after[1], 0.0);
+
+        // setting the same value again is not a change
+        final int unchanged = store.getModCount();
+        table.getData()[1].setBinValue(77);
+        assertEquals(unchanged, store.getModCount());
+        assertSame(after, table.getRealValues());
+    }
+
+    @Test
+    public void allowedRangeFollowsTheTable() throws UserLevelException {
+        final Table1D table = table(1, 2);
+        final DataCell cell = table.getData()[0];
+        assertEquals(0, cell.getMinAllowedBin(), 0.0);
+        assertEquals(255, cell.getMaxAllowedBin(), 0.0);
+        cell.setBinValue(300);
+        assertEquals(255, cell.getBinValue(), 0.0);
+
+        table.setSignedData(true);
+        assertEquals(Byte.MIN_VALUE, cell.getMinAllowedBin(), 0.0);
+        assertEquals(Byte.MAX_VALUE, cell.getMaxAllowedBin(), 0.0);
+        cell.setBinValue(-200);
+        assertEquals(Byte.MIN_VALUE, cell.getBinValue(), 0.0);
+        cell.setBinValue(200);
+        assertEquals(Byte.MAX_VALUE, cell.getBinValue(), 0.0);
+    }
+
+    @Test
+    public void allowedRangeFollowsTheBitMask() throws UserLevelException {
+        final Table1D table = table(2, 2);
+        final DataCell cell = table.getData()[0];
+        assertEquals(0xFFFF, cell.getMaxAllowedBin(), 0.0);
+        cell.setBitMask(0x0F0);
+        assertEquals(0xF, cell.getMaxAllowedBin(), 0.0);
+        cell.setBinValue(100);
+        assertEquals(0xF, cell.getBinValue(), 0.0);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class DataCellIndexTest {
+    private final Table1D table = new Table1D();
+
+    @Test
+    public void cellsAtOneAddressAreChained() {
+        final DataCellIndex index = new DataCellIndex();
+        final DataCell first = new DataCell(table);
+        final DataCell second = new DataCell(table);
+        final DataCell other = new DataCell(table);
+        index.add(0x1000, first);
+        index.add(0x2000, other);
+        index.add(0x1000, second);
+
+        final List<DataCell> found = index.get(0x1000);
+        assertEquals(2, found.size());
+        assertTrue(found.contains(first));
+        assertTrue(found.contains(second));
+        assertEquals(1, index.get(0x2000).size());
+        assertNull(index.get(0x3000));
+    }
+
+    @Test
+    public void indexGrowsAndClears() {
+        final DataCellIndex index = new DataCellIndex();
+        final DataCell cell = new DataCell(table);
+        // past the initial key and cell capacity
+        for (int address = 0; address < 5000; address++) {
+            index.add(address * 4, cell);
+        }
+        for (int address = 0; address < 5000; address++) {
+            assertEquals(1, index.get(address * 4).size());
+        }
+        assertNull(index.get(2));
+
+        index.clear();
+        assertNull(index.get(0));
+        index.add(0, cell);
+        assertEquals(1, index.get(0).size());
+    }
+}
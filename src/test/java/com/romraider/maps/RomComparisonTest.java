@@ -0,0 +1,191 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.maps.RomComparison.ByteRange;
+import com.romraider.maps.RomComparison.Status;
+import com.romraider.maps.RomComparison.TableDiff;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class RomComparisonTest {
+
+    @BeforeClass
+    public static void useDefaultSettings() {
+        SettingsManager.setTesting(true);
+    }
+
+    private static byte[] binary(int size) {
+        final byte[] binary = new byte[size];
+        for (int i = 0; i < size; i++) {
+            binary[i] = (byte) i;
+        }
+        return binary;
+    }
+
+    private static Rom rom(byte[] binary, Table... tables) {
+        final Rom rom = new Rom(new RomID());
+        for (Table table : tables) {
+            rom.addTableByName(table);
+        }
+        rom.populateTables(binary, new JProgressPane());
+        return rom;
+    }
+
+    private static Table1D table1D(String name, int address, int size) {
+        final Table1D table = new Table1D();
+        table.setName(name);
+        table.setStorageType(1);
+        table.setStorageAddress(address);
+        table.setDataSize(size);
+        return table;
+    }
+
+    private static TableDiff diff(RomComparison comparison, String name) {
+        for (TableDiff diff : comparison.getTableDiffs()) {
+            if (diff.getName().equals(name)) {
+                return diff;
+            }
+        }
+        throw new AssertionError("No result for " + name);
+    }
+
+    @Test
+    public void equalRoms() {
+        final Rom left = rom(binary(0x40), table1D("A", 0x10, 4), table1D("B", 0x20, 8));
+        final Rom right = rom(binary(0x40), table1D("A", 0x10, 4), table1D("B", 0x20, 8));
+
+        final RomComparison comparison = RomComparison.compare(left, right);
+        assertEquals(2, comparison.getEqualCount());
+        assertEquals(0, comparison.getDifferentCount());
+        assertEquals(0, comparison.getMissingCount());
+        final TableDiff diff = diff(comparison, "B");
+        assertSame(Status.EQUAL, diff.getStatus());
+        assertEquals(0, diff.getChangedCells());
+        assertEquals(0, diff.getChangedRanges().size());
+    }
+
+    @Test
+    public void changedCells() {
+        final byte[] changed = binary(0x40);
+        changed[0x11] = 0;
+        changed[0x13] = 0;
+        final Rom left = rom(binary(0x40), table1D("A", 0x10, 4), table1D("B", 0x20, 8));
+        final Rom right = rom(changed, table1D("A", 0x10, 4), table1D("B", 0x20, 8));
+
+        final RomComparison comparison = RomComparison.compare(left, right);
+        assertEquals(1, comparison.getEqualCount());
+        assertEquals(1, comparison.getDifferentCount());
+        final TableDiff diff = diff(comparison, "A");
+        assertSame(Status.DIFFERENT, diff.getStatus());
+        assertEquals(4, diff.getCellCount());
+        assertEquals(2, diff.getChangedCells());
+    }
+
+    @Test
+    public void tableOnOneSideOnly() {
+        final Rom left = rom(binary(0x40), table1D("A", 0x10, 4), table1D("Left", 0x20, 2));
+        final Rom right = rom(binary(0x40), table1D("A", 0x10, 4), table1D("Right", 0x30, 2));
+
+        final RomComparison comparison = RomComparison.compare(left, right);
+        assertEquals(1, comparison.getEqualCount());
+        assertEquals(2, comparison.getMissingCount());
+        assertSame(Status.MISSING, diff(comparison, "Left").getStatus());
+        assertNull(diff(comparison, "Left").getRight());
+        assertSame(Status.MISSING, diff(comparison, "Right").getStatus());
+        assertNull(diff(comparison, "Right").getLeft());
+    }
+
+    @Test
+    public void changedBytesAreMergedIntoRanges() {
+        final Table1D leftTable = table1D("Word", 0x10, 8);
+        leftTable.setStorageType(2);
+        final Table1D rightTable = table1D("Word", 0x10, 8);
+        rightTable.setStorageType(2);
+        final byte[] changed = binary(0x40);
+        // two adjacent bytes, a gap, then the last byte of the table
+        changed[0x12] = 0;
+        changed[0x13] = 0;
+        changed[0x1F] = 0;
+        // outside the table
+        changed[0x20] = 0;
+
+        final RomComparison comparison = RomComparison.compare(
+                rom(binary(0x40), leftTable), rom(changed, rightTable));
+        final List<ByteRange> ranges = diff(comparison, "Word").getChangedRanges();
+        assertEquals(2, ranges.size());
+        assertEquals(2, ranges.get(0).getOffset());
+        assertEquals(2, ranges.get(0).getLength());
+        assertEquals(15, ranges.get(1).getOffset());
+        assertEquals(1, ranges.get(1).getLength());
+    }
+
+    @Test
+    public void differentMasksOverEqualBytes() {
+        final Table1D leftTable = table1D("Masked", 0x10, 2);
+        leftTable.setBitMask(0x0F);
+        final Table1D rightTable = table1D("Masked", 0x10, 2);
+        rightTable.setBitMask(0xF0);
+
+        final RomComparison comparison = RomComparison.compare(
+                rom(binary(0x40), leftTable), rom(binary(0x40), rightTable));
+        final TableDiff diff = diff(comparison, "Masked");
+        assertSame(Status.DIFFERENT, diff.getStatus());
+        assertEquals(2, diff.getChangedCells());
+    }
+
+    @Test
+    public void bitwiseSwitchSpansOneCell() {
+        final TableBitwiseSwitch leftTable = bitwiseSwitch();
+        final TableBitwiseSwitch rightTable = bitwiseSwitch();
+        final byte[] changed = binary(0x40);
+        changed[0x10] = 0x11;
+        // the next byte is not part of the switch
+        changed[0x11] = 0;
+
+        final RomComparison comparison = RomComparison.compare(
+                rom(binary(0x40), leftTable), rom(changed, rightTable));
+        final TableDiff diff = diff(comparison, "Switch");
+        assertSame(Status.DIFFERENT, diff.getStatus());
+        assertEquals(1, diff.getChangedCells());
+        assertEquals(1, diff.getChangedRanges().size());
+        assertEquals(0, diff.getChangedRanges().get(0).getOffset());
+        assertEquals(1, diff.getChangedRanges().get(0).getLength());
+    }
+
+    private static TableBitwiseSwitch bitwiseSwitch() {
+        final TableBitwiseSwitch table = new TableBitwiseSwitch();
+        table.setName("Switch");
+        table.setStorageAddress(0x10);
+        table.setPresetValues("Bit 0", "0");
+        table.setPresetValues("Bit 1", "1");
+        table.setPresetValues("Bit 4", "4");
+        return table;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+
+public class TableEditTest {
+    private Rom rom;
+
+    @BeforeClass
+    public static void useDefaultSettings() {
+        SettingsManager.setTesting(true);
+    }
+
+    private Rom rom(int size) {
+        final byte[] binary = new byte[size];
+        for (int i = 0; i < size; i++) {
+            binary[i] = (byte) i;
+        }
+        rom = new Rom(new RomID());
+        rom.populateTables(binary, new JProgressPane());
+        return rom;
+    }
+
+    private static Table1D table1D(String name, int address, int size) {
+        final Table1D table = new Table1D();
+        table.setName(name);
+        table.setStorageType(1);
+        table.setStorageAddress(address);
+        table.setDataSize(size);
+        return table;
+    }
+
+    private static void set(Table table, double... values) throws UserLevelException {
+        final TableEdit edit = table.beginEdit();
+        for (int i = 0; i < values.length; i++) {
+            edit.setBinValue(table.getData()[i], values[i]);
+        }
+        assertTrue(edit.commit());
+    }
+
+    private static double[] binValues(Table table) {
+        final DataCell[] data = table.getData();
+        final double[] values = new double[data.length];
+        for (int i = 0; i < data.length; i++) {
+            values[i] = data[i].getBinValue();
+        }
+        return values;
+    }
+
+    @Test
+    public void undoRestoresWholeBatch() throws UserLevelException {
+        final Table1D table = table1D("Batch", 0x10, 4);
+        table.populateTable(rom(0x40));
+        final byte[] before = rom.getBinary().clone();
+
+        set(table, 100, 101, 102, 103);
+        assertArrayEquals(new double[]{100, 101, 102, 103}, binValues(table), 0.0);
+        set(table, 200, 201);
+        assertArrayEquals(new double[]{200, 201, 102, 103}, binValues(table), 0.0);
+
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{100, 101, 102, 103}, binValues(table), 0.0);
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{0x10, 0x11, 0x12, 0x13}, binValues(table), 0.0);
+        assertArrayEquals(before, rom.getBinary());
+        assertFalse(table.undoLastEdit());
+    }
+
+    @Test
+    public void unchangedBatchIsNotKept() throws UserLevelException {
+        final Table1D table = table1D("Unchanged", 0x10, 2);
+        table.populateTable(rom(0x20));
+        final TableEdit edit = table.beginEdit();
+        edit.setBinValue(table.getData()[0], 0x10);
+        assertFalse(edit.commit());
+        assertEquals(0, table.getLastEditSequence());
+    }
+
+    @Test
+    public void oldestEditsAreEvicted() throws UserLevelException {
+        final Table1D table = table1D("Evicted", 0x10, 1);
+        table.populateTable(rom(0x20));
+        // 60 edits, only the last 50 are kept
+        for (int i = 1; i <= 60; i++) {
+            set(table, 100 + i);
+        }
+        int undone = 0;
+        while (table.undoLastEdit()) {
+            undone++;
+        }
+        assertEquals(50, undone);
+        // back to the value before the oldest kept edit, not the original
+        assertEquals(110, table.getData()[0].getBinValue(), 0.0);
+    }
+
+    @Test
+    public void table2DUndoesAxisAndDataInOrder() throws UserLevelException {
+        final Table2D table = new Table2D();
+        table.setName("2D");
+        table.setStorageType(1);
+        table.setStorageAddress(0x20);
+        table.setDataSize(3);
+        table.setAxis(table1D("Axis", 0x10, 3));
+        table.populateTable(rom(0x40));
+        final Table1D axis = table.getAxis();
+
+        set(table, 50, 51, 52);
+        set(axis, 1, 2, 3);
+        set(table, 60);
+
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{50, 51, 52}, binValues(table), 0.0);
+        assertArrayEquals(new double[]{1, 2, 3}, binValues(axis), 0.0);
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{0x10, 0x11, 0x12}, binValues(axis), 0.0);
+        assertArrayEquals(new double[]{50, 51, 52}, binValues(table), 0.0);
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{0x20, 0x21, 0x22}, binValues(table), 0.0);
+        assertFalse(table.undoLastEdit());
+    }
+
+    @Test
+    public void table3DUndoesAxesAndDataInOrder() throws UserLevelException {
+        final Table3D table = new Table3D();
+        table.setName("3D");
+        table.setStorageType(1);
+        table.setStorageAddress(0x20);
+        table.setSizeX(2);
+        table.setSizeY(2);
+        table.setXAxis(table1D("X", 0x10, 2));
+        table.setYAxis(table1D("Y", 0x18, 2));
+        table.populateTable(rom(0x40));
+        final Table1D xAxis = table.getXAxis();
+        final Table1D yAxis = table.getYAxis();
+        final DataCell cell = table.get3dData()[1][1];
+
+        set(yAxis, 7, 8);
+        final TableEdit edit = table.beginEdit();
+        edit.setBinValue(cell, 99);
+        assertTrue(edit.commit());
+        set(xAxis, 5, 6);
+
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{0x10, 0x11}, binValues(xAxis), 0.0);
+        assertEquals(99, cell.getBinValue(), 0.0);
+        assertTrue(table.undoLastEdit());
+        assertEquals(0x23, cell.getBinValue(), 0.0);
+        assertArrayEquals(new double[]{7, 8}, binValues(yAxis), 0.0);
+        assertTrue(table.undoLastEdit());
+        assertArrayEquals(new double[]{0x18, 0x19}, binValues(yAxis), 0.0);
+        assertFalse(table.undoLastEdit());
+    }
+}
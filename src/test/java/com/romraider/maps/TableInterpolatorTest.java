@@ -0,0 +1,66 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TableInterpolatorTest {
+    final double[] rpm = {800, 1600, 2400, 3200};
+    final double[] load = {0.5, 1.0, 1.5};
+    final double[] timing = {
+        10, 12, 14,
+        20, 22, 24,
+        30, 32, 34,
+        40, 42, 44};
+
+    @Test
+    public final void testFloorIndex() {
+        assertEquals(-1, TableInterpolator.floorIndex(rpm, 700));
+        assertEquals(0, TableInterpolator.floorIndex(rpm, 800));
+        assertEquals(1, TableInterpolator.floorIndex(rpm, 2000));
+        assertEquals(3, TableInterpolator.floorIndex(rpm, 9000));
+    }
+
+    @Test
+    public final void testFloorIndexDescending() {
+        final double[] axis = {3.0, 2.0, 1.0};
+        assertEquals(-1, TableInterpolator.floorIndex(axis, 3.5));
+        assertEquals(1, TableInterpolator.floorIndex(axis, 1.5));
+        assertEquals(2, TableInterpolator.floorIndex(axis, 0.0));
+    }
+
+    @Test
+    public final void testInterpolate2D() {
+        final double[] values = {1.0, 2.0, 4.0, 8.0};
+        assertEquals(3.0, TableInterpolator.interpolate(rpm, values, 2000), 1e-9);
+        assertEquals(1.0, TableInterpolator.interpolate(rpm, values, 0), 1e-9);
+        assertEquals(8.0, TableInterpolator.interpolate(rpm, values, 5000), 1e-9);
+    }
+
+    @Test
+    public final void testInterpolate3D() {
+        assertEquals(22.0, TableInterpolator.interpolate(rpm, load, timing, 1600, 1.0), 1e-9);
+        assertEquals(26.0, TableInterpolator.interpolate(rpm, load, timing, 2000, 0.75), 1e-9);
+        assertEquals(44.0, TableInterpolator.interpolate(rpm, load, timing, 9000, 9), 1e-9);
+        assertEquals(10.0, TableInterpolator.interpolate(rpm, load, timing, 0, 0), 1e-9);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IncrementalChecksumTest {
+    final Random random = new Random(0);
+
+    @Test
+    public final void testDirtyRangesMerge() {
+        final DirtyRanges dirty = new DirtyRanges();
+        dirty.add(0x200, 0x210);
+        dirty.add(0x100, 0x110);
+        dirty.add(0x110, 0x120);
+        dirty.add(0x1F0, 0x300);
+        assertEquals("[0x100-0x120, 0x1F0-0x300]", dirty.toString());
+        assertTrue(dirty.intersects(0x11F, 0x130));
+        assertFalse(dirty.intersects(0x120, 0x1F0));
+        dirty.add(0, 0x1000);
+        assertEquals("[0x0-0x1000]", dirty.toString());
+        dirty.clear();
+        assertTrue(dirty.isEmpty());
+    }
+
+    @Test
+    public final void testIncrementalStd() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x0");
+        vars.put("end", "0x20000");
+        vars.put("sumloc", "0x7F00");
+        vars.put("xorloc", "0x7F04");
+        assertIncremental(new ChecksumSTD(), new ChecksumSTD(), vars);
+    }
+
+    @Test
+    public final void testIncrementalMotronicDouble() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x100");
+        vars.put("end", "0x8000");
+        vars.put("startsecond", "0x10003");
+        vars.put("endsecond", "0x1E000");
+        vars.put("loc", "0x1FF00");
+        assertIncremental(new ChecksumMOTRONICDOUBLE(), new ChecksumMOTRONICDOUBLE(), vars);
+    }
+
+    @Test
+    public final void testIncrementalAlt() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x0");
+        vars.put("end", "0x20000");
+        vars.put("sumloc", "0x7F00");
+        vars.put("xorloc", "0x7F04");
+        assertIncremental(new ChecksumALT(), new ChecksumALT(), vars);
+    }
+
+    @Test
+    public final void testIncrementalAlt2() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x0");
+        vars.put("end", "0x20000");
+        vars.put("sumloc", "0x7F00");
+        vars.put("xorloc", "0x7F04");
+        vars.put("skiploc", "0x7F08");
+        assertIncremental(new ChecksumALT2(), new ChecksumALT2(), vars);
+    }
+
+    @Test
+    public final void testIncrementalByteXor() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x0");
+        vars.put("end", "0x1FFF0");
+        vars.put("xorloc", "0x1FFF8");
+        assertIncremental(new ChecksumBYTEXOR(), new ChecksumBYTEXOR(), vars);
+    }
+
+    @Test
+    public final void testIncrementalMotronicSingle() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x0");
+        vars.put("end", "0x1FEFF");
+        vars.put("loc", "0x1FF00");
+        assertIncremental(new ChecksumMOTRONICSINGLE(), new ChecksumMOTRONICSINGLE(), vars);
+    }
+
+    @Test
+    public final void testIncrementalCopy() {
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", "0x0");
+        vars.put("end", "0xFFFF");
+        vars.put("loc", "0x10000");
+        assertIncremental(new ChecksumCOPY(), new ChecksumCOPY(), vars);
+    }
+
+    @Test
+    public final void testIncrementalE38Pcm() {
+        // the segments are read from an index in the image, edits of the
+        // index itself are left out so the segments stay valid
+        final int index = 0x10000;
+        final int[] segments = {
+                0x00000, 0x03FFF, 0x04000, 0x07FFF, 0x08000, 0x0BFFF,
+                0x0C000, 0x0FFFF, 0x10100, 0x17FFF, 0x18000, 0x1FFFF};
+        final int[] offsets = {0x24, 0x48, 0x6b, 0x8e, 0xb1, 0xd4};
+        final byte[] bin = new byte[0x20000];
+        random.nextBytes(bin);
+        for (int i = 0; i < offsets.length; i++) {
+            putInt(bin, index + offsets[i], segments[2 * i]);
+            putInt(bin, index + offsets[i] + 4, segments[2 * i + 1]);
+        }
+        assertIncremental(new ChecksumE38PCM(), new ChecksumE38PCM(),
+                new HashMap<String, String>(), bin, index, index + 0x100);
+    }
+
+    // an update from the cached sums writes the same bytes as a full update
+    private void assertIncremental(
+            IncrementalChecksumManager incremental, ChecksumManager full,
+            Map<String, String> vars) {
+
+        final byte[] bin = new byte[0x20000];
+        random.nextBytes(bin);
+        assertIncremental(incremental, full, vars, bin, 0, 0);
+    }
+
+    // as above, starting from the given image and never editing the bytes
+    // from fixedStart up to fixedEnd
+    private void assertIncremental(
+            IncrementalChecksumManager incremental, ChecksumManager full,
+            Map<String, String> vars, byte[] bin, int fixedStart, int fixedEnd) {
+
+        incremental.configure(vars);
+        full.configure(vars);
+        incremental.validate(bin);
+
+        final DirtyRanges dirty = new DirtyRanges();
+        for (int i = 0; i < 8; i++) {
+            int address = random.nextInt(bin.length - 4);
+            while (address >= fixedStart && address < fixedEnd) {
+                address = random.nextInt(bin.length - 4);
+            }
+            bin[address] ^= 0x5A;
+            dirty.add(address, address + 1);
+            final byte[] expected = bin.clone();
+            full.update(expected);
+
+            final DirtyRanges written = new DirtyRanges();
+            incremental.update(bin, dirty, written);
+            assertArrayEquals(expected, bin);
+            dirty.clear();
+            dirty.add(written);
+        }
+        assertEquals(full.getNumberOfChecksums(), full.validate(bin));
+    }
+
+    private static void putInt(byte[] bin, int address, int value) {
+        bin[address] = (byte) (value >>> 24);
+        bin[address + 1] = (byte) (value >>> 16);
+        bin[address + 2] = (byte) (value >>> 8);
+        bin[address + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public final void testBucketBounds() {
+        for (long v : new long[] {0, 1, 31, 32, 33, 63, 64, 1000, 123456789L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.highestValue(index) >= v);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValue(index - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public final void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMax());
+        assertEquals(500500L, histogram.getMean());
+        assertEquals(500000.0, histogram.getPercentile(50), 500000 * 0.032);
+        assertEquals(990000.0, histogram.getPercentile(99), 990000 * 0.032);
+        assertEquals(1000000L, histogram.getPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+}
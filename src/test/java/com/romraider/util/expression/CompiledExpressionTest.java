@@ -0,0 +1,106 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.nfunk.jep.JEP;
+
+import com.romraider.util.BitWise;
+
+public class CompiledExpressionTest {
+    private static final String[] EXPRESSIONS = {
+        "x",
+        "x*0.0078125",
+        "(x-128)*100/128",
+        "x*14.7/128+0.5",
+        "-x^2",
+        "2^3^2",
+        "x/4 - -3",
+        "x % 7",
+        "1.5e2 + .25 * x",
+        "(x<128)*x + (x>=128)*(x-256)",
+        "x == 42 || x != 3 && !(x > 100)",
+        "if(x-100, x/2, x*2)",
+        "sqrt(abs(x)) + ln(x+1) + log(x+1) + exp(x/1000)",
+        "sin(x) + cos(x) + tan(x/1000) + atan2(x, 3) + mod(x, 5)",
+        "BitWise(24, x, 1)",
+        "BitWise(4, x, 5) + BitWise(0, x, 7)",
+        "sum(x, 1, 2, 3)",
+    };
+
+    private static final double[] VALUES = {0, 1, 3, 42, 99.5, 127, 128, 200, 255, 65535, -17};
+
+    private static double jep(String expression, double x) {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        parser.addFunction("BitWise", new BitWise());
+        parser.initSymTab();
+        parser.addVariable("x", x);
+        parser.parseExpression(expression);
+        return parser.getValue();
+    }
+
+    @Test
+    public final void testMatchesJep() {
+        for (String expression : EXPRESSIONS) {
+            final CompiledExpression compiled = CompiledExpression.compile(expression);
+            for (double x : VALUES) {
+                assertEquals(expression + " at " + x,
+                        jep(expression, x), compiled.evaluate(x), 1.0E-9);
+            }
+        }
+    }
+
+    @Test
+    public final void testIdentity() {
+        assertTrue(CompiledExpression.compile(" x ").isIdentity());
+        assertTrue(CompiledExpression.compile("(x)").isIdentity());
+        assertFalse(CompiledExpression.compile("x*1").isIdentity());
+    }
+
+    @Test
+    public final void testNamedVariables() {
+        final CompiledExpression compiled =
+                CompiledExpression.compile("P8*_P2_C_+3", "P8", "_P2_C_");
+        assertEquals(2 * 5 + 3, compiled.evaluate(new double[]{2, 5}), 0.0);
+    }
+
+    @Test
+    public final void testDiscoveredVariables() {
+        final CompiledExpression compiled =
+                CompiledExpression.compile("rpm*load/boost + rpm", (String[]) null);
+        final String[] names = compiled.getVariables();
+        assertEquals(3, names.length);
+        assertEquals("rpm", names[0]);
+        assertEquals("load", names[1]);
+        assertEquals("boost", names[2]);
+        assertEquals(3000 * 2 / 4.0 + 3000, compiled.evaluate(new double[]{3000, 2, 4}), 0.0);
+    }
+
+    @Test
+    public final void testUnsupportedFallsBackToJep() {
+        final CompiledExpression compiled = CompiledExpression.compile("binom(x, 2)");
+        assertEquals(jep("binom(x, 2)", 5), compiled.evaluate(5), 0.0);
+    }
+}